@@ -0,0 +1,101 @@
+package ru.perveevm.polygon.benchmarks;
+
+import me.tongfei.progressbar.ProgressBar;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.openjdk.jmh.annotations.*;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares copying of a downloaded file byte by byte, as {@link HttpUtils#downloadFile} did before, with the 64 KiB
+ * chunks it copies now. Both variants download the file from {@link StubPolygonServer} over the loopback interface,
+ * so the copy reads from a real socket stream. The throughput is reported by the <code>megabytes</code> counter in
+ * MB/s.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadCopyBenchmark {
+    private static final int MEGABYTE = 1 << 20;
+
+    @Param({"16"})
+    private int megabytes;
+
+    private StubPolygonServer server;
+    private CloseableHttpClient client;
+    private String url;
+    private File downloadFile;
+
+    /**
+     * Counts copied megabytes, JMH reports the counter as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long megabytes;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = new byte[megabytes * MEGABYTE];
+        new Random(megabytes).nextBytes(data);
+
+        server = new StubPolygonServer();
+        server.setResponse("api/problem.package", data);
+        client = HttpUtils.createPooledClient(8, 8, 30000L, 60000L, 2000);
+        url = server.getBaseUrl() + "api/problem.package";
+        downloadFile = File.createTempFile("download", ".bin");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        Files.deleteIfExists(downloadFile.toPath());
+    }
+
+    @Benchmark
+    public void byteByByte(final Counters counters) throws IOException {
+        HttpResponse response = requestPackage();
+        try (ProgressBar pb = new ProgressBar("Downloading file", response.getEntity().getContentLength())) {
+            try (InputStream inputStream = new BufferedInputStream(response.getEntity().getContent(), MEGABYTE);
+                 OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(downloadFile), MEGABYTE)) {
+                int curByte;
+                while ((curByte = inputStream.read()) != -1) {
+                    outputStream.write(curByte);
+                    pb.step();
+                }
+            }
+        }
+        counters.megabytes += megabytes;
+    }
+
+    @Benchmark
+    public void chunked(final Counters counters) throws IOException, PolygonSessionException {
+        HttpUtils.downloadFile(url, requestPackage(), downloadFile);
+        counters.megabytes += megabytes;
+    }
+
+    private HttpResponse requestPackage() throws IOException {
+        return HttpUtils.sendPostRequest(client, url, List.of(new BasicNameValuePair("packageId", "1")));
+    }
+}
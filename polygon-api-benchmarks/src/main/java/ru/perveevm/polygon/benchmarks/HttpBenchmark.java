@@ -0,0 +1,89 @@
+package ru.perveevm.polygon.benchmarks;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.*;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.utils.FileNameValuePair;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures multipart uploads with {@link HttpUtils#sendPostRequest} and file downloads with
+ * {@link HttpUtils#downloadFile} against {@link StubPolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpBenchmark {
+    @Param({"1024", "16777216"})
+    private int size;
+
+    private StubPolygonServer server;
+    private CloseableHttpClient client;
+    private File uploadFile;
+    private File downloadFile;
+    private String uploadValue;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+
+        server = new StubPolygonServer();
+        server.setResponse("api/problem.saveTest", "{\"status\":\"OK\"}".getBytes());
+        server.setResponse("api/problem.package", data);
+        client = HttpUtils.createPooledClient(8, 8, 30000L, 60000L, 2000);
+
+        uploadFile = File.createTempFile("upload", ".bin");
+        Files.write(uploadFile.toPath(), data);
+        downloadFile = File.createTempFile("download", ".bin");
+        uploadValue = "1".repeat(size);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        Files.deleteIfExists(uploadFile.toPath());
+        Files.deleteIfExists(downloadFile.toPath());
+    }
+
+    @Benchmark
+    public void uploadString() throws IOException {
+        upload(List.of(new BasicNameValuePair("problemId", "1"), new BasicNameValuePair("testInput", uploadValue)));
+    }
+
+    @Benchmark
+    public void uploadFile() throws IOException {
+        upload(List.of(new BasicNameValuePair("problemId", "1"), new FileNameValuePair("testInput", uploadFile)));
+    }
+
+    @Benchmark
+    public long download() throws IOException, PolygonSessionException {
+        HttpResponse response = HttpUtils.sendPostRequest(client, server.getBaseUrl() + "api/problem.package",
+                List.of(new BasicNameValuePair("packageId", "1")));
+        HttpUtils.downloadFile(server.getBaseUrl() + "api/problem.package", response, downloadFile);
+        return downloadFile.length();
+    }
+
+    private void upload(final List<NameValuePair> parameters) throws IOException {
+        HttpResponse response = HttpUtils.sendPostRequest(client, server.getBaseUrl() + "api/problem.saveTest",
+                parameters);
+        EntityUtils.consume(response.getEntity());
+    }
+}
@@ -0,0 +1,77 @@
+package ru.perveevm.polygon.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import ru.perveevm.polygon.api.entities.Problem;
+import ru.perveevm.polygon.api.entities.ProblemTest;
+import ru.perveevm.polygon.api.json.JSONResponse;
+import ru.perveevm.polygon.api.json.JSONResponseDecoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of large API responses. The <code>*Tree</code> benchmarks read the body to a {@link String} and
+ * decode it through a {@link com.google.gson.JsonElement} tree, the way {@link ru.perveevm.polygon.api.PolygonSession}
+ * did before, and the <code>*Streaming</code> benchmarks decode the body stream in one pass with
+ * {@link JSONResponseDecoder}. Run with <code>-prof gc</code> to compare allocation.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDecodingBenchmark {
+    private final Gson gson = new Gson();
+    private final JSONResponseDecoder decoder = new JSONResponseDecoder(gson);
+
+    @Param({"300"})
+    private int tests;
+
+    @Param({"10000"})
+    private int inputLength;
+
+    @Param({"2000"})
+    private int problems;
+
+    private byte[] problemTests;
+    private byte[] problemsList;
+
+    @Setup
+    public void setup() {
+        problemTests = Responses.problemTests(tests, inputLength);
+        problemsList = Responses.problemsList(problems);
+    }
+
+    @Benchmark
+    public ProblemTest[] problemTestsTree() {
+        String json = new String(problemTests, StandardCharsets.UTF_8);
+        return gson.fromJson(gson.fromJson(json, JSONResponse.class).getResult(), ProblemTest[].class);
+    }
+
+    @Benchmark
+    public ProblemTest[] problemTestsStreaming() {
+        return decoder.<ProblemTest[]>decode(open(problemTests), ProblemTest[].class).getResult();
+    }
+
+    @Benchmark
+    public Problem[] problemsListTree() {
+        String json = new String(problemsList, StandardCharsets.UTF_8);
+        return gson.fromJson(gson.fromJson(json, JSONResponse.class).getResult(), Problem[].class);
+    }
+
+    @Benchmark
+    public Problem[] problemsListStreaming() {
+        return decoder.<Problem[]>decode(open(problemsList), Problem[].class).getResult();
+    }
+
+    private static Reader open(final byte[] body) {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.perveevm.polygon.benchmarks;
+
+import org.apache.http.NameValuePair;
+import org.openjdk.jmh.annotations.*;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.PolygonSessionBuilder;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.utils.ApiMethodDescriptor;
+import ru.perveevm.polygon.utils.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding of request parameters with reflection and with the method descriptors that
+ * {@link PolygonSession} builds once, and a whole <code>problem.saveTest</code> call, which also signs the
+ * parameters, against {@link StubPolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestEncodingBenchmark {
+    @Param({"16", "1048576"})
+    private int inputLength;
+
+    private StubPolygonServer server;
+    private PolygonSession session;
+    private ApiMethodDescriptor descriptor;
+    private String testInput;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StubPolygonServer();
+        server.setResponse("api/problem.saveTest", "{\"status\":\"OK\"}".getBytes());
+        session = PolygonSessionBuilder.withCredentials("key", "secret").withBaseUrl(server.getBaseUrl() + "api/")
+                .build();
+        descriptor = ReflectionUtils.describeMethods(PolygonSession.class).get(ApiMethodDescriptor.getSignature(
+                "problemSaveTest", Integer.class, Boolean.class, String.class, Integer.class, String.class,
+                String.class, Double.class, String.class, Boolean.class, String.class, String.class, Boolean.class));
+        testInput = "1".repeat(inputLength);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        session.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<NameValuePair> encodeWithReflection() throws PolygonSessionException {
+        return ReflectionUtils.encodeMethodParameters(
+                ReflectionUtils.getMethodByName(PolygonSession.class, "problemSaveTest"), 1, true, "tests", 1,
+                testInput, "1", 1.0, "description", false, null, null, null);
+    }
+
+    @Benchmark
+    public List<NameValuePair> encodeWithDescriptor() {
+        return descriptor.encode(1, true, "tests", 1, testInput, "1", 1.0, "description", false, null, null, null);
+    }
+
+    @Benchmark
+    public void saveTest() throws PolygonSessionException {
+        session.problemSaveTest(1, true, "tests", 1, testInput, "1", 1.0, "description", false, null, null, null);
+    }
+}
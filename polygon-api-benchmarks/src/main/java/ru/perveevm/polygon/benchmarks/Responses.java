@@ -0,0 +1,62 @@
+package ru.perveevm.polygon.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates Polygon API responses of the given size for benchmarks.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class Responses {
+    private Responses() {
+    }
+
+    /**
+     * Generates a <code>problem.tests</code> response.
+     *
+     * @param tests       Number of tests.
+     * @param inputLength Length of each test input.
+     * @return Response body.
+     */
+    public static byte[] problemTests(final int tests, final int inputLength) {
+        Random random = new Random(tests);
+        StringBuilder json = new StringBuilder("{\"status\":\"OK\",\"result\":[");
+        for (int i = 1; i <= tests; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"index\":").append(i)
+                    .append(",\"manual\":true,\"input\":\"");
+            for (int j = 0; j < inputLength; j++) {
+                json.append(j % 16 == 15 ? "\\n" : String.valueOf((char) ('0' + random.nextInt(10))));
+            }
+            json.append("\",\"description\":\"test ").append(i)
+                    .append("\",\"useInStatements\":false,\"group\":\"").append(i % 10)
+                    .append("\",\"points\":1.0}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates a <code>problems.list</code> response.
+     *
+     * @param problems Number of problems.
+     * @return Response body.
+     */
+    public static byte[] problemsList(final int problems) {
+        StringBuilder json = new StringBuilder("{\"status\":\"OK\",\"result\":[");
+        for (int i = 1; i <= problems; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"owner\":\"owner").append(i % 50)
+                    .append("\",\"name\":\"problem-").append(i)
+                    .append("\",\"deleted\":false,\"favourite\":false,\"accessType\":\"OWNER\",\"revision\":")
+                    .append(i % 300).append(",\"latestPackage\":").append(i % 300)
+                    .append(",\"modified\":false}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.perveevm.polygon.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process HTTP server that answers every request with a preconfigured body, so benchmarks measure the client
+ * and not the network or Polygon itself.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class StubPolygonServer implements Closeable {
+    static {
+        // Without it, small responses wait for a delayed ACK, and every request takes about 40ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public StubPolygonServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return Base URL of the server, ending with a slash.
+     */
+    public String getBaseUrl() {
+        return String.format("http://%s:%d/", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    /**
+     * Sets the body that will be returned for the given path.
+     *
+     * @param path Request path without leading slash, for example, <code>api/problem.tests</code>.
+     * @param body Response body.
+     */
+    public void setResponse(final String path, final byte[] body) {
+        responses.put("/" + path, body);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.transferTo(OutputStream.nullOutputStream());
+        }
+
+        byte[] body = responses.get(exchange.getRequestURI().getPath());
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
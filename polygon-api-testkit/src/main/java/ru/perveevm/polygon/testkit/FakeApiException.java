@@ -0,0 +1,15 @@
+package ru.perveevm.polygon.testkit;
+
+/**
+ * Thrown by request handlers of {@link FakePolygonServer}. The message is returned to the client as a comment
+ * of the FAILED response.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeApiException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    FakeApiException(final String comment) {
+        super(comment);
+    }
+}
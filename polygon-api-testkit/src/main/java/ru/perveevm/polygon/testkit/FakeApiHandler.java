@@ -0,0 +1,653 @@
+package ru.perveevm.polygon.testkit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Handles <code>/api/&lt;method&gt;</code> requests of {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeApiHandler implements HttpHandler {
+    static final List<String> FILE_TYPES = List.of("resource", "source", "aux");
+
+    private static final Gson gson = new Gson();
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final FakePolygonServer server;
+    private final Map<String, ApiMethod> methods = new HashMap<>();
+    private final Map<String, ProblemMethod> problemMethods = new HashMap<>();
+
+    FakeApiHandler(final FakePolygonServer server) {
+        this.server = server;
+
+        methods.put("problems.list", this::problemsList);
+        methods.put("problem.create", this::problemCreate);
+        methods.put("contest.problems", this::contestProblems);
+
+        problemMethods.put("problem.info", (problem, request) -> problem.info.deepCopy());
+        problemMethods.put("problem.updateInfo", FakeApiHandler::problemUpdateInfo);
+        problemMethods.put("problem.updateWorkingCopy", (problem, request) -> null);
+        problemMethods.put("problem.discardWorkingCopy", (problem, request) -> {
+            problem.discard();
+            return null;
+        });
+        problemMethods.put("problem.commitChanges", (problem, request) -> {
+            problem.commit();
+            return null;
+        });
+        problemMethods.put("problem.statements", (problem, request) -> gson.toJsonTree(problem.statements));
+        problemMethods.put("problem.saveStatement", FakeApiHandler::problemSaveStatement);
+        problemMethods.put("problem.statementResources",
+                (problem, request) -> filesToJson(problem.files.get("statementResource")));
+        problemMethods.put("problem.saveStatementResource", (problem, request) ->
+                saveFile(problem, problem.files.get("statementResource"), request, "name", "file", null));
+        problemMethods.put("problem.checker", (problem, request) -> nullToEmpty(problem.checker));
+        problemMethods.put("problem.validator", (problem, request) -> nullToEmpty(problem.validator));
+        problemMethods.put("problem.interactor", (problem, request) -> nullToEmpty(problem.interactor));
+        problemMethods.put("problem.validatorTests", (problem, request) -> values(problem.validatorTests));
+        problemMethods.put("problem.saveValidatorTest", FakeApiHandler::problemSaveValidatorTest);
+        problemMethods.put("problem.checkerTests", (problem, request) -> values(problem.checkerTests));
+        problemMethods.put("problem.saveCheckerTest", FakeApiHandler::problemSaveCheckerTest);
+        problemMethods.put("problem.files", FakeApiHandler::problemFiles);
+        problemMethods.put("problem.solutions", (problem, request) -> filesToJson(problem.solutions));
+        problemMethods.put("problem.viewFile", FakeApiHandler::problemViewFile);
+        problemMethods.put("problem.viewSolution", (problem, request) ->
+                getFile(problem.solutions, request.getRequiredString("name")).content);
+        problemMethods.put("problem.script", (problem, request) ->
+                problem.scripts.getOrDefault(request.getRequiredString("testset"), "")
+                        .getBytes(StandardCharsets.UTF_8));
+        problemMethods.put("problem.tests", (problem, request) -> problem.testsToJson(
+                request.getRequiredString("testset"), Boolean.TRUE.equals(request.getBoolean("noInputs"))));
+        problemMethods.put("problem.testInput", (problem, request) -> getTest(problem, request).input);
+        problemMethods.put("problem.testAnswer", (problem, request) -> getTest(problem, request).answer);
+        problemMethods.put("problem.setValidator", (problem, request) -> {
+            problem.validator = getSourceName(problem, request, "validator");
+            return null;
+        });
+        problemMethods.put("problem.setChecker", (problem, request) -> {
+            problem.checker = getSourceName(problem, request, "checker");
+            return null;
+        });
+        problemMethods.put("problem.setInteractor", (problem, request) -> {
+            problem.interactor = getSourceName(problem, request, "interactor");
+            return null;
+        });
+        problemMethods.put("problem.saveFile", FakeApiHandler::problemSaveFile);
+        problemMethods.put("problem.saveSolution", (problem, request) ->
+                saveFile(problem, problem.solutions, request, "name", "file", "tag"));
+        problemMethods.put("problem.editSolutionExtraTags", (problem, request) -> {
+            getFile(problem.solutions, request.getRequiredString("name"));
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.saveScript", (problem, request) -> {
+            problem.scripts.put(request.getRequiredString("testset"), request.getRequiredString("source"));
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.saveTest", FakeApiHandler::problemSaveTest);
+        problemMethods.put("problem.setTestGroup", FakeApiHandler::problemSetTestGroup);
+        problemMethods.put("problem.enableGroups", (problem, request) -> {
+            request.getRequiredString("testset");
+            request.getRequiredString("enable");
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.enablePoints", (problem, request) -> {
+            problem.pointsEnabled = Boolean.parseBoolean(request.getRequiredString("enable"));
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.viewTestGroup", FakeApiHandler::problemViewTestGroup);
+        problemMethods.put("problem.saveTestGroup", FakeApiHandler::problemSaveTestGroup);
+        problemMethods.put("problem.viewTags", (problem, request) -> gson.toJsonTree(problem.tags));
+        problemMethods.put("problem.saveTags", (problem, request) -> {
+            problem.tags.clear();
+            problem.tags.addAll(splitArray(request.getRequiredString("tags")));
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.viewGeneralDescription",
+                (problem, request) -> new JsonPrimitive(problem.description));
+        problemMethods.put("problem.saveGeneralDescription", (problem, request) -> {
+            problem.description = request.getRequiredString("description");
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.viewGeneralTutorial", (problem, request) -> new JsonPrimitive(problem.tutorial));
+        problemMethods.put("problem.saveGeneralTutorial", (problem, request) -> {
+            problem.tutorial = request.getRequiredString("tutorial");
+            problem.markModified();
+            return null;
+        });
+        problemMethods.put("problem.packages", (problem, request) -> {
+            JsonArray result = new JsonArray();
+            problem.packages.forEach(p -> result.add(p.toJson()));
+            return result;
+        });
+        problemMethods.put("problem.package", FakeApiHandler::problemPackage);
+        problemMethods.put("problem.buildPackage", (problem, request) -> {
+            boolean full = Boolean.parseBoolean(request.getRequiredString("full"));
+            request.getRequiredString("verify");
+            server.buildPackage(problem, full);
+            return null;
+        });
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        String methodName = exchange.getRequestURI().getPath().substring("/api/".length());
+        FakeRequest request = new FakeRequest(exchange);
+
+        Object result;
+        try {
+            checkSignature(methodName, request);
+            result = invoke(methodName, request);
+        } catch (FakeApiException e) {
+            FakePolygonServer.send(exchange, 400, "application/json", failed(e.getMessage()));
+            return;
+        }
+
+        if (result instanceof FakePackage) {
+            sendPackage(exchange, (FakePackage) result);
+        } else if (result instanceof byte[]) {
+            FakePolygonServer.send(exchange, 200, "text/plain; charset=utf-8", (byte[]) result);
+        } else {
+            JsonObject response = new JsonObject();
+            response.addProperty("status", "OK");
+            if (result != null) {
+                response.add("result", (JsonElement) result);
+            }
+            FakePolygonServer.send(exchange, 200, "application/json", gson.toJson(response));
+        }
+    }
+
+    static String failed(final String comment) {
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "FAILED");
+        response.addProperty("comment", comment);
+        return gson.toJson(response);
+    }
+
+    /**
+     * Sends a package with support of <code>Range</code> and <code>If-Range</code> headers, so that interrupted
+     * downloads can be resumed.
+     */
+    static void sendPackage(final HttpExchange exchange, final FakePackage fakePackage) throws IOException {
+        byte[] content = fakePackage.content;
+        String eTag = fakePackage.getETag();
+        exchange.getResponseHeaders().set("ETag", eTag);
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().set("Content-Type", "application/zip");
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        if (matcher == null || !matcher.matches() || (ifRange != null && !ifRange.equals(eTag))) {
+            FakePolygonServer.send(exchange, 200, null, content);
+            return;
+        }
+
+        long start = Long.parseLong(matcher.group(1));
+        if (start >= content.length) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+            exchange.sendResponseHeaders(416, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Range",
+                String.format("bytes %d-%d/%d", start, content.length - 1, content.length));
+        exchange.sendResponseHeaders(206, content.length - start);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content, (int) start, (int) (content.length - start));
+        }
+    }
+
+    private Object invoke(final String methodName, final FakeRequest request) throws FakeApiException {
+        ApiMethod method = methods.get(methodName);
+        if (method != null) {
+            return method.invoke(request);
+        }
+
+        ProblemMethod problemMethod = problemMethods.get(methodName);
+        if (problemMethod == null) {
+            throw new FakeApiException("Unknown method " + methodName);
+        }
+        FakeProblem problem = server.getProblem(request.getRequiredInteger("problemId"));
+        if (problem == null || problem.isDeleted()) {
+            throw new FakeApiException("problemId: Problem not found");
+        }
+        synchronized (problem) {
+            return problemMethod.invoke(problem, request);
+        }
+    }
+
+    private void checkSignature(final String methodName, final FakeRequest request) throws FakeApiException {
+        String apiKey = request.getRequiredString("apiKey");
+        request.getRequiredString("time");
+        if (!server.isVerifySignatures()) {
+            return;
+        }
+
+        FakeUser user = server.getUserByApiKey(apiKey);
+        if (user == null) {
+            throw new FakeApiException("apiKey: Incorrect API key");
+        }
+        String apiSig = request.getRequiredString("apiSig");
+        if (apiSig.length() < 6) {
+            throw new FakeApiException("apiSig: Incorrect signature");
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((apiSig.substring(0, 6) + "/" + methodName + "?").getBytes(StandardCharsets.UTF_8));
+        boolean first = true;
+        for (Map.Entry<String, byte[]> parameter : sortedParameters(request)) {
+            digest.update(((first ? "" : "&") + parameter.getKey() + "=").getBytes(StandardCharsets.UTF_8));
+            digest.update(parameter.getValue());
+            first = false;
+        }
+        digest.update(("#" + user.apiSecret).getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder expected = new StringBuilder(apiSig.substring(0, 6));
+        for (byte b : digest.digest()) {
+            expected.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        if (!MessageDigest.isEqual(expected.toString().getBytes(StandardCharsets.US_ASCII),
+                apiSig.getBytes(StandardCharsets.US_ASCII))) {
+            throw new FakeApiException("apiSig: Incorrect signature");
+        }
+    }
+
+    private static List<Map.Entry<String, byte[]>> sortedParameters(final FakeRequest request) {
+        List<Map.Entry<String, byte[]>> parameters = new ArrayList<>();
+        request.getParameters().forEach((name, value) -> {
+            if (!name.equals("apiSig")) {
+                parameters.add(Map.entry(name, value));
+            }
+        });
+        parameters.sort(Map.Entry.<String, byte[]>comparingByKey()
+                .thenComparing(e -> new String(e.getValue(), StandardCharsets.UTF_8)));
+        return parameters;
+    }
+
+    private JsonElement problemsList(final FakeRequest request) throws FakeApiException {
+        boolean showDeleted = Boolean.TRUE.equals(request.getBoolean("showDeleted"));
+        Integer id = request.getInteger("id");
+        String name = request.getString("name");
+        String owner = request.getString("owner");
+
+        JsonArray result = new JsonArray();
+        for (FakeProblem problem : server.getProblems()) {
+            if ((showDeleted || !problem.isDeleted()) && (id == null || problem.getId() == id)
+                    && (name == null || problem.getName().equals(name))
+                    && (owner == null || problem.getOwner().equals(owner))) {
+                synchronized (problem) {
+                    result.add(problem.toJson());
+                }
+            }
+        }
+        return result;
+    }
+
+    private JsonElement problemCreate(final FakeRequest request) throws FakeApiException {
+        String name = request.getRequiredString("name");
+        if (!name.matches("[a-z0-9-]+")) {
+            throw new FakeApiException("name: Problem name should contain only lowercase letters, digits and dashes");
+        }
+        FakeUser user = server.getUserByApiKey(request.getRequiredString("apiKey"));
+        String owner = user == null ? "owner" : user.login;
+        synchronized (server) {
+            if (server.findProblem(owner, name) != null) {
+                throw new FakeApiException("name: You already have problem with such name");
+            }
+            FakeProblem problem = server.createProblem(owner, name);
+            synchronized (problem) {
+                return problem.toJson();
+            }
+        }
+    }
+
+    private JsonElement contestProblems(final FakeRequest request) throws FakeApiException {
+        FakeContest contest = server.getContest(request.getRequiredInteger("contestId"));
+        if (contest == null) {
+            throw new FakeApiException("contestId: Contest not found");
+        }
+        JsonObject result = new JsonObject();
+        for (Map.Entry<String, FakeProblem> problem : contest.getProblems().entrySet()) {
+            synchronized (problem.getValue()) {
+                result.add(problem.getKey(), problem.getValue().toJson());
+            }
+        }
+        return result;
+    }
+
+    private static Object problemUpdateInfo(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        setIfPresent(problem.info, "inputFile", request.getString("inputFile"));
+        setIfPresent(problem.info, "outputFile", request.getString("outputFile"));
+        if (request.has("interactive")) {
+            problem.info.addProperty("interactive", request.getBoolean("interactive"));
+        }
+        if (request.has("timeLimit")) {
+            problem.info.addProperty("timeLimit", request.getInteger("timeLimit"));
+        }
+        if (request.has("memoryLimit")) {
+            problem.info.addProperty("memoryLimit", request.getInteger("memoryLimit"));
+        }
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemSaveStatement(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        JsonObject statement = problem.getOrCreateStatement(request.getRequiredString("lang"));
+        for (String field : List.of("encoding", "name", "legend", "input", "output", "scoring", "interaction",
+                "notes", "tutorial")) {
+            setIfPresent(statement, field, request.getString(field));
+        }
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemSaveValidatorTest(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        int index = request.getRequiredInteger("testIndex");
+        JsonObject test = getOrCreate(problem.validatorTests, index, request);
+        setIfPresent(test, "input", request.getString("testInput"));
+        setIfPresent(test, "expectedVerdict", request.getString("testVerdict"));
+        setIfPresent(test, "testset", request.getString("testset"));
+        setIfPresent(test, "group", request.getString("testGroup"));
+        requireFields(test, "input", "expectedVerdict");
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemSaveCheckerTest(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        int index = request.getRequiredInteger("testIndex");
+        JsonObject test = getOrCreate(problem.checkerTests, index, request);
+        setIfPresent(test, "input", request.getString("testInput"));
+        setIfPresent(test, "output", request.getString("testOutput"));
+        setIfPresent(test, "answer", request.getString("testAnswer"));
+        setIfPresent(test, "expectedVerdict", request.getString("testVerdict"));
+        requireFields(test, "input", "output", "answer", "expectedVerdict");
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemFiles(final FakeProblem problem, final FakeRequest request) {
+        JsonObject result = new JsonObject();
+        for (String type : FILE_TYPES) {
+            result.add(type + "Files", filesToJson(problem.files.get(type)));
+        }
+        return result;
+    }
+
+    private static Object problemViewFile(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        String type = request.getRequiredString("type");
+        if (!FILE_TYPES.contains(type)) {
+            throw new FakeApiException("type: Unknown file type");
+        }
+        return getFile(problem.files.get(type), request.getRequiredString("name")).content;
+    }
+
+    private static Object problemSaveFile(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        String type = request.getRequiredString("type");
+        if (!FILE_TYPES.contains(type)) {
+            throw new FakeApiException("type: Unknown file type");
+        }
+        return saveFile(problem, problem.files.get(type), request, "name", "file", null);
+    }
+
+    private static Object problemSaveTest(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        String testset = request.getRequiredString("testset");
+        int index = request.getRequiredInteger("testIndex");
+        boolean exists = problem.tests.getOrDefault(testset, new TreeMap<>()).containsKey(index);
+        if (exists && Boolean.TRUE.equals(request.getBoolean("checkExisting"))) {
+            throw new FakeApiException("testIndex: Test with such index already exists");
+        }
+        if (!exists && !request.has("testInput")) {
+            throw new FakeApiException("testInput: Field should not be empty");
+        }
+
+        FakeTest test = problem.getOrCreateTest(testset, index);
+        if (request.has("testInput")) {
+            test.input = request.getBytes("testInput");
+            test.answer = test.input;
+        }
+        setIfPresent(test.properties, "group", request.getString("testGroup"));
+        if (request.has("testPoints")) {
+            test.properties.addProperty("points", request.getDouble("testPoints"));
+        }
+        setIfPresent(test.properties, "description", request.getString("testDescription"));
+        if (request.has("testUseInStatements")) {
+            test.properties.addProperty("useInStatements", request.getBoolean("testUseInStatements"));
+        }
+        setIfPresent(test.properties, "inputForStatement", request.getString("testInputForStatements"));
+        setIfPresent(test.properties, "outputForStatement", request.getString("testOutputForStatements"));
+        if (request.has("verifyInputOutputForStatements")) {
+            test.properties.addProperty("verifyInputOutputForStatements",
+                    request.getBoolean("verifyInputOutputForStatements"));
+        }
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemSetTestGroup(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        String testset = request.getRequiredString("testset");
+        String group = request.getRequiredString("testGroup");
+        List<String> indices = request.has("testIndices") ? splitArray(request.getString("testIndices"))
+                : List.of(request.getRequiredString("testIndex"));
+        for (String index : indices) {
+            FakeTest test;
+            try {
+                test = problem.tests.getOrDefault(testset, new TreeMap<>()).get(Integer.parseInt(index));
+            } catch (NumberFormatException e) {
+                throw new FakeApiException("testIndex: Field should contain an integer");
+            }
+            if (test == null) {
+                throw new FakeApiException("testIndex: Test not found");
+            }
+            test.properties.addProperty("group", group);
+        }
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemViewTestGroup(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        Map<String, JsonObject> groups = problem.testGroups.getOrDefault(request.getRequiredString("testset"),
+                Map.of());
+        String group = request.getString("group");
+        JsonArray result = new JsonArray();
+        groups.values().stream()
+                .filter(g -> group == null || g.get("name").getAsString().equals(group))
+                .sorted(Comparator.comparing(g -> g.get("name").getAsString()))
+                .forEach(result::add);
+        return result;
+    }
+
+    private static Object problemSaveTestGroup(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        String name = request.getRequiredString("group");
+        JsonObject group = problem.testGroups.computeIfAbsent(request.getRequiredString("testset"),
+                t -> new TreeMap<>()).computeIfAbsent(name, n -> {
+            JsonObject created = new JsonObject();
+            created.addProperty("name", n);
+            created.addProperty("pointsPolicy", "EACH_TEST");
+            created.addProperty("feedbackPolicy", "COMPLETE");
+            created.add("dependencies", new JsonArray());
+            return created;
+        });
+        setIfPresent(group, "pointsPolicy", request.getString("pointsPolicy"));
+        setIfPresent(group, "feedbackPolicy", request.getString("feedbackPolicy"));
+        if (request.has("dependencies")) {
+            group.add("dependencies", gson.toJsonTree(splitArray(request.getString("dependencies"))));
+        }
+        problem.markModified();
+        return null;
+    }
+
+    private static Object problemPackage(final FakeProblem problem, final FakeRequest request)
+            throws FakeApiException {
+        int packageId = request.getRequiredInteger("packageId");
+        FakePackage fakePackage = problem.packages.stream()
+                .filter(p -> p.id == packageId)
+                .findFirst()
+                .orElseThrow(() -> new FakeApiException("packageId: Package not found"));
+        if (!fakePackage.isReady()) {
+            throw new FakeApiException("packageId: Package is not ready");
+        }
+        return fakePackage;
+    }
+
+    private static Object saveFile(final FakeProblem problem, final Map<String, FakeFile> files,
+                                   final FakeRequest request, final String nameParameter,
+                                   final String fileParameter, final String tagParameter) throws FakeApiException {
+        String name = request.getRequiredString(nameParameter);
+        FakeFile existing = files.get(name);
+        if (existing != null && Boolean.TRUE.equals(request.getBoolean("checkExisting"))) {
+            throw new FakeApiException(nameParameter + ": File with such name already exists");
+        }
+        if (existing == null) {
+            request.getRequiredString(fileParameter);
+            if (tagParameter != null) {
+                request.getRequiredString(tagParameter);
+            }
+        }
+
+        byte[] content = request.has(fileParameter) ? request.getBytes(fileParameter) : existing.content;
+        String sourceType = request.has("sourceType") ? request.getString("sourceType")
+                : existing == null ? null : existing.sourceType;
+        String tag = tagParameter == null ? null : request.has(tagParameter) ? request.getString(tagParameter)
+                : existing.tag;
+        files.put(name, new FakeFile(name, content, sourceType, tag));
+        problem.markModified();
+        return null;
+    }
+
+    private static FakeFile getFile(final Map<String, FakeFile> files, final String name) throws FakeApiException {
+        FakeFile file = files.get(name);
+        if (file == null) {
+            throw new FakeApiException("name: File not found");
+        }
+        return file;
+    }
+
+    private static FakeTest getTest(final FakeProblem problem, final FakeRequest request) throws FakeApiException {
+        FakeTest test = problem.tests.getOrDefault(request.getRequiredString("testset"), new TreeMap<>())
+                .get(request.getRequiredInteger("testIndex"));
+        if (test == null || test.input == null) {
+            throw new FakeApiException("testIndex: Test not found");
+        }
+        return test;
+    }
+
+    private static String getSourceName(final FakeProblem problem, final FakeRequest request,
+                                        final String parameter) throws FakeApiException {
+        String name = request.getRequiredString(parameter);
+        if (!problem.files.get("source").containsKey(name)) {
+            throw new FakeApiException(parameter + ": Source file not found");
+        }
+        problem.markModified();
+        return name;
+    }
+
+    private static JsonObject getOrCreate(final Map<Integer, JsonObject> tests, final int index,
+                                          final FakeRequest request) throws FakeApiException {
+        JsonObject test = tests.get(index);
+        if (test != null && Boolean.TRUE.equals(request.getBoolean("checkExisting"))) {
+            throw new FakeApiException("testIndex: Test with such index already exists");
+        }
+        if (test == null) {
+            test = new JsonObject();
+            test.addProperty("index", index);
+        }
+        tests.put(index, test);
+        return test;
+    }
+
+    private static void requireFields(final JsonObject object, final String... fields) throws FakeApiException {
+        for (String field : fields) {
+            if (!object.has(field)) {
+                throw new FakeApiException(field + ": Field should not be empty");
+            }
+        }
+    }
+
+    private static JsonArray filesToJson(final Map<String, FakeFile> files) {
+        JsonArray result = new JsonArray();
+        for (FakeFile file : files.values()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", file.name);
+            json.addProperty("modificationTimeSeconds", file.modificationTimeSeconds);
+            json.addProperty("length", file.content.length);
+            json.addProperty("sourceType", file.sourceType);
+            if (file.tag != null) {
+                json.addProperty("tag", file.tag);
+            }
+            result.add(json);
+        }
+        return result;
+    }
+
+    private static JsonArray values(final Map<Integer, JsonObject> objects) {
+        JsonArray result = new JsonArray();
+        objects.values().forEach(result::add);
+        return result;
+    }
+
+    private static void setIfPresent(final JsonObject object, final String field, final String value) {
+        if (value != null) {
+            object.addProperty(field, value);
+        }
+    }
+
+    private static List<String> splitArray(final String value) {
+        return value.isEmpty() ? List.of() : Arrays.asList(value.split(","));
+    }
+
+    private static JsonPrimitive nullToEmpty(final String value) {
+        return new JsonPrimitive(value == null ? "" : value);
+    }
+
+    @FunctionalInterface
+    private interface ApiMethod {
+        Object invoke(FakeRequest request) throws FakeApiException;
+    }
+
+    @FunctionalInterface
+    private interface ProblemMethod {
+        Object invoke(FakeProblem problem, FakeRequest request) throws FakeApiException;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.perveevm.polygon.testkit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A contest stored in {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FakeContest {
+    private final int id;
+    private final String uid;
+    private final Map<String, FakeProblem> problems = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    FakeContest(final int id, final String uid) {
+        this.id = id;
+        this.uid = uid;
+    }
+
+    /**
+     * @return Contest ID.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Contest UID which is used in <code>contest.xml</code> URL.
+     */
+    public String getUid() {
+        return uid;
+    }
+
+    /**
+     * Adds a problem to the contest.
+     *
+     * @param index   Problem index, for example, <code>A</code>.
+     * @param problem Problem to add.
+     * @return This contest.
+     */
+    public FakeContest addProblem(final String index, final FakeProblem problem) {
+        problems.put(index, problem);
+        return this;
+    }
+
+    Map<String, FakeProblem> getProblems() {
+        synchronized (problems) {
+            return new LinkedHashMap<>(problems);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.perveevm.polygon.testkit;
+
+/**
+ * Represents an error that {@link FakePolygonServer} can inject into responses.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public enum FakeError {
+    /**
+     * Response with HTTP code 503 and an HTML body.
+     */
+    UNAVAILABLE,
+    /**
+     * Response with HTTP code 200 and a body that is not a JSON object.
+     */
+    GARBAGE,
+    /**
+     * Response with HTTP code 400 and FAILED status. Requests that are not API requests get {@link #UNAVAILABLE}
+     * response instead.
+     */
+    FAILED,
+    /**
+     * Connection is closed without a response.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,21 @@
+package ru.perveevm.polygon.testkit;
+
+/**
+ * A file, a solution or a statement resource stored in a {@link FakeProblem}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeFile {
+    final String name;
+    final byte[] content;
+    final String sourceType;
+    final String tag;
+    final long modificationTimeSeconds = System.currentTimeMillis() / 1000;
+
+    FakeFile(final String name, final byte[] content, final String sourceType, final String tag) {
+        this.name = name;
+        this.content = content;
+        this.sourceType = sourceType;
+        this.tag = tag;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.perveevm.polygon.testkit;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A package of a {@link FakeProblem}. The package is <code>PENDING</code> until its build time passes, and is
+ * <code>READY</code> after that.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakePackage {
+    final int id;
+    final int revision;
+    final String type;
+    final long creationTimeMillis = System.currentTimeMillis();
+    final long readyAtMillis;
+    final byte[] content;
+
+    FakePackage(final int id, final int revision, final String type, final long buildDelayMs, final byte[] content) {
+        this.id = id;
+        this.revision = revision;
+        this.type = type;
+        this.readyAtMillis = creationTimeMillis + buildDelayMs;
+        this.content = content;
+    }
+
+    boolean isReady() {
+        return System.currentTimeMillis() >= readyAtMillis;
+    }
+
+    String getETag() {
+        return String.format("\"%d-%d-%d\"", id, revision, content.length);
+    }
+
+    JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("revision", revision);
+        json.addProperty("creationTimeSeconds", creationTimeMillis / 1000);
+        json.addProperty("state", isReady() ? "READY" : "PENDING");
+        json.addProperty("comment", "");
+        json.addProperty("type", type);
+        return json;
+    }
+}
@@ -0,0 +1,398 @@
+package ru.perveevm.polygon.testkit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * In-process fake Polygon server. It implements <code>problem.*</code>, <code>problems.list</code> and
+ * <code>contest.problems</code> API methods with signature verification, package and descriptor downloads that are
+ * used by <code>PolygonHttpClient</code>, and login, search and problem deletion pages that are used by
+ * <code>PolygonUserSession</code>.
+ *
+ * <p>State is kept in memory. Point clients to {@link #getApiUrl()} (for <code>PolygonSessionBuilder</code>) or
+ * {@link #getBaseUrl()} (for <code>PolygonHttpClientBuilder</code> and <code>PolygonUserSession</code>) using
+ * <code>withBaseUrl</code>. Latency and errors can be injected into responses to emulate a slow or overloaded
+ * Polygon.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FakePolygonServer implements Closeable {
+    static {
+        // Without it, small responses wait for a delayed ACK, and every request takes about 40ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, FakeUser> usersByLogin = new ConcurrentHashMap<>();
+    private final Map<String, FakeUser> usersByApiKey = new ConcurrentHashMap<>();
+    private final Map<Integer, FakeProblem> problems = new ConcurrentHashMap<>();
+    private final Map<Integer, FakeContest> contests = new ConcurrentHashMap<>();
+    private final AtomicInteger nextProblemId = new AtomicInteger(1);
+    private final AtomicInteger nextPackageId = new AtomicInteger(1);
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger forcedErrorCount = new AtomicInteger();
+    private volatile FakeError forcedError = FakeError.UNAVAILABLE;
+    private final Map<String, AtomicInteger> forcedMethodErrorCounts = new ConcurrentHashMap<>();
+    private final Map<String, FakeError> forcedMethodErrors = new ConcurrentHashMap<>();
+    private volatile double errorRate = 0;
+    private volatile FakeError[] errors = {FakeError.UNAVAILABLE};
+    private volatile long minLatencyMs = 0;
+    private volatile long maxLatencyMs = 0;
+    private volatile long packageBuildDelayMs = 0;
+    private volatile int packagePaddingLength = 0;
+    private volatile boolean verifySignatures = true;
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public FakePolygonServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", withInjection(new FakeApiHandler(this)));
+        server.createContext("/", withInjection(new FakeWebHandler(this)));
+        server.start();
+    }
+
+    /**
+     * @return Base URL of the server, ending with a slash. Should be used as a base URL of
+     * <code>PolygonHttpClient</code> and <code>PolygonUserSession</code>.
+     */
+    public String getBaseUrl() {
+        return String.format("http://%s:%d/", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    /**
+     * @return API URL of the server, ending with a slash. Should be used as a base URL of <code>PolygonSession</code>.
+     */
+    public String getApiUrl() {
+        return getBaseUrl() + "api/";
+    }
+
+    /**
+     * @param problem Problem stored in this server.
+     * @return Problem URL which can be passed to <code>PolygonHttpClient</code>.
+     */
+    public String getProblemUrl(final FakeProblem problem) {
+        return getBaseUrl() + "p/" + problem.getOwner() + "/" + problem.getName();
+    }
+
+    /**
+     * Adds a user. The user can log in with the given login and password, and call API methods with the given key
+     * and secret.
+     *
+     * @param login     User login.
+     * @param password  User password.
+     * @param apiKey    API key.
+     * @param apiSecret API secret.
+     * @return This server.
+     */
+    public FakePolygonServer addUser(final String login, final String password, final String apiKey,
+                                     final String apiSecret) {
+        FakeUser user = new FakeUser(login, password, apiSecret);
+        usersByLogin.put(login, user);
+        usersByApiKey.put(apiKey, user);
+        return this;
+    }
+
+    /**
+     * Creates an empty problem.
+     *
+     * @param owner Owner login.
+     * @param name  Problem name.
+     * @return A created {@link FakeProblem}.
+     */
+    public FakeProblem createProblem(final String owner, final String name) {
+        FakeProblem problem = new FakeProblem(nextProblemId.getAndIncrement(), owner, name);
+        problems.put(problem.getId(), problem);
+        return problem;
+    }
+
+    /**
+     * @param problemId Problem ID.
+     * @return A {@link FakeProblem} with the given ID or <code>null</code> if there is no such problem.
+     */
+    public FakeProblem getProblem(final int problemId) {
+        return problems.get(problemId);
+    }
+
+    /**
+     * Creates an empty contest.
+     *
+     * @param contestId Contest ID.
+     * @return A created {@link FakeContest}.
+     */
+    public FakeContest createContest(final int contestId) {
+        FakeContest contest = new FakeContest(contestId, Integer.toHexString(contestId * 31 + 17) + "c" + contestId);
+        contests.put(contestId, contest);
+        return contest;
+    }
+
+    /**
+     * Sets latency that is added to every response. The latency is chosen uniformly from the given range.
+     *
+     * @param minLatencyMs Minimal latency in milliseconds.
+     * @param maxLatencyMs Maximal latency in milliseconds.
+     */
+    public void setLatency(final long minLatencyMs, final long maxLatencyMs) {
+        if (minLatencyMs < 0 || maxLatencyMs < minLatencyMs) {
+            throw new IllegalArgumentException("Latency range is invalid");
+        }
+        this.minLatencyMs = minLatencyMs;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    /**
+     * Makes the given fraction of requests fail. The error for every failed request is chosen uniformly from the
+     * given ones.
+     *
+     * @param errorRate Fraction of failed requests, from 0 to 1.
+     * @param errors    Errors to inject.
+     */
+    public void setErrorRate(final double errorRate, final FakeError... errors) {
+        if (errorRate < 0 || errorRate > 1 || errors.length == 0) {
+            throw new IllegalArgumentException("Error rate should be from 0 to 1 and at least one error is required");
+        }
+        this.errors = errors.clone();
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Makes the next <code>count</code> requests fail with the given error regardless of error rate.
+     *
+     * @param count Number of requests to fail.
+     * @param error Error to inject.
+     */
+    public void failNext(final int count, final FakeError error) {
+        forcedError = error;
+        forcedErrorCount.set(count);
+    }
+
+    /**
+     * Makes the next <code>count</code> requests of the given method fail with the given error regardless of error
+     * rate. Requests of other methods are not affected.
+     *
+     * @param method API method name or request path, as in {@link #getRequestCount(String)}.
+     * @param count  Number of requests to fail.
+     * @param error  Error to inject.
+     */
+    public void failNext(final String method, final int count, final FakeError error) {
+        forcedMethodErrors.put(method, error);
+        forcedMethodErrorCounts.computeIfAbsent(method, m -> new AtomicInteger()).set(count);
+    }
+
+    /**
+     * Sets the time it takes to build a package. Packages are <code>PENDING</code> during this time.
+     *
+     * @param packageBuildDelayMs Build time in milliseconds.
+     */
+    public void setPackageBuildDelayMs(final long packageBuildDelayMs) {
+        this.packageBuildDelayMs = packageBuildDelayMs;
+    }
+
+    /**
+     * Adds a file of random bytes of the given length to every package built after this call. It can be used to
+     * emulate big packages.
+     *
+     * @param packagePaddingLength Padding length in bytes.
+     */
+    public void setPackagePaddingLength(final int packagePaddingLength) {
+        this.packagePaddingLength = packagePaddingLength;
+    }
+
+    /**
+     * Enables or disables <code>apiSig</code> verification. It is enabled by default.
+     *
+     * @param verifySignatures If <code>false</code>, any API key is accepted, and signatures are not checked.
+     */
+    public void setVerifySignatures(final boolean verifySignatures) {
+        this.verifySignatures = verifySignatures;
+    }
+
+    /**
+     * Returns the number of received requests. API requests are counted by method name, for example,
+     * <code>problem.info</code>, other requests are counted by path, for example, <code>/login</code>.
+     *
+     * @param method API method name or request path.
+     * @return Number of requests, including failed ones.
+     */
+    public long getRequestCount(final String method) {
+        LongAdder count = requestCounts.get(method);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return Total number of received requests.
+     */
+    public long getRequestCount() {
+        return requestCounts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Resets all request counters.
+     */
+    public void resetRequestCounts() {
+        requestCounts.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    FakeUser getUserByApiKey(final String apiKey) {
+        return usersByApiKey.get(apiKey);
+    }
+
+    FakeUser getUserByLogin(final String login) {
+        return usersByLogin.get(login);
+    }
+
+    boolean isVerifySignatures() {
+        return verifySignatures;
+    }
+
+    List<FakeProblem> getProblems() {
+        return problems.values().stream()
+                .sorted(Comparator.comparingInt(FakeProblem::getId))
+                .collect(Collectors.toList());
+    }
+
+    FakeProblem findProblem(final String owner, final String name) {
+        return problems.values().stream()
+                .filter(p -> p.getOwner().equals(owner) && p.getName().equals(name) && !p.isDeleted())
+                .findFirst()
+                .orElse(null);
+    }
+
+    FakeContest getContest(final int contestId) {
+        return contests.get(contestId);
+    }
+
+    FakeContest findContest(final String uid) {
+        return contests.values().stream().filter(c -> c.getUid().equals(uid)).findFirst().orElse(null);
+    }
+
+    FakePackage buildPackage(final FakeProblem problem, final boolean full) {
+        FakePackage fakePackage = new FakePackage(nextPackageId.getAndIncrement(), problem.getRevision(),
+                full ? "linux" : "standard", packageBuildDelayMs,
+                problem.buildPackageArchive(getProblemUrl(problem), packagePaddingLength));
+        problem.packages.add(fakePackage);
+        return fakePackage;
+    }
+
+    static void send(final HttpExchange exchange, final int code, final String contentType, final byte[] body)
+            throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    static void send(final HttpExchange exchange, final int code, final String contentType, final String body)
+            throws IOException {
+        send(exchange, code, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HttpHandler withInjection(final HttpHandler handler) {
+        return exchange -> {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                String method = path.startsWith("/api/") ? path.substring("/api/".length()) : path;
+                requestCounts.computeIfAbsent(method, m -> new LongAdder()).increment();
+
+                long latency = maxLatencyMs == 0 ? 0
+                        : ThreadLocalRandom.current().nextLong(minLatencyMs, maxLatencyMs + 1);
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+
+                FakeError error = nextError(method);
+                if (error == null) {
+                    handler.handle(exchange);
+                } else {
+                    sendError(exchange, error, path.startsWith("/api/"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                send(exchange, 500, "text/plain", String.valueOf(e));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private FakeError nextError(final String method) {
+        AtomicInteger forcedMethodErrorCount = forcedMethodErrorCounts.get(method);
+        if (forcedMethodErrorCount != null
+                && forcedMethodErrorCount.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            return forcedMethodErrors.get(method);
+        }
+        if (forcedErrorCount.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            return forcedError;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            FakeError[] currentErrors = errors;
+            return currentErrors[random.nextInt(currentErrors.length)];
+        }
+        return null;
+    }
+
+    private static void sendError(final HttpExchange exchange, final FakeError error, final boolean isApiRequest)
+            throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        switch (error) {
+            case FAILED:
+                if (isApiRequest) {
+                    send(exchange, 400, "application/json", FakeApiHandler.failed("Injected failure"));
+                } else {
+                    // Pages do not have FAILED responses, so they are unavailable instead.
+                    sendUnavailable(exchange);
+                }
+                break;
+            case UNAVAILABLE:
+                sendUnavailable(exchange);
+                break;
+            case GARBAGE:
+                send(exchange, 200, "text/html", "<html><body>Polygon is under maintenance</body></html>");
+                break;
+            case DISCONNECT:
+                // The exchange is closed without response headers, so the connection is dropped.
+                break;
+            default:
+                throw new IllegalStateException("Unknown error: " + error);
+        }
+    }
+
+    private static void sendUnavailable(final HttpExchange exchange) throws IOException {
+        send(exchange, 503, "text/html", "<html><body><h1>503 Service Temporarily Unavailable</h1></body></html>");
+    }
+}
@@ -0,0 +1,90 @@
+package ru.perveevm.polygon.testkit;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * JUnit 5 extension that starts a {@link FakePolygonServer} for every test and closes it after the test. The server
+ * has user {@link #LOGIN} with API key {@link #API_KEY} and secret {@link #API_SECRET}, who owns problem
+ * {@link #PROBLEM_NAME}.
+ *
+ * <p>Test methods and <code>@BeforeEach</code> methods of a class annotated with
+ * <code>@ExtendWith(FakePolygonServerExtension.class)</code> receive the server and the problem as
+ * {@link FakePolygonServer} and {@link FakeProblem} parameters. All parameters of the same test get the same
+ * instances.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FakePolygonServerExtension implements ParameterResolver {
+    /**
+     * Login of the user of the server.
+     */
+    public static final String LOGIN = "alice";
+
+    /**
+     * Password of the user of the server.
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * API key of the user of the server.
+     */
+    public static final String API_KEY = "key";
+
+    /**
+     * API secret of the user of the server.
+     */
+    public static final String API_SECRET = "secret";
+
+    /**
+     * Name of the problem of the user.
+     */
+    public static final String PROBLEM_NAME = "a-plus-b";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(FakePolygonServerExtension.class);
+
+    @Override
+    public boolean supportsParameter(final ParameterContext parameterContext,
+                                     final ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        return type == FakePolygonServer.class || type == FakeProblem.class;
+    }
+
+    @Override
+    public Object resolveParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+        Fixture fixture = extensionContext.getStore(NAMESPACE).getOrComputeIfAbsent(Fixture.class,
+                k -> new Fixture(), Fixture.class);
+        if (parameterContext.getParameter().getType() == FakePolygonServer.class) {
+            return fixture.server;
+        } else if (parameterContext.getParameter().getType() == FakeProblem.class) {
+            return fixture.problem;
+        }
+        throw new ParameterResolutionException("Unsupported parameter: " + parameterContext.getParameter());
+    }
+
+    private static class Fixture implements ExtensionContext.Store.CloseableResource {
+        private final FakePolygonServer server;
+        private final FakeProblem problem;
+
+        private Fixture() {
+            try {
+                server = new FakePolygonServer();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot start fake Polygon server", e);
+            }
+            server.addUser(LOGIN, PASSWORD, API_KEY, API_SECRET);
+            problem = server.createProblem(LOGIN, PROBLEM_NAME);
+        }
+
+        @Override
+        public void close() {
+            server.close();
+        }
+    }
+}
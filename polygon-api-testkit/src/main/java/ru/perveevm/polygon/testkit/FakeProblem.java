@@ -0,0 +1,375 @@
+package ru.perveevm.polygon.testkit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * State of a problem stored in {@link FakePolygonServer}. Methods of this class can be used to seed the problem
+ * before a test, and to check its state after. All methods are thread-safe, request handlers lock the problem
+ * while serving a request.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FakeProblem {
+    private final int id;
+    private final String owner;
+    private final String name;
+
+    private int revision = 1;
+    private boolean modified = false;
+    private boolean deleted = false;
+
+    final JsonObject info = new JsonObject();
+    final Map<String, JsonObject> statements = new TreeMap<>();
+    final Map<String, Map<String, FakeFile>> files = new HashMap<>();
+    final Map<String, FakeFile> solutions = new TreeMap<>();
+    final Map<String, TreeMap<Integer, FakeTest>> tests = new HashMap<>();
+    final Map<String, Map<String, JsonObject>> testGroups = new HashMap<>();
+    final Map<String, String> scripts = new HashMap<>();
+    final TreeMap<Integer, JsonObject> validatorTests = new TreeMap<>();
+    final TreeMap<Integer, JsonObject> checkerTests = new TreeMap<>();
+    final List<String> tags = new ArrayList<>();
+    final List<FakePackage> packages = new ArrayList<>();
+
+    String checker;
+    String validator;
+    String interactor;
+    String description = "";
+    String tutorial = "";
+    boolean pointsEnabled = false;
+
+    FakeProblem(final int id, final String owner, final String name) {
+        this.id = id;
+        this.owner = owner;
+        this.name = name;
+
+        info.addProperty("inputFile", "stdin");
+        info.addProperty("outputFile", "stdout");
+        info.addProperty("interactive", false);
+        info.addProperty("timeLimit", 1000);
+        info.addProperty("memoryLimit", 256);
+
+        for (String type : FakeApiHandler.FILE_TYPES) {
+            files.put(type, new TreeMap<>());
+        }
+        files.put("statementResource", new TreeMap<>());
+    }
+
+    /**
+     * @return Problem ID.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Problem owner handle.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return Problem name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Problem's current revision.
+     */
+    public synchronized int getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return Is <code>true</code> if the working copy has uncommitted changes.
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * @return Is <code>true</code> if the problem was deleted.
+     */
+    public synchronized boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Adds a test or replaces an existing one. The problem is not marked as modified.
+     *
+     * @param testset Testset name.
+     * @param index   Test index.
+     * @param input   Test input.
+     * @param answer  Test answer that will be returned by <code>problem.testAnswer</code>.
+     * @return This problem.
+     */
+    public synchronized FakeProblem addTest(final String testset, final int index, final String input,
+                                            final String answer) {
+        FakeTest test = getOrCreateTest(testset, index);
+        test.input = input.getBytes(StandardCharsets.UTF_8);
+        test.answer = answer.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * Adds a test with a random input of the given size. The test answer is equal to the input.
+     *
+     * @param testset     Testset name.
+     * @param index       Test index.
+     * @param inputLength Length of the test input in bytes.
+     * @return This problem.
+     */
+    public synchronized FakeProblem addTest(final String testset, final int index, final int inputLength) {
+        byte[] input = new byte[inputLength];
+        Random random = new Random(index);
+        for (int i = 0; i < inputLength; i++) {
+            input[i] = (byte) ((i + 1) % 64 == 0 ? '\n' : 'a' + random.nextInt(26));
+        }
+
+        FakeTest test = getOrCreateTest(testset, index);
+        test.input = input;
+        test.answer = input;
+        return this;
+    }
+
+    /**
+     * Adds a file or replaces an existing one. The problem is not marked as modified.
+     *
+     * @param type    File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name    File name.
+     * @param content File content.
+     * @return This problem.
+     */
+    public synchronized FakeProblem addFile(final String type, final String name, final String content) {
+        Map<String, FakeFile> filesOfType = files.get(type);
+        if (filesOfType == null) {
+            throw new IllegalArgumentException("Unknown file type: " + type);
+        }
+        filesOfType.put(name, new FakeFile(name, content.getBytes(StandardCharsets.UTF_8), null, null));
+        return this;
+    }
+
+    /**
+     * Adds a solution or replaces an existing one. The problem is not marked as modified.
+     *
+     * @param name    Solution name.
+     * @param content Solution source code.
+     * @param tag     Solution tag, for example, <code>MA</code>.
+     * @return This problem.
+     */
+    public synchronized FakeProblem addSolution(final String name, final String content, final String tag) {
+        solutions.put(name, new FakeFile(name, content.getBytes(StandardCharsets.UTF_8), null, tag));
+        return this;
+    }
+
+    /**
+     * Adds a statement or replaces an existing one. The problem is not marked as modified.
+     *
+     * @param lang   Statement language.
+     * @param name   Problem name in the statement.
+     * @param legend Problem legend.
+     * @return This problem.
+     */
+    public synchronized FakeProblem addStatement(final String lang, final String name, final String legend) {
+        JsonObject statement = getOrCreateStatement(lang);
+        statement.addProperty("name", name);
+        statement.addProperty("legend", legend);
+        return this;
+    }
+
+    /**
+     * Sets problem tags. The problem is not marked as modified.
+     *
+     * @param tags Problem tags.
+     * @return This problem.
+     */
+    public synchronized FakeProblem setTags(final String... tags) {
+        this.tags.clear();
+        this.tags.addAll(List.of(tags));
+        return this;
+    }
+
+    /**
+     * @param testset Testset name.
+     * @return Number of tests in the testset.
+     */
+    public synchronized int getTestCount(final String testset) {
+        return tests.getOrDefault(testset, new TreeMap<>()).size();
+    }
+
+    /**
+     * @param testset Testset name.
+     * @param index   Test index.
+     * @return Test input or <code>null</code> if there is no such test.
+     */
+    public synchronized String getTestInput(final String testset, final int index) {
+        FakeTest test = tests.getOrDefault(testset, new TreeMap<>()).get(index);
+        return test == null || test.input == null ? null : new String(test.input, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param type File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name File name.
+     * @return File content or <code>null</code> if there is no such file.
+     */
+    public synchronized String getFileContent(final String type, final String name) {
+        FakeFile file = files.getOrDefault(type, Map.of()).get(name);
+        return file == null ? null : new String(file.content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param name Solution name.
+     * @return Solution source code or <code>null</code> if there is no such solution.
+     */
+    public synchronized String getSolutionContent(final String name) {
+        FakeFile solution = solutions.get(name);
+        return solution == null ? null : new String(solution.content, StandardCharsets.UTF_8);
+    }
+
+    FakeTest getOrCreateTest(final String testset, final int index) {
+        return tests.computeIfAbsent(testset, t -> new TreeMap<>()).computeIfAbsent(index, FakeTest::new);
+    }
+
+    JsonObject getOrCreateStatement(final String lang) {
+        return statements.computeIfAbsent(lang, l -> {
+            JsonObject statement = new JsonObject();
+            statement.addProperty("encoding", "UTF-8");
+            return statement;
+        });
+    }
+
+    void markModified() {
+        modified = true;
+    }
+
+    void commit() {
+        if (modified) {
+            revision++;
+            modified = false;
+        }
+    }
+
+    void discard() {
+        modified = false;
+    }
+
+    void delete() {
+        deleted = true;
+    }
+
+    JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("owner", owner);
+        json.addProperty("name", name);
+        json.addProperty("deleted", deleted);
+        json.addProperty("favourite", false);
+        json.addProperty("accessType", "OWNER");
+        json.addProperty("revision", revision);
+        packages.stream().filter(FakePackage::isReady).mapToInt(p -> p.revision).max()
+                .ifPresent(latestPackage -> json.addProperty("latestPackage", latestPackage));
+        json.addProperty("modified", modified);
+        return json;
+    }
+
+    JsonArray testsToJson(final String testset, final boolean noInputs) {
+        JsonArray result = new JsonArray();
+        for (FakeTest test : tests.getOrDefault(testset, new TreeMap<>()).values()) {
+            JsonObject json = test.properties.deepCopy();
+            if (!noInputs && test.input != null) {
+                json.addProperty("input", new String(test.input, StandardCharsets.UTF_8));
+            }
+            result.add(json);
+        }
+        return result;
+    }
+
+    String getProblemXml(final String problemUrl) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n");
+        xml.append(String.format("<problem revision=\"%d\" short-name=\"%s\" url=\"%s\">%n", revision, name,
+                problemUrl));
+        xml.append("    <names>\n");
+        statements.forEach((lang, statement) -> xml.append(String.format("        <name language=\"%s\" value=\"%s\"/>%n",
+                lang, statement.has("name") ? statement.get("name").getAsString() : name)));
+        xml.append("    </names>\n");
+        xml.append("    <judging>\n");
+        tests.forEach((testset, testsetTests) -> {
+            xml.append(String.format("        <testset name=\"%s\">%n", testset));
+            xml.append(String.format("            <time-limit>%d</time-limit>%n", info.get("timeLimit").getAsInt()));
+            xml.append(String.format("            <memory-limit>%d</memory-limit>%n",
+                    info.get("memoryLimit").getAsLong() * 1024 * 1024));
+            xml.append(String.format("            <test-count>%d</test-count>%n", testsetTests.size()));
+            xml.append(String.format("            <input-path-pattern>%s/%%02d</input-path-pattern>%n", testset));
+            xml.append(String.format("            <answer-path-pattern>%s/%%02d.a</answer-path-pattern>%n", testset));
+            xml.append("        </testset>\n");
+        });
+        xml.append("    </judging>\n");
+        xml.append("    <tags>\n");
+        tags.forEach(tag -> xml.append(String.format("        <tag value=\"%s\"/>%n", tag)));
+        xml.append("    </tags>\n");
+        xml.append("</problem>\n");
+        return xml.toString();
+    }
+
+    byte[] buildPackageArchive(final String problemUrl, final int paddingLength) {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            addZipEntry(zip, "problem.xml", getProblemXml(problemUrl).getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, TreeMap<Integer, FakeTest>> testset : tests.entrySet()) {
+                for (Map.Entry<Integer, FakeTest> test : testset.getValue().entrySet()) {
+                    String path = String.format("%s/%02d", testset.getKey(), test.getKey());
+                    addZipEntry(zip, path, test.getValue().input == null ? new byte[0] : test.getValue().input);
+                    addZipEntry(zip, path + ".a", test.getValue().answer == null ? new byte[0]
+                            : test.getValue().answer);
+                }
+            }
+            Map<String, FakeFile> packageFiles = new LinkedHashMap<>();
+            files.get("source").forEach((fileName, file) -> packageFiles.put("files/" + fileName, file));
+            solutions.forEach((fileName, file) -> packageFiles.put("solutions/" + fileName, file));
+            for (Map.Entry<String, FakeFile> file : packageFiles.entrySet()) {
+                addZipEntry(zip, file.getKey(), file.getValue().content);
+            }
+            if (paddingLength > 0) {
+                byte[] padding = new byte[paddingLength];
+                new Random(id).nextBytes(padding);
+                addZipEntry(zip, "padding.bin", padding);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return archive.toByteArray();
+    }
+
+    private static void addZipEntry(final ZipOutputStream zip, final String name, final byte[] content)
+            throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        // Entries are stored without compression, so that package size is predictable.
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+}
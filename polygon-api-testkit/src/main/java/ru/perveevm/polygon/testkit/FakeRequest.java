@@ -0,0 +1,169 @@
+package ru.perveevm.polygon.testkit;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parameters of a request received by {@link FakePolygonServer}. Query string, URL encoded forms and multipart
+ * forms are supported.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeRequest {
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern PART_NAME = Pattern.compile("name=\"([^\"]*)\"");
+
+    private final Map<String, byte[]> parameters = new LinkedHashMap<>();
+
+    FakeRequest(final HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            parseUrlEncoded(query);
+        }
+
+        byte[] body;
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            body = inputStream.readAllBytes();
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || body.length == 0) {
+            return;
+        }
+        if (contentType.startsWith("multipart/form-data")) {
+            Matcher boundary = BOUNDARY.matcher(contentType);
+            if (boundary.find()) {
+                parseMultipart(body, boundary.group(1));
+            }
+        } else if (contentType.startsWith("application/x-www-form-urlencoded")) {
+            parseUrlEncoded(new String(body, StandardCharsets.US_ASCII));
+        }
+    }
+
+    Map<String, byte[]> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    boolean has(final String name) {
+        return parameters.containsKey(name);
+    }
+
+    byte[] getBytes(final String name) {
+        return parameters.get(name);
+    }
+
+    String getString(final String name) {
+        byte[] value = parameters.get(name);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    String getRequiredString(final String name) throws FakeApiException {
+        String value = getString(name);
+        if (value == null) {
+            throw new FakeApiException(name + ": Field should not be empty");
+        }
+        return value;
+    }
+
+    Integer getInteger(final String name) throws FakeApiException {
+        String value = getString(name);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new FakeApiException(name + ": Field should contain an integer");
+        }
+    }
+
+    int getRequiredInteger(final String name) throws FakeApiException {
+        getRequiredString(name);
+        return getInteger(name);
+    }
+
+    Double getDouble(final String name) throws FakeApiException {
+        String value = getString(name);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new FakeApiException(name + ": Field should contain a number");
+        }
+    }
+
+    Boolean getBoolean(final String name) {
+        String value = getString(name);
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
+    private void parseUrlEncoded(final String data) {
+        for (String pair : data.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void parseMultipart(final byte[] body, final String boundary) {
+        byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        byte[] headersEnd = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // The first delimiter is not preceded by CRLF, unless there is a preamble before it.
+        byte[] firstDelimiter = Arrays.copyOfRange(delimiter, 2, delimiter.length);
+        int partStart;
+        if (body.length >= firstDelimiter.length
+                && Arrays.equals(body, 0, firstDelimiter.length, firstDelimiter, 0, firstDelimiter.length)) {
+            partStart = firstDelimiter.length;
+        } else {
+            int position = indexOf(body, delimiter, 0);
+            if (position < 0) {
+                return;
+            }
+            partStart = position + delimiter.length;
+        }
+        while (true) {
+            if (partStart + 2 > body.length || body[partStart] == '-' && body[partStart + 1] == '-') {
+                return;
+            }
+            int contentStart = indexOf(body, headersEnd, partStart);
+            if (contentStart < 0) {
+                return;
+            }
+            int contentEnd = indexOf(body, delimiter, contentStart + headersEnd.length);
+            if (contentEnd < 0) {
+                return;
+            }
+
+            String headers = new String(body, partStart, contentStart - partStart, StandardCharsets.UTF_8);
+            Matcher name = PART_NAME.matcher(headers);
+            if (name.find()) {
+                parameters.put(name.group(1),
+                        Arrays.copyOfRange(body, contentStart + headersEnd.length, contentEnd));
+            }
+            partStart = contentEnd + delimiter.length;
+        }
+    }
+
+    private static int indexOf(final byte[] data, final byte[] pattern, final int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.perveevm.polygon.testkit;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A test stored in a {@link FakeProblem}. Test properties are kept in the same form as they are returned by
+ * <code>problem.tests</code>.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeTest {
+    final JsonObject properties = new JsonObject();
+    byte[] input;
+    byte[] answer;
+
+    FakeTest(final int index) {
+        properties.addProperty("index", index);
+        properties.addProperty("manual", true);
+        properties.addProperty("useInStatements", false);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.perveevm.polygon.testkit;
+
+/**
+ * A user of {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeUser {
+    final String login;
+    final String password;
+    final String apiSecret;
+
+    FakeUser(final String login, final String password, final String apiSecret) {
+        this.login = login;
+        this.password = password;
+        this.apiSecret = apiSecret;
+    }
+}
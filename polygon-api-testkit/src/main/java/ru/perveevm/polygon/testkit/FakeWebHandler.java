@@ -0,0 +1,228 @@
+package ru.perveevm.polygon.testkit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handles requests of {@link FakePolygonServer} that are not API requests: package and descriptor downloads of
+ * <code>PolygonHttpClient</code>, and pages that are used by <code>PolygonUserSession</code>.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class FakeWebHandler implements HttpHandler {
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    private final FakePolygonServer server;
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    private final String ccid = UUID.randomUUID().toString().replace("-", "");
+
+    FakeWebHandler(final FakePolygonServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        FakeRequest request = new FakeRequest(exchange);
+        String[] path = exchange.getRequestURI().getPath().replaceAll("/+", "/").replaceAll("^/|/$", "").split("/");
+
+        if (path.length >= 3 && path[0].equals("p")) {
+            handleProblem(exchange, request, path);
+        } else if (path.length == 3 && path[0].equals("c") && path[2].equals("contest.xml")) {
+            handleContestDescriptor(exchange, request, path[1]);
+        } else if (path[0].equals("login")) {
+            handleLogin(exchange, request);
+        } else if (path[0].isEmpty()) {
+            sendPage(exchange, getLogin(exchange) == null ? "<a href=\"/login\">Login</a>"
+                    : "<a href=\"/logout\">Logout</a>");
+        } else if (path[0].equals("search")) {
+            handleSearch(exchange, request);
+        } else if (path[0].equals("edit-start")) {
+            handleEditStart(exchange, request);
+        } else if (path[0].equals("deleteProblem")) {
+            handleDeleteProblem(exchange, request);
+        } else if (path[0].equals("contest") && path.length == 3 && path[1].equals("statements")) {
+            FakePolygonServer.send(exchange, 200, "application/pdf", "%PDF-1.4\n%%EOF\n");
+        } else {
+            FakePolygonServer.send(exchange, 404, "text/html", "<html><body>Not found</body></html>");
+        }
+    }
+
+    private void handleProblem(final HttpExchange exchange, final FakeRequest request, final String[] path)
+            throws IOException {
+        if (!checkPassword(exchange, request)) {
+            return;
+        }
+        FakeProblem problem = server.findProblem(path[1], path[2]);
+        if (problem == null || path.length > 4 || path.length == 4 && !path[3].equals("problem.xml")) {
+            FakePolygonServer.send(exchange, 404, "text/html", "<html><body>Problem not found</body></html>");
+            return;
+        }
+
+        if (path.length == 4) {
+            String xml;
+            synchronized (problem) {
+                xml = problem.getProblemXml(server.getProblemUrl(problem));
+            }
+            sendDescriptor(exchange, xml);
+            return;
+        }
+
+        String revision = request.getString("revision");
+        String type = request.getString("type");
+        FakePackage fakePackage;
+        synchronized (problem) {
+            fakePackage = problem.packages.stream()
+                    .filter(FakePackage::isReady)
+                    .filter(p -> revision == null || String.valueOf(p.revision).equals(revision))
+                    .filter(p -> type == null || p.type.equals(type) || p.type.equals("linux"))
+                    .reduce((first, second) -> second)
+                    .orElse(null);
+        }
+        if (fakePackage == null) {
+            FakePolygonServer.send(exchange, 404, "text/html", "<html><body>Package not found</body></html>");
+        } else {
+            FakeApiHandler.sendPackage(exchange, fakePackage);
+        }
+    }
+
+    private void handleContestDescriptor(final HttpExchange exchange, final FakeRequest request, final String uid)
+            throws IOException {
+        if (!checkPassword(exchange, request)) {
+            return;
+        }
+        FakeContest contest = server.findContest(uid);
+        if (contest == null) {
+            FakePolygonServer.send(exchange, 404, "text/html", "<html><body>Contest not found</body></html>");
+            return;
+        }
+
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n");
+        xml.append(String.format("<contest url=\"%sc/%s\">%n", server.getBaseUrl(), uid));
+        xml.append("    <problems>\n");
+        contest.getProblems().forEach((index, problem) -> xml.append(String.format(
+                "        <problem index=\"%s\" url=\"%s\"/>%n", index, server.getProblemUrl(problem))));
+        xml.append("    </problems>\n");
+        xml.append("</contest>\n");
+        sendDescriptor(exchange, xml.toString());
+    }
+
+    private void handleLogin(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        if (exchange.getRequestMethod().equals("POST")) {
+            FakeUser user = server.getUserByLogin(String.valueOf(request.getString("login")));
+            if (user != null && user.password.equals(request.getString("password"))
+                    && ccid.equals(request.getString("ccid"))) {
+                String session = UUID.randomUUID().toString();
+                sessions.put(session, user.login);
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session + "; Path=/");
+                sendPage(exchange, "<a href=\"/logout\">Logout</a>");
+                return;
+            }
+        }
+        sendPage(exchange, "<form class=\"enterForm\" method=\"post\" action=\"/login\">"
+                + "<input type=\"hidden\" name=\"ccid\" value=\"" + ccid + "\"/>"
+                + "<input name=\"login\"/><input name=\"password\" type=\"password\"/>"
+                + "<input type=\"submit\" name=\"submit\" value=\"Login\"/></form>");
+    }
+
+    private void handleSearch(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        String login = getLogin(exchange);
+        if (login == null) {
+            sendPage(exchange, "<a href=\"/login\">Login</a>");
+            return;
+        }
+
+        String query = String.valueOf(request.getString("query"));
+        StringBuilder rows = new StringBuilder("<table>");
+        for (FakeProblem problem : server.getProblems()) {
+            boolean matches = query.equals("id:" + problem.getId()) || query.equals("name:" + problem.getName());
+            if (matches && !problem.isDeleted() && problem.getOwner().equals(login)) {
+                rows.append(String.format("<tr problemid=\"%d\" problemname=\"%s\"><td>"
+                                + "<a class=\"START_EDIT_SESSION\" href=\"edit-start?problemId=%d\">Start</a>"
+                                + "</td></tr>", problem.getId(), problem.getName(), problem.getId()));
+            }
+        }
+        rows.append("</table>");
+        sendPage(exchange, rows.toString());
+    }
+
+    private void handleEditStart(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        FakeProblem problem = getOwnedProblem(exchange, request);
+        if (problem == null) {
+            return;
+        }
+        sendPage(exchange, String.format("<span id=\"session\">%s</span>"
+                        + "<script>supportCopyingToClipboard(\"share\", \"%s?salt=%s\");</script>",
+                Integer.toHexString(problem.getId() * 7919), server.getProblemUrl(problem), ccid));
+    }
+
+    private void handleDeleteProblem(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        FakeProblem problem = getOwnedProblem(exchange, request);
+        if (problem == null) {
+            return;
+        }
+        synchronized (problem) {
+            problem.delete();
+        }
+        sendPage(exchange, "Problem deleted");
+    }
+
+    private FakeProblem getOwnedProblem(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        String login = getLogin(exchange);
+        String problemId = request.getString("problemId");
+        FakeProblem problem = problemId == null || !problemId.matches("\\d+") ? null
+                : server.getProblem(Integer.parseInt(problemId));
+        if (login == null || problem == null || problem.isDeleted() || !problem.getOwner().equals(login)) {
+            FakePolygonServer.send(exchange, 404, "text/html", "<html><body>Problem not found</body></html>");
+            return null;
+        }
+        return problem;
+    }
+
+    private boolean checkPassword(final HttpExchange exchange, final FakeRequest request) throws IOException {
+        FakeUser user = server.getUserByLogin(String.valueOf(request.getString("login")));
+        if (user == null || !user.password.equals(request.getString("password"))) {
+            FakePolygonServer.send(exchange, 403, "text/html", "<html><body>Access denied</body></html>");
+            return false;
+        }
+        return true;
+    }
+
+    private String getLogin(final HttpExchange exchange) {
+        String cookies = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookies == null) {
+            return null;
+        }
+        for (String cookie : cookies.split(";")) {
+            String[] nameValue = cookie.trim().split("=", 2);
+            if (nameValue.length == 2 && nameValue[0].equals(SESSION_COOKIE)) {
+                return sessions.get(nameValue[1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a descriptor with a strong <code>ETag</code>, and answers with 304 if the client already has it.
+     */
+    private static void sendDescriptor(final HttpExchange exchange, final String xml) throws IOException {
+        byte[] content = xml.getBytes(StandardCharsets.UTF_8);
+        String eTag = String.format("\"%08x\"", xml.hashCode());
+        exchange.getResponseHeaders().set("ETag", eTag);
+        if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        FakePolygonServer.send(exchange, 200, "application/xml", content);
+    }
+
+    private static void sendPage(final HttpExchange exchange, final String body) throws IOException {
+        FakePolygonServer.send(exchange, 200, "text/html; charset=utf-8", "<html><body>" + body + "</body></html>");
+    }
+}
@@ -0,0 +1,152 @@
+package ru.perveevm.polygon.testkit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link FakePolygonServer} with plain HTTP requests, so that they do not depend on the client.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class FakePolygonServerTest {
+    private static final String BOUNDARY = "PolygonBoundary";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FakePolygonServer server;
+    private FakeProblem problem;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) {
+        this.server = server;
+        this.problem = problem;
+    }
+
+    @Test
+    void parsesMultipartForm() throws Exception {
+        server.setVerifySignatures(false);
+        HttpResponse<String> response = postMultipart("problem.saveFile", "", saveFileParts("int main() {}"));
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertEquals("int main() {}", problem.getFileContent("source", "main.cpp"));
+    }
+
+    @Test
+    void parsesMultipartFormWithPreamble() throws Exception {
+        server.setVerifySignatures(false);
+        HttpResponse<String> response = postMultipart("problem.saveFile", "This is a preamble.\r\n",
+                saveFileParts("int main() { return 0; }"));
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertEquals("int main() { return 0; }", problem.getFileContent("source", "main.cpp"));
+    }
+
+    @Test
+    void acceptsCorrectSignature() throws Exception {
+        Map<String, String> parameters = signedInfoParameters();
+        HttpResponse<String> response = postForm("problem.info", parameters);
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertTrue(response.body().contains("\"OK\""), response.body());
+    }
+
+    @Test
+    void rejectsIncorrectSignature() throws Exception {
+        Map<String, String> parameters = signedInfoParameters();
+        parameters.put("problemId", String.valueOf(problem.getId() + 1));
+        HttpResponse<String> response = postForm("problem.info", parameters);
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Incorrect signature"), response.body());
+    }
+
+    @Test
+    void injectsFailedResponseIntoApiRequest() throws Exception {
+        server.failNext(1, FakeError.FAILED);
+        HttpResponse<String> response = postForm("problem.info", signedInfoParameters());
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("\"FAILED\""), response.body());
+        assertEquals(200, postForm("problem.info", signedInfoParameters()).statusCode());
+    }
+
+    @Test
+    void injectsUnavailableResponseIntoPageInsteadOfFailed() throws Exception {
+        server.failNext(1, FakeError.FAILED);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl())).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(503, response.statusCode());
+    }
+
+    private Map<String, String> saveFileParts(final String content) {
+        Map<String, String> parts = new TreeMap<>();
+        parts.put("apiKey", FakePolygonServerExtension.API_KEY);
+        parts.put("time", "1");
+        parts.put("problemId", String.valueOf(problem.getId()));
+        parts.put("type", "source");
+        parts.put("name", "main.cpp");
+        parts.put("file", content);
+        return parts;
+    }
+
+    private Map<String, String> signedInfoParameters() throws NoSuchAlgorithmException {
+        Map<String, String> parameters = new TreeMap<>();
+        parameters.put("apiKey", FakePolygonServerExtension.API_KEY);
+        parameters.put("time", String.valueOf(System.currentTimeMillis() / 1000));
+        parameters.put("problemId", String.valueOf(problem.getId()));
+        String query = parameters.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("&"));
+        String signed = "123456/problem.info?" + query + "#" + FakePolygonServerExtension.API_SECRET;
+        byte[] hash = MessageDigest.getInstance("SHA-512").digest(signed.getBytes(StandardCharsets.UTF_8));
+        StringBuilder apiSig = new StringBuilder("123456");
+        for (byte b : hash) {
+            apiSig.append(String.format("%02x", b));
+        }
+        parameters.put("apiSig", apiSig.toString());
+        return parameters;
+    }
+
+    private HttpResponse<String> postForm(final String methodName, final Map<String, String> parameters)
+            throws IOException, InterruptedException {
+        String body = parameters.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return client.send(HttpRequest.newBuilder(URI.create(server.getApiUrl() + methodName))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> postMultipart(final String methodName, final String preamble,
+                                               final Map<String, String> parts)
+            throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(preamble);
+        for (Map.Entry<String, String> part : parts.entrySet()) {
+            body.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(part.getKey()).append("\"\r\n\r\n")
+                    .append(part.getValue()).append("\r\n");
+        }
+        body.append("--").append(BOUNDARY).append("--\r\n");
+        return client.send(HttpRequest.newBuilder(URI.create(server.getApiUrl() + methodName))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,1262 @@
+package ru.perveevm.polygon.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import lombok.NonNull;
+import org.apache.http.NameValuePair;
+import ru.perveevm.polygon.api.breaker.CircuitBreaker;
+import ru.perveevm.polygon.api.cache.ResponseCache;
+import ru.perveevm.polygon.api.entities.*;
+import ru.perveevm.polygon.api.entities.enums.*;
+import ru.perveevm.polygon.api.limit.ConcurrencyLimiter;
+import ru.perveevm.polygon.api.limit.RateLimiter;
+import ru.perveevm.polygon.api.retry.FailureKind;
+import ru.perveevm.polygon.api.retry.HedgingPolicy;
+import ru.perveevm.polygon.api.retry.RetryContext;
+import ru.perveevm.polygon.api.retry.RetryPolicy;
+import ru.perveevm.polygon.exceptions.api.*;
+import ru.perveevm.polygon.utils.ApiMethodDescriptor;
+import ru.perveevm.polygon.utils.FileUtils;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.perveevm.polygon.api.PolygonSession.*;
+
+/**
+ * Asynchronous version of {@link PolygonSession}. Each method sends the same request as the corresponding method
+ * of {@link PolygonSession} using a non-blocking HTTP client and returns a {@link CompletableFuture} instead of
+ * waiting for the response. The future is completed exceptionally with a {@link PolygonSessionException} if the
+ * request fails. Retries are scheduled on a timer and do not block any thread.
+ * <p>
+ * Use {@link PolygonSession#async()} to get an instance. It shares the credentials, the pin, the base URL and
+ * the retry parameters with the session it was created from.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class AsyncPolygonSession {
+    private final Gson gson = new Gson();
+
+    private final PolygonSession session;
+    private final HttpClient client;
+
+    AsyncPolygonSession(final PolygonSession session, final HttpClient client) {
+        this.session = session;
+        this.client = client;
+    }
+
+    /**
+     * Returns a list of problems, available to the user, according to search parameters.
+     *
+     * @param showDeleted Searches for deleted problems too if <code>true</code>. Can be <code>null</code>.
+     * @param id          Searches problem by id, can be <code>null</code>.
+     * @param name        Searches problem by name, can be <code>null</code>.
+     * @param owner       Searches problem by owner, can be <code>null</code>.
+     * @return {@link CompletableFuture} with array of {@link Problem} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Problem[]> problemsList(final Boolean showDeleted, final Integer id, final String name,
+                                                     final String owner) {
+        return sendAPIRequest(PROBLEMS_LIST, showDeleted, id, name, owner)
+                .thenApply(result -> gson.fromJson(result, Problem[].class));
+    }
+
+    /**
+     * Create a new empty problem. Returns a created Problem.
+     *
+     * @param name Name of problem being created.
+     * @return {@link CompletableFuture} with a created {@link Problem}.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Problem> problemCreate(@NonNull final String name) {
+        return sendAPIRequest(PROBLEM_CREATE, name)
+                .thenApply(result -> gson.fromJson(result, Problem.class));
+    }
+
+    /**
+     * Returns problem general info.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with {@link ProblemInfo} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ProblemInfo> problemInfo(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_INFO, problemId)
+                .thenApply(result -> gson.fromJson(result, ProblemInfo.class));
+    }
+
+    /**
+     * Update problem info. All parameters except <code>problemId</code> can be <code>null</code>.
+     *
+     * @param problemId   Problem ID.
+     * @param inputFile   Input file name.
+     * @param outputFile  Output file name.
+     * @param interactive Is problem interactive.
+     * @param timeLimit   Time limit in milliseconds.
+     * @param memoryLimit Memory limit in megabytes.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemUpdateInfo(@NonNull final Integer problemId, final String inputFile,
+                                                     final String outputFile, final Boolean interactive,
+                                                     final Integer timeLimit, final Integer memoryLimit) {
+        return sendAPIRequest(PROBLEM_UPDATE_INFO, problemId, inputFile, outputFile, interactive,
+                timeLimit, memoryLimit).thenApply(result -> null);
+    }
+
+    /**
+     * Updates working copy.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemUpdateWorkingCopy(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_UPDATE_WORKING_COPY, problemId)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Discards working copy.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemDiscardWorkingCopy(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_DISCARD_WORKING_COPY, problemId)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Commits problem changes. All parameters are optional.
+     *
+     * @param problemId    Problem ID.
+     * @param minorChanges If <code>true</code>, no email notification will be sent.
+     * @param message      Problem’s commit message.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemCommitChanges(@NonNull final Integer problemId, final Boolean minorChanges,
+                                                        final String message) {
+        return sendAPIRequest(PROBLEM_COMMIT_CHANGES, problemId, minorChanges, message)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns a {@link Map} from language to a {@link Statement} object for that language.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with a described {@link Map}.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Map<String, Statement>> problemStatements(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_STATEMENTS, problemId)
+                .thenApply(result -> gson.fromJson(result, new TypeToken<Map<String, Statement>>() {
+                }.getType()));
+    }
+
+    /**
+     * Update or create a problem’s statement. All parameters except for <code>lang</code> and <code>problemId</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId   Problem ID.
+     * @param lang        Problem language.
+     * @param encoding    Statement encoding.
+     * @param name        Problem name.
+     * @param legend      Problem legend.
+     * @param input       Problem input format.
+     * @param output      Problem output format.
+     * @param scoring     Problem scoring description.
+     * @param interaction Problem interaction protocol (only for interactive problems)
+     * @param notes       Problem notes.
+     * @param tutorial    Problem tutorial.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveStatement(@NonNull final Integer problemId, @NonNull final String lang,
+                                                        final String encoding, final String name, final String legend,
+                                                        final String input, final String output, final String scoring,
+                                                        final String interaction, final String notes,
+                                                        final String tutorial) {
+        return sendAPIRequest(PROBLEM_SAVE_STATEMENT, problemId, lang, encoding, name, legend,
+                input, output, scoring, interaction, notes, tutorial).thenApply(result -> null);
+    }
+
+    /**
+     * Returns a list of statement resources for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with an array of {@link ProblemFile} objects representing resources.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ProblemFile[]> problemStatementResources(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_STATEMENT_RESOURCES, problemId)
+                .thenApply(result -> gson.fromJson(result, ProblemFile[].class));
+    }
+
+    /**
+     * Add or edit statement resource file.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File content.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveStatementResource(@NonNull final Integer problemId,
+                                                                final Boolean checkExisting, @NonNull final String name,
+                                                                @NonNull final String file) {
+        return sendAPIRequest(PROBLEM_SAVE_STATEMENT_RESOURCE, problemId, checkExisting,
+                name, file).thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit statement resource file.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File descriptor.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveStatementResource(@NonNull final Integer problemId,
+                                                                final Boolean checkExisting, @NonNull final String name,
+                                                                @NonNull final File file) {
+        return sendAPIRequest(PROBLEM_SAVE_STATEMENT_RESOURCE, problemId, checkExisting,
+                name, file).thenApply(result -> null);
+    }
+
+    /**
+     * Returns the name of currently set checker.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with {@link String} object, contains checker name.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemChecker(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_CHECKER, problemId)
+                .thenApply(result -> gson.fromJson(result, String.class));
+    }
+
+    /**
+     * Returns the name of currently set validator.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with {@link String} object, contains validator name.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemValidator(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_VALIDATOR, problemId)
+                .thenApply(result -> gson.fromJson(result, String.class));
+    }
+
+    /**
+     * Returns the name of currently set interactor.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with {@link String} object, contains interactor name.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemInteractor(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_INTERACTOR, problemId)
+                .thenApply(result -> gson.fromJson(result, String.class));
+    }
+
+    /**
+     * Returns a list of validator tests for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with an array of {@link ValidatorTest} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ValidatorTest[]> problemValidatorTests(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_VALIDATOR_TESTS, problemId)
+                .thenApply(result -> gson.fromJson(result, ValidatorTest[].class));
+    }
+
+    /**
+     * Add or edit validator test. All parameters except for <code>testIndex</code>, <code>testInput</code>
+     * and <code>testVerdict</code> are optional.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding validator’s test is allowed.
+     * @param testVerdict   Validator test verdict.
+     * @param testIndex     Index of a validator test.
+     * @param testInput     Input of a validator test.
+     * @param testGroup     Test group (groups should be enabled for the testset).
+     * @param testset       Testset name.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveValidatorTest(@NonNull final Integer problemId,
+                                                            final Boolean checkExisting,
+                                                            @NonNull final ValidatorTestVerdict testVerdict,
+                                                            @NonNull final Integer testIndex,
+                                                            @NonNull final String testInput, final String testGroup,
+                                                            final String testset) {
+        return sendAPIRequest(PROBLEM_SAVE_VALIDATOR_TEST, problemId, checkExisting,
+                testVerdict, testIndex, testInput, testGroup, testset).thenApply(result -> null);
+    }
+
+    /**
+     * Returns a list of checker tests for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with an array of {@link CheckerTest} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<CheckerTest[]> problemCheckerTests(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_CHECKER_TESTS, problemId)
+                .thenApply(result -> gson.fromJson(result, CheckerTest[].class));
+    }
+
+    /**
+     * Adds or edits checker test. All parameters except for <code>testIndex</code>, <code>testInput</code>,
+     * <code>testAnswer</code>, <code>testOutput</code> and <code>testVerdict</code> are optional.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding checker test is allowed.
+     * @param testVerdict   Checker’s test verdict.
+     * @param testIndex     Index of a checker test.
+     * @param testInput     Input of a checker test.
+     * @param testOutput    Output of a checker test.
+     * @param testAnswer    Answer of a checker test.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveCheckerTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                          @NonNull final CheckerTestVerdict testVerdict,
+                                                          @NonNull final Integer testIndex,
+                                                          @NonNull final String testInput,
+                                                          @NonNull final String testOutput,
+                                                          @NonNull final String testAnswer) {
+        return sendAPIRequest(PROBLEM_SAVE_CHECKER_TEST, problemId, checkExisting,
+                testVerdict, testIndex, testInput, testOutput, testAnswer).thenApply(result -> null);
+    }
+
+    /**
+     * Returns the list of resource, source and aux files.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with {@link ProblemFiles} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ProblemFiles> problemFiles(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_FILES, problemId)
+                .thenApply(result -> gson.fromJson(result, ProblemFiles.class));
+    }
+
+    /**
+     * Returns the list of problem solutions.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with an array of {@link Solution} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Solution[]> problemSolutions(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_SOLUTIONS, problemId)
+                .thenApply(result -> gson.fromJson(result, Solution[].class));
+    }
+
+    /**
+     * Returns resource, source or aux file.
+     *
+     * @param problemId Problem ID.
+     * @param type      Resource type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name      File name.
+     * @return {@link CompletableFuture} with file content in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemViewFile(@NonNull final Integer problemId, @NonNull final String type,
+                                                     @NonNull final String name) {
+        return sendAPIRequestPlain(PROBLEM_VIEW_FILE, problemId, type, name);
+    }
+
+    /**
+     * Returns solution file.
+     *
+     * @param problemId Problem ID.
+     * @param name      File name.
+     * @return {@link CompletableFuture} with file content in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemViewSolution(@NonNull final Integer problemId, @NonNull final String name) {
+        return sendAPIRequestPlain(PROBLEM_VIEW_SOLUTION, problemId, name);
+    }
+
+    /**
+     * Returns script for generating tests.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @return {@link CompletableFuture} with script content in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemScript(@NonNull final Integer problemId, @NonNull final String testset) {
+        return sendAPIRequestPlain(PROBLEM_SCRIPT, problemId, testset);
+    }
+
+    /**
+     * Returns tests for the given testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param noInputs  If <code>true</code>, returns tests without input.
+     * @return {@link CompletableFuture} with an array of {@link ProblemTest} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ProblemTest[]> problemTests(@NonNull final Integer problemId,
+                                                         @NonNull final String testset, final Boolean noInputs) {
+        return sendAPIRequest(PROBLEM_TESTS, problemId, testset, noInputs)
+                .thenApply(result -> gson.fromJson(result, ProblemTest[].class));
+    }
+
+    /**
+     * Returns generated test input.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param testIndex Test index.
+     * @return {@link CompletableFuture} with test input content in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemTestInput(@NonNull final Integer problemId, @NonNull final String testset,
+                                                      @NonNull final Integer testIndex) {
+        return sendAPIRequestPlain(PROBLEM_TEST_INPUT, problemId, testset, testIndex);
+    }
+
+    /**
+     * Returns generated test answer.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param testIndex Test index.
+     * @return {@link CompletableFuture} with test output content in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemTestAnswer(@NonNull final Integer problemId, @NonNull final String testset,
+                                                       @NonNull final Integer testIndex) {
+        return sendAPIRequestPlain(PROBLEM_TEST_ANSWER, problemId, testset, testIndex);
+    }
+
+    /**
+     * Update validator.
+     *
+     * @param problemId Problem ID.
+     * @param validator Validator file name.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSetValidator(@NonNull final Integer problemId,
+                                                       @NonNull final String validator) {
+        return sendAPIRequest(PROBLEM_SET_VALIDATOR, problemId, validator)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Update checker.
+     *
+     * @param problemId Problem ID.
+     * @param checker   Checker file name.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSetChecker(@NonNull final Integer problemId, @NonNull final String checker) {
+        return sendAPIRequest(PROBLEM_SET_CHECKER, problemId, checker).thenApply(result -> null);
+    }
+
+    /**
+     * Update interactor.
+     *
+     * @param problemId  Problem ID.
+     * @param interactor Interactor file name.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSetInteractor(@NonNull final Integer problemId,
+                                                        @NonNull final String interactor) {
+        return sendAPIRequest(PROBLEM_SET_INTERACTOR, problemId, interactor)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit resource, source or aux file. In case of editing, all parameters, except <code>problemId</code>,
+     * <code>type</code> and <code>name</code> can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param type          File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name          File name.
+     * @param file          File content.
+     * @param sourceType    Source type (only for source files).
+     * @param forTypes      An array of file types it can be applied to (only for resource files).
+     * @param stages        An array of stages for which it can be used to (only for resource files).
+     * @param assets        An array of assets for which it can be user to (only for resource files).
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveFile(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                   @NonNull final String type, @NonNull final String name,
+                                                   @NonNull final String file, final String sourceType,
+                                                   final String[] forTypes, final ResourceStage[] stages,
+                                                   final ResourceAsset[] assets) {
+        return sendAPIRequest(PROBLEM_SAVE_FILE, problemId, checkExisting, type, name, file,
+                sourceType, encodeArray(forTypes), encodeArray(stages), encodeArray(assets)).thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit resource, source or aux file. In case of editing, all parameters, except <code>problemId</code>,
+     * <code>type</code> and <code>name</code> can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param type          File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name          File name.
+     * @param file          File descriptor.
+     * @param sourceType    Source type (only for source files).
+     * @param forTypes      An array of file types it can be applied to (only for resource files).
+     * @param stages        An array of stages for which it can be used to (only for resource files).
+     * @param assets        An array of assets for which it can be user to (only for resource files).
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveFile(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                   @NonNull final String type, @NonNull final String name,
+                                                   @NonNull final File file, final String sourceType,
+                                                   final String[] forTypes, final ResourceStage[] stages,
+                                                   final ResourceAsset[] assets) {
+        return sendAPIRequest(PROBLEM_SAVE_FILE, problemId, checkExisting, type, name, file,
+                sourceType, encodeArray(forTypes), encodeArray(stages), encodeArray(assets)).thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit solution. In case of editing, all parameters except <code>problemId</code> and <code>name</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File content.
+     * @param sourceType    File source type.
+     * @param tag           Solution tag.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveSolution(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                       @NonNull final String name, @NonNull final String file,
+                                                       final String sourceType, final SolutionTag tag) {
+        return sendAPIRequest(PROBLEM_SAVE_SOLUTION, problemId, checkExisting, name, file,
+                sourceType, tag).thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit solution. In case of editing, all parameters except <code>problemId</code> and <code>name</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File descriptor.
+     * @param sourceType    File source type.
+     * @param tag           Solution tag.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveSolution(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                       @NonNull final String name, @NonNull final File file,
+                                                       final String sourceType, final SolutionTag tag) {
+        return sendAPIRequest(PROBLEM_SAVE_SOLUTION, problemId, checkExisting, name, file,
+                sourceType, tag).thenApply(result -> null);
+    }
+
+    /**
+     * Add or remove testset or test group extra tag for solution.
+     *
+     * @param problemId Problem ID.
+     * @param remove    If <code>true</code>, tag will be removed, or added otherwise.
+     * @param name      Solution file name.
+     * @param testset   Testset name. Can be <code>null</code>.
+     * @param testGroup Group name. Can be <code>null</code>.
+     * @param tag       Solution tag.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemEditSolutionExtraTags(@NonNull final Integer problemId,
+                                                                @NonNull final Boolean remove,
+                                                                @NonNull final String name, final String testset,
+                                                                final String testGroup, final SolutionTag tag) {
+        return sendAPIRequest(PROBLEM_EDIT_SOLUTION_EXTRA_TAGS, problemId, remove, name,
+                testset, testGroup, tag).thenApply(result -> null);
+    }
+
+    /**
+     * Edit script.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param source    Script content.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveScript(@NonNull final Integer problemId, @NonNull final String testset,
+                                                     @NonNull final String source) {
+        return sendAPIRequest(PROBLEM_SAVE_SCRIPT, problemId, testset, source)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Edit script.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param source    Script file descriptor.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveScript(@NonNull final Integer problemId, @NonNull final String testset,
+                                                     @NonNull final File source) {
+        return sendAPIRequest(PROBLEM_SAVE_SCRIPT, problemId, testset, source)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit test. In case of editing, all parameters except <code>problemId</code>, <code>testset</code>
+     * and <code>testIndex</code> can be <code>null</code>.
+     *
+     * @param problemId                      Problem ID.
+     * @param checkExisting                  If <code>true</code>, only adding is allowed.
+     * @param testset                        Testset name.
+     * @param testIndex                      Test index.
+     * @param testInput                      Test input data.
+     * @param testGroup                      Test group name.
+     * @param testPoints                     Test points score.
+     * @param testDescription                Test description.
+     * @param testUseInStatements            If <code>true</code>, test will be used in statements.
+     * @param testInputForStatements         Test input data for statements.
+     * @param testOutputForStatements        Test output data for statements.
+     * @param verifyInputOutputForStatements If <code>true</code>, input/output data for statements will be checked.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                   @NonNull final String testset, @NonNull final Integer testIndex,
+                                                   final String testInput, final String testGroup,
+                                                   final Double testPoints, final String testDescription,
+                                                   final Boolean testUseInStatements,
+                                                   final String testInputForStatements,
+                                                   final String testOutputForStatements,
+                                                   final Boolean verifyInputOutputForStatements) {
+        return sendAPIRequest(PROBLEM_SAVE_TEST, problemId, checkExisting, testset, testIndex,
+                testInput, testGroup, testPoints, testDescription, testUseInStatements, testInputForStatements,
+                testOutputForStatements, verifyInputOutputForStatements).thenApply(result -> null);
+    }
+
+    /**
+     * Add or edit test. In case of editing, all parameters except <code>problemId</code>, <code>testset</code>
+     * and <code>testIndex</code> can be <code>null</code>.
+     *
+     * @param problemId                      Problem ID.
+     * @param checkExisting                  If <code>true</code>, only adding is allowed.
+     * @param testset                        Testset name.
+     * @param testIndex                      Test index.
+     * @param testInput                      Test input file descriptor.
+     * @param testGroup                      Test group name.
+     * @param testPoints                     Test points score.
+     * @param testDescription                Test description.
+     * @param testUseInStatements            If <code>true</code>, test will be used in statements.
+     * @param testInputForStatements         Test input data for statements.
+     * @param testOutputForStatements        Test output data for statements.
+     * @param verifyInputOutputForStatements If <code>true</code>, input/output data for statements will be checked.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                                   @NonNull final String testset, @NonNull final Integer testIndex,
+                                                   @NonNull final File testInput, final String testGroup,
+                                                   final Double testPoints, final String testDescription,
+                                                   final Boolean testUseInStatements,
+                                                   final String testInputForStatements,
+                                                   final String testOutputForStatements,
+                                                   final Boolean verifyInputOutputForStatements) {
+        return sendAPIRequest(PROBLEM_SAVE_TEST, problemId, checkExisting, testset, testIndex,
+                testInput, testGroup, testPoints, testDescription, testUseInStatements, testInputForStatements,
+                testOutputForStatements, verifyInputOutputForStatements).thenApply(result -> null);
+    }
+
+    /**
+     * Set test group for one or more tests. It expects that for specified testset test groups are enabled.
+     * Parameters <code>testIndex</code> and <code>testIndices</code> are mutually exclusive.
+     *
+     * @param problemId   Problem ID.
+     * @param testset     Testset name.
+     * @param testGroup   Group name.
+     * @param testIndex   Test index to set group for.
+     * @param testIndices Array of test indices.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSetTestGroup(@NonNull final Integer problemId, @NonNull final String testset,
+                                                       @NonNull final String testGroup, final Integer testIndex,
+                                                       final Integer[] testIndices) {
+        return sendAPIRequest(PROBLEM_SET_TEST_GROUP, problemId, testset, testGroup, testIndex,
+                encodeArray(testIndices)).thenApply(result -> null);
+    }
+
+    /**
+     * Enable or disable test groups for the specified testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param enable    If <code>true</code>, test groups will be enabled, or disabled otherwise.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemEnableGroups(@NonNull final Integer problemId, @NonNull final String testset,
+                                                       @NonNull final Boolean enable) {
+        return sendAPIRequest(PROBLEM_ENABLE_GROUPS, problemId, testset, enable)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Enable or disable test points for the problem.
+     *
+     * @param problemId Problem ID.
+     * @param enable    If <code>true</code>, test points will be enabled, or disabled otherwise.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemEnablePoints(@NonNull final Integer problemId,
+                                                       @NonNull final Boolean enable) {
+        return sendAPIRequest(PROBLEM_ENABLE_POINTS, problemId, enable)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns test groups for the specified testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param group     Group name to be returned. Can be <code>null</code>.
+     * @return {@link CompletableFuture} with an array of {@link TestGroup} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<TestGroup[]> problemViewTestGroup(@NonNull final Integer problemId,
+                                                               @NonNull final String testset, final String group) {
+        return sendAPIRequest(PROBLEM_VIEW_TEST_GROUP, problemId, testset, group)
+                .thenApply(result -> gson.fromJson(result, TestGroup[].class));
+    }
+
+    /**
+     * Saves test group. Use if only to save a test group.
+     * If you want to create new test group, just add new test with such test group.
+     *
+     * @param problemId      Problem ID.
+     * @param testset        Testset name.
+     * @param group          Group name.
+     * @param pointsPolicy   Points giving policy. Can be <code>null</code>.
+     * @param feedbackPolicy Feedback policy. Can be <code>null</code>.
+     * @param dependencies   Array of groups' names – dependencies groups. Can be <code>null</code>.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveTestGroup(@NonNull final Integer problemId, @NonNull final String testset,
+                                                        @NonNull final String group,
+                                                        final TestGroupPointsPolicy pointsPolicy,
+                                                        final TestGroupFeedbackPolicy feedbackPolicy,
+                                                        final String[] dependencies) {
+        return sendAPIRequest(PROBLEM_SAVE_TEST_GROUP, problemId, testset, group, pointsPolicy,
+                feedbackPolicy, encodeArray(dependencies)).thenApply(result -> null);
+    }
+
+    /**
+     * Returns tags for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with array of tags in {@link String} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String[]> problemViewTags(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_VIEW_TAGS, problemId)
+                .thenApply(result -> gson.fromJson(result, String[].class));
+    }
+
+    /**
+     * Saves tags for the problem. Existed tags will be replaced by new tags.
+     *
+     * @param problemId Problem ID.
+     * @param tags      Array of new tags.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveTags(@NonNull final Integer problemId, @NonNull final String[] tags) {
+        return sendAPIRequest(PROBLEM_SAVE_TAGS, problemId, encodeArray(tags))
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns problem general description.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with problem general description in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemViewGeneralDescription(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_VIEW_GENERAL_DESCRIPTION, problemId)
+                .thenApply(result -> gson.fromJson(result, String.class));
+    }
+
+    /**
+     * Saves problem general description.
+     *
+     * @param problemId   Problem ID.
+     * @param description Problem general description.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveGeneralDescription(@NonNull final Integer problemId,
+                                                                 @NonNull final String description) {
+        return sendAPIRequest(PROBLEM_SAVE_GENERAL_DESCRIPTION, problemId, description)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns problem general tutorial.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with problem general tutorial in a {@link String} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<String> problemViewGeneralTutorial(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_VIEW_GENERAL_TUTORIAL, problemId)
+                .thenApply(result -> gson.fromJson(result, String.class));
+    }
+
+    /**
+     * Saves problem general tutorial.
+     *
+     * @param problemId Problem ID.
+     * @param tutorial  Problem general tutorial.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemSaveGeneralTutorial(@NonNull final Integer problemId,
+                                                              @NonNull final String tutorial) {
+        return sendAPIRequest(PROBLEM_SAVE_GENERAL_TUTORIAL, problemId, tutorial)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns list of all packages available for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return {@link CompletableFuture} with an array of {@link ProblemPackage} objects.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<ProblemPackage[]> problemPackages(@NonNull final Integer problemId) {
+        return sendAPIRequest(PROBLEM_PACKAGES, problemId)
+                .thenApply(result -> gson.fromJson(result, ProblemPackage[].class));
+    }
+
+    /**
+     * Download a package as a zip-archive. The archive is downloaded to a temporary file next to
+     * <code>downloadPath</code>, which replaces <code>downloadPath</code> only if the download succeeds. Unlike
+     * {@link PolygonSession#problemPackage(Integer, Integer, String, File, boolean)}, an interrupted download is
+     * not continued, and the package store of the session is not used.
+     *
+     * @param problemId    Problem ID.
+     * @param packageId    Package ID.
+     * @param downloadPath Download file descriptor.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemPackage(@NonNull final Integer problemId, @NonNull final Integer packageId,
+                                                  final String type, @NonNull final File downloadPath) {
+        List<NameValuePair> parameters = PROBLEM_PACKAGE.encode(problemId, packageId, type);
+        Path temporaryFile;
+        try {
+            temporaryFile = FileUtils.createTemporaryFile(downloadPath.toPath());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new PolygonSessionException("Cannot write file: " + e.getMessage(), e));
+        }
+        return getAPIResponse("problem.package", parameters, HttpResponse.BodyHandlers.ofFile(temporaryFile))
+                .thenApply(response -> {
+                    try {
+                        session.checkDownloadedPackage(temporaryFile);
+                        if (response.statusCode() != 200) {
+                            throw new PolygonSessionBadResponseException(session.getBaseUrl() + "problem.package",
+                                    parameters, response.statusCode());
+                        }
+                        FileUtils.moveAtomically(temporaryFile, downloadPath.toPath());
+                    } catch (PolygonSessionException e) {
+                        throw new CompletionException(e);
+                    } catch (IOException e) {
+                        throw new CompletionException(
+                                new PolygonSessionException("Cannot write file: " + e.getMessage(), e));
+                    }
+                    return (Void) null;
+                })
+                .whenComplete((result, e) -> {
+                    try {
+                        Files.deleteIfExists(temporaryFile);
+                    } catch (IOException ignored) {
+                    }
+                });
+    }
+
+    /**
+     * Starts to build a new package.
+     *
+     * @param problemId Problem ID.
+     * @param full      Defines whether to build full package, contains "standard", "linux" and "windows" packages,
+     *                  or only "standard". Standard packages don't contain generated tests, but contain windows
+     *                  executables and scripts for windows and linux via wine. Linux packages contain generated tests,
+     *                  but don't contain compiled binaries. Windows packages contain generated tests and compiled
+     *                  binaries for Windows.
+     * @param verify    If that parameter is <code>true</code> all solutions will be invoked on all tests to be sure
+     *                  that tags are valid. Stress tests will run the checker to verify its credibility.
+     * @return {@link CompletableFuture} that is completed when the request is done.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Void> problemBuildPackage(@NonNull final Integer problemId, @NonNull final Boolean full,
+                                                       @NonNull final Boolean verify) {
+        return sendAPIRequest(PROBLEM_BUILD_PACKAGE, problemId, full, verify)
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Returns problems of the contest.
+     *
+     * @param contestId Contest ID.
+     * @return {@link CompletableFuture} with a map from problem letter to {@link Problem} object.
+     */
+    @SuppressWarnings("unused")
+    public CompletableFuture<Map<String, Problem>> contestProblems(@NonNull final Integer contestId) {
+        return sendAPIRequest(CONTEST_PROBLEMS, contestId)
+                .thenApply(result -> gson.fromJson(result, new TypeToken<Map<String, Problem>>() {
+                }.getType()));
+    }
+
+    private static String encodeArray(final Object[] data) {
+        return PolygonSession.encodeArray(data);
+    }
+
+    private CompletableFuture<String> sendAPIRequestPlain(final ApiMethodDescriptor method, final Object... values) {
+        String methodName = method.getApiMethodName();
+        return sendAPIRequestPlain(methodName, method.encode(values)).thenApply(result -> {
+            try {
+                session.checkPlainResult(methodName, result);
+            } catch (PolygonSessionException e) {
+                throw new CompletionException(e);
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<JsonElement> sendAPIRequest(final ApiMethodDescriptor method, final Object... values) {
+        return sendAPIRequest(method.getApiMethodName(), method.encode(values));
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> getAPIResponse(final String methodName,
+                                                                  final List<NameValuePair> parameters,
+                                                                  final HttpResponse.BodyHandler<T> bodyHandler) {
+        return sendAttempt(methodName, parameters, bodyHandler, null).thenApply(response -> {
+            session.recordOutcome(!PolygonSession.isFailureStatus(response.statusCode()));
+            return response;
+        });
+    }
+
+    /**
+     * Sends one attempt of the request. Transport failures are recorded by the circuit breaker, other outcomes must
+     * be recorded by the caller. The request is cancelled when <code>abandoned</code> completes, if it is not
+     * <code>null</code>.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAttempt(final String methodName,
+                                                               final List<NameValuePair> parameters,
+                                                               final HttpResponse.BodyHandler<T> bodyHandler,
+                                                               final CompletableFuture<Void> abandoned) {
+        // The request is signed after the waits, so that its time parameter is not stale.
+        RateLimiter rateLimiter = session.getRateLimiter();
+        CompletableFuture<Void> allowed = rateLimiter == null ? CompletableFuture.completedFuture(null)
+                : PolygonSession.delay(rateLimiter.reserve(methodName), TimeUnit.NANOSECONDS);
+        ConcurrencyLimiter concurrencyLimiter = session.getConcurrencyLimiter();
+        CompletableFuture<ConcurrencyLimiter.Permit> permitted = concurrencyLimiter == null
+                ? allowed.thenApply(ignored -> null)
+                : allowed.thenCompose(ignored -> concurrencyLimiter.acquireAsync(methodName));
+        return permitted.thenCompose(permit -> {
+            // The breaker permit is taken right before sending, so that probes of a half-open breaker are not held
+            // by requests that wait for the limiters.
+            CircuitBreaker circuitBreaker = session.getCircuitBreaker();
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                if (permit != null) {
+                    permit.onIgnored();
+                }
+                return CompletableFuture.failedFuture(new PolygonSessionAPIUnavailableException());
+            }
+            // The latency is recorded when the headers arrive, so that the time of reading the body is not counted.
+            HttpResponse.BodyHandler<T> handler = permit == null ? bodyHandler : responseInfo -> {
+                permit.onResponseStarted();
+                return bodyHandler.apply(responseInfo);
+            };
+            return sendSignedRequest(methodName, parameters, handler, abandoned).whenComplete((result, e) -> {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                if (e == null) {
+                    if (permit != null) {
+                        PolygonSession.releasePermit(permit, result.statusCode());
+                    }
+                } else if (cause instanceof PolygonSessionHTTPErrorException) {
+                    session.recordOutcome(false);
+                    if (permit != null) {
+                        permit.onDropped();
+                    }
+                } else {
+                    if (circuitBreaker != null) {
+                        circuitBreaker.onIgnored();
+                    }
+                    if (permit != null) {
+                        permit.onIgnored();
+                    }
+                }
+            });
+        });
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendSignedRequest(final String methodName,
+                                                                     final List<NameValuePair> parameters,
+                                                                     final HttpResponse.BodyHandler<T> bodyHandler,
+                                                                     final CompletableFuture<Void> abandoned) {
+        if (abandoned != null && abandoned.isDone()) {
+            return CompletableFuture.failedFuture(new CancellationException());
+        }
+        String url = session.getBaseUrl() + methodName;
+        HttpRequest request;
+        try {
+            request = HttpUtils.createAsyncPostRequest(url, session.signParameters(methodName, parameters));
+        } catch (PolygonSessionException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new PolygonSessionHTTPErrorException(url, parameters, e));
+        }
+
+        CompletableFuture<HttpResponse<T>> response = client.sendAsync(request, bodyHandler);
+        if (abandoned != null) {
+            abandoned.thenRun(() -> response.cancel(true));
+        }
+        return response.handle((result, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                if (cause instanceof CancellationException) {
+                    // A cancelled request says nothing about Polygon, so it is not reported as an HTTP error.
+                    throw (CancellationException) cause;
+                }
+                throw new CompletionException(new PolygonSessionHTTPErrorException(url, parameters, cause));
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<String> sendAPIRequestPlain(final String methodName,
+                                                          final List<NameValuePair> parameters) {
+        return getAPIResponse(methodName, parameters, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(HttpResponse::body);
+    }
+
+    private CompletableFuture<JsonElement> sendAPIRequest(final String methodName,
+                                                          final List<NameValuePair> parameters) {
+        ResponseCache responseCache = session.getResponseCache();
+        if (responseCache == null) {
+            return sendCoalescedAPIRequest(methodName, parameters);
+        }
+
+        int problemId = PolygonSession.getProblemId(parameters);
+        if (!PolygonSession.isReadOnly(methodName)) {
+            // Results are invalidated after the write as well, in case a read stored them while it was in flight.
+            session.invalidateCachedResults(problemId);
+            return sendCoalescedAPIRequest(methodName, parameters)
+                    .whenComplete((result, e) -> session.invalidateCachedResults(problemId));
+        }
+
+        List<String> requestKey = session.getRequestKey(methodName, parameters);
+        JsonElement cachedResult = responseCache.get(problemId, requestKey);
+        if (cachedResult != null) {
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+        long version = responseCache.getVersion(problemId);
+        return sendCoalescedAPIRequest(methodName, parameters).thenApply(result -> {
+            session.cacheResult(methodName, problemId, requestKey, version, result);
+            return result;
+        });
+    }
+
+    private CompletableFuture<JsonElement> sendCoalescedAPIRequest(final String methodName,
+                                                                   final List<NameValuePair> parameters) {
+        if (!session.isCoalesced(methodName)) {
+            return sendUncoalescedAPIRequest(methodName, parameters);
+        }
+
+        List<String> requestKey = session.getRequestKey(methodName, parameters);
+        CompletableFuture<JsonElement> request = new CompletableFuture<>();
+        CompletableFuture<JsonElement> sameRequest = session.joinRead(requestKey, request);
+        if (sameRequest != null) {
+            // Callers get their own futures, so that one of them cannot cancel the shared request.
+            return sameRequest.copy();
+        }
+        sendUncoalescedAPIRequest(methodName, parameters).whenComplete((result, e) -> {
+            if (e == null) {
+                request.complete(result);
+            } else {
+                request.completeExceptionally(e);
+            }
+        });
+        return request.copy();
+    }
+
+    CompletableFuture<JsonElement> sendUncoalescedAPIRequest(final String methodName,
+                                                             final List<NameValuePair> parameters) {
+        session.getRetryPolicy().onRequest(methodName);
+        HedgingPolicy hedgingPolicy = session.getHedgingPolicy();
+        if (hedgingPolicy != null) {
+            hedgingPolicy.onRequest(methodName);
+        }
+        return sendAPIRequest(methodName, parameters, PolygonSession.isIdempotent(methodName, parameters), 0, 0, 0);
+    }
+
+    private CompletableFuture<JsonElement> sendAPIRequest(final String methodName,
+                                                          final List<NameValuePair> parameters,
+                                                          final boolean idempotent, final int failedAttempts,
+                                                          final long previousDelay, final long totalDelay) {
+        String url = session.getBaseUrl() + methodName;
+        HedgingPolicy hedgingPolicy = session.getHedgingPolicy();
+        long hedgeDelay = hedgingPolicy == null ? HedgingPolicy.NO_HEDGE : hedgingPolicy.getHedgeDelayMs(methodName);
+        // Outcomes of hedged attempts are recorded by the attempts themselves.
+        boolean recorded = hedgeDelay != HedgingPolicy.NO_HEDGE;
+        return sendHedgedAttempt(methodName, parameters, hedgeDelay)
+                .handle((response, e) -> {
+                    PolygonSessionException failure;
+                    RetryContext context;
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if (!(cause instanceof PolygonSessionHTTPErrorException)) {
+                            return CompletableFuture.<JsonElement>failedFuture(cause);
+                        }
+                        failure = (PolygonSessionException) cause;
+                        context = new RetryContext(methodName, idempotent, failedAttempts + 1, previousDelay,
+                                totalDelay, PolygonSession.getFailureKind(cause.getCause()), 0, cause.getCause());
+                    } else if (PolygonSession.isFailureStatus(response.statusCode())) {
+                        recordOutcome(recorded, false);
+                        failure = new PolygonSessionAPIUnavailableException(
+                                new PolygonSessionBadResponseException(url, parameters, response.statusCode()));
+                        context = new RetryContext(methodName, idempotent, failedAttempts + 1, previousDelay,
+                                totalDelay, FailureKind.HTTP_STATUS, response.statusCode(), failure.getCause());
+                    } else {
+                        try {
+                            JsonElement result = session.parseResult(methodName, parameters, response.body());
+                            recordOutcome(recorded, true);
+                            return CompletableFuture.completedFuture(result);
+                        } catch (PolygonSessionFailedRequestException ex) {
+                            // FAILED response means that the API works, so it is a success for the circuit breaker.
+                            recordOutcome(recorded, true);
+                            return CompletableFuture.<JsonElement>failedFuture(ex);
+                        } catch (JsonSyntaxException ex) {
+                            recordOutcome(recorded, false);
+                            failure = new PolygonSessionAPIUnavailableException(ex);
+                            context = new RetryContext(methodName, idempotent, failedAttempts + 1, previousDelay,
+                                    totalDelay, FailureKind.BAD_RESPONSE, response.statusCode(), ex);
+                        }
+                    }
+
+                    long delay = session.getRetryPolicy().getRetryDelayMs(context);
+                    if (delay == RetryPolicy.NO_RETRY || session.isCircuitOpen()) {
+                        return CompletableFuture.<JsonElement>failedFuture(failure);
+                    }
+                    return PolygonSession.delay(delay, TimeUnit.MILLISECONDS)
+                            .thenCompose(ignored -> sendAPIRequest(methodName, parameters, idempotent,
+                                    failedAttempts + 1, delay, totalDelay + delay));
+                })
+                .thenCompose(future -> future);
+    }
+
+    private void recordOutcome(final boolean recorded, final boolean success) {
+        if (!recorded) {
+            session.recordOutcome(success);
+        }
+    }
+
+    /**
+     * Sends one attempt of the request. If the request is hedged and no response comes within the hedging delay, the
+     * same request is sent once more. The first response that does not say that Polygon is unavailable is used, and
+     * the other request is cancelled. Each hedged request records its own outcome in the circuit breaker, so the
+     * caller records the outcome only if the request is not hedged.
+     */
+    private CompletableFuture<HttpResponse<String>> sendHedgedAttempt(final String methodName,
+                                                                      final List<NameValuePair> parameters,
+                                                                      final long delay) {
+        HedgingPolicy hedgingPolicy = session.getHedgingPolicy();
+        if (delay == HedgingPolicy.NO_HEDGE) {
+            long start = System.nanoTime();
+            return sendAttempt(methodName, parameters, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8),
+                    null).whenComplete((response, e) -> {
+                if (hedgingPolicy != null && e == null && !PolygonSession.isFailureStatus(response.statusCode())) {
+                    hedgingPolicy.recordLatency(methodName, System.nanoTime() - start);
+                }
+            });
+        }
+
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        CompletableFuture<Void> primaryAbandoned = new CompletableFuture<>();
+        CompletableFuture<Void> hedgeAbandoned = new CompletableFuture<>();
+        sendHedge(methodName, parameters, result, running, primaryAbandoned, hedgeAbandoned);
+        PolygonSession.delay(delay, TimeUnit.MILLISECONDS).thenRun(() -> {
+            // The hedged request is sent only if the first one is still running.
+            if (result.isDone() || !hedgingPolicy.tryHedge() || running.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+            }
+            sendHedge(methodName, parameters, result, running, hedgeAbandoned, primaryAbandoned);
+        });
+        return result;
+    }
+
+    private void sendHedge(final String methodName, final List<NameValuePair> parameters,
+                           final CompletableFuture<HttpResponse<String>> result, final AtomicInteger running,
+                           final CompletableFuture<Void> abandoned, final CompletableFuture<Void> other) {
+        long start = System.nanoTime();
+        sendAttempt(methodName, parameters, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), abandoned)
+                .whenComplete((response, e) -> {
+                    boolean success = e == null && !PolygonSession.isFailureStatus(response.statusCode());
+                    if (e == null) {
+                        // Failed and cancelled requests are already recorded by sendAttempt.
+                        session.recordOutcome(success);
+                    }
+                    if (success) {
+                        session.getHedgingPolicy().recordLatency(methodName, System.nanoTime() - start);
+                    }
+                    // A failed request is used only if the other one has failed as well or was not sent.
+                    if (success || running.decrementAndGet() == 0) {
+                        boolean first = e == null ? result.complete(response) : result.completeExceptionally(e);
+                        if (first) {
+                            other.complete(null);
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,2077 @@
+package ru.perveevm.polygon.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import lombok.NonNull;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.ParseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.conn.EofSensorWatcher;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import ru.perveevm.polygon.api.breaker.CircuitBreaker;
+import ru.perveevm.polygon.api.cache.DiskCache;
+import ru.perveevm.polygon.api.cache.PackageStore;
+import ru.perveevm.polygon.api.cache.ResponseCache;
+import ru.perveevm.polygon.api.breaker.CircuitBreakerState;
+import ru.perveevm.polygon.api.entities.*;
+import ru.perveevm.polygon.api.entities.enums.*;
+import ru.perveevm.polygon.api.json.DecodedJSONResponse;
+import ru.perveevm.polygon.api.json.JSONResponse;
+import ru.perveevm.polygon.api.json.JSONResponseDecoder;
+import ru.perveevm.polygon.api.json.JSONResponseStatus;
+import ru.perveevm.polygon.api.limit.ConcurrencyLimiter;
+import ru.perveevm.polygon.api.limit.RateLimiter;
+import ru.perveevm.polygon.api.retry.FailureKind;
+import ru.perveevm.polygon.api.retry.HedgingPolicy;
+import ru.perveevm.polygon.api.retry.RetryContext;
+import ru.perveevm.polygon.api.retry.RetryPolicy;
+import ru.perveevm.polygon.exceptions.api.*;
+import ru.perveevm.polygon.utils.ApiMethodDescriptor;
+import ru.perveevm.polygon.utils.FileNameValuePair;
+import ru.perveevm.polygon.utils.FileUtils;
+import ru.perveevm.polygon.utils.HttpUtils;
+import ru.perveevm.polygon.utils.ReadOnlyApiMethod;
+import ru.perveevm.polygon.utils.ReflectionUtils;
+
+import javax.imageio.stream.IIOByteBuffer;
+import java.io.*;
+import java.net.ConnectException;
+import java.lang.reflect.Type;
+import java.net.http.HttpConnectTimeoutException;
+import java.security.MessageDigest;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Basic class for performing Polygon API calls. An instance is thread-safe and can be shared between many threads,
+ * all of them use the connection pool of the same HTTP client.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class PolygonSession implements Closeable {
+    private final static String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private final static Pattern JSON_RESPONSE_PREFIX = Pattern.compile("\\s*\\{\\s*\"(status|comment|result)\"\\s*:");
+    private final static int PLAIN_SNIFF_LIMIT = 64;
+    private final static int MAX_PLAIN_ERROR_LENGTH = 1 << 16;
+    private final static int COPY_BUFFER_SIZE = 1 << 16;
+    private final static Map<String, ApiMethodDescriptor> API_METHODS =
+            ReflectionUtils.describeMethods(PolygonSession.class);
+    private final static Map<String, List<ApiMethodDescriptor>> API_METHOD_OVERLOADS = API_METHODS.values().stream()
+            .sorted(Comparator.comparing(ApiMethodDescriptor::getSignature))
+            .collect(Collectors.groupingBy(ApiMethodDescriptor::getName, Collectors.toUnmodifiableList()));
+    private final static Set<String> READ_ONLY_METHODS = API_METHODS.values().stream()
+            .filter(ApiMethodDescriptor::isReadOnly)
+            .map(ApiMethodDescriptor::getApiMethodName)
+            .collect(Collectors.toUnmodifiableSet());
+    // Descriptors of the parameters sent by every method are resolved once, when the class is loaded.
+    final static ApiMethodDescriptor PROBLEMS_LIST = apiMethod("problemsList", 4);
+    final static ApiMethodDescriptor PROBLEM_CREATE = apiMethod("problemCreate", 1);
+    final static ApiMethodDescriptor PROBLEM_INFO = apiMethod("problemInfo", 1);
+    final static ApiMethodDescriptor PROBLEM_UPDATE_INFO = apiMethod("problemUpdateInfo", 6);
+    final static ApiMethodDescriptor PROBLEM_UPDATE_WORKING_COPY = apiMethod("problemUpdateWorkingCopy", 1);
+    final static ApiMethodDescriptor PROBLEM_DISCARD_WORKING_COPY = apiMethod("problemDiscardWorkingCopy", 1);
+    final static ApiMethodDescriptor PROBLEM_COMMIT_CHANGES = apiMethod("problemCommitChanges", 3);
+    final static ApiMethodDescriptor PROBLEM_STATEMENTS = apiMethod("problemStatements", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_STATEMENT = apiMethod("problemSaveStatement", 11);
+    final static ApiMethodDescriptor PROBLEM_STATEMENT_RESOURCES = apiMethod("problemStatementResources", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_STATEMENT_RESOURCE = apiMethod("problemSaveStatementResource", 4);
+    final static ApiMethodDescriptor PROBLEM_CHECKER = apiMethod("problemChecker", 1);
+    final static ApiMethodDescriptor PROBLEM_VALIDATOR = apiMethod("problemValidator", 1);
+    final static ApiMethodDescriptor PROBLEM_INTERACTOR = apiMethod("problemInteractor", 1);
+    final static ApiMethodDescriptor PROBLEM_VALIDATOR_TESTS = apiMethod("problemValidatorTests", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_VALIDATOR_TEST = apiMethod("problemSaveValidatorTest", 7);
+    final static ApiMethodDescriptor PROBLEM_CHECKER_TESTS = apiMethod("problemCheckerTests", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_CHECKER_TEST = apiMethod("problemSaveCheckerTest", 7);
+    final static ApiMethodDescriptor PROBLEM_FILES = apiMethod("problemFiles", 1);
+    final static ApiMethodDescriptor PROBLEM_SOLUTIONS = apiMethod("problemSolutions", 1);
+    final static ApiMethodDescriptor PROBLEM_VIEW_FILE = apiMethod("problemViewFile", 3);
+    final static ApiMethodDescriptor PROBLEM_VIEW_SOLUTION = apiMethod("problemViewSolution", 2);
+    final static ApiMethodDescriptor PROBLEM_SCRIPT = apiMethod("problemScript", 2);
+    final static ApiMethodDescriptor PROBLEM_TESTS = apiMethod("problemTests", 3);
+    final static ApiMethodDescriptor PROBLEM_TEST_INPUT = apiMethod("problemTestInput", 3);
+    final static ApiMethodDescriptor PROBLEM_TEST_ANSWER = apiMethod("problemTestAnswer", 3);
+    final static ApiMethodDescriptor PROBLEM_SET_VALIDATOR = apiMethod("problemSetValidator", 2);
+    final static ApiMethodDescriptor PROBLEM_SET_CHECKER = apiMethod("problemSetChecker", 2);
+    final static ApiMethodDescriptor PROBLEM_SET_INTERACTOR = apiMethod("problemSetInteractor", 2);
+    final static ApiMethodDescriptor PROBLEM_SAVE_FILE = apiMethod("problemSaveFile", 9);
+    final static ApiMethodDescriptor PROBLEM_SAVE_SOLUTION = apiMethod("problemSaveSolution", 6);
+    final static ApiMethodDescriptor PROBLEM_EDIT_SOLUTION_EXTRA_TAGS = apiMethod("problemEditSolutionExtraTags", 6);
+    final static ApiMethodDescriptor PROBLEM_SAVE_SCRIPT = apiMethod("problemSaveScript", 3);
+    final static ApiMethodDescriptor PROBLEM_SAVE_TEST = apiMethod("problemSaveTest", 12);
+    final static ApiMethodDescriptor PROBLEM_SET_TEST_GROUP = apiMethod("problemSetTestGroup", 5);
+    final static ApiMethodDescriptor PROBLEM_ENABLE_GROUPS = apiMethod("problemEnableGroups", 3);
+    final static ApiMethodDescriptor PROBLEM_ENABLE_POINTS = apiMethod("problemEnablePoints", 2);
+    final static ApiMethodDescriptor PROBLEM_VIEW_TEST_GROUP = apiMethod("problemViewTestGroup", 3);
+    final static ApiMethodDescriptor PROBLEM_SAVE_TEST_GROUP = apiMethod("problemSaveTestGroup", 6);
+    final static ApiMethodDescriptor PROBLEM_VIEW_TAGS = apiMethod("problemViewTags", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_TAGS = apiMethod("problemSaveTags", 2);
+    final static ApiMethodDescriptor PROBLEM_VIEW_GENERAL_DESCRIPTION = apiMethod("problemViewGeneralDescription", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_GENERAL_DESCRIPTION = apiMethod("problemSaveGeneralDescription", 2);
+    final static ApiMethodDescriptor PROBLEM_VIEW_GENERAL_TUTORIAL = apiMethod("problemViewGeneralTutorial", 1);
+    final static ApiMethodDescriptor PROBLEM_SAVE_GENERAL_TUTORIAL = apiMethod("problemSaveGeneralTutorial", 2);
+    final static ApiMethodDescriptor PROBLEM_PACKAGES = apiMethod("problemPackages", 1);
+    final static ApiMethodDescriptor PROBLEM_PACKAGE = apiMethod("problemPackage", 3);
+    final static ApiMethodDescriptor PROBLEM_BUILD_PACKAGE = apiMethod("problemBuildPackage", 3);
+    final static ApiMethodDescriptor CONTEST_PROBLEMS = apiMethod("contestProblems", 1);
+    private final static Set<String> NON_IDEMPOTENT_METHODS = Set.of("problem.create", "problem.commitChanges",
+            "problem.buildPackage");
+    private final static ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "polygon-session-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Gson gson = new Gson();
+    private final JSONResponseDecoder decoder = new JSONResponseDecoder(gson);
+
+
+    private final String key;
+    private final String secret;
+
+    private String baseUrl = "https://polygon.codeforces.com/api/";
+    private CloseableHttpClient client;
+
+    private long startWaitMs = 100L;
+    private long maxTotalWaitMs = 60000L;
+    private double waitCoefficient = 2.0;
+    private int maxRetries = 5;
+    private RetryPolicy retryPolicy = null;
+    private HedgingPolicy hedgingPolicy = null;
+    private RateLimiter rateLimiter = null;
+    private ConcurrencyLimiter concurrencyLimiter = null;
+    private CircuitBreaker circuitBreaker = null;
+    private boolean coalesceReads = false;
+    private ResponseCache responseCache = null;
+    private DiskCache diskCache = null;
+    private PackageStore packageStore = null;
+    private final Map<List<String>, CompletableFuture<JsonElement>> readsInFlight = new ConcurrentHashMap<>();
+
+    private volatile String pin = null;
+
+    private java.net.http.HttpClient asyncClient = null;
+    private AsyncPolygonSession asyncSession = null;
+
+    PolygonSession(final String key, final String secret) {
+        this.key = key;
+        this.secret = secret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    void setStartWaitMs(final long startWaitMs) {
+        this.startWaitMs = startWaitMs;
+    }
+
+    void setMaxTotalWaitMs(final long maxTotalWaitMs) {
+        this.maxTotalWaitMs = maxTotalWaitMs;
+    }
+
+    void setWaitCoefficient(final double waitCoefficient) {
+        this.waitCoefficient = waitCoefficient;
+    }
+
+    void setMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    void setHedgingPolicy(final HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    void setRateLimiter(final RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    void setConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    void setCoalesceReads(final boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    void setResponseCache(final ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    void setDiskCache(final DiskCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    void setPackageStore(final PackageStore packageStore) {
+        this.packageStore = packageStore;
+    }
+
+    void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    void setBaseUrl(final String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    void setClient(final CloseableHttpClient client) {
+        this.client = client;
+    }
+
+    void setAsyncClient(final java.net.http.HttpClient asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    long getStartWaitMs() {
+        return startWaitMs;
+    }
+
+    long getMaxTotalWaitMs() {
+        return maxTotalWaitMs;
+    }
+
+    double getWaitCoefficient() {
+        return waitCoefficient;
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the state of the circuit breaker of this session. Schedulers can use it to pause work while Polygon
+     * API is unavailable: requests fail immediately with {@link PolygonSessionAPIUnavailableException} while the
+     * breaker is open.
+     *
+     * @return {@link CircuitBreakerState}, always {@link CircuitBreakerState#CLOSED} if the circuit breaker is not
+     * configured.
+     */
+    @SuppressWarnings("unused")
+    public CircuitBreakerState getCircuitBreakerState() {
+        return circuitBreaker == null ? CircuitBreakerState.CLOSED : circuitBreaker.getState();
+    }
+
+    /**
+     * Returns asynchronous view of this session. All its methods return {@link java.util.concurrent.CompletableFuture}
+     * and do not block the calling thread. The returned instance shares credentials, pin, base URL and retry
+     * parameters with this session.
+     *
+     * @return {@link AsyncPolygonSession} instance.
+     */
+    @SuppressWarnings("unused")
+    public synchronized AsyncPolygonSession async() {
+        if (asyncSession == null) {
+            if (asyncClient == null) {
+                asyncClient = java.net.http.HttpClient.newHttpClient();
+            }
+            asyncSession = new AsyncPolygonSession(this, asyncClient);
+        }
+        return asyncSession;
+    }
+
+    /**
+     * Sets <code>pin</code> that will be used in all following requests. You can set it to <code>null</code> if no pin
+     * is required.
+     *
+     * @param pin Polygon pin code for problem or contest access.
+     */
+    @SuppressWarnings("unused")
+    public void setPin(final String pin) {
+        this.pin = pin;
+    }
+
+    /**
+     * Returns a list of problems, available to the user, according to search parameters.
+     *
+     * @param showDeleted Searches for deleted problems too if <code>true</code>. Can be <code>null</code>.
+     * @param id          Searches problem by id, can be <code>null</code>.
+     * @param name        Searches problem by name, can be <code>null</code>.
+     * @param owner       Searches problem by owner, can be <code>null</code>.
+     * @return Array of {@link Problem} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public Problem[] problemsList(final Boolean showDeleted, final Integer id, final String name, final String owner)
+            throws PolygonSessionException {
+        return sendAPIRequest(Problem[].class, PROBLEMS_LIST, showDeleted, id, name, owner);
+    }
+
+    /**
+     * Create a new empty problem. Returns a created Problem.
+     *
+     * @param name Name of problem being created.
+     * @return A created {@link Problem}.
+     */
+    @SuppressWarnings("unused")
+    public Problem problemCreate(@NonNull final String name) throws PolygonSessionException {
+        return sendAPIRequest(Problem.class, PROBLEM_CREATE, name);
+    }
+
+    /**
+     * Returns problem general info.
+     *
+     * @param problemId Problem ID.
+     * @return {@link ProblemInfo} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ProblemInfo problemInfo(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(ProblemInfo.class, PROBLEM_INFO, problemId);
+    }
+
+    /**
+     * Update problem info. All parameters except <code>problemId</code> can be <code>null</code>.
+     *
+     * @param problemId   Problem ID.
+     * @param inputFile   Input file name.
+     * @param outputFile  Output file name.
+     * @param interactive Is problem interactive.
+     * @param timeLimit   Time limit in milliseconds.
+     * @param memoryLimit Memory limit in megabytes.
+     */
+    @SuppressWarnings("unused")
+    public void problemUpdateInfo(@NonNull final Integer problemId, final String inputFile, final String outputFile,
+                                  final Boolean interactive, final Integer timeLimit, final Integer memoryLimit)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_UPDATE_INFO, problemId, inputFile, outputFile, interactive, timeLimit, memoryLimit);
+    }
+
+    /**
+     * Updates working copy.
+     *
+     * @param problemId Problem ID.
+     */
+    @SuppressWarnings("unused")
+    public void problemUpdateWorkingCopy(@NonNull final Integer problemId) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_UPDATE_WORKING_COPY, problemId);
+    }
+
+    /**
+     * Discards working copy.
+     *
+     * @param problemId Problem ID.
+     */
+    @SuppressWarnings("unused")
+    public void problemDiscardWorkingCopy(@NonNull final Integer problemId) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_DISCARD_WORKING_COPY, problemId);
+    }
+
+    /**
+     * Commits problem changes. All parameters are optional.
+     *
+     * @param problemId    Problem ID.
+     * @param minorChanges If <code>true</code>, no email notification will be sent.
+     * @param message      Problem’s commit message.
+     */
+    @SuppressWarnings("unused")
+    public void problemCommitChanges(@NonNull final Integer problemId, final Boolean minorChanges, final String message)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_COMMIT_CHANGES, problemId, minorChanges, message);
+    }
+
+    /**
+     * Returns a {@link Map} from language to a {@link Statement} object for that language.
+     *
+     * @param problemId Problem ID.
+     * @return A described {@link Map}.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public Map<String, Statement> problemStatements(@NonNull final Integer problemId) throws PolygonSessionException {
+        Type type = new TypeToken<Map<String, Statement>>() {
+        }.getType();
+        return sendAPIRequest(type, PROBLEM_STATEMENTS, problemId);
+    }
+
+    /**
+     * Update or create a problem’s statement. All parameters except for <code>lang</code> and <code>problemId</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId   Problem ID.
+     * @param lang        Problem language.
+     * @param encoding    Statement encoding.
+     * @param name        Problem name.
+     * @param legend      Problem legend.
+     * @param input       Problem input format.
+     * @param output      Problem output format.
+     * @param scoring     Problem scoring description.
+     * @param interaction Problem interaction protocol (only for interactive problems)
+     * @param notes       Problem notes.
+     * @param tutorial    Problem tutorial.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveStatement(@NonNull final Integer problemId, @NonNull final String lang,
+                                     final String encoding, final String name, final String legend, final String input,
+                                     final String output, final String scoring, final String interaction,
+                                     final String notes, final String tutorial) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_STATEMENT, problemId, lang, encoding,
+                name, legend, input, output, scoring, interaction, notes, tutorial);
+    }
+
+    /**
+     * Returns a list of statement resources for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return An array of {@link ProblemFile} objects representing resources.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ProblemFile[] problemStatementResources(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(ProblemFile[].class, PROBLEM_STATEMENT_RESOURCES, problemId);
+    }
+
+    /**
+     * Add or edit statement resource file.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File content.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveStatementResource(@NonNull final Integer problemId, final Boolean checkExisting,
+                                             @NonNull final String name, @NonNull final String file)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_STATEMENT_RESOURCE, problemId, checkExisting, name, file);
+    }
+
+    /**
+     * Add or edit statement resource file.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File descriptor.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveStatementResource(@NonNull final Integer problemId, final Boolean checkExisting,
+                                             @NonNull final String name, @NonNull final File file)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_STATEMENT_RESOURCE, problemId, checkExisting, name, file);
+    }
+
+    /**
+     * Returns the name of currently set checker.
+     *
+     * @param problemId Problem ID.
+     * @return {@link String} object, contains checker name.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemChecker(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String.class, PROBLEM_CHECKER, problemId);
+    }
+
+    /**
+     * Returns the name of currently set validator.
+     *
+     * @param problemId Problem ID.
+     * @return {@link String} object, contains validator name.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemValidator(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String.class, PROBLEM_VALIDATOR, problemId);
+    }
+
+    /**
+     * Returns the name of currently set interactor.
+     *
+     * @param problemId Problem ID.
+     * @return {@link String} object, contains interactor name.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemInteractor(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String.class, PROBLEM_INTERACTOR, problemId);
+    }
+
+    /**
+     * Returns a list of validator tests for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return An array of {@link ValidatorTest} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ValidatorTest[] problemValidatorTests(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(ValidatorTest[].class, PROBLEM_VALIDATOR_TESTS, problemId);
+    }
+
+    /**
+     * Add or edit validator test. All parameters except for <code>testIndex</code>, <code>testInput</code>
+     * and <code>testVerdict</code> are optional.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding validator’s test is allowed.
+     * @param testVerdict   Validator test verdict.
+     * @param testIndex     Index of a validator test.
+     * @param testInput     Input of a validator test.
+     * @param testGroup     Test group (groups should be enabled for the testset).
+     * @param testset       Testset name.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveValidatorTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                         @NonNull final ValidatorTestVerdict testVerdict,
+                                         @NonNull final Integer testIndex, @NonNull final String testInput,
+                                         final String testGroup, final String testset) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_VALIDATOR_TEST, problemId,
+                checkExisting, testVerdict, testIndex, testInput, testGroup, testset);
+    }
+
+    /**
+     * Returns a list of checker tests for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return An array of {@link CheckerTest} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public CheckerTest[] problemCheckerTests(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(CheckerTest[].class, PROBLEM_CHECKER_TESTS, problemId);
+    }
+
+    /**
+     * Adds or edits checker test. All parameters except for <code>testIndex</code>, <code>testInput</code>,
+     * <code>testAnswer</code>, <code>testOutput</code> and <code>testVerdict</code> are optional.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding checker test is allowed.
+     * @param testVerdict   Checker’s test verdict.
+     * @param testIndex     Index of a checker test.
+     * @param testInput     Input of a checker test.
+     * @param testOutput    Output of a checker test.
+     * @param testAnswer    Answer of a checker test.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveCheckerTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                       @NonNull final CheckerTestVerdict testVerdict,
+                                       @NonNull final Integer testIndex, @NonNull final String testInput,
+                                       @NonNull final String testOutput, @NonNull final String testAnswer)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_CHECKER_TEST, problemId, checkExisting,
+                testVerdict, testIndex, testInput, testOutput, testAnswer);
+    }
+
+    /**
+     * Returns the list of resource, source and aux files.
+     *
+     * @param problemId Problem ID.
+     * @return {@link ProblemFiles} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ProblemFiles problemFiles(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(ProblemFiles.class, PROBLEM_FILES, problemId);
+    }
+
+    /**
+     * Returns the list of problem solutions.
+     *
+     * @param problemId Problem ID.
+     * @return An array of {@link Solution} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public Solution[] problemSolutions(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(Solution[].class, PROBLEM_SOLUTIONS, problemId);
+    }
+
+    /**
+     * Returns resource, source or aux file.
+     *
+     * @param problemId Problem ID.
+     * @param type      Resource type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name      File name.
+     * @return File content in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemViewFile(@NonNull final Integer problemId, @NonNull final String type,
+                                  @NonNull final String name) throws PolygonSessionException {
+        String result = sendAPIRequestPlain(PROBLEM_VIEW_FILE, problemId, type, name);
+        checkPlainResult("problem.viewFile", result);
+        return result;
+    }
+
+    /**
+     * Writes resource, source or aux file to the given stream. The file is not loaded into memory.
+     *
+     * @param problemId    Problem ID.
+     * @param type         Resource type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name         File name.
+     * @param outputStream Stream to write file content to. It is not closed by this method.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemViewFile(@NonNull final Integer problemId, @NonNull final String type,
+                                @NonNull final String name, @NonNull final OutputStream outputStream)
+            throws PolygonSessionException {
+        sendAPIRequestPlain(PROBLEM_VIEW_FILE, outputStream, problemId, type, name);
+    }
+
+    /**
+     * Downloads resource, source or aux file to the given path. The file is not loaded into memory.
+     * An existing file at the path is replaced only if the download succeeds.
+     *
+     * @param problemId    Problem ID.
+     * @param type         Resource type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name         File name.
+     * @param downloadPath Path to save file content to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemViewFile(@NonNull final Integer problemId, @NonNull final String type,
+                                @NonNull final String name, @NonNull final Path downloadPath)
+            throws PolygonSessionException {
+        try {
+            FileUtils.writeAtomically(downloadPath, outputStream -> problemViewFile(problemId, type, name, outputStream));
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads resource, source or aux file to the given path using the disk cache of the session, if it is set.
+     * Files are cached by problem ID, type, name and modification time.
+     *
+     * @param problemId               Problem ID.
+     * @param type                    File type (resource, source or aux).
+     * @param name                    File name.
+     * @param modificationTimeSeconds Last modification time of the file, see
+     *                                {@link ProblemFile#getModificationTimeSeconds()}.
+     * @param downloadPath            Path to save file to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemViewFile(@NonNull final Integer problemId, @NonNull final String type,
+                                @NonNull final String name, @NonNull final Integer modificationTimeSeconds,
+                                @NonNull final Path downloadPath) throws PolygonSessionException {
+        downloadCached(String.format("problem.viewFile/%d/%s/%s/%d", problemId, type, name, modificationTimeSeconds),
+                downloadPath, outputStream -> problemViewFile(problemId, type, name, outputStream));
+    }
+
+    /**
+     * Returns solution file.
+     *
+     * @param problemId Problem ID.
+     * @param name      File name.
+     * @return File content in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemViewSolution(@NonNull final Integer problemId, @NonNull final String name)
+            throws PolygonSessionException {
+        String result = sendAPIRequestPlain(PROBLEM_VIEW_SOLUTION, problemId, name);
+        checkPlainResult("problem.viewSolution", result);
+        return result;
+    }
+
+    /**
+     * Writes solution file to the given stream. The file is not loaded into memory.
+     *
+     * @param problemId    Problem ID.
+     * @param name         File name.
+     * @param outputStream Stream to write file content to. It is not closed by this method.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemViewSolution(@NonNull final Integer problemId, @NonNull final String name,
+                                    @NonNull final OutputStream outputStream) throws PolygonSessionException {
+        sendAPIRequestPlain(PROBLEM_VIEW_SOLUTION, outputStream, problemId, name);
+    }
+
+    /**
+     * Downloads solution file to the given path. The file is not loaded into memory.
+     * An existing file at the path is replaced only if the download succeeds.
+     *
+     * @param problemId    Problem ID.
+     * @param name         File name.
+     * @param downloadPath Path to save file content to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemViewSolution(@NonNull final Integer problemId, @NonNull final String name,
+                                    @NonNull final Path downloadPath) throws PolygonSessionException {
+        try {
+            FileUtils.writeAtomically(downloadPath, outputStream -> problemViewSolution(problemId, name, outputStream));
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns script for generating tests.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @return Script content in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemScript(@NonNull final Integer problemId, @NonNull final String testset)
+            throws PolygonSessionException {
+        String result = sendAPIRequestPlain(PROBLEM_SCRIPT, problemId, testset);
+        checkPlainResult("problem.script", result);
+        return result;
+    }
+
+    /**
+     * Returns tests for the given testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param noInputs  If <code>true</code>, returns tests without input.
+     * @return An array of {@link ProblemTest} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ProblemTest[] problemTests(@NonNull final Integer problemId, @NonNull final String testset,
+                                      final Boolean noInputs)
+            throws PolygonSessionException {
+        return sendAPIRequest(ProblemTest[].class, PROBLEM_TESTS, problemId, testset, noInputs);
+    }
+
+    /**
+     * Returns generated test input.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param testIndex Test index.
+     * @return Test input content in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemTestInput(@NonNull final Integer problemId, @NonNull final String testset,
+                                   @NonNull final Integer testIndex) throws PolygonSessionException {
+        String result = sendAPIRequestPlain(PROBLEM_TEST_INPUT, problemId, testset, testIndex);
+        checkPlainResult("problem.testInput", result);
+        return result;
+    }
+
+    /**
+     * Writes generated test input to the given stream. The test is not loaded into memory.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param outputStream Stream to write test input to. It is not closed by this method.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestInput(@NonNull final Integer problemId, @NonNull final String testset,
+                                 @NonNull final Integer testIndex, @NonNull final OutputStream outputStream)
+            throws PolygonSessionException {
+        sendAPIRequestPlain(PROBLEM_TEST_INPUT, outputStream, problemId, testset, testIndex);
+    }
+
+    /**
+     * Downloads generated test input to the given path. The test is not loaded into memory.
+     * An existing file at the path is replaced only if the download succeeds.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param downloadPath Path to save test input to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestInput(@NonNull final Integer problemId, @NonNull final String testset,
+                                 @NonNull final Integer testIndex, @NonNull final Path downloadPath)
+            throws PolygonSessionException {
+        try {
+            FileUtils.writeAtomically(downloadPath, outputStream -> problemTestInput(problemId, testset, testIndex, outputStream));
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads generated test input to the given path using the disk cache of the session, if it is set. Tests
+     * are cached by problem ID, revision, testset and test index.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param revision     Current revision of the problem, see {@link Problem#getRevision()}. The problem must not
+     *                     have uncommitted changes, otherwise cached tests may be outdated.
+     * @param downloadPath Path to save test input to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestInput(@NonNull final Integer problemId, @NonNull final String testset,
+                                 @NonNull final Integer testIndex, @NonNull final Integer revision,
+                                 @NonNull final Path downloadPath) throws PolygonSessionException {
+        downloadCached(String.format("problem.testInput/%d/%d/%s/%d", problemId, revision, testset, testIndex),
+                downloadPath, outputStream -> problemTestInput(problemId, testset, testIndex, outputStream));
+    }
+
+    /**
+     * Returns generated test answer.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param testIndex Test index.
+     * @return Test output content in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemTestAnswer(@NonNull final Integer problemId, @NonNull final String testset,
+                                    @NonNull final Integer testIndex) throws PolygonSessionException {
+        String result = sendAPIRequestPlain(PROBLEM_TEST_ANSWER, problemId, testset, testIndex);
+        checkPlainResult("problem.testAnswer", result);
+        return result;
+    }
+
+    /**
+     * Writes generated test answer to the given stream. The test is not loaded into memory.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param outputStream Stream to write test answer to. It is not closed by this method.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestAnswer(@NonNull final Integer problemId, @NonNull final String testset,
+                                  @NonNull final Integer testIndex, @NonNull final OutputStream outputStream)
+            throws PolygonSessionException {
+        sendAPIRequestPlain(PROBLEM_TEST_ANSWER, outputStream, problemId, testset, testIndex);
+    }
+
+    /**
+     * Downloads generated test answer to the given path. The test is not loaded into memory.
+     * An existing file at the path is replaced only if the download succeeds.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param downloadPath Path to save test answer to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestAnswer(@NonNull final Integer problemId, @NonNull final String testset,
+                                  @NonNull final Integer testIndex, @NonNull final Path downloadPath)
+            throws PolygonSessionException {
+        try {
+            FileUtils.writeAtomically(downloadPath, outputStream -> problemTestAnswer(problemId, testset, testIndex, outputStream));
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads generated test answer to the given path using the disk cache of the session, if it is set. Tests
+     * are cached by problem ID, revision, testset and test index.
+     *
+     * @param problemId    Problem ID.
+     * @param testset      Testset name.
+     * @param testIndex    Test index.
+     * @param revision     Current revision of the problem, see {@link Problem#getRevision()}. The problem must not
+     *                     have uncommitted changes, otherwise cached tests may be outdated.
+     * @param downloadPath Path to save test answer to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemTestAnswer(@NonNull final Integer problemId, @NonNull final String testset,
+                                  @NonNull final Integer testIndex, @NonNull final Integer revision,
+                                  @NonNull final Path downloadPath) throws PolygonSessionException {
+        downloadCached(String.format("problem.testAnswer/%d/%d/%s/%d", problemId, revision, testset, testIndex),
+                downloadPath, outputStream -> problemTestAnswer(problemId, testset, testIndex, outputStream));
+    }
+
+    /**
+     * Update validator.
+     *
+     * @param problemId Problem ID.
+     * @param validator Validator file name.
+     */
+    @SuppressWarnings("unused")
+    public void problemSetValidator(@NonNull final Integer problemId, @NonNull final String validator)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SET_VALIDATOR, problemId, validator);
+    }
+
+    /**
+     * Update checker.
+     *
+     * @param problemId Problem ID.
+     * @param checker   Checker file name.
+     */
+    @SuppressWarnings("unused")
+    public void problemSetChecker(@NonNull final Integer problemId, @NonNull final String checker)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SET_CHECKER, problemId, checker);
+    }
+
+    /**
+     * Update interactor.
+     *
+     * @param problemId  Problem ID.
+     * @param interactor Interactor file name.
+     */
+    @SuppressWarnings("unused")
+    public void problemSetInteractor(@NonNull final Integer problemId, @NonNull final String interactor)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SET_INTERACTOR, problemId, interactor);
+    }
+
+    /**
+     * Add or edit resource, source or aux file. In case of editing, all parameters, except <code>problemId</code>,
+     * <code>type</code> and <code>name</code> can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param type          File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name          File name.
+     * @param file          File content.
+     * @param sourceType    Source type (only for source files).
+     * @param forTypes      An array of file types it can be applied to (only for resource files).
+     * @param stages        An array of stages for which it can be used to (only for resource files).
+     * @param assets        An array of assets for which it can be user to (only for resource files).
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveFile(@NonNull final Integer problemId, final Boolean checkExisting,
+                                @NonNull final String type, @NonNull final String name, @NonNull final String file,
+                                final String sourceType, final String[] forTypes, final ResourceStage[] stages,
+                                final ResourceAsset[] assets) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_FILE, problemId, checkExisting, type, name, file, sourceType,
+                encodeArray(forTypes), encodeArray(stages), encodeArray(assets));
+    }
+
+    /**
+     * Add or edit resource, source or aux file. In case of editing, all parameters, except <code>problemId</code>,
+     * <code>type</code> and <code>name</code> can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param type          File type: <code>resource</code>, <code>source</code> or <code>aux</code>.
+     * @param name          File name.
+     * @param file          File descriptor.
+     * @param sourceType    Source type (only for source files).
+     * @param forTypes      An array of file types it can be applied to (only for resource files).
+     * @param stages        An array of stages for which it can be used to (only for resource files).
+     * @param assets        An array of assets for which it can be user to (only for resource files).
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveFile(@NonNull final Integer problemId, final Boolean checkExisting,
+                                @NonNull final String type, @NonNull final String name, @NonNull final File file,
+                                final String sourceType, final String[] forTypes, final ResourceStage[] stages,
+                                final ResourceAsset[] assets) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_FILE, problemId, checkExisting, type, name, file, sourceType,
+                encodeArray(forTypes), encodeArray(stages), encodeArray(assets));
+    }
+
+    /**
+     * Add or edit solution. In case of editing, all parameters except <code>problemId</code> and <code>name</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File content.
+     * @param sourceType    File source type.
+     * @param tag           Solution tag.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveSolution(@NonNull final Integer problemId, final Boolean checkExisting,
+                                    @NonNull final String name, @NonNull final String file, final String sourceType,
+                                    final SolutionTag tag) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_SOLUTION, problemId, checkExisting, name, file, sourceType, tag);
+    }
+
+    /**
+     * Add or edit solution. In case of editing, all parameters except <code>problemId</code> and <code>name</code>
+     * can be <code>null</code>.
+     *
+     * @param problemId     Problem ID.
+     * @param checkExisting If <code>true</code>, only adding is allowed.
+     * @param name          File name.
+     * @param file          File descriptor.
+     * @param sourceType    File source type.
+     * @param tag           Solution tag.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveSolution(@NonNull final Integer problemId, final Boolean checkExisting,
+                                    @NonNull final String name, @NonNull final File file, final String sourceType,
+                                    final SolutionTag tag) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_SOLUTION, problemId, checkExisting, name, file, sourceType, tag);
+    }
+
+    /**
+     * Add or remove testset or test group extra tag for solution.
+     *
+     * @param problemId Problem ID.
+     * @param remove    If <code>true</code>, tag will be removed, or added otherwise.
+     * @param name      Solution file name.
+     * @param testset   Testset name. Can be <code>null</code>.
+     * @param testGroup Group name. Can be <code>null</code>.
+     * @param tag       Solution tag.
+     */
+    @SuppressWarnings("unused")
+    public void problemEditSolutionExtraTags(@NonNull final Integer problemId, @NonNull final Boolean remove,
+                                             @NonNull final String name, final String testset, final String testGroup,
+                                             final SolutionTag tag) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_EDIT_SOLUTION_EXTRA_TAGS, problemId, remove, name, testset, testGroup, tag);
+    }
+
+    /**
+     * Edit script.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param source    Script content.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveScript(@NonNull final Integer problemId, @NonNull final String testset,
+                                  @NonNull final String source) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_SCRIPT, problemId, testset, source);
+    }
+
+    /**
+     * Edit script.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param source    Script file descriptor.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveScript(@NonNull final Integer problemId, @NonNull final String testset,
+                                  @NonNull final File source) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_SCRIPT, problemId, testset, source);
+    }
+
+    /**
+     * Add or edit test. In case of editing, all parameters except <code>problemId</code>, <code>testset</code>
+     * and <code>testIndex</code> can be <code>null</code>.
+     *
+     * @param problemId                      Problem ID.
+     * @param checkExisting                  If <code>true</code>, only adding is allowed.
+     * @param testset                        Testset name.
+     * @param testIndex                      Test index.
+     * @param testInput                      Test input data.
+     * @param testGroup                      Test group name.
+     * @param testPoints                     Test points score.
+     * @param testDescription                Test description.
+     * @param testUseInStatements            If <code>true</code>, test will be used in statements.
+     * @param testInputForStatements         Test input data for statements.
+     * @param testOutputForStatements        Test output data for statements.
+     * @param verifyInputOutputForStatements If <code>true</code>, input/output data for statements will be checked.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                @NonNull final String testset, @NonNull final Integer testIndex,
+                                final String testInput, final String testGroup, final Double testPoints,
+                                final String testDescription, final Boolean testUseInStatements,
+                                final String testInputForStatements, final String testOutputForStatements,
+                                final Boolean verifyInputOutputForStatements) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_TEST, problemId, checkExisting, testset, testIndex, testInput,
+                testGroup, testPoints, testDescription, testUseInStatements, testInputForStatements,
+                testOutputForStatements, verifyInputOutputForStatements);
+    }
+
+    /**
+     * Add or edit test. In case of editing, all parameters except <code>problemId</code>, <code>testset</code>
+     * and <code>testIndex</code> can be <code>null</code>.
+     *
+     * @param problemId                      Problem ID.
+     * @param checkExisting                  If <code>true</code>, only adding is allowed.
+     * @param testset                        Testset name.
+     * @param testIndex                      Test index.
+     * @param testInput                      Test input file descriptor.
+     * @param testGroup                      Test group name.
+     * @param testPoints                     Test points score.
+     * @param testDescription                Test description.
+     * @param testUseInStatements            If <code>true</code>, test will be used in statements.
+     * @param testInputForStatements         Test input data for statements.
+     * @param testOutputForStatements        Test output data for statements.
+     * @param verifyInputOutputForStatements If <code>true</code>, input/output data for statements will be checked.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveTest(@NonNull final Integer problemId, final Boolean checkExisting,
+                                @NonNull final String testset, @NonNull final Integer testIndex,
+                                @NonNull final File testInput, final String testGroup, final Double testPoints,
+                                final String testDescription, final Boolean testUseInStatements,
+                                final String testInputForStatements, final String testOutputForStatements,
+                                final Boolean verifyInputOutputForStatements) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_TEST, problemId, checkExisting, testset, testIndex, testInput,
+                testGroup, testPoints, testDescription, testUseInStatements, testInputForStatements,
+                testOutputForStatements, verifyInputOutputForStatements);
+    }
+
+    /**
+     * Set test group for one or more tests. It expects that for specified testset test groups are enabled.
+     * Parameters <code>testIndex</code> and <code>testIndices</code> are mutually exclusive.
+     *
+     * @param problemId   Problem ID.
+     * @param testset     Testset name.
+     * @param testGroup   Group name.
+     * @param testIndex   Test index to set group for.
+     * @param testIndices Array of test indices.
+     */
+    @SuppressWarnings("unused")
+    public void problemSetTestGroup(@NonNull final Integer problemId, @NonNull final String testset,
+                                    @NonNull final String testGroup, final Integer testIndex,
+                                    final Integer[] testIndices) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SET_TEST_GROUP, problemId, testset, testGroup, testIndex, encodeArray(testIndices));
+    }
+
+    /**
+     * Enable or disable test groups for the specified testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param enable    If <code>true</code>, test groups will be enabled, or disabled otherwise.
+     */
+    @SuppressWarnings("unused")
+    public void problemEnableGroups(@NonNull final Integer problemId, @NonNull final String testset,
+                                    @NonNull final Boolean enable) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_ENABLE_GROUPS, problemId, testset, enable);
+    }
+
+    /**
+     * Enable or disable test points for the problem.
+     *
+     * @param problemId Problem ID.
+     * @param enable    If <code>true</code>, test points will be enabled, or disabled otherwise.
+     */
+    @SuppressWarnings("unused")
+    public void problemEnablePoints(@NonNull final Integer problemId, @NonNull final Boolean enable)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_ENABLE_POINTS, problemId, enable);
+    }
+
+    /**
+     * Returns test groups for the specified testset.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param group     Group name to be returned. Can be <code>null</code>.
+     * @return An array of {@link TestGroup} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public TestGroup[] problemViewTestGroup(@NonNull final Integer problemId, @NonNull final String testset,
+                                            final String group) throws PolygonSessionException {
+        return sendAPIRequest(TestGroup[].class, PROBLEM_VIEW_TEST_GROUP, problemId, testset, group);
+    }
+
+    /**
+     * Saves test group. Use if only to save a test group.
+     * If you want to create new test group, just add new test with such test group.
+     *
+     * @param problemId      Problem ID.
+     * @param testset        Testset name.
+     * @param group          Group name.
+     * @param pointsPolicy   Points giving policy. Can be <code>null</code>.
+     * @param feedbackPolicy Feedback policy. Can be <code>null</code>.
+     * @param dependencies   Array of groups' names – dependencies groups. Can be <code>null</code>.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveTestGroup(@NonNull final Integer problemId, @NonNull final String testset,
+                                     @NonNull final String group, final TestGroupPointsPolicy pointsPolicy,
+                                     final TestGroupFeedbackPolicy feedbackPolicy, final String[] dependencies)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_TEST_GROUP, problemId, testset, group, pointsPolicy,
+                feedbackPolicy, encodeArray(dependencies));
+    }
+
+    /**
+     * Returns tags for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return Array of tags in {@link String} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String[] problemViewTags(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String[].class, PROBLEM_VIEW_TAGS, problemId);
+    }
+
+    /**
+     * Saves tags for the problem. Existed tags will be replaced by new tags.
+     *
+     * @param problemId Problem ID.
+     * @param tags      Array of new tags.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveTags(@NonNull final Integer problemId, @NonNull final String[] tags)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_TAGS, problemId, encodeArray(tags));
+    }
+
+    /**
+     * Returns problem general description.
+     *
+     * @param problemId Problem ID.
+     * @return Problem general description in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemViewGeneralDescription(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String.class, PROBLEM_VIEW_GENERAL_DESCRIPTION, problemId);
+    }
+
+    /**
+     * Saves problem general description.
+     *
+     * @param problemId   Problem ID.
+     * @param description Problem general description.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveGeneralDescription(@NonNull final Integer problemId, @NonNull final String description)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_GENERAL_DESCRIPTION, problemId, description);
+    }
+
+    /**
+     * Returns problem general tutorial.
+     *
+     * @param problemId Problem ID.
+     * @return Problem general tutorial in a {@link String} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public String problemViewGeneralTutorial(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(String.class, PROBLEM_VIEW_GENERAL_TUTORIAL, problemId);
+    }
+
+    /**
+     * Saves problem general tutorial.
+     *
+     * @param problemId Problem ID.
+     * @param tutorial  Problem general tutorial.
+     */
+    @SuppressWarnings("unused")
+    public void problemSaveGeneralTutorial(@NonNull final Integer problemId, @NonNull final String tutorial)
+            throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_SAVE_GENERAL_TUTORIAL, problemId, tutorial);
+    }
+
+    /**
+     * Returns list of all packages available for the problem.
+     *
+     * @param problemId Problem ID.
+     * @return An array of {@link ProblemPackage} objects.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public ProblemPackage[] problemPackages(@NonNull final Integer problemId) throws PolygonSessionException {
+        return sendAPIRequest(ProblemPackage[].class, PROBLEM_PACKAGES, problemId);
+    }
+
+    /**
+     * Download a package as a zip-archive.
+     *
+     * @param problemId    Problem ID.
+     * @param packageId    Package ID.
+     * @param downloadPath Download file descriptor.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemPackage(@NonNull final Integer problemId, @NonNull final Integer packageId, final String type,
+                               @NonNull final File downloadPath)
+            throws PolygonSessionException {
+        problemPackage(problemId, packageId, type, downloadPath, false);
+    }
+
+    /**
+     * Download a package as a zip-archive. If <code>resume</code> is <code>true</code>, the archive is downloaded
+     * to <code>downloadPath.part</code> first, and a download that was interrupted is continued from the place
+     * where it stopped using HTTP <code>Range</code> request.
+     *
+     * @param problemId    Problem ID.
+     * @param packageId    Package ID.
+     * @param downloadPath Download file descriptor.
+     * @param resume       If <code>true</code>, an interrupted download will be continued.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemPackage(@NonNull final Integer problemId, @NonNull final Integer packageId, final String type,
+                               @NonNull final File downloadPath, final boolean resume)
+            throws PolygonSessionException {
+        List<NameValuePair> parameters = PROBLEM_PACKAGE.encode(problemId, packageId, type);
+        if (resume) {
+            String resourceId = baseUrl + "problem.package?" + parameters.stream()
+                    .map(p -> p.getName() + "=" + p.getValue())
+                    .collect(Collectors.joining("&"));
+            HttpUtils.downloadFileResumable(baseUrl + "problem.package", resourceId,
+                    headers -> getAPIResponse("problem.package", parameters, headers), downloadPath);
+        } else {
+            HttpUtils.downloadFile(baseUrl + "problem.package",
+                    getAPIResponse("problem.package", parameters), downloadPath);
+        }
+    }
+
+    /**
+     * Downloads a package as a zip-archive using the package store of the session, if it is set. A package that is
+     * already in the store and passes its integrity check is linked or copied to <code>downloadPath</code> without
+     * downloading, otherwise it is downloaded to the store first. Without the store, the package is downloaded
+     * directly.
+     *
+     * @param problemId    Problem ID.
+     * @param packageId    Package ID.
+     * @param type         Package type, see {@link ProblemPackage#getType()}.
+     * @param revision     Problem revision the package was built for, see {@link ProblemPackage#getRevision()}.
+     * @param downloadPath Path to save the archive to.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public void problemPackage(@NonNull final Integer problemId, @NonNull final Integer packageId,
+                               @NonNull final String type, @NonNull final Integer revision,
+                               @NonNull final Path downloadPath) throws PolygonSessionException {
+        if (packageStore == null) {
+            problemPackage(problemId, packageId, type, downloadPath.toFile(), true);
+            return;
+        }
+        try {
+            Path archive = packageStore.get(problemId, packageId, revision, type);
+            if (archive == null) {
+                archive = packageStore.put(problemId, packageId, revision, type, path -> {
+                    problemPackage(problemId, packageId, type, path.toFile(), true);
+                    checkDownloadedPackage(path);
+                });
+            }
+            packageStore.link(archive, downloadPath);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Starts to build a new package.
+     *
+     * @param problemId Problem ID.
+     * @param full      Defines whether to build full package, contains "standard", "linux" and "windows" packages,
+     *                  or only "standard". Standard packages don't contain generated tests, but contain windows
+     *                  executables and scripts for windows and linux via wine. Linux packages contain generated tests,
+     *                  but don't contain compiled binaries. Windows packages contain generated tests and compiled
+     *                  binaries for Windows.
+     * @param verify    If that parameter is <code>true</code> all solutions will be invoked on all tests to be sure
+     *                  that tags are valid. Stress tests will run the checker to verify its credibility.
+     */
+    @SuppressWarnings("unused")
+    public void problemBuildPackage(@NonNull final Integer problemId, @NonNull final Boolean full,
+                                    @NonNull final Boolean verify) throws PolygonSessionException {
+        sendAPIRequest(PROBLEM_BUILD_PACKAGE, problemId, full, verify);
+    }
+
+    /**
+     * Returns problems of the contest.
+     *
+     * @param contestId Contest ID.
+     * @return A map from problem letter to {@link Problem} object.
+     */
+    @ReadOnlyApiMethod
+    @SuppressWarnings("unused")
+    public Map<String, Problem> contestProblems(@NonNull final Integer contestId) throws PolygonSessionException {
+        Type type = new TypeToken<Map<String, Problem>>() {
+        }.getType();
+        return sendAPIRequest(type, CONTEST_PROBLEMS, contestId);
+    }
+
+    static String encodeArray(final Object[] data) {
+        if (data == null) {
+            return null;
+        }
+        return Arrays.stream(data).map(Object::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Resolves the descriptor that encodes the first parameters of an API method. The values sent by a method are
+     * usually a prefix of its parameters, for example, the overloads of <code>problemViewFile</code> that write the
+     * file to a stream or a path send only the first three parameters. All overloads that have that many parameters
+     * must agree on their names, otherwise the class fails to initialize.
+     *
+     * @param name           Method name.
+     * @param parameterCount Number of the first parameters that are sent.
+     * @return Descriptor of these parameters.
+     */
+    private static ApiMethodDescriptor apiMethod(final String name, final int parameterCount) {
+        ApiMethodDescriptor descriptor = null;
+        for (ApiMethodDescriptor overload : API_METHOD_OVERLOADS.getOrDefault(name, List.of())) {
+            if (overload.getParameterCount() < parameterCount) {
+                continue;
+            }
+            if (descriptor == null) {
+                descriptor = overload;
+            } else if (!descriptor.hasSameParameterNames(overload, parameterCount)) {
+                throw new IllegalStateException(String.format("Parameters of %s and %s have different names",
+                        descriptor.getSignature(), overload.getSignature()));
+            }
+        }
+        if (descriptor == null) {
+            throw new IllegalStateException(String.format("There is no method %s with %d parameters",
+                    name, parameterCount));
+        }
+        return descriptor.prefix(parameterCount);
+    }
+
+    List<NameValuePair> signParameters(final String methodName, final List<NameValuePair> parameters)
+            throws PolygonSessionException {
+        List<NameValuePair> extendedParameters = new ArrayList<>(parameters);
+        if (pin != null) {
+            extendedParameters.add(new BasicNameValuePair("pin", pin));
+        }
+        extendedParameters.add(new BasicNameValuePair("apiKey", key));
+        extendedParameters.add(new BasicNameValuePair("time", String.valueOf(System.currentTimeMillis() / 1000)));
+        try {
+            extendedParameters.add(new BasicNameValuePair("apiSig", generateApiSig(methodName, extendedParameters)));
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot read file", e);
+        }
+        return extendedParameters;
+    }
+
+    JsonElement parseResult(final String methodName, final List<NameValuePair> parameters, final String json)
+            throws PolygonSessionFailedRequestException {
+        return decodeResult(methodName, parameters, new StringReader(json), JsonElement.class);
+    }
+
+    private <T> T decodeResult(final String methodName, final List<NameValuePair> parameters, final Reader reader,
+                               final Type type) throws PolygonSessionFailedRequestException {
+        DecodedJSONResponse<T> response = decoder.decode(reader, type);
+        if (response.getStatus() == JSONResponseStatus.FAILED) {
+            throw new PolygonSessionFailedRequestException(baseUrl + methodName, parameters, response.getComment());
+        }
+        return response.getResult();
+    }
+
+    void checkPlainResult(final String methodName, final String result) throws PolygonSessionFailedRequestException {
+        try {
+            JSONResponse response = gson.fromJson(result, JSONResponse.class);
+            throw new PolygonSessionFailedRequestException(baseUrl + methodName, response.getComment());
+        } catch (JsonSyntaxException | NullPointerException ignored) {
+        }
+    }
+
+    private String sendAPIRequestPlain(final ApiMethodDescriptor method, final Object... values)
+            throws PolygonSessionException {
+        return sendAPIRequestPlain(method.getApiMethodName(), method.encode(values));
+    }
+
+    private void sendAPIRequestPlain(final ApiMethodDescriptor method, final OutputStream outputStream,
+                                     final Object... values) throws PolygonSessionException {
+        String methodName = method.getApiMethodName();
+        List<NameValuePair> parameters = method.encode(values);
+        HttpResponse response = getAPIResponse(methodName, parameters);
+        HttpEntity entity = response.getEntity();
+        try (InputStream inputStream = new BufferedInputStream(entity.getContent())) {
+            inputStream.mark(PLAIN_SNIFF_LIMIT);
+            String prefix = new String(inputStream.readNBytes(PLAIN_SNIFF_LIMIT), StandardCharsets.UTF_8);
+            inputStream.reset();
+
+            boolean isJson = entity.getContentType() != null
+                    && entity.getContentType().getValue().startsWith("application/json");
+            if (isJson || JSON_RESPONSE_PREFIX.matcher(prefix).lookingAt()) {
+                inputStream.mark(MAX_PLAIN_ERROR_LENGTH);
+                byte[] result = inputStream.readNBytes(MAX_PLAIN_ERROR_LENGTH);
+                if (result.length < MAX_PLAIN_ERROR_LENGTH) {
+                    checkPlainResult(methodName, new String(result, StandardCharsets.UTF_8));
+                }
+                inputStream.reset();
+            }
+
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                // Failures of the caller's stream are not response failures, so they are reported separately.
+                try {
+                    outputStream.write(buffer, 0, read);
+                } catch (IOException e) {
+                    throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new PolygonSessionBadResponseException(baseUrl + methodName, parameters,
+                    response.getStatusLine().getStatusCode(), e);
+        }
+    }
+
+    private void downloadCached(final String key, final Path downloadPath,
+                                final FileUtils.ContentWriter<PolygonSessionException> writer)
+            throws PolygonSessionException {
+        try {
+            if (diskCache == null) {
+                FileUtils.writeAtomically(downloadPath, writer);
+                return;
+            }
+            // Contents found by get are a miss if a concurrent put evicts them before they are copied.
+            Path blob = diskCache.get(key);
+            if (blob != null && diskCache.copy(blob, downloadPath)) {
+                return;
+            }
+            blob = diskCache.put(key, writer);
+            if (!diskCache.copy(blob, downloadPath)) {
+                // The cache is too small for concurrent downloads, so the contents are downloaded past it.
+                FileUtils.writeAtomically(downloadPath, writer);
+            }
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    void checkDownloadedPackage(final Path path) throws IOException, PolygonSessionException {
+        // Polygon responds to a failed package request with a JSON error, which must not be stored as an archive.
+        if (Files.size(path) >= MAX_PLAIN_ERROR_LENGTH) {
+            return;
+        }
+        // A small archive is not valid UTF-8, so it is decoded leniently.
+        String result = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        if (JSON_RESPONSE_PREFIX.matcher(result).lookingAt()) {
+            Files.delete(path);
+            checkPlainResult("problem.package", result);
+        }
+    }
+
+    private JsonElement sendAPIRequest(final ApiMethodDescriptor method, final Object... values)
+            throws PolygonSessionException {
+        return sendAPIRequest(method.getApiMethodName(), method.encode(values));
+    }
+
+    /**
+     * Sends a request and decodes its result to the given type. Unless the result has to be shared with the response
+     * cache, coalesced requests or hedged requests, it is decoded from the response stream in one pass.
+     */
+    private <T> T sendAPIRequest(final Type type, final ApiMethodDescriptor method, final Object... values)
+            throws PolygonSessionException {
+        String methodName = method.getApiMethodName();
+        List<NameValuePair> parameters = method.encode(values);
+        if (responseCache != null || isCoalesced(methodName)
+                || hedgingPolicy != null && hedgingPolicy.isHedged(methodName)) {
+            return gson.fromJson(sendAPIRequest(methodName, parameters), type);
+        }
+        return sendWithRetries(methodName, parameters, type);
+    }
+
+    private HttpResponse getAPIResponse(final String methodName, final List<NameValuePair> parameters,
+                                        final Header... headers) throws PolygonSessionException {
+        HttpResponse response = sendAttempt(methodName, parameters, headers);
+        recordOutcome(!isFailureStatus(response.getStatusLine().getStatusCode()));
+        return response;
+    }
+
+    /**
+     * Sends one attempt of the request. Transport failures are recorded by the circuit breaker, other outcomes must
+     * be recorded by the caller using {@link #recordOutcome(boolean)}.
+     */
+    private HttpResponse sendAttempt(final String methodName, final List<NameValuePair> parameters,
+                                     final Header... headers) throws PolygonSessionException {
+        ConcurrencyLimiter.Permit permit = null;
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire(methodName);
+            }
+            if (concurrencyLimiter != null) {
+                permit = concurrencyLimiter.acquire(methodName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolygonSessionException("Session thread was interrupted", e);
+        }
+
+        // The breaker permit is taken right before sending, so that probes of a half-open breaker are not held by
+        // requests that wait for the limiters.
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            if (permit != null) {
+                permit.onIgnored();
+            }
+            throw new PolygonSessionAPIUnavailableException();
+        }
+
+        HttpResponse response;
+        try {
+            response = HttpUtils.sendPostRequest(client, baseUrl + methodName, signParameters(methodName, parameters),
+                    headers);
+        } catch (IOException e) {
+            recordOutcome(false);
+            if (permit != null) {
+                permit.onDropped();
+            }
+            throw new PolygonSessionHTTPErrorException(baseUrl + methodName, parameters, e);
+        } catch (PolygonSessionException | RuntimeException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnored();
+            }
+            if (permit != null) {
+                permit.onIgnored();
+            }
+            throw e;
+        }
+
+        if (permit != null) {
+            permit.onResponseStarted();
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (response.getEntity() == null) {
+                releasePermit(permit, statusCode);
+            } else {
+                response.setEntity(new PermitReleasingEntity(response.getEntity(), permit, statusCode));
+            }
+        }
+        return response;
+    }
+
+    static void releasePermit(final ConcurrencyLimiter.Permit permit, final int statusCode) {
+        if (isFailureStatus(statusCode)) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    /**
+     * Holds the concurrency permit of a request until its response body is read to the end or closed, so that the
+     * limiter counts the requests whose connections are still busy with the body. The latency reported to the limiter
+     * is recorded when the headers arrive, see {@link ConcurrencyLimiter.Permit#onResponseStarted()}.
+     */
+    private static final class PermitReleasingEntity extends HttpEntityWrapper implements EofSensorWatcher {
+        private final ConcurrencyLimiter.Permit permit;
+        private final int statusCode;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitReleasingEntity(final HttpEntity entity, final ConcurrencyLimiter.Permit permit,
+                                      final int statusCode) {
+            super(entity);
+            this.permit = permit;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            try {
+                return new EofSensorInputStream(super.getContent(), this);
+            } catch (IOException | RuntimeException e) {
+                drop();
+                throw e;
+            }
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            try (InputStream inputStream = getContent()) {
+                inputStream.transferTo(outputStream);
+            }
+        }
+
+        @Override
+        public boolean eofDetected(final InputStream wrapped) {
+            release();
+            return true;
+        }
+
+        @Override
+        public boolean streamClosed(final InputStream wrapped) {
+            release();
+            return true;
+        }
+
+        @Override
+        public boolean streamAbort(final InputStream wrapped) {
+            // The stream is aborted if reading the body fails.
+            drop();
+            return true;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                releasePermit(permit, statusCode);
+            }
+        }
+
+        private void drop() {
+            if (released.compareAndSet(false, true)) {
+                permit.onDropped();
+            }
+        }
+    }
+
+    void recordOutcome(final boolean success) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        if (success) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private String sendAPIRequestPlain(final String methodName, final List<NameValuePair> parameters)
+            throws PolygonSessionException {
+        HttpResponse response = getAPIResponse(methodName, parameters);
+
+        String responseText;
+        try {
+            responseText = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        } catch (IOException | ParseException e) {
+            throw new PolygonSessionBadResponseException(baseUrl + methodName, parameters,
+                    response.getStatusLine().getStatusCode(), e);
+        }
+
+        return responseText;
+    }
+
+    private JsonElement sendAPIRequest(final String methodName, final List<NameValuePair> parameters)
+            throws PolygonSessionException {
+        if (responseCache == null) {
+            return sendCoalescedAPIRequest(methodName, parameters);
+        }
+
+        int problemId = getProblemId(parameters);
+        if (!isReadOnly(methodName)) {
+            // Results are invalidated after the write as well, in case a read stored them while it was in flight.
+            invalidateCachedResults(problemId);
+            try {
+                return sendCoalescedAPIRequest(methodName, parameters);
+            } finally {
+                invalidateCachedResults(problemId);
+            }
+        }
+
+        List<String> requestKey = getRequestKey(methodName, parameters);
+        JsonElement result = responseCache.get(problemId, requestKey);
+        if (result == null) {
+            long version = responseCache.getVersion(problemId);
+            result = sendCoalescedAPIRequest(methodName, parameters);
+            cacheResult(methodName, problemId, requestKey, version, result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether an API method does not modify anything, according to {@link ReadOnlyApiMethod} annotations of
+     * the methods of this class.
+     *
+     * @param methodName API method name, for example, <code>problem.tests</code>.
+     * @return Is <code>true</code> if the API method is read-only.
+     */
+    public static boolean isReadOnly(final String methodName) {
+        return READ_ONLY_METHODS.contains(methodName);
+    }
+
+    static int getProblemId(final List<NameValuePair> parameters) {
+        for (NameValuePair p : parameters) {
+            if (p.getName().equals("problemId")) {
+                try {
+                    return Integer.parseInt(p.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Invalidates the cached results of a problem and the results that are not related to a problem, like
+     * <code>problems.list</code>, because they contain the revision and the modification flag of the problem.
+     */
+    void invalidateCachedResults(final int problemId) {
+        responseCache.invalidate(problemId);
+        if (problemId != 0) {
+            responseCache.invalidate(0);
+        }
+    }
+
+    void cacheResult(final String methodName, final int problemId, final List<String> requestKey, final long version,
+                     final JsonElement result) {
+        if (methodName.equals("problems.list") && result.isJsonArray()) {
+            for (JsonElement element : result.getAsJsonArray()) {
+                Problem problem = gson.fromJson(element, Problem.class);
+                if (problem.getId() != null && problem.getRevision() != null) {
+                    responseCache.updateRevision(problem.getId(), problem.getRevision(),
+                            Boolean.TRUE.equals(problem.getModified()));
+                }
+            }
+        }
+        responseCache.put(problemId, requestKey, result, version);
+    }
+
+    private JsonElement sendCoalescedAPIRequest(final String methodName, final List<NameValuePair> parameters)
+            throws PolygonSessionException {
+        if (!isCoalesced(methodName)) {
+            return sendUncoalescedAPIRequest(methodName, parameters);
+        }
+
+        List<String> requestKey = getRequestKey(methodName, parameters);
+        CompletableFuture<JsonElement> request = new CompletableFuture<>();
+        CompletableFuture<JsonElement> sameRequest = joinRead(requestKey, request);
+        if (sameRequest != null) {
+            return await(methodName, sameRequest);
+        }
+        try {
+            JsonElement result = sendUncoalescedAPIRequest(methodName, parameters);
+            request.complete(result);
+            return result;
+        } catch (PolygonSessionException | RuntimeException e) {
+            request.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the future of the same read request that is already in flight, or registers the given one. The
+     * registered request is removed when it completes.
+     */
+    CompletableFuture<JsonElement> joinRead(final List<String> requestKey,
+                                            final CompletableFuture<JsonElement> request) {
+        CompletableFuture<JsonElement> sameRequest = readsInFlight.putIfAbsent(requestKey, request);
+        if (sameRequest != null) {
+            return sameRequest;
+        }
+        request.whenComplete((result, e) -> readsInFlight.remove(requestKey, request));
+        return null;
+    }
+
+    boolean isCoalesced(final String methodName) {
+        return coalesceReads && isReadOnly(methodName);
+    }
+
+    /**
+     * Returns the key that identifies a read request: the method name, the pin and the parameters sorted by name and
+     * value. The signature and the time are added later and are not a part of the key.
+     */
+    List<String> getRequestKey(final String methodName, final List<NameValuePair> parameters) {
+        List<String> requestKey = new ArrayList<>(2 + parameters.size() * 2);
+        requestKey.add(methodName);
+        requestKey.add(pin);
+        parameters.stream()
+                .sorted(Comparator.comparing(NameValuePair::getName).thenComparing(NameValuePair::getValue))
+                .forEach(p -> {
+                    requestKey.add(p.getName());
+                    requestKey.add(p.getValue());
+                });
+        return requestKey;
+    }
+
+    private JsonElement sendUncoalescedAPIRequest(final String methodName, final List<NameValuePair> parameters)
+            throws PolygonSessionException {
+        if (hedgingPolicy != null && hedgingPolicy.isHedged(methodName)) {
+            return await(methodName, async().sendUncoalescedAPIRequest(methodName, parameters));
+        }
+        return sendWithRetries(methodName, parameters, JsonElement.class);
+    }
+
+    private <T> T sendWithRetries(final String methodName, final List<NameValuePair> parameters, final Type type)
+            throws PolygonSessionException {
+        boolean idempotent = isIdempotent(methodName, parameters);
+        retryPolicy.onRequest(methodName);
+
+        long previousDelay = 0;
+        long totalDelay = 0;
+        int failedAttempts = 0;
+        do {
+            PolygonSessionException failure;
+            RetryContext context;
+            try {
+                T result = getAPIResult(methodName, parameters, type);
+                // FAILED response means that the API works, so it is a success for the circuit breaker.
+                recordOutcome(true);
+                return result;
+            } catch (PolygonSessionFailedRequestException e) {
+                recordOutcome(true);
+                throw e;
+            } catch (PolygonSessionHTTPErrorException e) {
+                failure = e;
+                context = new RetryContext(methodName, idempotent, ++failedAttempts, previousDelay, totalDelay,
+                        getFailureKind(e.getCause()), 0, e.getCause());
+            } catch (PolygonSessionBadResponseException e) {
+                failure = new PolygonSessionAPIUnavailableException(e);
+                context = new RetryContext(methodName, idempotent, ++failedAttempts, previousDelay, totalDelay,
+                        FailureKind.HTTP_STATUS, e.getResponseCode(), e);
+            } catch (JsonSyntaxException e) {
+                failure = new PolygonSessionAPIUnavailableException(e);
+                context = new RetryContext(methodName, idempotent, ++failedAttempts, previousDelay, totalDelay,
+                        FailureKind.BAD_RESPONSE, 0, e);
+            }
+
+            long delay = retryPolicy.getRetryDelayMs(context);
+            if (delay == RetryPolicy.NO_RETRY || isCircuitOpen()) {
+                throw failure;
+            }
+            // A synchronous call holds its thread anyway, so it simply sleeps. Only AsyncPolygonSession schedules
+            // retries on the timer without holding a thread.
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PolygonSessionException("Session thread was interrupted", e);
+            }
+            previousDelay = delay;
+            totalDelay += delay;
+        } while (true);
+    }
+
+    /**
+     * Waits for the result of a request sent by another thread or by the asynchronous client.
+     * Hedged requests are sent by the asynchronous client, because the calling thread cannot wait for two responses
+     * at once.
+     */
+    private <T> T await(final String methodName, final CompletableFuture<T> request)
+            throws PolygonSessionException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolygonSessionException("Session thread was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PolygonSessionException) {
+                throw (PolygonSessionException) e.getCause();
+            }
+            throw new PolygonSessionException("Unexpected error while sending request " + methodName, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the result decoded from the response stream, or throws {@link PolygonSessionBadResponseException} if
+     * the response code says that the request was not processed by Polygon API.
+     */
+    private <T> T getAPIResult(final String methodName, final List<NameValuePair> parameters, final Type type)
+            throws PolygonSessionException {
+        HttpResponse response = sendAttempt(methodName, parameters);
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (isFailureStatus(statusCode)) {
+            recordOutcome(false);
+            EntityUtils.consumeQuietly(response.getEntity());
+            throw new PolygonSessionBadResponseException(baseUrl + methodName, parameters, statusCode);
+        }
+
+        try (Reader reader = new InputStreamReader(response.getEntity().getContent(),
+                getCharset(response.getEntity()))) {
+            return decodeResult(methodName, parameters, reader, type);
+        } catch (IOException e) {
+            recordOutcome(false);
+            throw new PolygonSessionHTTPErrorException(baseUrl + methodName, parameters, e);
+        } catch (JsonIOException e) {
+            recordOutcome(false);
+            throw new PolygonSessionHTTPErrorException(baseUrl + methodName, parameters, e.getCause());
+        } catch (JsonSyntaxException e) {
+            recordOutcome(false);
+            throw e;
+        } catch (ParseException | UnsupportedCharsetException e) {
+            recordOutcome(false);
+            throw new PolygonSessionBadResponseException(baseUrl + methodName, parameters, statusCode, e);
+        }
+    }
+
+    private static Charset getCharset(final HttpEntity entity) {
+        ContentType contentType = ContentType.get(entity);
+        return contentType == null || contentType.getCharset() == null ? StandardCharsets.UTF_8
+                : contentType.getCharset();
+    }
+
+    boolean isCircuitOpen() {
+        return circuitBreaker != null && circuitBreaker.getState() == CircuitBreakerState.OPEN;
+    }
+
+    static boolean isIdempotent(final String methodName, final List<NameValuePair> parameters) {
+        return !NON_IDEMPOTENT_METHODS.contains(methodName) && parameters.stream()
+                .noneMatch(p -> p.getName().equals("checkExisting") && p.getValue().equals("true"));
+    }
+
+    static boolean isFailureStatus(final int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    static FailureKind getFailureKind(final Throwable cause) {
+        return cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                || cause instanceof HttpConnectTimeoutException ? FailureKind.CONNECT_ERROR : FailureKind.IO_ERROR;
+    }
+
+    static CompletableFuture<Void> delay(final long delay, final TimeUnit unit) {
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> timer = new CompletableFuture<>();
+        // The request is sent from the common pool, so that signing and file reading do not hold the timer thread.
+        TIMER.schedule(() -> timer.completeAsync(() -> null), delay, unit);
+        return timer;
+    }
+
+    private String generateApiSig(final String methodName, final List<NameValuePair> parameters) throws IOException {
+        StringBuilder rand = new StringBuilder();
+        Random random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < 6; i++) {
+            rand.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        MessageDigest apiSig = DigestUtils.getSha512Digest();
+        DigestUtils.updateDigest(apiSig, rand + "/" + methodName + "?");
+        List<NameValuePair> sortedParameters = parameters.stream()
+                .sorted(Comparator.comparing(NameValuePair::getName).thenComparing(NameValuePair::getValue))
+                .collect(Collectors.toList());
+        for (int i = 0; i < sortedParameters.size(); i++) {
+            NameValuePair p = sortedParameters.get(i);
+            DigestUtils.updateDigest(apiSig, (i == 0 ? "" : "&") + p.getName() + "=");
+            if (p instanceof FileNameValuePair) {
+                try (InputStream inputStream = new FileInputStream(((FileNameValuePair) p).getFile())) {
+                    DigestUtils.updateDigest(apiSig, inputStream);
+                }
+            } else {
+                DigestUtils.updateDigest(apiSig, p.getValue());
+            }
+        }
+        DigestUtils.updateDigest(apiSig, "#" + secret);
+
+        rand.append(Hex.encodeHexString(apiSig.digest()));
+        return rand.toString();
+    }
+}
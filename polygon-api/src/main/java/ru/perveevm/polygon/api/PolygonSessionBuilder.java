@@ -0,0 +1,399 @@
+package ru.perveevm.polygon.api;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import ru.perveevm.polygon.api.breaker.CircuitBreaker;
+import ru.perveevm.polygon.api.cache.DiskCache;
+import ru.perveevm.polygon.api.cache.PackageStore;
+import ru.perveevm.polygon.api.cache.ResponseCache;
+import ru.perveevm.polygon.api.limit.ConcurrencyLimiter;
+import ru.perveevm.polygon.api.limit.RateLimiter;
+import ru.perveevm.polygon.api.limit.RateLimiterRegistry;
+import ru.perveevm.polygon.api.retry.BackoffRetryPolicy;
+import ru.perveevm.polygon.api.retry.HedgingPolicy;
+import ru.perveevm.polygon.api.retry.RetryPolicy;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+/**
+ * Builder that is used to configure {@link PolygonSession} instance.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class PolygonSessionBuilder {
+    private final String key;
+    private PolygonSession session;
+
+    private CloseableHttpClient client = null;
+    private RetryPolicy retryPolicy = null;
+    private int maxConnections = 20;
+    private int maxConnectionsPerRoute = 20;
+    private long keepAliveMs = 30000L;
+    private long maxIdleMs = 60000L;
+    private int validateAfterInactivityMs = 2000;
+
+    private PolygonSessionBuilder(final String key, final String secret) {
+        this.key = key;
+        this.session = new PolygonSession(key, secret);
+    }
+
+    /**
+     * Sets API key and secret.
+     *
+     * @param key    API key that was generated by Polygon.
+     * @param secret API secret that was generated by Polygon.
+     * @return {@link PolygonSessionBuilder} with configured API key and secret.
+     */
+    public static PolygonSessionBuilder withCredentials(final String key, final String secret) {
+        return new PolygonSessionBuilder(key, secret);
+    }
+
+    /**
+     * Builds {@link PolygonSession} with default parameters. This instance will not retry requests if Polygon API
+     * is not available.
+     *
+     * @param key    API key that was generated by Polygon.
+     * @param secret API secret that was generated by Polygon.
+     * @return Initialized {@link PolygonSession} instance.
+     */
+    public static PolygonSession defaultPolygonSession(final String key, final String secret) {
+        return withCredentials(key, secret)
+                .withMaxRetries(0)
+                .build();
+    }
+
+    /**
+     * Builds {@link PolygonSession} with default retry parameters. This instance will retry requests if Polygon API
+     * is not available using the following scheme.
+     *
+     * <ul>
+     *     <li>Max number of retries is 5.</li>
+     *     <li>The first retry will be done after 100ms.</li>
+     *     <li>The total wait time will not exceed 60s. If the API doesn't respond after this time, retrying
+     *     will be terminated.</li>
+     *     <li>Each time gap between two consecutive retries will be increased twice from the previous gap, and the
+     *     actual wait time is chosen randomly between zero and this gap.</li>
+     *     <li>Requests are retried if the response is not a JSON, if Polygon responds with HTTP code 429 or any
+     *     5xx code, and on I/O errors. Non-idempotent requests are retried only if they were not processed.</li>
+     * </ul>
+     *
+     * @param key    API key that was generated by Polygon.
+     * @param secret API secret that was generated by Polygon.
+     * @return Initialized {@link PolygonSession} instance.
+     */
+    public static PolygonSession defaultRetryPolygonSession(final String key, final String secret) {
+        return withCredentials(key, secret).build();
+    }
+
+    /**
+     * Builds {@link PolygonSession} with parameters that were set before.
+     *
+     * @return Initialized {@link PolygonSession} instance.
+     */
+    public PolygonSession build() {
+        session.setRetryPolicy(retryPolicy != null ? retryPolicy : new BackoffRetryPolicy()
+                .withStartWaitMs(session.getStartWaitMs())
+                .withMaxWaitMs(session.getMaxTotalWaitMs())
+                .withMaxTotalWaitMs(session.getMaxTotalWaitMs())
+                .withWaitCoefficient(session.getWaitCoefficient())
+                .withMaxRetries(session.getMaxRetries()));
+        session.setClient(client != null ? client : HttpUtils.createPooledClient(maxConnections,
+                maxConnectionsPerRoute, keepAliveMs, maxIdleMs, validateAfterInactivityMs));
+        return session;
+    }
+
+    /**
+     * Sets the base URL of the Polygon API. The default value is
+     * <a href="https://polygon.codeforces.com/api/">https://polygon.codeforces.com/api/</a>.
+     *
+     * @param baseUrl The URL of the Polygon API.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withBaseUrl(final String baseUrl) {
+        this.session.setBaseUrl(baseUrl);
+        return this;
+    }
+
+    /**
+     * Sets the HTTP client that will be used to perform requests to the API. The default value is a pooled client
+     * created using {@link HttpUtils#createPooledClient(int, int, long, long, int)} with the pool parameters of this
+     * builder. If the client is set, all pool parameters are ignored.
+     *
+     * @param client The instance of {@link CloseableHttpClient} interface.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withClient(final CloseableHttpClient client) {
+        this.client = client;
+        return this;
+    }
+
+    /**
+     * Sets the non-blocking HTTP client that will be used by {@link PolygonSession#async()}. The default value is
+     * created using {@link java.net.http.HttpClient#newHttpClient()} on the first call of
+     * {@link PolygonSession#async()}.
+     *
+     * @param asyncClient The instance of {@link java.net.http.HttpClient}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withAsyncClient(final java.net.http.HttpClient asyncClient) {
+        this.session.setAsyncClient(asyncClient);
+        return this;
+    }
+
+    /**
+     * Sets the policy that decides which failed requests are retried and when. The default value is
+     * {@link BackoffRetryPolicy} with full jitter that is configured using {@link #withStartWaitMs(long)},
+     * {@link #withMaxTotalWaitMs(long)}, {@link #withWaitCoefficient(double)} and {@link #withMaxRetries(int)}.
+     * If the policy is set, these parameters are ignored.
+     *
+     * @param retryPolicy The instance of {@link RetryPolicy}, for example, {@link RetryPolicy#never()}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Limits the rate of requests of this session using its own {@link RateLimiter}. Callers that exceed the rate
+     * wait in the order of arrival. By default, the rate is not limited.
+     *
+     * @param requestsPerSecond Sustained rate of requests.
+     * @param burst             Number of requests that can be done at once after a pause.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withRateLimit(final double requestsPerSecond, final int burst) {
+        this.session.setRateLimiter(new RateLimiter(requestsPerSecond, burst));
+        return this;
+    }
+
+    /**
+     * Limits the rate of requests of this session using the {@link RateLimiter} that is shared by all sessions
+     * built with the same API key and the same registry, see
+     * {@link RateLimiterRegistry#forApiKey(String, double, int)}. Callers that exceed the rate wait in the order of
+     * arrival. By default, the rate is not limited.
+     *
+     * @param registry          Registry of shared limiters.
+     * @param requestsPerSecond Sustained rate of requests.
+     * @param burst             Number of requests that can be done at once after a pause.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     * @throws IllegalArgumentException if the limiter of the API key was created with a different rate or burst.
+     */
+    public PolygonSessionBuilder withRateLimit(final RateLimiterRegistry registry,
+                                               final double requestsPerSecond, final int burst) {
+        this.session.setRateLimiter(registry.forApiKey(key, requestsPerSecond, burst));
+        return this;
+    }
+
+    /**
+     * Limits the rate of requests of this session using the given {@link RateLimiter}. It can be shared by several
+     * sessions and can have weights for heavy methods. By default, the rate is not limited.
+     *
+     * @param rateLimiter The instance of {@link RateLimiter}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withRateLimiter(final RateLimiter rateLimiter) {
+        this.session.setRateLimiter(rateLimiter);
+        return this;
+    }
+
+    /**
+     * Limits the number of requests of this session that are in flight at the same time. The limit adapts to the
+     * observed latency and to overload responses of Polygon, so that callers can use large thread pools without
+     * overloading it. The limiter can be shared by several sessions. By default, the number of requests in flight is
+     * not limited.
+     *
+     * @param concurrencyLimiter The instance of {@link ConcurrencyLimiter}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+        this.session.setConcurrencyLimiter(concurrencyLimiter);
+        return this;
+    }
+
+    /**
+     * Enables hedging of read-only requests: if a request is not answered within the delay given by the policy, the
+     * same request is sent once more, and the first response is used. Hedged requests of synchronous methods are sent
+     * by the client of {@link PolygonSession#async()}, so they do not use the client set by
+     * {@link #withClient(CloseableHttpClient)} and its connection pool, see
+     * {@link #withAsyncClient(java.net.http.HttpClient)}. By default, requests are not hedged.
+     *
+     * @param hedgingPolicy The instance of {@link HedgingPolicy}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withHedgingPolicy(final HedgingPolicy hedgingPolicy) {
+        this.session.setHedgingPolicy(hedgingPolicy);
+        return this;
+    }
+
+    /**
+     * Enables coalescing of identical read-only requests: if a request with the same method and parameters is already
+     * in flight, the caller waits for its result instead of sending a new request. Only the requests that are in
+     * flight at the same time are coalesced, so a read that started before a write may return the data from before
+     * the write to a caller that joined it after the write. By default, requests are not coalesced.
+     *
+     * @param coalesceReads Is <code>true</code> if identical read-only requests should be coalesced.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withReadCoalescing(final boolean coalesceReads) {
+        this.session.setCoalesceReads(coalesceReads);
+        return this;
+    }
+
+    /**
+     * Sets the cache of results of read-only methods, like <code>problemInfo</code> or <code>problemTests</code>.
+     * Cached results of a problem are invalidated by write requests for the problem sent by this session, and when
+     * <code>problemsList</code> shows that the problem revision has changed. The cache can be shared by several
+     * sessions of the same user. By default, results are not cached.
+     *
+     * @param responseCache The instance of {@link ResponseCache}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withResponseCache(final ResponseCache responseCache) {
+        this.session.setResponseCache(responseCache);
+        return this;
+    }
+
+    /**
+     * Sets the persistent cache of downloaded tests and files. It is used by the overloads of
+     * <code>problemTestInput</code>, <code>problemTestAnswer</code> and <code>problemViewFile</code> that take the
+     * problem revision or the file description, so that unchanged tests and files are copied from the local disk
+     * instead of being downloaded. The cache can be shared by several sessions. By default, there is no disk cache.
+     *
+     * @param diskCache The instance of {@link DiskCache}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withDiskCache(final DiskCache diskCache) {
+        this.session.setDiskCache(diskCache);
+        return this;
+    }
+
+    /**
+     * Sets the persistent store of downloaded packages. It is used by the overload of <code>problemPackage</code>
+     * that takes the package revision, so that a package that was downloaded once is linked or copied from the local
+     * disk instead of being downloaded again. The store can be shared by several sessions. By default, there is no
+     * package store.
+     *
+     * @param packageStore The instance of {@link PackageStore}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withPackageStore(final PackageStore packageStore) {
+        this.session.setPackageStore(packageStore);
+        return this;
+    }
+
+    /**
+     * Sets the circuit breaker that makes requests fail immediately with
+     * {@link ru.perveevm.polygon.exceptions.api.PolygonSessionAPIUnavailableException} while Polygon API is
+     * unavailable. It can be shared by several sessions. By default, there is no circuit breaker.
+     *
+     * @param circuitBreaker The instance of {@link CircuitBreaker}.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.session.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    /**
+     * Sets the time that will be skipped before the first retry.
+     *
+     * @param startWaitMs The time that will be skipped before the first retry in milliseconds.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withStartWaitMs(final long startWaitMs) {
+        this.session.setStartWaitMs(startWaitMs);
+        return this;
+    }
+
+    /**
+     * Sets the max total time that will be skipped during all retries.
+     *
+     * @param maxTotalWaitMs The max total time that will be skipped during all retries in milliseconds.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withMaxTotalWaitMs(final long maxTotalWaitMs) {
+        this.session.setMaxTotalWaitMs(maxTotalWaitMs);
+        return this;
+    }
+
+    /**
+     * Sets the coefficient that will be used to multiply the amount of time that will be skipped. For example,
+     * if the previous time skip before the retry was equal to 1500ms, and the coefficient is 2.0, the time skip before
+     * the next retry will be equal to 3000ms.
+     *
+     * @param waitCoefficient The coefficient that will be used to multiply the amount of time that will be skipped.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withWaitCoefficient(final double waitCoefficient) {
+        this.session.setWaitCoefficient(waitCoefficient);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of retries that will be done.
+     *
+     * @param maxRetries The maximum number of retries that will be done.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withMaxRetries(final int maxRetries) {
+        this.session.setMaxRetries(maxRetries);
+        return this;
+    }
+
+    /**
+     * Sets the max total number of pooled connections. The default value is 20.
+     *
+     * @param maxConnections The max total number of pooled connections.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withMaxConnections(final int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * Sets the max number of pooled connections to the same host. The default value is 20.
+     *
+     * @param maxConnectionsPerRoute The max number of pooled connections to the same host.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets the time to keep an idle connection alive. A shorter <code>Keep-Alive</code> timeout sent by the server
+     * takes precedence. The default value is 30s.
+     *
+     * @param keepAliveMs The time to keep an idle connection alive in milliseconds.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withKeepAliveMs(final long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+        return this;
+    }
+
+    /**
+     * Sets the time after which an idle connection is closed and evicted from the pool by a background thread.
+     * The default value is 60s.
+     *
+     * @param maxIdleMs The time after which an idle connection is evicted in milliseconds.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withMaxIdleMs(final long maxIdleMs) {
+        this.maxIdleMs = maxIdleMs;
+        return this;
+    }
+
+    /**
+     * Sets the time of inactivity after which a pooled connection is checked to be alive before reuse.
+     * The default value is 2s.
+     *
+     * @param validateAfterInactivityMs The time of inactivity in milliseconds.
+     * @return Modified instance of {@link PolygonSessionBuilder}.
+     */
+    public PolygonSessionBuilder withValidateAfterInactivityMs(final int validateAfterInactivityMs) {
+        this.validateAfterInactivityMs = validateAfterInactivityMs;
+        return this;
+    }
+}
@@ -0,0 +1,204 @@
+package ru.perveevm.polygon.api.breaker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker that stops sending requests when Polygon API is unavailable. An instance is thread-safe and can be
+ * shared by several sessions.
+ *
+ * <p>The breaker records outcomes of the last <code>windowSize</code> requests. If at least
+ * <code>minimumRequests</code> of them are recorded and the share of failures reaches
+ * <code>failureRateThreshold</code>, the breaker opens, and requests fail immediately. After
+ * <code>openDurationMs</code> the breaker becomes half-open and lets <code>probeRequests</code> requests through.
+ * If all of them succeed, the breaker closes, if any of them fails, the breaker opens again.
+ *
+ * <p>Only failures that mean that Polygon API is unavailable are recorded as failures: I/O errors, HTTP codes 429
+ * and 5xx, and responses that are not JSON. Responses with FAILED status are successes, because the API works.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class CircuitBreaker {
+    private final boolean[] window;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final long openDurationMs;
+    private final int probeRequests;
+    private final List<Consumer<CircuitBreakerState>> listeners = new CopyOnWriteArrayList<>();
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    private int recorded = 0;
+    private int next = 0;
+    private int failures = 0;
+    private long openUntilMs = 0;
+    private int probesInFlight = 0;
+    private int probesSucceeded = 0;
+
+    /**
+     * Creates a {@link CircuitBreaker} that opens when at least half of the last 20 requests fail, stays open for
+     * 30 seconds, and sends 3 probe requests when half-open.
+     */
+    public CircuitBreaker() {
+        this(20, 0.5, 10, 30000L, 3);
+    }
+
+    /**
+     * Creates a {@link CircuitBreaker}.
+     *
+     * @param windowSize           Number of last requests whose outcomes are recorded.
+     * @param failureRateThreshold Share of failed requests in the window that opens the breaker, from 0 to 1.
+     * @param minimumRequests      Minimal number of recorded requests to open the breaker.
+     * @param openDurationMs       Time in milliseconds the breaker stays open before sending probe requests.
+     * @param probeRequests        Number of probe requests that must succeed to close the breaker.
+     */
+    public CircuitBreaker(final int windowSize, final double failureRateThreshold, final int minimumRequests,
+                          final long openDurationMs, final int probeRequests) {
+        if (windowSize < 1 || minimumRequests < 1 || minimumRequests > windowSize || probeRequests < 1
+                || failureRateThreshold <= 0 || failureRateThreshold > 1 || openDurationMs < 0) {
+            throw new IllegalArgumentException("Circuit breaker parameters are invalid");
+        }
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.openDurationMs = openDurationMs;
+        this.probeRequests = probeRequests;
+    }
+
+    /**
+     * Adds a listener that is called on every state change with the new state. It is called on the thread that
+     * caused the change and must not block.
+     *
+     * @param listener State listener.
+     */
+    public void addListener(final Consumer<CircuitBreakerState> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return Current state of the breaker. An open breaker whose open time has passed is reported as half-open.
+     */
+    public synchronized CircuitBreakerState getState() {
+        if (state == CircuitBreakerState.OPEN && System.currentTimeMillis() >= openUntilMs) {
+            return CircuitBreakerState.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * @return Time in milliseconds until the breaker lets probe requests through, 0 if it is not open.
+     */
+    public synchronized long getRemainingOpenMs() {
+        return state == CircuitBreakerState.OPEN ? Math.max(0, openUntilMs - System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Checks whether a request can be sent. If <code>true</code> is returned, the outcome of the request must be
+     * reported using {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return Is <code>true</code> if the request can be sent.
+     */
+    public boolean tryAcquire() {
+        CircuitBreakerState newState;
+        synchronized (this) {
+            if (state == CircuitBreakerState.CLOSED) {
+                return true;
+            }
+            if (state == CircuitBreakerState.OPEN) {
+                if (System.currentTimeMillis() < openUntilMs) {
+                    return false;
+                }
+                state = CircuitBreakerState.HALF_OPEN;
+                probesInFlight = 0;
+                probesSucceeded = 0;
+                newState = state;
+            } else {
+                newState = null;
+            }
+            if (probesInFlight + probesSucceeded >= probeRequests) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        notifyListeners(newState);
+        return true;
+    }
+
+    /**
+     * Records a successful request.
+     */
+    public void onSuccess() {
+        CircuitBreakerState newState = null;
+        synchronized (this) {
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (++probesSucceeded >= probeRequests) {
+                    close();
+                    newState = state;
+                }
+            } else if (state == CircuitBreakerState.CLOSED) {
+                record(false);
+            }
+        }
+        notifyListeners(newState);
+    }
+
+    /**
+     * Records a request that failed because Polygon API is unavailable.
+     */
+    public void onFailure() {
+        CircuitBreakerState newState = null;
+        synchronized (this) {
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                open();
+                newState = state;
+            } else if (state == CircuitBreakerState.CLOSED) {
+                record(true);
+                if (recorded >= minimumRequests && failures >= failureRateThreshold * recorded) {
+                    open();
+                    newState = state;
+                }
+            }
+        }
+        notifyListeners(newState);
+    }
+
+    /**
+     * Records a request whose outcome says nothing about availability of Polygon API, for example, an interrupted
+     * one.
+     */
+    public synchronized void onIgnored() {
+        if (state == CircuitBreakerState.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+        }
+    }
+
+    private void record(final boolean failure) {
+        if (recorded == window.length) {
+            failures -= window[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = CircuitBreakerState.OPEN;
+        openUntilMs = System.currentTimeMillis() + openDurationMs;
+    }
+
+    private void close() {
+        state = CircuitBreakerState.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private void notifyListeners(final CircuitBreakerState newState) {
+        if (newState != null) {
+            listeners.forEach(listener -> listener.accept(newState));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.perveevm.polygon.api.breaker;
+
+/**
+ * Represents the state of {@link CircuitBreaker}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public enum CircuitBreakerState {
+    /**
+     * Polygon API is available, all requests are sent.
+     */
+    CLOSED,
+    /**
+     * Polygon API is considered unavailable, requests fail without being sent.
+     */
+    OPEN,
+    /**
+     * Open time has passed, a limited number of probe requests is sent to check whether Polygon API is available.
+     */
+    HALF_OPEN
+}
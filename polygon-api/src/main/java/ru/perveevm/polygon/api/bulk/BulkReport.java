@@ -0,0 +1,67 @@
+package ru.perveevm.polygon.api.bulk;
+
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk operation: the items that were processed successfully and the error of every item that failed.
+ * A failure of one item does not stop the operation.
+ *
+ * @param <K> Type of the item key, for example, test index.
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class BulkReport<K> {
+    private final List<K> succeeded = new ArrayList<>();
+    private final Map<K, PolygonSessionException> failed = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos = -1;
+
+    synchronized void recordSuccess(final K key) {
+        succeeded.add(key);
+    }
+
+    synchronized void recordFailure(final K key, final PolygonSessionException e) {
+        failed.put(key, e);
+    }
+
+    synchronized void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return Keys of the items that were processed successfully, in the order of completion.
+     */
+    public synchronized List<K> getSucceeded() {
+        return new ArrayList<>(succeeded);
+    }
+
+    /**
+     * @return Errors of the items that failed, in the order of completion.
+     */
+    public synchronized Map<K, PolygonSessionException> getFailed() {
+        return new LinkedHashMap<>(failed);
+    }
+
+    /**
+     * @return Is <code>true</code> if no item failed.
+     */
+    public synchronized boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+    /**
+     * @return Duration of the operation in milliseconds.
+     */
+    public synchronized long getElapsedMs() {
+        return (elapsedNanos < 0 ? System.nanoTime() - startNanos : elapsedNanos) / 1_000_000;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d succeeded, %d failed in %dms", succeeded.size(), failed.size(), getElapsedMs());
+    }
+}
@@ -0,0 +1,141 @@
+package ru.perveevm.polygon.api.bulk;
+
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Helpers for bulk operations that send many requests in parallel.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+final class BulkUtils {
+    private BulkUtils() {
+    }
+
+    /**
+     * Runs the action for every item with at most <code>parallelism</code> actions in flight. The next item is
+     * started as soon as one of the running actions completes, normally or exceptionally.
+     *
+     * @param items       Items to process.
+     * @param parallelism Maximal number of actions in flight.
+     * @param action      Starts the action for an item.
+     * @param <T>         Type of the items.
+     * @return {@link CompletableFuture} that is completed when all actions are done.
+     */
+    static <T> CompletableFuture<Void> forEachBounded(final Iterable<T> items, final int parallelism,
+                                                      final Function<T, CompletableFuture<?>> action) {
+        Iterator<T> iterator = items.iterator();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = runNext(iterator, action);
+        }
+        return CompletableFuture.allOf(workers);
+    }
+
+    private static <T> CompletableFuture<Void> runNext(final Iterator<T> iterator,
+                                                       final Function<T, CompletableFuture<?>> action) {
+        T item;
+        synchronized (iterator) {
+            if (!iterator.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            item = iterator.next();
+        }
+        CompletableFuture<?> future;
+        try {
+            future = action.apply(item);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        // The next item is started asynchronously, so that actions that fail immediately do not grow the stack.
+        return future.handle((result, e) -> null).thenComposeAsync(v -> runNext(iterator, action));
+    }
+
+    /**
+     * Runs the action for every item on a pool of <code>parallelism</code> threads and waits until all actions are
+     * done. The actions should record their own failures, an exception thrown by an action is rethrown.
+     *
+     * @param items       Items to process.
+     * @param parallelism Number of threads.
+     * @param action      Action to run for an item.
+     * @param <T>         Type of the items.
+     * @throws PolygonSessionException if an action failed or the thread was interrupted.
+     */
+    static <T> void runInParallel(final Collection<T> items, final int parallelism, final Consumer<T> action)
+            throws PolygonSessionException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(() -> action.accept(item)));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for all futures.
+     *
+     * @param futures Futures to wait for.
+     * @throws PolygonSessionException if a future failed or the thread was interrupted.
+     */
+    static void awaitAll(final Collection<? extends Future<?>> futures) throws PolygonSessionException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolygonSessionException("Thread was interrupted", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Returns the {@link PolygonSessionException} that made a future fail.
+     *
+     * @param e Exception the future was completed with, possibly wrapped in {@link CompletionException}.
+     * @return The cause as {@link PolygonSessionException}.
+     */
+    static PolygonSessionException unwrap(final Throwable e) {
+        Throwable cause = e instanceof CompletionException || e instanceof ExecutionException ? e.getCause() : e;
+        if (cause instanceof PolygonSessionException) {
+            return (PolygonSessionException) cause;
+        }
+        return new PolygonSessionException("Unexpected error: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Waits for the future.
+     *
+     * @param future Future to wait for.
+     * @param <T>    Type of the result.
+     * @return Result of the future.
+     * @throws PolygonSessionException if the future failed or the thread was interrupted.
+     */
+    static <T> T await(final CompletableFuture<T> future) throws PolygonSessionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolygonSessionException("Thread was interrupted", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ru.perveevm.polygon.api.bulk;
+
+import lombok.NonNull;
+import ru.perveevm.polygon.api.AsyncPolygonSession;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.entities.Problem;
+import ru.perveevm.polygon.api.entities.ProblemPackage;
+import ru.perveevm.polygon.api.entities.enums.PackageState;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and downloads packages of all problems of a contest. Packages of all problems are built at the same time,
+ * the states of all packages that are being built are polled in one loop, and every package is downloaded as soon as
+ * it is ready, while the others are still being built. So the whole contest takes about as long as its slowest
+ * problem. Packages are downloaded to <code>&lt;directory&gt;/&lt;letter&gt;.zip</code> with
+ * {@link PolygonSession#problemPackage(Integer, Integer, String, Integer, Path)}, so the package store of the session
+ * is used if it is set.
+ *
+ * <p>If a problem has no uncommitted changes and already has a ready package of the required kind for its current
+ * revision, that package is downloaded instead of building a new one. A failure of one problem does not stop the
+ * others, its error is put into the report. The pipeline is configured using <code>with*</code> methods before it is
+ * used.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ContestPackagePipeline {
+    private final PolygonSession session;
+    private final AsyncPolygonSession asyncSession;
+    private final int parallelism;
+    private boolean full = false;
+    private boolean verify = false;
+    private String downloadType = null;
+    private boolean reuseReadyPackages = true;
+    private long pollIntervalMs = 5000L;
+    private long timeoutMs = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Creates a pipeline that sends at most 8 build requests and downloads at most 8 packages at the same time.
+     *
+     * @param session Session to send requests with.
+     */
+    public ContestPackagePipeline(@NonNull final PolygonSession session) {
+        this(session, 8);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param session     Session to send requests with.
+     * @param parallelism Maximal number of build requests and of downloads that are in progress at the same time.
+     */
+    public ContestPackagePipeline(@NonNull final PolygonSession session, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.session = session;
+        this.asyncSession = session.async();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether full packages are built, see {@link PolygonSession#problemBuildPackage(Integer, Boolean, Boolean)}.
+     * The default value is <code>false</code>.
+     *
+     * @param full If <code>true</code>, full packages are built.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withFull(final boolean full) {
+        this.full = full;
+        return this;
+    }
+
+    /**
+     * Sets whether solutions are verified while building packages, see
+     * {@link PolygonSession#problemBuildPackage(Integer, Boolean, Boolean)}. The default value is <code>false</code>.
+     *
+     * @param verify If <code>true</code>, packages are verified.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withVerify(final boolean verify) {
+        this.verify = verify;
+        return this;
+    }
+
+    /**
+     * Sets the type of downloaded packages: <code>standard</code>, <code>linux</code> or <code>windows</code>. By
+     * default, the type of the built package is used.
+     *
+     * @param downloadType Package type.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withDownloadType(final String downloadType) {
+        this.downloadType = downloadType;
+        return this;
+    }
+
+    /**
+     * Sets whether ready packages for the current revisions of problems are downloaded instead of building new ones.
+     * The default value is <code>true</code>.
+     *
+     * @param reuseReadyPackages If <code>true</code>, ready packages are reused.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withReuseReadyPackages(final boolean reuseReadyPackages) {
+        this.reuseReadyPackages = reuseReadyPackages;
+        return this;
+    }
+
+    /**
+     * Sets the interval between polls of package states. The default value is 5 seconds.
+     *
+     * @param pollIntervalMs Interval in milliseconds.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withPollIntervalMs(final long pollIntervalMs) {
+        if (pollIntervalMs < 1) {
+            throw new IllegalArgumentException("Poll interval should be positive");
+        }
+        this.pollIntervalMs = pollIntervalMs;
+        return this;
+    }
+
+    /**
+     * Sets the time after which packages that are still being built are reported as failed. The default value is
+     * one hour.
+     *
+     * @param timeoutMs Timeout in milliseconds.
+     * @return This pipeline.
+     */
+    public ContestPackagePipeline withTimeoutMs(final long timeoutMs) {
+        if (timeoutMs < 1) {
+            throw new IllegalArgumentException("Timeout should be positive");
+        }
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    /**
+     * Builds packages of all problems of the contest and downloads them, waiting until all of them are done.
+     *
+     * @param contestId Contest ID.
+     * @param directory Directory to download packages to. It is created if it does not exist.
+     * @return Report with downloaded packages and failed problems, keyed by problem letters.
+     * @throws PolygonSessionException if the problems of the contest cannot be fetched or the directory cannot be
+     *                                 created.
+     */
+    public ContestPackageReport buildAndDownload(@NonNull final Integer contestId, @NonNull final Path directory)
+            throws PolygonSessionException {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot create directory: " + e.getMessage(), e);
+        }
+        Map<String, Problem> problems = new TreeMap<>(session.contestProblems(contestId));
+        ContestPackageReport report = new ContestPackageReport();
+        Map<String, Build> builds = new ConcurrentHashMap<>();
+        List<Future<?>> downloads = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService downloadExecutor = Executors.newFixedThreadPool(parallelism);
+        Pipeline pipeline = new Pipeline(directory, report, builds, downloads, downloadExecutor);
+
+        try {
+            CompletableFuture<Void> started = BulkUtils.forEachBounded(problems.entrySet(), parallelism,
+                    problem -> pipeline.start(problem.getKey(), problem.getValue()));
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (!started.isDone() || !builds.isEmpty()) {
+                if (System.nanoTime() - deadlineNanos > 0) {
+                    BulkUtils.await(started);
+                    for (String letter : new ArrayList<>(builds.keySet())) {
+                        builds.remove(letter);
+                        report.recordFailure(letter, new PolygonSessionException(
+                                "Package is not built in " + timeoutMs + " ms"));
+                    }
+                    break;
+                }
+                Thread.sleep(pollIntervalMs);
+                BulkUtils.await(pipeline.poll());
+            }
+
+            List<Future<?>> pending;
+            synchronized (downloads) {
+                pending = new ArrayList<>(downloads);
+            }
+            BulkUtils.awaitAll(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolygonSessionException("Thread was interrupted", e);
+        } finally {
+            downloadExecutor.shutdownNow();
+        }
+
+        report.finish();
+        return report;
+    }
+
+    private boolean isSuitable(final ProblemPackage problemPackage) {
+        // A full package also contains the standard one.
+        return !full || !"standard".equals(problemPackage.getType());
+    }
+
+    /**
+     * State of one {@link #buildAndDownload(Integer, Path)} call.
+     */
+    private class Pipeline {
+        private final Path directory;
+        private final ContestPackageReport report;
+        private final Map<String, Build> builds;
+        private final List<Future<?>> downloads;
+        private final ExecutorService downloadExecutor;
+
+        private Pipeline(final Path directory, final ContestPackageReport report, final Map<String, Build> builds,
+                         final List<Future<?>> downloads, final ExecutorService downloadExecutor) {
+            this.directory = directory;
+            this.report = report;
+            this.builds = builds;
+            this.downloads = downloads;
+            this.downloadExecutor = downloadExecutor;
+        }
+
+        /**
+         * Starts to build the package of the problem, or starts to download a ready one.
+         */
+        private CompletableFuture<Void> start(final String letter, final Problem problem) {
+            return asyncSession.problemPackages(problem.getId()).thenCompose(packages -> {
+                if (reuseReadyPackages && !Boolean.TRUE.equals(problem.getModified())) {
+                    ProblemPackage ready = Arrays.stream(packages)
+                            .filter(p -> p.getState() == PackageState.READY && isSuitable(p)
+                                    && p.getRevision().equals(problem.getRevision()))
+                            .max(Comparator.comparing(ProblemPackage::getId))
+                            .orElse(null);
+                    if (ready != null) {
+                        report.recordReused(letter);
+                        download(letter, problem, ready);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                }
+                int lastPackageId = Arrays.stream(packages).mapToInt(ProblemPackage::getId).max().orElse(0);
+                return asyncSession.problemBuildPackage(problem.getId(), full, verify)
+                        .thenRun(() -> builds.put(letter, new Build(problem, lastPackageId)));
+            }).whenComplete((result, e) -> {
+                if (e != null) {
+                    report.recordFailure(letter, BulkUtils.unwrap(e));
+                }
+            });
+        }
+
+        /**
+         * Polls the states of all packages that are being built, and starts to download the ready ones.
+         */
+        private CompletableFuture<Void> poll() {
+            List<CompletableFuture<?>> polls = new ArrayList<>();
+            for (Map.Entry<String, Build> entry : builds.entrySet()) {
+                String letter = entry.getKey();
+                Build build = entry.getValue();
+                polls.add(asyncSession.problemPackages(build.problem.getId()).handle((packages, e) -> {
+                    if (e != null) {
+                        builds.remove(letter);
+                        report.recordFailure(letter, BulkUtils.unwrap(e));
+                        return null;
+                    }
+                    // The built package is the newest one, which did not exist before the build.
+                    ProblemPackage built = Arrays.stream(packages)
+                            .filter(p -> p.getId() > build.lastPackageId && isSuitable(p))
+                            .max(Comparator.comparing(ProblemPackage::getId))
+                            .orElse(null);
+                    if (built == null) {
+                        return null;
+                    }
+                    if (built.getState() == PackageState.READY) {
+                        builds.remove(letter);
+                        download(letter, build.problem, built);
+                    } else if (built.getState() == PackageState.FAILED) {
+                        builds.remove(letter);
+                        report.recordFailure(letter, new PolygonSessionException(
+                                "Package build failed: " + built.getComment()));
+                    }
+                    return null;
+                }));
+            }
+            return CompletableFuture.allOf(polls.toArray(new CompletableFuture<?>[0]));
+        }
+
+        private void download(final String letter, final Problem problem, final ProblemPackage problemPackage) {
+            String type = downloadType == null ? problemPackage.getType() : downloadType;
+            downloads.add(downloadExecutor.submit(() -> {
+                try {
+                    session.problemPackage(problem.getId(), problemPackage.getId(), type,
+                            problemPackage.getRevision(), directory.resolve(letter + ".zip"));
+                    report.recordPackage(letter, problemPackage);
+                    report.recordSuccess(letter);
+                } catch (PolygonSessionException e) {
+                    report.recordFailure(letter, e);
+                }
+            }));
+        }
+    }
+
+    private static class Build {
+        private final Problem problem;
+        private final int lastPackageId;
+
+        private Build(final Problem problem, final int lastPackageId) {
+            this.problem = problem;
+            this.lastPackageId = lastPackageId;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.perveevm.polygon.api.bulk;
+
+import ru.perveevm.polygon.api.entities.ProblemPackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of {@link ContestPackagePipeline#buildAndDownload(Integer, java.nio.file.Path)}: the letters of the problems
+ * whose packages were downloaded, with the downloaded packages, and the error of every problem that failed.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ContestPackageReport extends BulkReport<String> {
+    private final Map<String, ProblemPackage> packages = new TreeMap<>();
+    private final List<String> reused = new ArrayList<>();
+
+    synchronized void recordPackage(final String letter, final ProblemPackage problemPackage) {
+        packages.put(letter, problemPackage);
+    }
+
+    synchronized void recordReused(final String letter) {
+        reused.add(letter);
+    }
+
+    /**
+     * @return Map from problem letter to the downloaded package.
+     */
+    public synchronized Map<String, ProblemPackage> getPackages() {
+        return new TreeMap<>(packages);
+    }
+
+    /**
+     * @return Letters of the problems that already had a ready package for their current revision, so no package was
+     * built for them.
+     */
+    public synchronized List<String> getReused() {
+        return new ArrayList<>(reused);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s, %d reused", super.toString(), reused.size());
+    }
+}
@@ -0,0 +1,328 @@
+package ru.perveevm.polygon.api.bulk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import lombok.NonNull;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.entities.Problem;
+import ru.perveevm.polygon.api.entities.ProblemFile;
+import ru.perveevm.polygon.api.entities.ProblemFiles;
+import ru.perveevm.polygon.api.entities.Solution;
+import ru.perveevm.polygon.api.entities.TestGroup;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionFailedRequestException;
+import ru.perveevm.polygon.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps local mirrors of Polygon problems up to date. Every problem is mirrored to
+ * <code>&lt;root&gt;/&lt;problemId&gt;</code>:
+ * <ul>
+ *     <li><code>problem.json</code> with problem info, statements, checker, validator, interactor and tags;</li>
+ *     <li><code>files/&lt;type&gt;/&lt;name&gt;</code> with resource, source and aux files;</li>
+ *     <li><code>solutions/&lt;name&gt;</code> with solutions;</li>
+ *     <li><code>tests/&lt;testset&gt;</code> with <code>tests.json</code> and <code>groups.json</code> with test and
+ *     group descriptions, and inputs and answers downloaded by {@link TestsetDownloader}.</li>
+ * </ul>
+ *
+ * <p>The revisions of all problems are fetched with a single <code>problems.list</code> request. A problem whose
+ * revision did not change since its previous successful synchronization and that has no uncommitted changes is
+ * skipped without any other requests. For other problems, the metadata is fetched again, but files and solutions are
+ * only downloaded if their modification time or length differs from the manifest of the problem,
+ * <code>.mirror.properties</code>, and files that were deleted in Polygon are deleted locally. Problems are
+ * synchronized by at most <code>parallelism</code> threads, and a failed problem does not stop the others. The
+ * mirror is configured using <code>with*</code> methods before it is used.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ProblemMirror {
+    private static final String MANIFEST_FILE = ".mirror.properties";
+    private static final String REVISION_KEY = "revision";
+    private static final String FILE_KEY_PREFIX = "file.";
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final PolygonSession session;
+    private final int parallelism;
+    private List<String> testsets = List.of("tests");
+    private int testParallelism = 4;
+
+    /**
+     * Creates a mirror that synchronizes at most 4 problems at the same time.
+     *
+     * @param session Session to send requests with.
+     */
+    public ProblemMirror(@NonNull final PolygonSession session) {
+        this(session, 4);
+    }
+
+    /**
+     * Creates a mirror.
+     *
+     * @param session     Session to send requests with.
+     * @param parallelism Maximal number of problems that are synchronized at the same time.
+     */
+    public ProblemMirror(@NonNull final PolygonSession session, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.session = session;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the testsets whose tests are mirrored. The default value is <code>tests</code>.
+     *
+     * @param testsets Testset names.
+     * @return This mirror.
+     */
+    public ProblemMirror withTestsets(@NonNull final String... testsets) {
+        this.testsets = List.of(testsets);
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of tests of a problem that are downloaded at the same time. The default value is 4.
+     *
+     * @param testParallelism Number of tests.
+     * @return This mirror.
+     */
+    public ProblemMirror withTestParallelism(final int testParallelism) {
+        if (testParallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.testParallelism = testParallelism;
+        return this;
+    }
+
+    /**
+     * Synchronizes the mirrors of all problems that are available to the user and are not deleted.
+     *
+     * @param root Directory with problem mirrors. It is created if it does not exist.
+     * @return Report with synchronized, unchanged and failed problems.
+     * @throws PolygonSessionException if the problem list cannot be fetched.
+     */
+    public ProblemMirrorReport mirror(@NonNull final Path root) throws PolygonSessionException {
+        List<Problem> problems = new ArrayList<>();
+        for (Problem problem : session.problemsList(null, null, null, null)) {
+            if (!Boolean.TRUE.equals(problem.getDeleted())) {
+                problems.add(problem);
+            }
+        }
+        return mirror(root, problems, List.of());
+    }
+
+    /**
+     * Synchronizes the mirrors of the given problems.
+     *
+     * @param root       Directory with problem mirrors. It is created if it does not exist.
+     * @param problemIds IDs of the problems.
+     * @return Report with synchronized, unchanged and failed problems.
+     * @throws PolygonSessionException if the problem list cannot be fetched.
+     */
+    public ProblemMirrorReport mirror(@NonNull final Path root, @NonNull final Collection<Integer> problemIds)
+            throws PolygonSessionException {
+        Map<Integer, Problem> available = new HashMap<>();
+        for (Problem problem : session.problemsList(null, null, null, null)) {
+            available.put(problem.getId(), problem);
+        }
+        List<Problem> problems = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer problemId : problemIds) {
+            if (available.containsKey(problemId)) {
+                problems.add(available.get(problemId));
+            } else {
+                missing.add(problemId);
+            }
+        }
+        return mirror(root, problems, missing);
+    }
+
+    private ProblemMirrorReport mirror(final Path root, final List<Problem> problems, final List<Integer> missing)
+            throws PolygonSessionException {
+        ProblemMirrorReport report = new ProblemMirrorReport();
+        for (Integer problemId : missing) {
+            report.recordFailure(problemId, new PolygonSessionException("Problem " + problemId + " is not found"));
+        }
+
+        BulkUtils.runInParallel(problems, parallelism,
+                problem -> mirrorProblem(root.resolve(String.valueOf(problem.getId())), problem, report));
+
+        report.finish();
+        return report;
+    }
+
+    private void mirrorProblem(final Path directory, final Problem problem, final ProblemMirrorReport report) {
+        int problemId = problem.getId();
+        try {
+            Files.createDirectories(directory);
+            Path manifestFile = directory.resolve(MANIFEST_FILE);
+            Properties manifest = FileUtils.readProperties(manifestFile);
+            String revision = Boolean.TRUE.equals(problem.getModified()) ? null : String.valueOf(problem.getRevision());
+            if (revision != null && revision.equals(manifest.getProperty(REVISION_KEY))) {
+                report.recordUnchanged(problemId);
+                report.recordSuccess(problemId);
+                return;
+            }
+            // The revision is recorded only after the whole problem is synchronized.
+            manifest.remove(REVISION_KEY);
+
+            writeMetadata(directory, problemId);
+            Properties updated = new Properties();
+            ProblemFiles files = session.problemFiles(problemId);
+            syncFiles(directory, problemId, "resource", files.getResourceFiles(), manifest, updated, report);
+            syncFiles(directory, problemId, "source", files.getSourceFiles(), manifest, updated, report);
+            syncFiles(directory, problemId, "aux", files.getAuxFiles(), manifest, updated, report);
+            syncSolutions(directory, problemId, session.problemSolutions(problemId), manifest, updated, report);
+            deleteRemovedFiles(directory, manifest, updated);
+            FileUtils.writeProperties(manifestFile, updated);
+
+            for (String testset : testsets) {
+                syncTestset(directory.resolve("tests").resolve(testset), problem, testset);
+            }
+
+            if (revision != null) {
+                updated.setProperty(REVISION_KEY, revision);
+                FileUtils.writeProperties(manifestFile, updated);
+            }
+            report.recordSuccess(problemId);
+        } catch (PolygonSessionException e) {
+            report.recordFailure(problemId, e);
+        } catch (IOException e) {
+            report.recordFailure(problemId, new PolygonSessionException("Cannot write file: " + e.getMessage(), e));
+        }
+    }
+
+    private void writeMetadata(final Path directory, final int problemId)
+            throws PolygonSessionException, IOException {
+        JsonObject metadata = new JsonObject();
+        metadata.add("info", gson.toJsonTree(session.problemInfo(problemId)));
+        metadata.add("statements", gson.toJsonTree(session.problemStatements(problemId)));
+        metadata.addProperty("checker", session.problemChecker(problemId));
+        metadata.addProperty("validator", session.problemValidator(problemId));
+        metadata.addProperty("interactor", session.problemInteractor(problemId));
+        metadata.add("tags", gson.toJsonTree(session.problemViewTags(problemId)));
+        writeJson(directory.resolve("problem.json"), metadata);
+    }
+
+    private void syncFiles(final Path directory, final int problemId, final String type, final ProblemFile[] files,
+                           final Properties manifest, final Properties updated, final ProblemMirrorReport report)
+            throws PolygonSessionException, IOException {
+        if (files == null) {
+            return;
+        }
+        for (ProblemFile file : files) {
+            syncFile(directory, "files/" + type + "/" + file.getName(), file.getModificationTimeSeconds(),
+                    file.getLength(), manifest, updated, report,
+                    path -> session.problemViewFile(problemId, type, file.getName(),
+                            file.getModificationTimeSeconds(), path));
+        }
+    }
+
+    private void syncSolutions(final Path directory, final int problemId, final Solution[] solutions,
+                               final Properties manifest, final Properties updated, final ProblemMirrorReport report)
+            throws PolygonSessionException, IOException {
+        for (Solution solution : solutions) {
+            syncFile(directory, "solutions/" + solution.getName(), solution.getModificationTimeSeconds(),
+                    solution.getLength(), manifest, updated, report,
+                    path -> session.problemViewSolution(problemId, solution.getName(), path));
+        }
+    }
+
+    /**
+     * Downloads the file unless the manifest says that the same version of it is already downloaded.
+     */
+    private void syncFile(final Path directory, final String name, final Integer modificationTimeSeconds,
+                          final Integer length, final Properties manifest, final Properties updated,
+                          final ProblemMirrorReport report, final Download download)
+            throws PolygonSessionException, IOException {
+        Path path = resolve(directory, name);
+        String key = FILE_KEY_PREFIX + name;
+        String version = modificationTimeSeconds + "/" + length + "/";
+        String previous = manifest.getProperty(key);
+        if (previous != null && previous.startsWith(version) && Files.isRegularFile(path)
+                && previous.equals(version + Files.size(path))) {
+            updated.setProperty(key, previous);
+            return;
+        }
+
+        Files.createDirectories(path.getParent());
+        Path temporaryFile = FileUtils.createTemporaryFile(path);
+        try {
+            download.write(temporaryFile);
+            long size = Files.size(temporaryFile);
+            FileUtils.moveAtomically(temporaryFile, path);
+            updated.setProperty(key, version + size);
+            report.recordDownloadedFile();
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void deleteRemovedFiles(final Path directory, final Properties manifest, final Properties updated)
+            throws IOException {
+        for (String key : manifest.stringPropertyNames()) {
+            if (key.startsWith(FILE_KEY_PREFIX) && !updated.containsKey(key)) {
+                Files.deleteIfExists(resolve(directory, key.substring(FILE_KEY_PREFIX.length())));
+            }
+        }
+    }
+
+    private void syncTestset(final Path directory, final Problem problem, final String testset)
+            throws PolygonSessionException, IOException {
+        int problemId = problem.getId();
+        Files.createDirectories(directory);
+        writeJson(directory.resolve("tests.json"), gson.toJsonTree(session.problemTests(problemId, testset, true)));
+        TestGroup[] groups;
+        try {
+            groups = session.problemViewTestGroup(problemId, testset, null);
+        } catch (PolygonSessionFailedRequestException e) {
+            // Polygon refuses to return groups if they are disabled for the testset.
+            groups = new TestGroup[0];
+        }
+        writeJson(directory.resolve("groups.json"), gson.toJsonTree(groups));
+
+        TestsetDownloadReport testsReport = new TestsetDownloader(session, testParallelism)
+                .download(problemId, testset, Boolean.TRUE.equals(problem.getModified()) ? null : problem.getRevision(),
+                        directory);
+        if (!testsReport.isSuccessful()) {
+            Map.Entry<Integer, PolygonSessionException> failure = testsReport.getFailed().entrySet().iterator().next();
+            throw new PolygonSessionException(String.format("Cannot download test %d of testset %s: %s",
+                    failure.getKey(), testset, failure.getValue().getMessage()), failure.getValue());
+        }
+    }
+
+    /**
+     * Resolves a file name received from Polygon, which must not point outside of the problem directory.
+     */
+    private static Path resolve(final Path directory, final String name) throws IOException {
+        Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory.normalize()) || path.equals(directory.normalize())) {
+            throw new IOException("Invalid file name: " + name);
+        }
+        return path;
+    }
+
+    private void writeJson(final Path path, final Object json) throws IOException {
+        byte[] content = gson.toJson(json).getBytes(StandardCharsets.UTF_8);
+        FileUtils.writeAtomically(path, outputStream -> outputStream.write(content));
+    }
+
+    /**
+     * Downloads a file or a solution to the given path.
+     */
+    @FunctionalInterface
+    private interface Download {
+        void write(Path path) throws PolygonSessionException;
+    }
+}
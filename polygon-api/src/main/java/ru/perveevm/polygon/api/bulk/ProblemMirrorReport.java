@@ -0,0 +1,44 @@
+package ru.perveevm.polygon.api.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a {@link ProblemMirror} run: the problems that were synchronized, the problems that were skipped because
+ * their revision did not change, and the error of every problem that failed.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ProblemMirrorReport extends BulkReport<Integer> {
+    private final List<Integer> unchanged = new ArrayList<>();
+    private long downloadedFiles = 0;
+
+    synchronized void recordUnchanged(final int problemId) {
+        unchanged.add(problemId);
+    }
+
+    synchronized void recordDownloadedFile() {
+        downloadedFiles++;
+    }
+
+    /**
+     * @return IDs of the problems that were not synchronized, since their revision did not change since the previous
+     * run.
+     */
+    public synchronized List<Integer> getUnchanged() {
+        return new ArrayList<>(unchanged);
+    }
+
+    /**
+     * @return Number of downloaded resource, source, aux and solution files.
+     */
+    public synchronized long getDownloadedFiles() {
+        return downloadedFiles;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s, %d unchanged, %d files downloaded", super.toString(), unchanged.size(),
+                downloadedFiles);
+    }
+}
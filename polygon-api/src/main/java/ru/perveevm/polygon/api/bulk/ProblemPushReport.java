@@ -0,0 +1,45 @@
+package ru.perveevm.polygon.api.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of {@link ProblemPusher#push(Integer, java.nio.file.Path, String)}: the uploaded artifacts, the artifacts
+ * that did not change, the error of every artifact that failed, and whether the changes were committed. Artifacts are
+ * identified by their paths relative to the problem directory, for example, <code>files/source/gen.cpp</code>,
+ * <code>statements/english</code> or <code>tests/tests/3</code>.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ProblemPushReport extends BulkReport<String> {
+    private final List<String> unchanged = new ArrayList<>();
+    private boolean committed = false;
+
+    synchronized void recordUnchanged(final String artifact) {
+        unchanged.add(artifact);
+    }
+
+    synchronized void recordCommitted() {
+        committed = true;
+    }
+
+    /**
+     * @return Artifacts that were not uploaded, since they did not change since the previous push.
+     */
+    public synchronized List<String> getUnchanged() {
+        return new ArrayList<>(unchanged);
+    }
+
+    /**
+     * @return Is <code>true</code> if the uploaded changes were committed.
+     */
+    public synchronized boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s, %d unchanged, %s", super.toString(), unchanged.size(),
+                committed ? "committed" : "not committed");
+    }
+}
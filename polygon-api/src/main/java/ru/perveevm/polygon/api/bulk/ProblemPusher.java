@@ -0,0 +1,460 @@
+package ru.perveevm.polygon.api.bulk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import lombok.NonNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.entities.ProblemFile;
+import ru.perveevm.polygon.api.entities.ProblemFiles;
+import ru.perveevm.polygon.api.entities.ProblemTest;
+import ru.perveevm.polygon.api.entities.Solution;
+import ru.perveevm.polygon.api.entities.Statement;
+import ru.perveevm.polygon.api.entities.enums.SolutionTag;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Uploads local changes of a problem to Polygon. The problem directory has the layout of {@link ProblemMirror}:
+ * <ul>
+ *     <li><code>files/&lt;type&gt;/&lt;name&gt;</code> with resource, source and aux files;</li>
+ *     <li><code>solutions/&lt;name&gt;</code> with solutions;</li>
+ *     <li><code>problem.json</code> with statements in <code>statements</code> field, optional;</li>
+ *     <li><code>tests/&lt;testset&gt;/&lt;index&gt;</code> with inputs of manual tests, and optional
+ *     <code>tests.json</code> with test descriptions. If it is present, only manual tests from it are uploaded,
+ *     together with their groups, points, descriptions and <code>useInStatements</code> flags.</li>
+ * </ul>
+ *
+ * <p>The directory keeps a manifest, <code>.push.properties</code>, with the SHA-256 checksum of every uploaded
+ * artifact and the modification time and length that Polygon reported for it after the upload. A file or a solution
+ * is uploaded if its checksum changed, or if it was changed or deleted in Polygon since the previous push. A test is
+ * uploaded if its checksum or description changed, or if Polygon has no manual test with its index. A statement is
+ * uploaded if it differs from the one in Polygon. Artifacts are uploaded by at most <code>parallelism</code> threads,
+ * and if all of them succeed, the changes are committed with a single <code>problem.commitChanges</code> request.
+ * The manifest also records that uploaded changes are not committed yet, so if an upload or the commit fails, the
+ * next push commits the changes even if there is nothing left to upload.
+ * Files deleted locally are not deleted in Polygon. The pusher is configured using <code>with*</code> methods before
+ * it is used.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ProblemPusher {
+    private static final String MANIFEST_FILE = ".push.properties";
+    private static final String PENDING_COMMIT_KEY = "pendingCommit";
+    private static final List<String> FILE_TYPES = List.of("resource", "source", "aux");
+    private static final Pattern TEST_INDEX_PATTERN = Pattern.compile("[1-9][0-9]*");
+
+    private final Gson gson = new Gson();
+    private final PolygonSession session;
+    private final int parallelism;
+    private SolutionTag newSolutionTag = SolutionTag.OK;
+    private Boolean minorChanges = null;
+
+    /**
+     * Creates a pusher that uploads at most 8 artifacts at the same time.
+     *
+     * @param session Session to send requests with.
+     */
+    public ProblemPusher(@NonNull final PolygonSession session) {
+        this(session, 8);
+    }
+
+    /**
+     * Creates a pusher.
+     *
+     * @param session     Session to send requests with.
+     * @param parallelism Maximal number of artifacts that are uploaded at the same time.
+     */
+    public ProblemPusher(@NonNull final PolygonSession session, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.session = session;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the tag of solutions that do not exist in Polygon yet. Tags of existing solutions are not changed. The
+     * default value is {@link SolutionTag#OK}.
+     *
+     * @param newSolutionTag Solution tag.
+     * @return This pusher.
+     */
+    public ProblemPusher withNewSolutionTag(@NonNull final SolutionTag newSolutionTag) {
+        this.newSolutionTag = newSolutionTag;
+        return this;
+    }
+
+    /**
+     * Sets <code>minorChanges</code> parameter of the commit. By default, it is not sent.
+     *
+     * @param minorChanges If <code>true</code>, no email notification will be sent.
+     * @return This pusher.
+     */
+    public ProblemPusher withMinorChanges(final Boolean minorChanges) {
+        this.minorChanges = minorChanges;
+        return this;
+    }
+
+    /**
+     * Uploads the changed artifacts of the problem and commits them.
+     *
+     * @param problemId Problem ID.
+     * @param directory Problem directory.
+     * @param message   Commit message. Can be <code>null</code>.
+     * @return Report with uploaded, unchanged and failed artifacts.
+     * @throws PolygonSessionException if the remote state cannot be fetched, the directory cannot be read or the
+     *                                 changes cannot be committed.
+     */
+    public ProblemPushReport push(@NonNull final Integer problemId, @NonNull final Path directory,
+                                  final String message) throws PolygonSessionException {
+        ProblemPushReport report = new ProblemPushReport();
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        Properties manifest;
+        List<Upload> uploads = new ArrayList<>();
+        Map<String, List<TestUpload>> testUploads = new HashMap<>();
+        try {
+            manifest = FileUtils.readProperties(manifestFile);
+            ProblemFiles files = session.problemFiles(problemId);
+            Map<String, String> remoteVersions = getRemoteVersions(files, session.problemSolutions(problemId));
+            collectFiles(problemId, directory, remoteVersions, manifest, uploads, report);
+            collectSolutions(problemId, directory, remoteVersions, manifest, uploads, report);
+            collectStatements(problemId, directory, uploads, report);
+            collectTests(problemId, directory, manifest, testUploads, report);
+        } catch (IOException | JsonParseException e) {
+            throw new PolygonSessionException("Cannot read problem directory: " + e.getMessage(), e);
+        }
+
+        runUploads(uploads, report);
+        for (Map.Entry<String, List<TestUpload>> testset : testUploads.entrySet()) {
+            uploadTests(problemId, testset.getKey(), testset.getValue(), report);
+        }
+
+        Set<String> succeeded = new HashSet<>(report.getSucceeded());
+        boolean uploaded = !succeeded.isEmpty();
+        if (uploaded) {
+            // Polygon changes modification times of uploaded files, so they are recorded after the upload.
+            Map<String, String> remoteVersions = getRemoteVersions(session.problemFiles(problemId),
+                    session.problemSolutions(problemId));
+            for (Upload upload : uploads) {
+                if (upload.sha256 != null && succeeded.contains(upload.artifact)) {
+                    manifest.setProperty(upload.artifact + ".sha256", upload.sha256);
+                    manifest.setProperty(upload.artifact + ".remote",
+                            remoteVersions.getOrDefault(upload.artifact, ""));
+                }
+            }
+            for (List<TestUpload> tests : testUploads.values()) {
+                for (TestUpload test : tests) {
+                    if (succeeded.contains(test.artifact)) {
+                        manifest.setProperty(test.artifact + ".sha256", test.sha256);
+                    }
+                }
+            }
+            // The flag is cleared only after the commit, so that a failed commit is retried by the next push.
+            manifest.setProperty(PENDING_COMMIT_KEY, "true");
+            storeManifest(manifestFile, manifest);
+        }
+
+        if (report.isSuccessful() && manifest.containsKey(PENDING_COMMIT_KEY)) {
+            session.problemCommitChanges(problemId, minorChanges, message);
+            report.recordCommitted();
+            manifest.remove(PENDING_COMMIT_KEY);
+            storeManifest(manifestFile, manifest);
+        }
+        report.finish();
+        return report;
+    }
+
+    private static void storeManifest(final Path manifestFile, final Properties manifest)
+            throws PolygonSessionException {
+        try {
+            FileUtils.writeProperties(manifestFile, manifest);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, String> getRemoteVersions(final ProblemFiles files, final Solution[] solutions) {
+        Map<String, String> versions = new HashMap<>();
+        addRemoteVersions(versions, "resource", files.getResourceFiles());
+        addRemoteVersions(versions, "source", files.getSourceFiles());
+        addRemoteVersions(versions, "aux", files.getAuxFiles());
+        for (Solution solution : solutions) {
+            versions.put("solutions/" + solution.getName(),
+                    solution.getModificationTimeSeconds() + "/" + solution.getLength());
+        }
+        return versions;
+    }
+
+    private static void addRemoteVersions(final Map<String, String> versions, final String type,
+                                          final ProblemFile[] files) {
+        if (files == null) {
+            return;
+        }
+        for (ProblemFile file : files) {
+            versions.put("files/" + type + "/" + file.getName(),
+                    file.getModificationTimeSeconds() + "/" + file.getLength());
+        }
+    }
+
+    private void collectFiles(final int problemId, final Path directory, final Map<String, String> remoteVersions,
+                              final Properties manifest, final List<Upload> uploads, final ProblemPushReport report)
+            throws IOException {
+        for (String type : FILE_TYPES) {
+            for (Path file : listFiles(directory.resolve("files").resolve(type))) {
+                String artifact = "files/" + type + "/" + file.getFileName();
+                collectChangedFile(artifact, file, remoteVersions, manifest, uploads, report,
+                        () -> session.problemSaveFile(problemId, null, type, file.getFileName().toString(),
+                                file.toFile(), null, null, null, null));
+            }
+        }
+    }
+
+    private void collectSolutions(final int problemId, final Path directory, final Map<String, String> remoteVersions,
+                                  final Properties manifest, final List<Upload> uploads,
+                                  final ProblemPushReport report) throws IOException {
+        for (Path file : listFiles(directory.resolve("solutions"))) {
+            String artifact = "solutions/" + file.getFileName();
+            SolutionTag tag = remoteVersions.containsKey(artifact) ? null : newSolutionTag;
+            collectChangedFile(artifact, file, remoteVersions, manifest, uploads, report,
+                    () -> session.problemSaveSolution(problemId, null, file.getFileName().toString(), file.toFile(),
+                            null, tag));
+        }
+    }
+
+    private static void collectChangedFile(final String artifact, final Path file,
+                                           final Map<String, String> remoteVersions, final Properties manifest,
+                                           final List<Upload> uploads, final ProblemPushReport report,
+                                           final Action action) throws IOException {
+        String sha256 = getSha256(file);
+        String remoteVersion = remoteVersions.get(artifact);
+        if (remoteVersion != null && sha256.equals(manifest.getProperty(artifact + ".sha256"))
+                && remoteVersion.equals(manifest.getProperty(artifact + ".remote"))) {
+            report.recordUnchanged(artifact);
+        } else {
+            uploads.add(new Upload(artifact, sha256, action));
+        }
+    }
+
+    private void collectStatements(final int problemId, final Path directory, final List<Upload> uploads,
+                                   final ProblemPushReport report) throws IOException, PolygonSessionException {
+        Path problemFile = directory.resolve("problem.json");
+        if (!Files.isRegularFile(problemFile)) {
+            return;
+        }
+        JsonElement statements = JsonParser.parseString(Files.readString(problemFile, StandardCharsets.UTF_8))
+                .getAsJsonObject().get("statements");
+        if (statements == null || !statements.isJsonObject()) {
+            return;
+        }
+        JsonObject remoteStatements = gson.toJsonTree(session.problemStatements(problemId)).getAsJsonObject();
+        for (Map.Entry<String, JsonElement> entry : statements.getAsJsonObject().entrySet()) {
+            String lang = entry.getKey();
+            String artifact = "statements/" + lang;
+            Statement statement = gson.fromJson(entry.getValue(), Statement.class);
+            if (isSubset(gson.toJsonTree(statement).getAsJsonObject(), remoteStatements.get(lang))) {
+                report.recordUnchanged(artifact);
+                continue;
+            }
+            uploads.add(new Upload(artifact, null, () -> session.problemSaveStatement(problemId, lang,
+                    statement.getEncoding(), statement.getName(), statement.getLegend(), statement.getInput(),
+                    statement.getOutput(), statement.getScoring(), statement.getInteraction(), statement.getNotes(),
+                    statement.getTutorial())));
+        }
+    }
+
+    /**
+     * Checks that the remote statement has all fields of the local one. Fields that are missing locally are not
+     * compared, since Polygon does not change them on saving.
+     */
+    private boolean isSubset(final JsonObject local, final JsonElement remote) {
+        if (remote == null || !remote.isJsonObject()) {
+            return false;
+        }
+        JsonObject normalized = gson.toJsonTree(gson.fromJson(remote, Statement.class)).getAsJsonObject();
+        return local.entrySet().stream().allMatch(e -> e.getValue().equals(normalized.get(e.getKey())));
+    }
+
+    private void collectTests(final int problemId, final Path directory, final Properties manifest,
+                              final Map<String, List<TestUpload>> testUploads, final ProblemPushReport report)
+            throws IOException, PolygonSessionException {
+        Path testsDirectory = directory.resolve("tests");
+        if (!Files.isDirectory(testsDirectory)) {
+            return;
+        }
+        List<Path> testsetDirectories;
+        try (Stream<Path> files = Files.list(testsDirectory)) {
+            testsetDirectories = files.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+        for (Path testsetDirectory : testsetDirectories) {
+            String testset = testsetDirectory.getFileName().toString();
+            Map<Integer, ProblemTest> localTests = readLocalTests(testsetDirectory);
+            Map<Integer, ProblemTest> remoteTests = new HashMap<>();
+            for (ProblemTest test : session.problemTests(problemId, testset, true)) {
+                remoteTests.put(test.getIndex(), test);
+            }
+
+            List<TestUpload> uploads = new ArrayList<>();
+            for (Map.Entry<Integer, ProblemTest> entry : localTests.entrySet()) {
+                int index = entry.getKey();
+                Path input = testsetDirectory.resolve(String.valueOf(index));
+                if (!Files.isRegularFile(input)) {
+                    continue;
+                }
+                String artifact = "tests/" + testset + "/" + index;
+                String sha256 = getSha256(input);
+                ProblemTest local = entry.getValue();
+                ProblemTest remote = remoteTests.get(index);
+                if (remote != null && Boolean.TRUE.equals(remote.getManual())
+                        && sha256.equals(manifest.getProperty(artifact + ".sha256"))
+                        && (local == null || hasSameDescription(local, remote))) {
+                    report.recordUnchanged(artifact);
+                    continue;
+                }
+                TestSpec spec = new TestSpec(index, input.toFile());
+                if (local != null) {
+                    spec.withGroup(local.getGroup()).withPoints(local.getPoints())
+                            .withDescription(local.getDescription()).withUseInStatements(local.getUseInStatements());
+                }
+                uploads.add(new TestUpload(artifact, sha256, spec));
+            }
+            if (!uploads.isEmpty()) {
+                testUploads.put(testset, uploads);
+            }
+        }
+    }
+
+    /**
+     * Returns manual tests of the testset directory, with their descriptions if <code>tests.json</code> is present.
+     */
+    private Map<Integer, ProblemTest> readLocalTests(final Path testsetDirectory) throws IOException {
+        Map<Integer, ProblemTest> tests = new HashMap<>();
+        Path testsFile = testsetDirectory.resolve("tests.json");
+        if (Files.isRegularFile(testsFile)) {
+            ProblemTest[] described = gson.fromJson(Files.readString(testsFile, StandardCharsets.UTF_8),
+                    ProblemTest[].class);
+            for (ProblemTest test : described) {
+                if (Boolean.TRUE.equals(test.getManual())) {
+                    tests.put(test.getIndex(), test);
+                }
+            }
+            return tests;
+        }
+        for (Path file : listFiles(testsetDirectory)) {
+            String name = file.getFileName().toString();
+            if (TEST_INDEX_PATTERN.matcher(name).matches()) {
+                tests.put(Integer.parseInt(name), null);
+            }
+        }
+        return tests;
+    }
+
+    private static boolean hasSameDescription(final ProblemTest local, final ProblemTest remote) {
+        return Objects.equals(local.getGroup(), remote.getGroup())
+                && Objects.equals(local.getPoints(), remote.getPoints())
+                && Objects.equals(local.getDescription(), remote.getDescription())
+                && Objects.equals(local.getUseInStatements(), remote.getUseInStatements());
+    }
+
+    private void runUploads(final List<Upload> uploads, final ProblemPushReport report)
+            throws PolygonSessionException {
+        BulkUtils.runInParallel(uploads, parallelism, upload -> {
+            try {
+                upload.action.run();
+                report.recordSuccess(upload.artifact);
+            } catch (PolygonSessionException e) {
+                report.recordFailure(upload.artifact, e);
+            }
+        });
+    }
+
+    private void uploadTests(final int problemId, final String testset, final List<TestUpload> tests,
+                             final ProblemPushReport report) {
+        Map<Integer, String> artifacts = new HashMap<>();
+        List<TestSpec> specs = new ArrayList<>();
+        for (TestUpload test : tests) {
+            artifacts.put(test.spec.getIndex(), test.artifact);
+            specs.add(test.spec);
+        }
+        try {
+            BulkReport<Integer> testsReport = new TestUploader(session, parallelism).upload(problemId, testset, specs);
+            for (Integer index : testsReport.getSucceeded()) {
+                report.recordSuccess(artifacts.get(index));
+            }
+            for (Map.Entry<Integer, PolygonSessionException> failure : testsReport.getFailed().entrySet()) {
+                report.recordFailure(artifacts.get(failure.getKey()), failure.getValue());
+            }
+        } catch (PolygonSessionException e) {
+            for (String artifact : artifacts.values()) {
+                report.recordFailure(artifact, e);
+            }
+        }
+    }
+
+    private static List<Path> listFiles(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static String getSha256(final Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(inputStream);
+        }
+    }
+
+    /**
+     * Uploads one artifact.
+     */
+    @FunctionalInterface
+    private interface Action {
+        void run() throws PolygonSessionException;
+    }
+
+    private static class Upload {
+        private final String artifact;
+        private final String sha256;
+        private final Action action;
+
+        private Upload(final String artifact, final String sha256, final Action action) {
+            this.artifact = artifact;
+            this.sha256 = sha256;
+            this.action = action;
+        }
+    }
+
+    private static class TestUpload {
+        private final String artifact;
+        private final String sha256;
+        private final TestSpec spec;
+
+        private TestUpload(final String artifact, final String sha256, final TestSpec spec) {
+            this.artifact = artifact;
+            this.sha256 = sha256;
+            this.spec = spec;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.perveevm.polygon.api.bulk;
+
+import lombok.NonNull;
+
+import java.io.File;
+
+/**
+ * Describes a test to be uploaded by {@link TestUploader}. The input is either a file, which is streamed from disk
+ * when the test is uploaded, or a string. Properties that are not set are left unchanged on Polygon.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class TestSpec {
+    private final int index;
+    private final File inputFile;
+    private final String input;
+    private String group;
+    private Double points;
+    private String description;
+    private Boolean useInStatements;
+
+    /**
+     * Creates a test whose input is read from the file.
+     *
+     * @param index     Test index.
+     * @param inputFile Test input file.
+     */
+    public TestSpec(final int index, @NonNull final File inputFile) {
+        this.index = index;
+        this.inputFile = inputFile;
+        this.input = null;
+    }
+
+    /**
+     * Creates a test with the given input.
+     *
+     * @param index Test index.
+     * @param input Test input data.
+     */
+    public TestSpec(final int index, @NonNull final String input) {
+        this.index = index;
+        this.inputFile = null;
+        this.input = input;
+    }
+
+    /**
+     * Sets the test group. Test groups are enabled for the testset if any uploaded test has a group.
+     *
+     * @param group Test group name.
+     * @return This test.
+     */
+    public TestSpec withGroup(final String group) {
+        this.group = group;
+        return this;
+    }
+
+    /**
+     * Sets the test points. Test points are enabled for the problem if any uploaded test has points.
+     *
+     * @param points Test points.
+     * @return This test.
+     */
+    public TestSpec withPoints(final Double points) {
+        this.points = points;
+        return this;
+    }
+
+    /**
+     * Sets the test description.
+     *
+     * @param description Test description.
+     * @return This test.
+     */
+    public TestSpec withDescription(final String description) {
+        this.description = description;
+        return this;
+    }
+
+    /**
+     * Sets whether the test is used in statements.
+     *
+     * @param useInStatements If <code>true</code>, the test is used in statements.
+     * @return This test.
+     */
+    public TestSpec withUseInStatements(final Boolean useInStatements) {
+        this.useInStatements = useInStatements;
+        return this;
+    }
+
+    /**
+     * @return Test index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Test input file, or <code>null</code> if the input is given as a string.
+     */
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * @return Test input data, or <code>null</code> if the input is given as a file.
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * @return Test group name, or <code>null</code> if it is not set.
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return Test points, or <code>null</code> if they are not set.
+     */
+    public Double getPoints() {
+        return points;
+    }
+
+    /**
+     * @return Test description, or <code>null</code> if it is not set.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return Is <code>true</code> if the test is used in statements, or <code>null</code> if it is not set.
+     */
+    public Boolean getUseInStatements() {
+        return useInStatements;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.perveevm.polygon.api.bulk;
+
+import lombok.NonNull;
+import ru.perveevm.polygon.api.AsyncPolygonSession;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Uploads many tests of a testset concurrently using <code>problem.saveTest</code>. At most
+ * <code>parallelism</code> tests are uploaded at the same time, input files are streamed from disk, and groups and
+ * points are saved together with the tests. A failed test does not stop the upload, its error is put into the
+ * report instead.
+ *
+ * <p>The uploader sends requests through {@link PolygonSession#async()}, so the rate limiter, the concurrency limiter,
+ * the retry policy and the circuit breaker of the session apply to them.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class TestUploader {
+    private final AsyncPolygonSession session;
+    private final int parallelism;
+
+    /**
+     * Creates an uploader that uploads at most 8 tests at the same time.
+     *
+     * @param session Session to send requests with.
+     */
+    public TestUploader(@NonNull final PolygonSession session) {
+        this(session, 8);
+    }
+
+    /**
+     * Creates an uploader.
+     *
+     * @param session     Session to send requests with.
+     * @param parallelism Maximal number of tests that are uploaded at the same time.
+     */
+    public TestUploader(@NonNull final PolygonSession session, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.session = session.async();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Uploads the tests and waits until all of them are done.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param tests     Tests to upload.
+     * @return Report with the indices of uploaded tests and the errors of failed ones.
+     * @throws PolygonSessionException if test groups or points cannot be enabled, in which case no test is uploaded.
+     */
+    public BulkReport<Integer> upload(@NonNull final Integer problemId, @NonNull final String testset,
+                                      @NonNull final Collection<TestSpec> tests) throws PolygonSessionException {
+        return BulkUtils.await(uploadAsync(problemId, testset, tests));
+    }
+
+    /**
+     * Uploads the tests asynchronously.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param tests     Tests to upload.
+     * @return {@link CompletableFuture} with the report. It fails only if test groups or points cannot be enabled.
+     */
+    public CompletableFuture<BulkReport<Integer>> uploadAsync(@NonNull final Integer problemId,
+                                                              @NonNull final String testset,
+                                                              @NonNull final Collection<TestSpec> tests) {
+        List<TestSpec> copy = new ArrayList<>(tests);
+        BulkReport<Integer> report = new BulkReport<>();
+
+        List<CompletableFuture<Void>> preparations = new ArrayList<>();
+        if (copy.stream().anyMatch(t -> t.getGroup() != null)) {
+            preparations.add(session.problemEnableGroups(problemId, testset, true));
+        }
+        if (copy.stream().anyMatch(t -> t.getPoints() != null)) {
+            preparations.add(session.problemEnablePoints(problemId, true));
+        }
+
+        return CompletableFuture.allOf(preparations.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(v -> BulkUtils.forEachBounded(copy, parallelism, test -> save(problemId, testset, test)
+                        .whenComplete((result, e) -> {
+                            if (e == null) {
+                                report.recordSuccess(test.getIndex());
+                            } else {
+                                report.recordFailure(test.getIndex(), BulkUtils.unwrap(e));
+                            }
+                        })))
+                .thenApply(v -> {
+                    report.finish();
+                    return report;
+                });
+    }
+
+    private CompletableFuture<Void> save(final int problemId, final String testset, final TestSpec test) {
+        if (test.getInputFile() != null) {
+            return session.problemSaveTest(problemId, null, testset, test.getIndex(), test.getInputFile(),
+                    test.getGroup(), test.getPoints(), test.getDescription(), test.getUseInStatements(), null, null,
+                    null);
+        }
+        return session.problemSaveTest(problemId, null, testset, test.getIndex(), test.getInput(), test.getGroup(),
+                test.getPoints(), test.getDescription(), test.getUseInStatements(), null, null, null);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.perveevm.polygon.api.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of {@link TestsetDownloader#download(Integer, String, java.nio.file.Path)}: the tests that were downloaded
+ * or were already up to date, the errors of the tests that failed, and the download throughput.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class TestsetDownloadReport extends BulkReport<Integer> {
+    private final List<Integer> skipped = new ArrayList<>();
+    private long downloadedBytes = 0;
+
+    synchronized void recordSkipped(final int index) {
+        skipped.add(index);
+    }
+
+    synchronized void recordDownloadedBytes(final long bytes) {
+        downloadedBytes += bytes;
+    }
+
+    /**
+     * @return Indices of the tests whose input and answer were already up to date and were not downloaded.
+     */
+    public synchronized List<Integer> getSkipped() {
+        return new ArrayList<>(skipped);
+    }
+
+    /**
+     * @return Total size of downloaded inputs and answers in bytes.
+     */
+    public synchronized long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    /**
+     * @return Average download speed in bytes per second.
+     */
+    public synchronized double getBytesPerSecond() {
+        return downloadedBytes * 1000.0 / Math.max(1, getElapsedMs());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s, %d skipped, %d bytes downloaded at %.1f KB/s", super.toString(), skipped.size(),
+                downloadedBytes, getBytesPerSecond() / 1024);
+    }
+}
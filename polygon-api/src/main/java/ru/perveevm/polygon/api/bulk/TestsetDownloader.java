@@ -0,0 +1,192 @@
+package ru.perveevm.polygon.api.bulk;
+
+import lombok.NonNull;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.entities.Problem;
+import ru.perveevm.polygon.api.entities.ProblemTest;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.utils.FileUtils;
+import ru.perveevm.polygon.utils.FileUtils.ContentWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Downloads all inputs and answers of a testset to a local directory, as <code>&lt;dir&gt;/&lt;index&gt;</code> and
+ * <code>&lt;dir&gt;/&lt;index&gt;.a</code>. The test list is fetched once without inputs, then inputs and answers
+ * of manual and generated tests are streamed to disk by at most <code>parallelism</code> threads. A failed test does
+ * not stop the download, its error is put into the report instead.
+ *
+ * <p>The directory keeps a manifest, <code>.testset.properties</code>, with the problem revision and the SHA-256
+ * checksum of every file. A file is not downloaded again if it was downloaded for the same committed revision of the
+ * problem and still has the recorded checksum. While the problem has uncommitted changes, the revision does not
+ * identify the tests, so all files are downloaded.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class TestsetDownloader {
+    private static final String MANIFEST_FILE = ".testset.properties";
+
+    private final PolygonSession session;
+    private final int parallelism;
+
+    /**
+     * Creates a downloader that downloads at most 8 tests at the same time.
+     *
+     * @param session Session to send requests with.
+     */
+    public TestsetDownloader(@NonNull final PolygonSession session) {
+        this(session, 8);
+    }
+
+    /**
+     * Creates a downloader.
+     *
+     * @param session     Session to send requests with.
+     * @param parallelism Maximal number of tests that are downloaded at the same time.
+     */
+    public TestsetDownloader(@NonNull final PolygonSession session, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.session = session;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Downloads the testset and waits until all tests are done. The revision of the problem is fetched with a
+     * <code>problems.list</code> request.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param directory Directory to download tests to. It is created if it does not exist.
+     * @return Report with downloaded, skipped and failed tests and the download throughput.
+     * @throws PolygonSessionException if the test list cannot be fetched or the directory cannot be written.
+     */
+    public TestsetDownloadReport download(@NonNull final Integer problemId, @NonNull final String testset,
+                                          @NonNull final Path directory) throws PolygonSessionException {
+        return download(problemId, testset, getRevision(problemId), directory);
+    }
+
+    /**
+     * Downloads the testset of the problem whose revision is already known, for example from a
+     * <code>problems.list</code> response, and waits until all tests are done.
+     *
+     * @param problemId Problem ID.
+     * @param testset   Testset name.
+     * @param revision  Revision of the problem, or <code>null</code> if the problem has uncommitted changes. In the
+     *                  latter case, all files are downloaded.
+     * @param directory Directory to download tests to. It is created if it does not exist.
+     * @return Report with downloaded, skipped and failed tests and the download throughput.
+     * @throws PolygonSessionException if the test list cannot be fetched or the directory cannot be written.
+     */
+    public TestsetDownloadReport download(@NonNull final Integer problemId, @NonNull final String testset,
+                                          final Integer revision, @NonNull final Path directory)
+            throws PolygonSessionException {
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        Properties manifest;
+        try {
+            Files.createDirectories(directory);
+            manifest = FileUtils.readProperties(manifestFile);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot read directory: " + e.getMessage(), e);
+        }
+
+        String source = revision == null ? null : problemId + "/" + testset + "/" + revision;
+        ProblemTest[] tests = session.problemTests(problemId, testset, true);
+        TestsetDownloadReport report = new TestsetDownloadReport();
+
+        BulkUtils.runInParallel(List.of(tests), parallelism,
+                test -> downloadTest(problemId, testset, test.getIndex(), directory, source, manifest, report));
+
+        try {
+            FileUtils.writeProperties(manifestFile, manifest);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+        report.finish();
+        return report;
+    }
+
+    /**
+     * Returns the revision of the problem, or <code>null</code> if the problem has uncommitted changes and the tests
+     * cannot be identified by it.
+     */
+    private Integer getRevision(final int problemId) throws PolygonSessionException {
+        for (Problem problem : session.problemsList(null, problemId, null, null)) {
+            if (problem.getId() == problemId && !Boolean.TRUE.equals(problem.getModified())) {
+                return problem.getRevision();
+            }
+        }
+        return null;
+    }
+
+    private void downloadTest(final int problemId, final String testset, final int index, final Path directory,
+                              final String source, final Properties manifest, final TestsetDownloadReport report) {
+        try {
+            boolean inputDownloaded = downloadFile(directory.resolve(String.valueOf(index)), source, manifest, report,
+                    outputStream -> session.problemTestInput(problemId, testset, index, outputStream));
+            boolean answerDownloaded = downloadFile(directory.resolve(index + ".a"), source, manifest, report,
+                    outputStream -> session.problemTestAnswer(problemId, testset, index, outputStream));
+            if (!inputDownloaded && !answerDownloaded) {
+                report.recordSkipped(index);
+            }
+            report.recordSuccess(index);
+        } catch (PolygonSessionException e) {
+            report.recordFailure(index, e);
+        } catch (IOException e) {
+            report.recordFailure(index, new PolygonSessionException("Cannot write file: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Downloads the file unless it is up to date.
+     *
+     * @return Is <code>true</code> if the file was downloaded.
+     */
+    private boolean downloadFile(final Path path, final String source, final Properties manifest,
+                                 final TestsetDownloadReport report,
+                                 final ContentWriter<PolygonSessionException> download)
+            throws IOException, PolygonSessionException {
+        String name = path.getFileName().toString();
+        if (source != null && source.equals(manifest.getProperty(name + ".source"))
+                && isIntact(path, manifest.getProperty(name + ".length"), manifest.getProperty(name + ".sha256"))) {
+            return false;
+        }
+        manifest.remove(name + ".source");
+
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        FileUtils.writeAtomically(path, outputStream -> download.write(new DigestOutputStream(outputStream, digest)));
+        long length = Files.size(path);
+        report.recordDownloadedBytes(length);
+
+        manifest.setProperty(name + ".length", String.valueOf(length));
+        manifest.setProperty(name + ".sha256", Hex.encodeHexString(digest.digest()));
+        if (source != null) {
+            manifest.setProperty(name + ".source", source);
+        }
+        return true;
+    }
+
+    private static boolean isIntact(final Path path, final String length, final String sha256) throws IOException {
+        try {
+            if (!String.valueOf(Files.size(path)).equals(length)) {
+                return false;
+            }
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                return DigestUtils.sha256Hex(inputStream).equals(sha256);
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+}
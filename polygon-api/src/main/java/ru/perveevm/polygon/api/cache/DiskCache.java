@@ -0,0 +1,221 @@
+package ru.perveevm.polygon.api.cache;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import ru.perveevm.polygon.utils.FileUtils;
+import ru.perveevm.polygon.utils.FileUtils.ContentWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent content-addressable cache of downloaded files. Contents are stored once per SHA-256 hash in
+ * <code>blobs</code> directory, and an index in <code>index</code> directory maps keys, for example, problem ID,
+ * revision, testset and test index, to the hashes. An instance is thread-safe, and several processes can use the same
+ * directory.
+ *
+ * <p>All files are written to a temporary file first and then atomically moved to their place, so an interrupted
+ * download never leaves a broken file in the cache. When the total size of contents exceeds <code>maxBytes</code>,
+ * the least recently used contents are deleted. The total size is computed when the cache is opened and then tracked
+ * by this instance, so contents added by other processes are noticed only after the cache is reopened.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class DiskCache {
+    private final Path blobsDirectory;
+    private final Path indexDirectory;
+    private final Path temporaryDirectory;
+    private final long maxBytes;
+    private long totalBytes;
+
+    /**
+     * Opens the cache in the given directory, creating the directory if it does not exist.
+     *
+     * @param directory Cache directory.
+     * @param maxBytes  Maximal total size of cached contents in bytes.
+     * @throws IOException if the directory cannot be created or read.
+     */
+    public DiskCache(final Path directory, final long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Cache size should be positive");
+        }
+        this.blobsDirectory = Files.createDirectories(directory.resolve("blobs"));
+        this.indexDirectory = Files.createDirectories(directory.resolve("index"));
+        this.temporaryDirectory = Files.createDirectories(directory.resolve("tmp"));
+        this.maxBytes = maxBytes;
+        try (Stream<Path> blobs = Files.walk(blobsDirectory)) {
+            this.totalBytes = blobs.filter(Files::isRegularFile).mapToLong(DiskCache::getSize).sum();
+        }
+    }
+
+    /**
+     * Returns the cached contents for the key and marks them as recently used. The returned file must not be
+     * modified.
+     *
+     * @param key Key of the contents.
+     * @return Path to the contents, or <code>null</code> if there are no contents for the key.
+     * @throws IOException if the index cannot be read.
+     */
+    public Path get(final String key) throws IOException {
+        Path indexFile = getIndexFile(key);
+        String hash;
+        try {
+            hash = Files.readString(indexFile, StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Path blob = getBlob(hash);
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // The contents were evicted.
+            Files.deleteIfExists(indexFile);
+            return null;
+        }
+        return blob;
+    }
+
+    /**
+     * Writes the contents for the key to the cache, unless the cache already has the same contents, and updates the
+     * index. If the writer fails, nothing is changed.
+     *
+     * @param key    Key of the contents.
+     * @param writer Writes the contents to the given stream.
+     * @param <E>    Type of the exception thrown by the writer.
+     * @return Path to the cached contents. The returned file must not be modified.
+     * @throws IOException if the contents cannot be stored.
+     * @throws E           if the writer fails.
+     */
+    public <E extends Exception> Path put(final String key, final ContentWriter<E> writer) throws IOException, E {
+        Path temporaryFile = Files.createTempFile(temporaryDirectory, "blob", ".tmp");
+        Path blob;
+        try {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(temporaryFile), digest)) {
+                writer.write(outputStream);
+            }
+            String hash = Hex.encodeHexString(digest.digest());
+            blob = getBlob(hash);
+
+            synchronized (this) {
+                if (Files.exists(blob)) {
+                    Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+                } else {
+                    Files.createDirectories(blob.getParent());
+                    long size = Files.size(temporaryFile);
+                    FileUtils.moveAtomically(temporaryFile, blob);
+                    totalBytes += size;
+                }
+            }
+            writeAtomically(getIndexFile(key), hash);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+
+        evictIfNeeded(blob);
+        return blob;
+    }
+
+    /**
+     * Copies the cached contents to the given path. The contents returned by {@link #get(String)} or
+     * {@link #put(String, ContentWriter)} are not pinned, so they can be evicted by a concurrent
+     * {@link #put(String, ContentWriter)} before they are copied. The caller should treat it as a miss.
+     *
+     * @param blob   Path to the cached contents returned by {@link #get(String)} or {@link #put(String, ContentWriter)}.
+     * @param target Path to copy the contents to. It is replaced if it exists.
+     * @return <code>true</code> if the contents were copied, or <code>false</code> if they were evicted.
+     * @throws IOException if the contents cannot be copied.
+     */
+    public boolean copy(final Path blob, final Path target) throws IOException {
+        // Once the contents are opened, their eviction does not affect the copy.
+        InputStream inputStream;
+        try {
+            inputStream = Files.newInputStream(blob);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try (inputStream) {
+            FileUtils.writeAtomically(target, inputStream::transferTo);
+        }
+        return true;
+    }
+
+    /**
+     * @return Total size of cached contents in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void evictIfNeeded(final Path keep) throws IOException {
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        List<Path> blobs;
+        try (Stream<Path> files = Files.walk(blobsDirectory)) {
+            blobs = files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(DiskCache::getLastModifiedTime))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        // Contents are evicted until the cache is 90% full, so that the directory is not listed on every write.
+        for (Path blob : blobs) {
+            if (totalBytes <= maxBytes * 0.9) {
+                break;
+            }
+            if (!blob.equals(keep)) {
+                long size = getSize(blob);
+                if (Files.deleteIfExists(blob)) {
+                    totalBytes -= size;
+                }
+            }
+        }
+    }
+
+    private Path getBlob(final String hash) {
+        return blobsDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path getIndexFile(final String key) {
+        return indexDirectory.resolve(DigestUtils.sha256Hex(key));
+    }
+
+    private void writeAtomically(final Path path, final String content) throws IOException {
+        Path temporaryFile = Files.createTempFile(temporaryDirectory, "index", ".tmp");
+        try {
+            Files.writeString(temporaryFile, content, StandardCharsets.UTF_8);
+            FileUtils.moveAtomically(temporaryFile, path);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static long getSize(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime getLastModifiedTime(final Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime();
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
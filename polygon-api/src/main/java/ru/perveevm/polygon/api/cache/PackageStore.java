@@ -0,0 +1,304 @@
+package ru.perveevm.polygon.api.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import ru.perveevm.polygon.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent store of downloaded problem packages. A package is identified by problem ID, package ID, problem
+ * revision and package type, so a package that was downloaded once is never downloaded again. An instance is
+ * thread-safe.
+ *
+ * <p>Archives are stored in <code>&lt;problemId&gt;/&lt;packageId&gt;-&lt;revision&gt;-&lt;type&gt;.zip</code> next
+ * to a <code>.properties</code> file with their length, modification time and SHA-256 checksum. The checksum is
+ * computed once, when the archive is stored. On a hit, only the length and the modification time of the archive are
+ * compared with the recorded ones, so that a hit does not read the whole archive, and an archive that was truncated
+ * or modified in place is deleted and downloaded again. Hits are hard-linked to the requested path if it is on the
+ * same file system and copied otherwise, so the linked file must not be modified in place. Unfinished downloads are
+ * kept in <code>tmp</code> directory and are continued by the next download of the same package.
+ *
+ * <p>After a package is stored, only packages of the last <code>keptRevisions</code> revisions of the problem are
+ * kept, and if the total size of archives exceeds <code>maxBytes</code>, the least recently used archives are
+ * deleted.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class PackageStore {
+    private static final Pattern TYPE_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+
+    private final Path directory;
+    private final Path temporaryDirectory;
+    private final int keptRevisions;
+    private final long maxBytes;
+    private final Map<String, Object> downloadLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store that keeps packages of the last two revisions of every problem and does not limit their total
+     * size.
+     *
+     * @param directory Store directory.
+     * @throws IOException if the directory cannot be created.
+     */
+    public PackageStore(final Path directory) throws IOException {
+        this(directory, 2, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens the store in the given directory, creating the directory if it does not exist.
+     *
+     * @param directory     Store directory.
+     * @param keptRevisions Number of the last revisions of a problem whose packages are kept.
+     * @param maxBytes      Maximal total size of stored archives in bytes.
+     * @throws IOException if the directory cannot be created.
+     */
+    public PackageStore(final Path directory, final int keptRevisions, final long maxBytes) throws IOException {
+        if (keptRevisions < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Number of kept revisions and store size should be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.temporaryDirectory = Files.createDirectories(directory.resolve("tmp"));
+        this.keptRevisions = keptRevisions;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the stored archive of the package if its length and modification time match the recorded ones, and
+     * marks it as recently used. The returned file must not be modified.
+     *
+     * @param problemId Problem ID.
+     * @param packageId Package ID.
+     * @param revision  Problem revision the package was built for.
+     * @param type      Package type.
+     * @return Path to the archive, or <code>null</code> if the package is not stored or is broken.
+     * @throws IOException if the archive cannot be read.
+     */
+    public Path get(final int problemId, final int packageId, final int revision, final String type)
+            throws IOException {
+        Path archive = getArchive(problemId, packageId, revision, type);
+        Path metadataFile = getMetadataFile(archive);
+        synchronized (this) {
+            Properties metadata = FileUtils.readProperties(metadataFile);
+            if (metadata.isEmpty()) {
+                return null;
+            }
+            if (!isIntact(archive, metadata)) {
+                Files.deleteIfExists(metadataFile);
+                Files.deleteIfExists(archive);
+                return null;
+            }
+            // The archive itself is not touched, since it may share modification time with hard links to it.
+            Files.setLastModifiedTime(metadataFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return archive;
+        }
+    }
+
+    /**
+     * Downloads the package to the store, unless it is already stored, and evicts old packages.
+     *
+     * @param problemId  Problem ID.
+     * @param packageId  Package ID.
+     * @param revision   Problem revision the package was built for.
+     * @param type       Package type.
+     * @param downloader Downloads the archive to the given path. The path of an unfinished download of the same
+     *                   package is passed, so the downloader may continue it.
+     * @param <E>        Type of the exception thrown by the downloader.
+     * @return Path to the stored archive. The returned file must not be modified.
+     * @throws IOException if the archive cannot be stored.
+     * @throws E           if the downloader fails.
+     */
+    public <E extends Exception> Path put(final int problemId, final int packageId, final int revision,
+                                          final String type, final Downloader<E> downloader) throws IOException, E {
+        Path archive = getArchive(problemId, packageId, revision, type);
+        String name = archive.getFileName().toString();
+        synchronized (downloadLocks.computeIfAbsent(problemId + "/" + name, k -> new Object())) {
+            Path stored = get(problemId, packageId, revision, type);
+            if (stored != null) {
+                return stored;
+            }
+
+            Path download = temporaryDirectory.resolve(problemId + "-" + name);
+            downloader.download(download);
+            Properties metadata = new Properties();
+            metadata.setProperty("problemId", String.valueOf(problemId));
+            metadata.setProperty("packageId", String.valueOf(packageId));
+            metadata.setProperty("revision", String.valueOf(revision));
+            metadata.setProperty("type", type);
+            metadata.setProperty("length", String.valueOf(Files.size(download)));
+            try (InputStream inputStream = Files.newInputStream(download)) {
+                metadata.setProperty("sha256", DigestUtils.sha256Hex(inputStream));
+            }
+
+            synchronized (this) {
+                Files.createDirectories(archive.getParent());
+                FileUtils.moveAtomically(download, archive);
+                metadata.setProperty("lastModified", String.valueOf(Files.getLastModifiedTime(archive).toMillis()));
+                FileUtils.writeProperties(getMetadataFile(archive), metadata);
+                evict(problemId, archive);
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Makes the stored archive available at the given path. A hard link is created if possible, otherwise the archive
+     * is copied. The target is replaced atomically.
+     *
+     * @param archive Path to the archive returned by {@link #get(int, int, int, String)} or
+     *                {@link #put(int, int, int, String, Downloader)}.
+     * @param target  Path to make the archive available at. It is replaced if it exists.
+     * @throws IOException if the archive cannot be linked or copied.
+     */
+    public void link(final Path archive, final Path target) throws IOException {
+        Path temporaryFile = FileUtils.createTemporaryFile(target);
+        try {
+            try {
+                Files.delete(temporaryFile);
+                Files.createLink(temporaryFile, archive);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(archive, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            FileUtils.moveAtomically(temporaryFile, target);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * @return Total size of stored archives in bytes.
+     * @throws IOException if the store directory cannot be read.
+     */
+    public synchronized long getTotalBytes() throws IOException {
+        return listArchives().stream().mapToLong(PackageStore::getSize).sum();
+    }
+
+    private void evict(final int problemId, final Path keep) throws IOException {
+        List<Path> archives = listArchives();
+
+        TreeSet<Integer> revisions = new TreeSet<>(Comparator.reverseOrder());
+        List<Path> problemArchives = archives.stream()
+                .filter(a -> a.getParent().getFileName().toString().equals(String.valueOf(problemId)))
+                .collect(Collectors.toList());
+        for (Path archive : problemArchives) {
+            revisions.add(getRevision(archive));
+        }
+        int oldestKeptRevision = revisions.stream().limit(keptRevisions).reduce((a, b) -> b).orElse(0);
+        for (Path archive : problemArchives) {
+            if (!archive.equals(keep) && getRevision(archive) < oldestKeptRevision) {
+                delete(archive);
+                archives.remove(archive);
+            }
+        }
+
+        long totalBytes = archives.stream().mapToLong(PackageStore::getSize).sum();
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        archives.sort(Comparator.comparing(a -> getLastModifiedTime(getMetadataFile(a))));
+        for (Path archive : archives) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (!archive.equals(keep)) {
+                totalBytes -= getSize(archive);
+                delete(archive);
+            }
+        }
+    }
+
+    private List<Path> listArchives() throws IOException {
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            return files.filter(f -> !f.startsWith(temporaryDirectory) && f.getFileName().toString().endsWith(".zip"))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path getArchive(final int problemId, final int packageId, final int revision, final String type) {
+        if (!TYPE_PATTERN.matcher(type).matches()) {
+            throw new IllegalArgumentException("Invalid package type: " + type);
+        }
+        return directory.resolve(String.valueOf(problemId)).resolve(packageId + "-" + revision + "-" + type + ".zip");
+    }
+
+    private static Path getMetadataFile(final Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ".properties");
+    }
+
+    private static int getRevision(final Path archive) {
+        String[] parts = archive.getFileName().toString().split("-");
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isIntact(final Path archive, final Properties metadata) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(archive, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        return String.valueOf(attributes.size()).equals(metadata.getProperty("length"))
+                && String.valueOf(lastModified).equals(metadata.getProperty("lastModified"));
+    }
+
+    private static void delete(final Path archive) throws IOException {
+        Files.deleteIfExists(getMetadataFile(archive));
+        Files.deleteIfExists(archive);
+    }
+
+    private static long getSize(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime getLastModifiedTime(final Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime();
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Downloads a package archive to the store.
+     *
+     * @param <E> Type of the exception thrown by the downloader.
+     */
+    @FunctionalInterface
+    public interface Downloader<E extends Exception> {
+        /**
+         * Downloads the archive.
+         *
+         * @param path Path to download the archive to. It may contain the beginning of an interrupted download of
+         *             the same package.
+         * @throws IOException if the archive cannot be written.
+         * @throws E           if the archive cannot be downloaded.
+         */
+        void download(Path path) throws IOException, E;
+    }
+}
@@ -0,0 +1,254 @@
+package ru.perveevm.polygon.api.cache;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of results of read-only API methods. An instance is thread-safe and can be shared by
+ * several sessions of the same user.
+ *
+ * <p>Results are grouped by problem. A session invalidates the results of a problem whenever it sends a write request
+ * for it, and when it sees in <code>problems.list</code> results that the revision or the modification flag of the
+ * problem has changed. Results that are not related to a problem, like <code>problems.list</code> itself, are stored
+ * under problem 0 and are invalidated by any write request. Changes made outside of the session are only noticed
+ * through <code>problems.list</code> or after <code>ttlMs</code>.
+ *
+ * <p>Results are keyed by the request, not by the problem revision. Instead, every result records the version of the
+ * cache when its request was sent, and every invalidation of a problem records a new version. A result is valid
+ * while its problem was not invalidated after its request was sent. Only the last <code>maxEntries</code>
+ * invalidations and revisions are remembered, which is enough for all problems that can have cached results. A
+ * forgotten invalidation still rejects results of the requests sent before it, and a problem whose revision is
+ * forgotten is invalidated.
+ *
+ * <p>The least recently used results are evicted when the cache has more than <code>maxEntries</code> results, or
+ * their total weight, which is roughly the length of their JSON, exceeds <code>maxWeight</code>.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ResponseCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlMs;
+
+    private final LinkedHashMap<List<String>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Integer, Long> invalidations = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Long> revisions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Integer> resultCounts = new HashMap<>();
+    private long currentVersion = 0;
+    private long forgottenInvalidation = 0;
+    private long weight = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Creates a {@link ResponseCache} that holds at most 1000 results with total weight of 16M and keeps them for one
+     * minute.
+     */
+    public ResponseCache() {
+        this(1000, 16L << 20, 60000L);
+    }
+
+    /**
+     * Creates a {@link ResponseCache}.
+     *
+     * @param maxEntries Maximal number of cached results.
+     * @param maxWeight  Maximal total weight of cached results, roughly the number of characters in their JSON.
+     * @param ttlMs      Time in milliseconds after which a result expires.
+     */
+    public ResponseCache(final int maxEntries, final long maxWeight, final long ttlMs) {
+        if (maxEntries < 1 || maxWeight < 1 || ttlMs < 0) {
+            throw new IllegalArgumentException("Cache size should be positive and TTL should be non-negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Returns the cached result of a request.
+     *
+     * @param problemId  ID of the problem the request is related to, or 0.
+     * @param requestKey Key that identifies the request.
+     * @return Cached result, or <code>null</code> if there is no valid result.
+     */
+    public synchronized JsonElement get(final int problemId, final List<String> requestKey) {
+        Entry entry = entries.get(requestKey);
+        if (entry != null && (entry.version < getInvalidation(problemId)
+                || entry.expiresAtMs < System.currentTimeMillis())) {
+            remove(requestKey);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.result;
+    }
+
+    /**
+     * Returns the current version of the cache. It must be taken before the request is sent and passed to
+     * {@link #put(int, List, JsonElement, long)}, so that a result that was received after an invalidation of the
+     * problem is not stored.
+     *
+     * @param problemId ID of the problem, or 0. The version is shared by all problems.
+     * @return Current version.
+     */
+    public synchronized long getVersion(final int problemId) {
+        return currentVersion;
+    }
+
+    /**
+     * Stores the result of a request if the results of the problem were not invalidated since the request was sent.
+     *
+     * @param problemId  ID of the problem the request is related to, or 0.
+     * @param requestKey Key that identifies the request.
+     * @param result     Result of the request. It must not be modified after it is stored.
+     * @param version    Version of the cache taken before the request was sent.
+     */
+    public synchronized void put(final int problemId, final List<String> requestKey, final JsonElement result,
+                                 final long version) {
+        if (version < getInvalidation(problemId)) {
+            return;
+        }
+        long resultWeight = requestKey.toString().length() + getWeight(result);
+        if (resultWeight > maxWeight) {
+            return;
+        }
+        remove(requestKey);
+        entries.put(requestKey, new Entry(problemId, result, version, resultWeight,
+                System.currentTimeMillis() + ttlMs));
+        weight += resultWeight;
+        resultCounts.merge(problemId, 1, Integer::sum);
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            forget(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Invalidates all cached results of a problem.
+     *
+     * @param problemId ID of the problem, or 0.
+     */
+    public synchronized void invalidate(final int problemId) {
+        // The invalidations are kept in the order they were made, so the forgotten ones only grow.
+        invalidations.remove(problemId);
+        invalidations.put(problemId, ++currentVersion);
+        if (invalidations.size() > maxEntries) {
+            Iterator<Long> iterator = invalidations.values().iterator();
+            forgottenInvalidation = iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Invalidates the cached results of a problem if its revision or modification flag has changed since the
+     * previous call.
+     *
+     * @param problemId ID of the problem.
+     * @param revision  Current revision of the problem.
+     * @param modified  Is <code>true</code> if the working copy of the problem has uncommitted changes.
+     */
+    public synchronized void updateRevision(final int problemId, final int revision, final boolean modified) {
+        long state = revision * 2L + (modified ? 1 : 0);
+        Long previous = revisions.put(problemId, state);
+        if (previous != null && previous != state) {
+            invalidate(problemId);
+        }
+        if (revisions.size() > maxEntries) {
+            Iterator<Integer> iterator = revisions.keySet().iterator();
+            int forgotten = iterator.next();
+            iterator.remove();
+            // The next change of its revision would not be noticed, which matters only if it has cached results.
+            if (resultCounts.containsKey(forgotten)) {
+                invalidate(forgotten);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        resultCounts.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return Number of requests that were answered from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Number of requests that were not found in the cache.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private long getInvalidation(final int problemId) {
+        return invalidations.getOrDefault(problemId, forgottenInvalidation);
+    }
+
+    private void remove(final List<String> requestKey) {
+        Entry entry = entries.remove(requestKey);
+        if (entry != null) {
+            forget(entry);
+        }
+    }
+
+    private void forget(final Entry entry) {
+        weight -= entry.weight;
+        resultCounts.computeIfPresent(entry.problemId, (problemId, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static long getWeight(final JsonElement element) {
+        if (element instanceof JsonPrimitive) {
+            return element.getAsString().length() + 2;
+        } else if (element instanceof JsonArray) {
+            long result = 2;
+            for (JsonElement child : (JsonArray) element) {
+                result += getWeight(child) + 1;
+            }
+            return result;
+        } else if (element instanceof JsonObject) {
+            long result = 2;
+            for (Map.Entry<String, JsonElement> child : ((JsonObject) element).entrySet()) {
+                result += child.getKey().length() + getWeight(child.getValue()) + 4;
+            }
+            return result;
+        }
+        return 4;
+    }
+
+    private static class Entry {
+        private final int problemId;
+        private final JsonElement result;
+        private final long version;
+        private final long weight;
+        private final long expiresAtMs;
+
+        private Entry(final int problemId, final JsonElement result, final long version, final long weight,
+                      final long expiresAtMs) {
+            this.problemId = problemId;
+            this.result = result;
+            this.version = version;
+            this.weight = weight;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
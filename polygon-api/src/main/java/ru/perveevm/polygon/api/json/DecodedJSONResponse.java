@@ -0,0 +1,40 @@
+package ru.perveevm.polygon.api.json;
+
+/**
+ * Represents a JSON response whose result is decoded to a Java object by {@link JSONResponseDecoder}.
+ *
+ * @param <T> Type of the result.
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class DecodedJSONResponse<T> {
+    private final JSONResponseStatus status;
+    private final String comment;
+    private final T result;
+
+    DecodedJSONResponse(final JSONResponseStatus status, final String comment, final T result) {
+        this.status = status;
+        this.comment = comment;
+        this.result = result;
+    }
+
+    /**
+     * @return Response status — either OK or FAILED.
+     */
+    public JSONResponseStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Server comment if status is FAILED or <code>null</code> otherwise.
+     */
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * @return Decoded result if status is OK or <code>null</code> otherwise.
+     */
+    public T getResult() {
+        return result;
+    }
+}
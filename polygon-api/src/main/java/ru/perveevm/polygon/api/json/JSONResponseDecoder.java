@@ -0,0 +1,117 @@
+package ru.perveevm.polygon.api.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * Decodes API responses in one pass. The envelope is read with a streaming {@link JsonReader}, and the
+ * <code>result</code> field is decoded directly to the target type, so the response is not materialized as a
+ * {@link JsonElement} tree first. The result of a FAILED response is skipped. Polygon sends the status before the
+ * result, and only a result that comes first is buffered as a tree until the status is known.
+ *
+ * <p>The body must be a single strict JSON object with a status, so a truncated or concatenated body is rejected
+ * instead of being decoded partially.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class JSONResponseDecoder {
+    private final Gson gson;
+    private final TypeAdapter<JSONResponseStatus> statusAdapter;
+    private final TypeAdapter<JsonElement> treeAdapter;
+
+    /**
+     * Creates a decoder that uses the type adapters of the given {@link Gson} instance.
+     *
+     * @param gson {@link Gson} instance.
+     */
+    public JSONResponseDecoder(final Gson gson) {
+        this.gson = gson;
+        this.statusAdapter = gson.getAdapter(JSONResponseStatus.class);
+        this.treeAdapter = gson.getAdapter(JsonElement.class);
+    }
+
+    /**
+     * Decodes a response. The reader is not closed.
+     *
+     * @param reader Response body.
+     * @param type   Type of the result.
+     * @param <T>    Type of the result.
+     * @return Decoded response.
+     * @throws JsonSyntaxException if the body is not a valid JSON response, has no status or has data after the
+     *                             response object.
+     * @throws JsonIOException     if the body cannot be read.
+     */
+    public <T> DecodedJSONResponse<T> decode(final Reader reader, final Type type) {
+        @SuppressWarnings("unchecked")
+        TypeAdapter<T> resultAdapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(type));
+        JsonReader jsonReader = gson.newJsonReader(reader);
+        jsonReader.setLenient(false);
+
+        JSONResponseStatus status = null;
+        String comment = null;
+        T result = null;
+        JsonElement bufferedResult = null;
+        try {
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                switch (jsonReader.nextName()) {
+                    case "status":
+                        status = statusAdapter.read(jsonReader);
+                        break;
+                    case "comment":
+                        comment = readNullableString(jsonReader);
+                        break;
+                    case "result":
+                        if (status == null) {
+                            bufferedResult = treeAdapter.read(jsonReader);
+                        } else if (status == JSONResponseStatus.FAILED) {
+                            jsonReader.skipValue();
+                        } else {
+                            result = resultAdapter.read(jsonReader);
+                        }
+                        break;
+                    default:
+                        jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected data after the response at " + jsonReader.getPath());
+            }
+            if (status == null) {
+                throw new JsonSyntaxException("Response has no status");
+            }
+            if (status == JSONResponseStatus.FAILED) {
+                return new DecodedJSONResponse<>(status, comment, null);
+            }
+            if (bufferedResult != null) {
+                result = resultAdapter.fromJsonTree(bufferedResult);
+            }
+        } catch (EOFException | MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return new DecodedJSONResponse<>(status, comment, result);
+    }
+
+    private static String readNullableString(final JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return jsonReader.nextString();
+    }
+}
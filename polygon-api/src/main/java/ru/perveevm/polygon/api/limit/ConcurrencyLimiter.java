@@ -0,0 +1,284 @@
+package ru.perveevm.polygon.api.limit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive limit of API requests that are in flight at the same time. An instance is thread-safe and can be shared by
+ * several sessions, for example, by all sessions of the same API key.
+ *
+ * <p>The limit is adjusted using AIMD with a latency signal. While the smoothed latency of a method stays within
+ * <code>latencyTolerance</code> times its lowest recently observed latency, the limit grows by one per
+ * <code>limit</code> successful requests, that is, roughly by one per round trip. When Polygon responds with HTTP
+ * code 429 or 5xx, the connection fails, or the latency exceeds the tolerance, the limit is multiplied by
+ * <code>backoffRatio</code>, at most once per round trip. So bulk jobs converge on the highest concurrency that
+ * Polygon sustains without queueing or throttling.
+ *
+ * <p>Callers that exceed the limit wait in the order of arrival.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class ConcurrencyLimiter {
+    private static final int LATENCY_WINDOW = 100;
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double latencyTolerance = 2.0;
+    private double backoffRatio = 0.75;
+
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+    private final Map<String, LatencyStats> latencies = new HashMap<>();
+    private double limit;
+    private int inFlight = 0;
+    private long lastDecreaseNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    /**
+     * Creates a {@link ConcurrencyLimiter} that starts with 4 requests in flight and adjusts the limit between 1 and
+     * 64.
+     */
+    public ConcurrencyLimiter() {
+        this(4, 1, 64);
+    }
+
+    /**
+     * Creates a {@link ConcurrencyLimiter}.
+     *
+     * @param initialLimit Initial number of requests in flight.
+     * @param minLimit     Minimal number of requests in flight.
+     * @param maxLimit     Maximal number of requests in flight.
+     */
+    public ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits should satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Sets how many times the latency of a method may exceed its lowest recent latency before the limit is
+     * decreased. The default value is 2.0.
+     *
+     * @param latencyTolerance Latency tolerance, greater than 1.
+     * @return This limiter.
+     */
+    public ConcurrencyLimiter withLatencyTolerance(final double latencyTolerance) {
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("Latency tolerance should be greater than 1");
+        }
+        this.latencyTolerance = latencyTolerance;
+        return this;
+    }
+
+    /**
+     * Sets the coefficient by which the limit is multiplied on overload. The default value is 0.75.
+     *
+     * @param backoffRatio Backoff ratio, from 0 to 1.
+     * @return This limiter.
+     */
+    public ConcurrencyLimiter withBackoffRatio(final double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio should be between 0 and 1");
+        }
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * @return Current limit of requests in flight.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns a future that completes with a permit when a request of the given method can be sent. The future
+     * completes on the thread that released the previous permit, so the caller should not block in dependent stages.
+     *
+     * @param methodName API method name.
+     * @return {@link CompletableFuture} with {@link Permit} that must be released when the request is done.
+     */
+    public CompletableFuture<Permit> acquireAsync(final String methodName) {
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(methodName));
+            }
+            Waiter waiter = new Waiter(methodName);
+            waiters.add(waiter);
+            return waiter.permit;
+        }
+    }
+
+    /**
+     * Waits until a request of the given method can be sent.
+     *
+     * @param methodName API method name.
+     * @return {@link Permit} that must be released when the request is done.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public Permit acquire(final String methodName) throws InterruptedException {
+        CompletableFuture<Permit> permit = acquireAsync(methodName);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                permit.join().onIgnored();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void release(final String methodName, final long latencyNanos, final Outcome outcome) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            int used = inFlight--;
+            if (outcome == Outcome.SUCCESS) {
+                LatencyStats stats = latencies.computeIfAbsent(methodName, m -> new LatencyStats());
+                stats.add(latencyNanos);
+                if (stats.averageNanos > stats.minNanos * latencyTolerance) {
+                    decrease(latencyNanos);
+                } else if (used * 2 >= limit) {
+                    // The limit is only increased while it is actually used, otherwise it would grow without bound.
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            } else if (outcome == Outcome.DROPPED) {
+                decrease(latencyNanos);
+            }
+
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                Waiter waiter = waiters.remove();
+                if (!waiter.permit.isDone()) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+
+        for (Waiter waiter : granted) {
+            // The permit of a waiter that was cancelled concurrently is returned immediately.
+            Permit permit = new Permit(waiter.methodName);
+            if (!waiter.permit.complete(permit)) {
+                permit.onIgnored();
+            }
+        }
+    }
+
+    private void decrease(final long latencyNanos) {
+        // Requests that were sent before the previous decrease report the same overload, so they are skipped.
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos >= latencyNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            lastDecreaseNanos = now;
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+
+    private static class Waiter {
+        private final String methodName;
+        private final CompletableFuture<Permit> permit = new CompletableFuture<>();
+
+        private Waiter(final String methodName) {
+            this.methodName = methodName;
+        }
+    }
+
+    /**
+     * Smoothed latency of a method, and its lowest latency, recomputed every {@value #LATENCY_WINDOW} requests, so
+     * that it follows lasting changes of Polygon performance.
+     */
+    private static class LatencyStats {
+        private double averageNanos = 0;
+        private long minNanos = Long.MAX_VALUE;
+        private long windowMinNanos = Long.MAX_VALUE;
+        private int samples = 0;
+
+        private void add(final long latencyNanos) {
+            averageNanos = minNanos == Long.MAX_VALUE ? latencyNanos
+                    : averageNanos + (latencyNanos - averageNanos) * LATENCY_SMOOTHING;
+            minNanos = Math.min(minNanos, latencyNanos);
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+            if (++samples == LATENCY_WINDOW) {
+                minNanos = windowMinNanos;
+                windowMinNanos = Long.MAX_VALUE;
+                samples = 0;
+            }
+        }
+    }
+
+    /**
+     * Permission to send one request. Exactly one of the release methods must be called when the request is done,
+     * the following calls are ignored.
+     */
+    public class Permit {
+        private final String methodName;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long latencyNanos = -1;
+
+        private Permit(final String methodName) {
+            this.methodName = methodName;
+        }
+
+        /**
+         * Records the latency of the request when the headers of its response arrive. The permit may be held until
+         * the caller reads the whole response body, and the transfer time depends on the size of the body and on
+         * the caller rather than on Polygon load. If it is not called, the latency is measured on release.
+         */
+        public void onResponseStarted() {
+            if (latencyNanos < 0) {
+                latencyNanos = System.nanoTime() - startNanos;
+            }
+        }
+
+        /**
+         * Releases the permit of a request that Polygon processed. Its latency is used to adjust the limit.
+         */
+        public void onSuccess() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * Releases the permit of a request that was rejected because Polygon is overloaded or unavailable.
+         */
+        public void onDropped() {
+            release(Outcome.DROPPED);
+        }
+
+        /**
+         * Releases the permit of a request that says nothing about Polygon load, for example, if it was not sent.
+         */
+        public void onIgnored() {
+            release(Outcome.IGNORED);
+        }
+
+        private void release(final Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                long latency = latencyNanos;
+                ConcurrencyLimiter.this.release(methodName, latency < 0 ? System.nanoTime() - startNanos : latency,
+                        outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.perveevm.polygon.api.limit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter for API requests. The bucket is refilled with <code>requestsPerSecond</code> tokens per
+ * second and holds at most <code>burst</code> tokens, every request takes tokens according to the weight of its
+ * method (1 by default). An instance is thread-safe and can be shared by several sessions, for example, by all
+ * sessions of the same API key, see {@link RateLimiterRegistry}.
+ *
+ * <p>Callers are served in the order of arrival: every caller reserves its tokens immediately, going into debt if
+ * there are not enough of them, and waits until the debt is repaid. So a caller that came later never overtakes
+ * an earlier one, and waiting callers do not compete for tokens.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class RateLimiter {
+    private final double requestsPerSecond;
+    private final int burst;
+    private final double tokensPerNano;
+    private final Map<String, Integer> methodWeights = new ConcurrentHashMap<>();
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * Creates a {@link RateLimiter} with a full bucket.
+     *
+     * @param requestsPerSecond Sustained rate of requests.
+     * @param burst             Number of requests that can be done at once after a pause.
+     */
+    public RateLimiter(final double requestsPerSecond, final int burst) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate should be positive and burst should be at least 1");
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+    }
+
+    /**
+     * @return Sustained rate of requests.
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @return Number of requests that can be done at once after a pause.
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Sets the number of tokens taken by requests of the given method, for example, for heavy methods like
+     * <code>problem.buildPackage</code> and <code>problem.package</code>.
+     *
+     * @param methodName API method name.
+     * @param weight     Number of tokens.
+     * @return This limiter.
+     */
+    public RateLimiter withMethodWeight(final String methodName, final int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight should be non-negative");
+        }
+        methodWeights.put(methodName, weight);
+        return this;
+    }
+
+    /**
+     * Reserves tokens for a request and returns the time the caller must wait before sending it. The tokens are
+     * taken even if the caller does not wait.
+     *
+     * @param methodName API method name.
+     * @return Time to wait in nanoseconds, 0 if the request can be sent immediately.
+     */
+    public long reserve(final String methodName) {
+        int weight = methodWeights.getOrDefault(methodName, 1);
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+            tokens -= weight;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+        }
+    }
+
+    /**
+     * Waits until a request of the given method can be sent.
+     *
+     * @param methodName API method name.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public void acquire(final String methodName) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(reserve(methodName));
+    }
+}
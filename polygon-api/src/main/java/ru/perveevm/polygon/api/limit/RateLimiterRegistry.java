@@ -0,0 +1,45 @@
+package ru.perveevm.polygon.api.limit;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link RateLimiter} instances shared by sessions with the same API key. Sessions share a limiter only if
+ * they are built with the same registry, so an application decides which sessions compete for the same quota, and
+ * the limiters are released together with the registry.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class RateLimiterRegistry {
+    private final Map<String, RateLimiter> limitersByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the limiter of the given API key, creating it on the first call for the key.
+     *
+     * @param key               API key.
+     * @param requestsPerSecond Sustained rate of requests.
+     * @param burst             Number of requests that can be done at once after a pause.
+     * @return Shared {@link RateLimiter} instance.
+     * @throws IllegalArgumentException if the limiter of the key was created with a different rate or burst.
+     */
+    public RateLimiter forApiKey(@NonNull final String key, final double requestsPerSecond, final int burst) {
+        RateLimiter rateLimiter = limitersByKey.computeIfAbsent(key, k -> new RateLimiter(requestsPerSecond, burst));
+        if (rateLimiter.getRequestsPerSecond() != requestsPerSecond || rateLimiter.getBurst() != burst) {
+            throw new IllegalArgumentException(String.format("Rate limiter of the API key is already configured "
+                            + "with %s requests per second and burst %d, but %s and %d are given",
+                    rateLimiter.getRequestsPerSecond(), rateLimiter.getBurst(), requestsPerSecond, burst));
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * Forgets the limiter of the given API key. Sessions that already use it keep it.
+     *
+     * @param key API key.
+     */
+    public void remove(@NonNull final String key) {
+        limitersByKey.remove(key);
+    }
+}
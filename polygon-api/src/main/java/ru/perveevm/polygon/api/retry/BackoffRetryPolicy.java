@@ -0,0 +1,213 @@
+package ru.perveevm.polygon.api.retry;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy with exponential backoff and jitter. The policy is configured using <code>with*</code> methods
+ * before it is passed to a session, and must not be modified after that.
+ *
+ * <p>Requests are retried if the connection cannot be established, if Polygon responds with a body that is not a
+ * JSON response, and if Polygon responds with one of retryable HTTP codes, which are 429 and all 5xx codes by
+ * default. HTTP 429 and 503 mean that the request was rejected before it was processed, so every request is retried
+ * after them. Other retryable codes, such as 500 and 502, and other I/O errors leave it unknown whether the request
+ * was processed, so only idempotent requests are retried after them, unless
+ * {@link #withRetryNonIdempotent(boolean)} is set.
+ *
+ * <p>{@link ru.perveevm.polygon.api.PolygonSession} sleeps on the calling thread between retries, only
+ * {@link ru.perveevm.polygon.api.AsyncPolygonSession} waits without holding a thread.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class BackoffRetryPolicy implements RetryPolicy {
+    private long startWaitMs = 100L;
+    private long maxWaitMs = 10000L;
+    private long maxTotalWaitMs = 60000L;
+    private double waitCoefficient = 2.0;
+    private int maxRetries = 5;
+    private Jitter jitter = Jitter.FULL;
+    private Set<Integer> retryableStatusCodes = null;
+    private boolean retryNonIdempotent = false;
+    private RetryBudget budget = null;
+
+    /**
+     * Sets the base delay. Without jitter it is the delay before the first retry. The default value is 100ms.
+     *
+     * @param startWaitMs Base delay in milliseconds.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withStartWaitMs(final long startWaitMs) {
+        this.startWaitMs = startWaitMs;
+        return this;
+    }
+
+    /**
+     * Sets the maximal delay before one retry. The default value is 10s.
+     *
+     * @param maxWaitMs Maximal delay in milliseconds.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withMaxWaitMs(final long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+        return this;
+    }
+
+    /**
+     * Sets the maximal total delay before all retries of a request. The default value is 60s.
+     *
+     * @param maxTotalWaitMs Maximal total delay in milliseconds.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withMaxTotalWaitMs(final long maxTotalWaitMs) {
+        this.maxTotalWaitMs = maxTotalWaitMs;
+        return this;
+    }
+
+    /**
+     * Sets the coefficient by which the delay is multiplied after every retry. The default value is 2.0. It is not
+     * used by {@link Jitter#DECORRELATED}.
+     *
+     * @param waitCoefficient Delay coefficient.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withWaitCoefficient(final double waitCoefficient) {
+        this.waitCoefficient = waitCoefficient;
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of retries of a request. The default value is 5.
+     *
+     * @param maxRetries Maximal number of retries.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Sets the way the delay is randomized. The default value is {@link Jitter#FULL}.
+     *
+     * @param jitter Jitter type.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withJitter(final Jitter jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Sets HTTP codes for which requests are retried. By default, requests are retried for 429 and all 5xx codes.
+     *
+     * @param retryableStatusCodes Retryable HTTP codes.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withRetryableStatusCodes(final Integer... retryableStatusCodes) {
+        this.retryableStatusCodes = Set.of(retryableStatusCodes);
+        return this;
+    }
+
+    /**
+     * Allows retrying non-idempotent requests, for example, <code>problem.create</code>, after failures that may
+     * happen after the request was processed. The default value is <code>false</code>.
+     *
+     * @param retryNonIdempotent If <code>true</code>, non-idempotent requests are retried as well.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withRetryNonIdempotent(final boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }
+
+    /**
+     * Sets the retry budget. By default, the number of retries is not limited by budget.
+     *
+     * @param budget {@link RetryBudget} instance, can be shared by several policies.
+     * @return This policy.
+     */
+    public BackoffRetryPolicy withBudget(final RetryBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    @Override
+    public void onRequest(final String methodName) {
+        if (budget != null) {
+            budget.deposit();
+        }
+    }
+
+    @Override
+    public long getRetryDelayMs(final RetryContext context) {
+        if (context.getFailedAttempts() > maxRetries || !isRetryable(context)) {
+            return NO_RETRY;
+        }
+
+        long remainingWaitMs = maxTotalWaitMs - context.getTotalDelayMs();
+        if (remainingWaitMs <= 0 || budget != null && !budget.tryWithdraw()) {
+            return NO_RETRY;
+        }
+        return Math.min(getDelayMs(context), remainingWaitMs);
+    }
+
+    private boolean isRetryable(final RetryContext context) {
+        boolean mayRepeat = context.isIdempotent() || retryNonIdempotent;
+        switch (context.getFailureKind()) {
+            case CONNECT_ERROR:
+            case BAD_RESPONSE:
+                return true;
+            case IO_ERROR:
+                return mayRepeat;
+            case HTTP_STATUS:
+                int statusCode = context.getStatusCode();
+                // 429 and 503 mean that the request was rejected before it was processed.
+                return isRetryableStatusCode(statusCode) && (mayRepeat || statusCode == 429 || statusCode == 503);
+            default:
+                return false;
+        }
+    }
+
+    private boolean isRetryableStatusCode(final int statusCode) {
+        return retryableStatusCodes == null ? statusCode == 429 || statusCode >= 500
+                : retryableStatusCodes.contains(statusCode);
+    }
+
+    private long getDelayMs(final RetryContext context) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (jitter) {
+            case DECORRELATED:
+                long upper = Math.max(startWaitMs, context.getPreviousDelayMs() * 3);
+                return Math.min(maxWaitMs, startWaitMs + (long) (random.nextDouble() * (upper - startWaitMs)));
+            case FULL:
+                return (long) (random.nextDouble() * getExponentialDelayMs(context));
+            case NONE:
+            default:
+                return getExponentialDelayMs(context);
+        }
+    }
+
+    private long getExponentialDelayMs(final RetryContext context) {
+        double delay = startWaitMs * Math.pow(waitCoefficient, context.getFailedAttempts() - 1);
+        return (long) Math.min(maxWaitMs, delay);
+    }
+
+    /**
+     * Represents the way the delay before a retry is randomized.
+     */
+    public enum Jitter {
+        /**
+         * Delay is <code>startWaitMs * waitCoefficient^(attempt - 1)</code>, limited by <code>maxWaitMs</code>.
+         */
+        NONE,
+        /**
+         * Delay is chosen uniformly between 0 and the delay without jitter.
+         */
+        FULL,
+        /**
+         * Delay is chosen uniformly between <code>startWaitMs</code> and three times the previous delay, limited by
+         * <code>maxWaitMs</code>.
+         */
+        DECORRELATED
+    }
+}
@@ -0,0 +1,25 @@
+package ru.perveevm.polygon.api.retry;
+
+/**
+ * Represents the kind of failure of an API request attempt.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public enum FailureKind {
+    /**
+     * Connection to Polygon could not be established, so the request was not sent.
+     */
+    CONNECT_ERROR,
+    /**
+     * Request failed with I/O error after the connection was established. The request may have been processed.
+     */
+    IO_ERROR,
+    /**
+     * Polygon responded with HTTP code that indicates an error of the server or a gateway, or too many requests.
+     */
+    HTTP_STATUS,
+    /**
+     * Polygon responded with a body that is not a valid JSON response, for example, a maintenance page.
+     */
+    BAD_RESPONSE
+}
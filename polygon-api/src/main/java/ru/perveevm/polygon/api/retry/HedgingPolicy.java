@@ -0,0 +1,184 @@
+package ru.perveevm.polygon.api.retry;
+
+import ru.perveevm.polygon.api.PolygonSession;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hedging policy for read-only API methods. If a request of a hedged method is not answered within a delay, the
+ * session sends the same request once more and uses the response that comes first, the other request is cancelled.
+ * This cuts the tail latency caused by single slow requests. The policy is configured using <code>with*</code>
+ * methods before it is passed to a session, and must not be modified after that.
+ *
+ * <p>By default, the delay is the 95th percentile of the recent latency of the method, so about 5% of requests are
+ * hedged. Requests are not hedged until {@value #MIN_SAMPLES} latencies of the method are observed. The extra load is
+ * additionally limited by a {@link RetryBudget} that allows 10% of extra requests by default.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class HedgingPolicy {
+    /**
+     * Is returned by {@link #getHedgeDelayMs(String)} if the request must not be hedged.
+     */
+    public static final long NO_HEDGE = -1;
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int MAX_SAMPLES = 128;
+
+    private final Map<String, LatencySamples> latencies = new ConcurrentHashMap<>();
+    private Set<String> methods = null;
+    private double percentile = 0.95;
+    private long fixedDelayMs = NO_HEDGE;
+    private long minDelayMs = 10L;
+    private RetryBudget budget = new RetryBudget(0.1, 10);
+
+    /**
+     * Sets the methods whose requests are hedged. By default, all read-only methods are hedged, see
+     * {@link PolygonSession#isReadOnly(String)}. Methods that modify something are never hedged, even if they are
+     * given here.
+     *
+     * @param methods API method names.
+     * @return This policy.
+     */
+    public HedgingPolicy withMethods(final String... methods) {
+        this.methods = Set.of(methods);
+        return this;
+    }
+
+    /**
+     * Sets the percentile of the recent latency of a method that is used as the delay before the hedged request.
+     * The default value is 0.95.
+     *
+     * @param percentile Latency percentile, from 0 to 1.
+     * @return This policy.
+     */
+    public HedgingPolicy withPercentile(final double percentile) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile should be from 0 to 1");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Sets the fixed delay before the hedged request, which is used instead of the latency percentile.
+     *
+     * @param fixedDelayMs Delay in milliseconds.
+     * @return This policy.
+     */
+    public HedgingPolicy withFixedDelayMs(final long fixedDelayMs) {
+        this.fixedDelayMs = fixedDelayMs;
+        return this;
+    }
+
+    /**
+     * Sets the minimal delay before the hedged request. The default value is 10ms.
+     *
+     * @param minDelayMs Minimal delay in milliseconds.
+     * @return This policy.
+     */
+    public HedgingPolicy withMinDelayMs(final long minDelayMs) {
+        this.minDelayMs = minDelayMs;
+        return this;
+    }
+
+    /**
+     * Sets the budget that limits the share of hedged requests. The default value allows 10% of extra requests.
+     *
+     * @param budget {@link RetryBudget} instance, can be shared by several policies.
+     * @return This policy.
+     */
+    public HedgingPolicy withBudget(final RetryBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Is called once for every request, before it is sent.
+     *
+     * @param methodName API method name.
+     */
+    public void onRequest(final String methodName) {
+        if (isHedged(methodName)) {
+            budget.deposit();
+        }
+    }
+
+    /**
+     * @param methodName API method name.
+     * @return Is <code>true</code> if requests of the method are hedged.
+     */
+    public boolean isHedged(final String methodName) {
+        return PolygonSession.isReadOnly(methodName) && (methods == null || methods.contains(methodName));
+    }
+
+    /**
+     * Returns the delay after which a request of the given method is hedged.
+     *
+     * @param methodName API method name.
+     * @return Delay in milliseconds, or {@link #NO_HEDGE} if requests of the method are not hedged.
+     */
+    public long getHedgeDelayMs(final String methodName) {
+        if (!isHedged(methodName)) {
+            return NO_HEDGE;
+        }
+        if (fixedDelayMs != NO_HEDGE) {
+            return Math.max(minDelayMs, fixedDelayMs);
+        }
+        LatencySamples samples = latencies.get(methodName);
+        long delayNanos = samples == null ? NO_HEDGE : samples.getPercentile(percentile);
+        return delayNanos == NO_HEDGE ? NO_HEDGE : Math.max(minDelayMs, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+    }
+
+    /**
+     * Takes a token from the budget for a hedged request if there is one.
+     *
+     * @return Is <code>true</code> if the hedged request can be sent.
+     */
+    public boolean tryHedge() {
+        return budget.tryWithdraw();
+    }
+
+    /**
+     * Records the latency of a successful request.
+     *
+     * @param methodName   API method name.
+     * @param latencyNanos Latency in nanoseconds.
+     */
+    public void recordLatency(final String methodName, final long latencyNanos) {
+        if (isHedged(methodName)) {
+            latencies.computeIfAbsent(methodName, m -> new LatencySamples()).add(latencyNanos);
+        }
+    }
+
+    /**
+     * Last {@value #MAX_SAMPLES} latencies of a method.
+     */
+    private static class LatencySamples {
+        private final long[] samples = new long[MAX_SAMPLES];
+        private int count = 0;
+        private int next = 0;
+
+        private synchronized void add(final long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % MAX_SAMPLES;
+            count = Math.min(MAX_SAMPLES, count + 1);
+        }
+
+        private long getPercentile(final double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return NO_HEDGE;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
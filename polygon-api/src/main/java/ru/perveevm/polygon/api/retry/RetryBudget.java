@@ -0,0 +1,57 @@
+package ru.perveevm.polygon.api.retry;
+
+/**
+ * Limits the share of retries among all requests, so that retries do not multiply the load when Polygon is
+ * overloaded. Every request adds <code>retryRatio</code> tokens to the budget, every retry takes one token. The budget
+ * can hold at most <code>maxTokens</code> tokens and is full initially. The budget can be shared by several
+ * sessions.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class RetryBudget {
+    private final double retryRatio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * Creates a {@link RetryBudget}.
+     *
+     * @param retryRatio Number of retries allowed per request, for example, 0.1 allows 10% of retries.
+     * @param maxTokens  Maximal number of retries that can be done in a row when there are no new requests.
+     */
+    public RetryBudget(final double retryRatio, final int maxTokens) {
+        if (retryRatio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("Retry ratio and max tokens should be non-negative");
+        }
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * Adds tokens for a new request.
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + retryRatio);
+    }
+
+    /**
+     * Takes a token for a retry if there is one.
+     *
+     * @return Is <code>true</code> if the retry is allowed.
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return Number of retries that can be done now.
+     */
+    public synchronized int getAvailableRetries() {
+        return (int) tokens;
+    }
+}
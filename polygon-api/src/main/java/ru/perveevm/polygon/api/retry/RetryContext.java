@@ -0,0 +1,99 @@
+package ru.perveevm.polygon.api.retry;
+
+/**
+ * Information about a failed attempt of an API request that is passed to {@link RetryPolicy}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public final class RetryContext {
+    private final String methodName;
+    private final boolean idempotent;
+    private final int failedAttempts;
+    private final long previousDelayMs;
+    private final long totalDelayMs;
+    private final FailureKind failureKind;
+    private final int statusCode;
+    private final Throwable cause;
+
+    /**
+     * Creates a {@link RetryContext}.
+     *
+     * @param methodName      API method name.
+     * @param idempotent      Is <code>true</code> if the request can be safely repeated.
+     * @param failedAttempts  Number of failed attempts including the last one.
+     * @param previousDelayMs Delay before the last attempt in milliseconds, 0 for the first attempt.
+     * @param totalDelayMs    Total time spent waiting before retries of this request in milliseconds.
+     * @param failureKind     Kind of the last failure.
+     * @param statusCode      HTTP code of the last response or 0 if there was no response.
+     * @param cause           Exception that caused the last failure.
+     */
+    public RetryContext(final String methodName, final boolean idempotent, final int failedAttempts,
+                        final long previousDelayMs, final long totalDelayMs, final FailureKind failureKind,
+                        final int statusCode, final Throwable cause) {
+        this.methodName = methodName;
+        this.idempotent = idempotent;
+        this.failedAttempts = failedAttempts;
+        this.previousDelayMs = previousDelayMs;
+        this.totalDelayMs = totalDelayMs;
+        this.failureKind = failureKind;
+        this.statusCode = statusCode;
+        this.cause = cause;
+    }
+
+    /**
+     * @return API method name, for example, <code>problem.info</code>.
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return Is <code>true</code> if repeating the request does not change the result, for example, for read
+     * methods and for saves that overwrite existing data.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * @return Number of failed attempts including the last one.
+     */
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * @return Delay before the last attempt in milliseconds, 0 if the last attempt was the first one.
+     */
+    public long getPreviousDelayMs() {
+        return previousDelayMs;
+    }
+
+    /**
+     * @return Total time spent waiting before retries of this request in milliseconds.
+     */
+    public long getTotalDelayMs() {
+        return totalDelayMs;
+    }
+
+    /**
+     * @return Kind of the last failure.
+     */
+    public FailureKind getFailureKind() {
+        return failureKind;
+    }
+
+    /**
+     * @return HTTP code of the last response or 0 if there was no response.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Exception that caused the last failure.
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.perveevm.polygon.api.retry;
+
+/**
+ * Decides whether a failed API request should be retried and how long to wait before the retry. Implementations
+ * must be thread-safe, one instance is shared by all requests of a session.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+    /**
+     * Is returned by {@link #getRetryDelayMs(RetryContext)} if the request should not be retried.
+     */
+    long NO_RETRY = -1;
+
+    /**
+     * Returns the time to wait before the next attempt of the failed request.
+     *
+     * @param context Information about the request and its last failure.
+     * @return Delay in milliseconds or {@link #NO_RETRY} if the request should not be retried.
+     */
+    long getRetryDelayMs(RetryContext context);
+
+    /**
+     * Is called once before the first attempt of every request. Can be used to track the retry budget.
+     *
+     * @param methodName API method name, for example, <code>problem.info</code>.
+     */
+    default void onRequest(final String methodName) {
+    }
+
+    /**
+     * @return Policy that never retries requests.
+     */
+    static RetryPolicy never() {
+        return context -> NO_RETRY;
+    }
+}
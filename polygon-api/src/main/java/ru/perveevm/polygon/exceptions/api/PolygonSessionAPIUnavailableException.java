@@ -9,4 +9,8 @@ public class PolygonSessionAPIUnavailableException extends PolygonSessionExcepti
     public PolygonSessionAPIUnavailableException() {
         super("Polygon API is unavailable now, retry the request later");
     }
+
+    public PolygonSessionAPIUnavailableException(final Throwable cause) {
+        super("Polygon API is unavailable now, retry the request later", cause);
+    }
 }
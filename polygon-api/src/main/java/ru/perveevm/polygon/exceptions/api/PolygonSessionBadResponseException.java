@@ -10,6 +10,8 @@ import java.util.List;
  * @author Mike Perveev (perveev_m@mail.ru)
  */
 public class PolygonSessionBadResponseException extends PolygonSessionException {
+    private final int responseCode;
+
     /**
      * Creates a {@link PolygonSessionBadResponseException} using request URL, parameters and response HTTP code.
      *
@@ -20,6 +22,7 @@ public class PolygonSessionBadResponseException extends PolygonSessionException
     public PolygonSessionBadResponseException(final String url, final List<NameValuePair> parameters,
                                               final int responseCode) {
         super(getMessage(url, parameters) + String.format(", response code is %d", responseCode));
+        this.responseCode = responseCode;
     }
 
     /**
@@ -35,6 +38,7 @@ public class PolygonSessionBadResponseException extends PolygonSessionException
                                               final int responseCode,
                                               final Throwable cause) {
         super(getMessage(url, parameters) + String.format(", response code is %d", responseCode), cause);
+        this.responseCode = responseCode;
     }
 
     /**
@@ -45,6 +49,7 @@ public class PolygonSessionBadResponseException extends PolygonSessionException
      */
     public PolygonSessionBadResponseException(final String url, final List<NameValuePair> parameters) {
         super(getMessage(url, parameters) + ", cannot parse response");
+        this.responseCode = 0;
     }
 
     /**
@@ -57,5 +62,13 @@ public class PolygonSessionBadResponseException extends PolygonSessionException
     public PolygonSessionBadResponseException(final String url, final List<NameValuePair> parameters,
                                               final Throwable cause) {
         super(getMessage(url, parameters) + ", cannot parse response", cause);
+        this.responseCode = 0;
+    }
+
+    /**
+     * @return Response HTTP code or 0 if it is unknown.
+     */
+    public int getResponseCode() {
+        return responseCode;
     }
 }
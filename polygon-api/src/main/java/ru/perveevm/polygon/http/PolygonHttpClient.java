@@ -0,0 +1,206 @@
+package ru.perveevm.polygon.http;
+
+import lombok.NonNull;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionFailedRequestException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionHTTPErrorException;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class contains three methods for downloading problem package, problem descriptor and contest descriptor
+ * from Polygon. All methods do not use Polygon API but use login based authorization.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class PolygonHttpClient implements Closeable {
+    private final String login;
+    private final String password;
+
+    private CloseableHttpClient client;
+    private String baseUrl = "https://polygon.codeforces.com/";
+
+    PolygonHttpClient(final String login, final String password) {
+        this.login = login;
+        this.password = password;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    void setClient(final CloseableHttpClient client) {
+        this.client = client;
+    }
+
+    void setBaseUrl(final String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public void downloadProblemPackage(@NonNull final String problemUrl, final Integer revision, final String type,
+                                       final String pin, @NonNull final File downloadPath)
+            throws PolygonSessionException {
+        downloadProblemPackage(problemUrl, revision, type, pin, downloadPath, false);
+    }
+
+    /**
+     * Downloads problem package. If <code>resume</code> is <code>true</code>, the archive is downloaded to
+     * <code>downloadPath.part</code> first, and a download that was interrupted is continued from the place where
+     * it stopped using HTTP <code>Range</code> request.
+     *
+     * @param problemUrl   Problem URL.
+     * @param revision     Problem revision. Can be <code>null</code>.
+     * @param type         Package type. Can be <code>null</code>.
+     * @param pin          Problem pin. Can be <code>null</code>.
+     * @param downloadPath Download file descriptor.
+     * @param resume       If <code>true</code>, an interrupted download will be continued.
+     * @throws PolygonSessionException if an error occurred while downloading the package.
+     */
+    public void downloadProblemPackage(@NonNull final String problemUrl, final Integer revision, final String type,
+                                       final String pin, @NonNull final File downloadPath, final boolean resume)
+            throws PolygonSessionException {
+        List<NameValuePair> parameters = getLoginPasswordParameters();
+        if (revision != null) {
+            parameters.add(new BasicNameValuePair("revision", String.valueOf(revision)));
+        }
+        if (type != null) {
+            parameters.add(new BasicNameValuePair("type", type));
+        }
+        if (pin != null) {
+            parameters.add(new BasicNameValuePair("pin", pin));
+        }
+
+        if (resume) {
+            String resourceId = String.format("%s?revision=%s&type=%s", problemUrl, revision, type);
+            HttpUtils.downloadFileResumable(problemUrl, resourceId,
+                    headers -> sendPackageRequest(problemUrl, parameters, headers), downloadPath);
+        } else {
+            HttpUtils.downloadFile(problemUrl, sendPackageRequest(problemUrl, parameters), downloadPath);
+        }
+    }
+
+    /**
+     * Downloads problem descriptor <code>problem.xml</code>. If the descriptor at <code>downloadPath</code> has not
+     * changed since the previous call, it is not transferred, see
+     * {@link #downloadProblemDescriptorIfModified(String, Integer, String, File)}.
+     *
+     * @param problemUrl   Problem URL.
+     * @param revision     Problem revision. Can be <code>null</code>.
+     * @param pin          Problem pin. Can be <code>null</code>.
+     * @param downloadPath Download file descriptor.
+     * @throws PolygonSessionException if an error occurred while downloading the descriptor.
+     */
+    public void downloadProblemDescriptor(@NonNull final String problemUrl, final Integer revision, final String pin,
+                                          @NonNull final File downloadPath) throws PolygonSessionException {
+        downloadProblemDescriptorIfModified(problemUrl, revision, pin, downloadPath);
+    }
+
+    /**
+     * Downloads problem descriptor <code>problem.xml</code>. The validators of the downloaded descriptor are stored
+     * in <code>downloadPath.validators.properties</code>, and if the descriptor at <code>downloadPath</code> has not
+     * changed since the previous call, it is not transferred and the file is left as is.
+     *
+     * @param problemUrl   Problem URL.
+     * @param revision     Problem revision. Can be <code>null</code>.
+     * @param pin          Problem pin. Can be <code>null</code>.
+     * @param downloadPath Download file descriptor.
+     * @return <code>true</code> if the descriptor was downloaded, <code>false</code> if it was not modified.
+     * @throws PolygonSessionException if an error occurred while downloading the descriptor.
+     */
+    public boolean downloadProblemDescriptorIfModified(@NonNull final String problemUrl, final Integer revision,
+                                                       final String pin, @NonNull final File downloadPath)
+            throws PolygonSessionException {
+        List<NameValuePair> parameters = getLoginPasswordParameters();
+        if (revision != null) {
+            parameters.add(new BasicNameValuePair("revision", String.valueOf(revision)));
+        }
+        if (pin != null) {
+            parameters.add(new BasicNameValuePair("pin", pin));
+        }
+
+        String url = problemUrl + "/problem.xml";
+        String resourceId = String.format("%s?revision=%s&pin=%s", url, revision, pin);
+        return HttpUtils.downloadFileConditional(url, resourceId,
+                headers -> sendDescriptorRequest(url, parameters, "Bad problem.xml URL", headers), downloadPath);
+    }
+
+    /**
+     * Downloads contest descriptor <code>contest.xml</code>. If the descriptor at <code>downloadPath</code> has not
+     * changed since the previous call, it is not transferred, see
+     * {@link #downloadContestDescriptorIfModified(String, String, File)}.
+     *
+     * @param contestUID   Contest UID.
+     * @param pin          Contest pin. Can be <code>null</code>.
+     * @param downloadPath Download file descriptor.
+     * @throws PolygonSessionException if an error occurred while downloading the descriptor.
+     */
+    public void downloadContestDescriptor(@NonNull final String contestUID, final String pin,
+                                          @NonNull final File downloadPath) throws PolygonSessionException {
+        downloadContestDescriptorIfModified(contestUID, pin, downloadPath);
+    }
+
+    /**
+     * Downloads contest descriptor <code>contest.xml</code>. The validators of the downloaded descriptor are stored
+     * in <code>downloadPath.validators.properties</code>, and if the descriptor at <code>downloadPath</code> has not
+     * changed since the previous call, it is not transferred and the file is left as is.
+     *
+     * @param contestUID   Contest UID.
+     * @param pin          Contest pin. Can be <code>null</code>.
+     * @param downloadPath Download file descriptor.
+     * @return <code>true</code> if the descriptor was downloaded, <code>false</code> if it was not modified.
+     * @throws PolygonSessionException if an error occurred while downloading the descriptor.
+     */
+    public boolean downloadContestDescriptorIfModified(@NonNull final String contestUID, final String pin,
+                                                       @NonNull final File downloadPath)
+            throws PolygonSessionException {
+        List<NameValuePair> parameters = getLoginPasswordParameters();
+        if (pin != null) {
+            parameters.add(new BasicNameValuePair("pin", pin));
+        }
+
+        String url = baseUrl + "/c/" + contestUID + "/contest.xml";
+        String resourceId = String.format("%s?pin=%s", url, pin);
+        return HttpUtils.downloadFileConditional(url, resourceId,
+                headers -> sendDescriptorRequest(url, parameters, "Bad contest.xml URL", headers), downloadPath);
+    }
+
+    private HttpResponse sendDescriptorRequest(final String url, final List<NameValuePair> parameters,
+                                               final String badUrlMessage, final Header... headers)
+            throws PolygonSessionException {
+        try {
+            return HttpUtils.sendGetRequest(client, url, parameters, headers);
+        } catch (IOException e) {
+            throw new PolygonSessionHTTPErrorException(url, parameters, e);
+        } catch (URISyntaxException e) {
+            throw new PolygonSessionFailedRequestException(url, parameters, badUrlMessage, e);
+        }
+    }
+
+    private HttpResponse sendPackageRequest(final String problemUrl, final List<NameValuePair> parameters,
+                                            final Header... headers) throws PolygonSessionException {
+        try {
+            return HttpUtils.sendGetRequest(client, problemUrl, parameters, headers);
+        } catch (IOException e) {
+            throw new PolygonSessionHTTPErrorException(problemUrl, parameters, e);
+        } catch (URISyntaxException e) {
+            throw new PolygonSessionFailedRequestException(problemUrl, parameters, "Bad problem URL", e);
+        }
+    }
+
+    private List<NameValuePair> getLoginPasswordParameters() {
+        List<NameValuePair> parameters = new ArrayList<>();
+        parameters.add(new BasicNameValuePair("login", login));
+        parameters.add(new BasicNameValuePair("password", password));
+        return parameters;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.perveevm.polygon.http;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import ru.perveevm.polygon.utils.HttpUtils;
+
+/**
+ * Builder that is used to configure {@link PolygonHttpClient} instance.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class PolygonHttpClientBuilder {
+    private PolygonHttpClient client;
+
+    private CloseableHttpClient httpClient = null;
+    private int maxConnections = 20;
+    private int maxConnectionsPerRoute = 20;
+    private long keepAliveMs = 30000L;
+    private long maxIdleMs = 60000L;
+    private int validateAfterInactivityMs = 2000;
+
+    private PolygonHttpClientBuilder(final String login, final String password) {
+        this.client = new PolygonHttpClient(login, password);
+    }
+
+    /**
+     * Sets login and password for access to Polygon.
+     *
+     * @param login    Polygon user login.
+     * @param password Polygon user password.
+     * @return {@link PolygonHttpClientBuilder} with configured login and password.
+     */
+    public static PolygonHttpClientBuilder withCredentials(final String login, final String password) {
+        return new PolygonHttpClientBuilder(login, password);
+    }
+
+    /**
+     * Builds {@link PolygonHttpClient} with default parameters.
+     *
+     * @param login    Polygon user login.
+     * @param password Polygon user password.
+     * @return Initialized {@link PolygonHttpClient} instance.
+     */
+    public static PolygonHttpClient defaultPolygonHttpClient(final String login, final String password) {
+        return withCredentials(login, password).build();
+    }
+
+    /**
+     * Builds {@link PolygonHttpClient} with parameters that were set before.
+     *
+     * @return Initialized {@link PolygonHttpClient} instance.
+     */
+    public PolygonHttpClient build() {
+        client.setClient(httpClient != null ? httpClient : HttpUtils.createPooledClient(maxConnections,
+                maxConnectionsPerRoute, keepAliveMs, maxIdleMs, validateAfterInactivityMs));
+        return client;
+    }
+
+    /**
+     * Sets the HTTP client that will be used to perform requests to the API. The default value is a pooled client
+     * created using {@link HttpUtils#createPooledClient(int, int, long, long, int)} with the pool parameters of this
+     * builder. If the client is set, all pool parameters are ignored.
+     *
+     * @param client The instance of {@link CloseableHttpClient} interface.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withClient(final CloseableHttpClient client) {
+        this.httpClient = client;
+        return this;
+    }
+
+    /**
+     * Sets the base URL to Polygon. The default value is
+     * <a href="https://polygon.codeforces.com/">https://polygon.codeforces.com/</a>.
+     *
+     * @param baseUrl The URL to Polygon.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withBaseUrl(final String baseUrl) {
+        this.client.setBaseUrl(baseUrl);
+        return this;
+    }
+
+    /**
+     * Sets the max total number of pooled connections. The default value is 20.
+     *
+     * @param maxConnections The max total number of pooled connections.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withMaxConnections(final int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * Sets the max number of pooled connections to the same host. The default value is 20.
+     *
+     * @param maxConnectionsPerRoute The max number of pooled connections to the same host.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets the time to keep an idle connection alive. A shorter <code>Keep-Alive</code> timeout sent by the server
+     * takes precedence. The default value is 30s.
+     *
+     * @param keepAliveMs The time to keep an idle connection alive in milliseconds.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withKeepAliveMs(final long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+        return this;
+    }
+
+    /**
+     * Sets the time after which an idle connection is closed and evicted from the pool by a background thread.
+     * The default value is 60s.
+     *
+     * @param maxIdleMs The time after which an idle connection is evicted in milliseconds.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withMaxIdleMs(final long maxIdleMs) {
+        this.maxIdleMs = maxIdleMs;
+        return this;
+    }
+
+    /**
+     * Sets the time of inactivity after which a pooled connection is checked to be alive before reuse.
+     * The default value is 2s.
+     *
+     * @param validateAfterInactivityMs The time of inactivity in milliseconds.
+     * @return Modified instance of {@link PolygonHttpClientBuilder}.
+     */
+    public PolygonHttpClientBuilder withValidateAfterInactivityMs(final int validateAfterInactivityMs) {
+        this.validateAfterInactivityMs = validateAfterInactivityMs;
+        return this;
+    }
+}
@@ -0,0 +1,185 @@
+package ru.perveevm.polygon.utils;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Represents precomputed information about one overload of an API method that is needed to encode its parameters.
+ * Instances are immutable and are built once by {@link ReflectionUtils#describeMethods(Class)}, so encoding does not
+ * use reflection.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public final class ApiMethodDescriptor {
+    private static final Map<Class<?>, Class<?>> WRAPPERS = Map.of(boolean.class, Boolean.class,
+            int.class, Integer.class, long.class, Long.class, double.class, Double.class);
+
+    private final String name;
+    private final String apiMethodName;
+    private final Class<?>[] parameterTypes;
+    private final String[] parameterNames;
+    private final String signature;
+    private final boolean readOnly;
+
+    /**
+     * Creates a method descriptor.
+     *
+     * @param name           Method name.
+     * @param parameterTypes Ordered method parameter types.
+     * @param parameterNames Ordered method parameter names.
+     * @param readOnly       Is <code>true</code> if the API method does not modify anything.
+     */
+    public ApiMethodDescriptor(final String name, final Class<?>[] parameterTypes, final String[] parameterNames,
+                               final boolean readOnly) {
+        if (parameterTypes.length != parameterNames.length) {
+            throw new IllegalArgumentException("Method " + name + " has different numbers of parameter types "
+                    + "and names");
+        }
+        this.name = name;
+        this.apiMethodName = getApiMethodName(name);
+        this.parameterTypes = Arrays.stream(parameterTypes).map(type -> WRAPPERS.getOrDefault(type, type))
+                .toArray(Class<?>[]::new);
+        this.parameterNames = parameterNames.clone();
+        this.signature = getSignature(name, parameterTypes);
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Converts a method name to the name of the API method it calls, for example, <code>problemSaveFile</code> to
+     * <code>problem.saveFile</code>.
+     *
+     * @param name Method name.
+     * @return API method name.
+     */
+    public static String getApiMethodName(final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isUpperCase(name.charAt(i))) {
+                return name.substring(0, i) + "." + Character.toLowerCase(name.charAt(i)) + name.substring(i + 1);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Builds the signature that identifies a method overload, for example,
+     * <code>problemViewFile(Integer,String,String)</code>.
+     *
+     * @param name           Method name.
+     * @param parameterTypes Ordered method parameter types.
+     * @return Method signature.
+     */
+    public static String getSignature(final String name, final Class<?>... parameterTypes) {
+        return Arrays.stream(parameterTypes).map(Class::getSimpleName)
+                .collect(Collectors.joining(",", name + "(", ")"));
+    }
+
+    /**
+     * @return Method name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Name of the API method, for example, <code>problem.saveFile</code>.
+     */
+    public String getApiMethodName() {
+        return apiMethodName;
+    }
+
+    /**
+     * @return Is <code>true</code> if the API method does not modify anything, see {@link ReadOnlyApiMethod}.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return Method signature, see {@link #getSignature(String, Class[])}.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * @return Ordered method parameter names.
+     */
+    public String[] getParameterNames() {
+        return parameterNames.clone();
+    }
+
+    /**
+     * @return Number of method parameters.
+     */
+    public int getParameterCount() {
+        return parameterNames.length;
+    }
+
+    /**
+     * Describes the first parameters of this method overload, for a call that sends only them.
+     *
+     * @param length Number of the first parameters.
+     * @return Descriptor with the first <code>length</code> parameters of this one.
+     */
+    public ApiMethodDescriptor prefix(final int length) {
+        if (length == parameterNames.length) {
+            return this;
+        }
+        return new ApiMethodDescriptor(name, Arrays.copyOf(parameterTypes, length),
+                Arrays.copyOf(parameterNames, length), readOnly);
+    }
+
+    /**
+     * Checks whether the first parameters of two method overloads have the same names, so that they are encoded
+     * in the same way.
+     *
+     * @param other  Descriptor of another method overload.
+     * @param length Number of parameters to compare.
+     * @return <code>true</code> if both overloads have at least <code>length</code> parameters, and the first
+     * <code>length</code> of them have the same names.
+     */
+    public boolean hasSameParameterNames(final ApiMethodDescriptor other, final int length) {
+        return length <= parameterNames.length && length <= other.parameterNames.length
+                && Arrays.equals(parameterNames, 0, length, other.parameterNames, 0, length);
+    }
+
+    /**
+     * Encodes method parameters to {@link List} of {@link NameValuePair} objects. <code>null</code> values are
+     * skipped, {@link File} values are encoded as {@link FileNameValuePair} objects and are not read.
+     *
+     * @param values An array of method parameters in the order of method declaration.
+     * @return Encoded parameters.
+     */
+    public List<NameValuePair> encode(final Object... values) {
+        if (values.length > parameterNames.length) {
+            throw new IllegalArgumentException(String.format("Method %s has only %d parameters, but %d are given",
+                    signature, parameterNames.length, values.length));
+        }
+
+        List<NameValuePair> requestParameters = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+
+            if (values[i] instanceof File) {
+                requestParameters.add(new FileNameValuePair(parameterNames[i], (File) values[i]));
+            } else {
+                requestParameters.add(new BasicNameValuePair(parameterNames[i], String.valueOf(values[i])));
+            }
+        }
+        return requestParameters;
+    }
+
+    @Override
+    public String toString() {
+        return signature + " " + Arrays.toString(parameterNames);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.perveevm.polygon.utils;
+
+import org.apache.http.message.BasicNameValuePair;
+
+import java.io.File;
+
+/**
+ * Represents a request parameter whose value is the content of a file. The file is not read into memory, it is
+ * streamed from disk when the request is signed and sent. {@link #getValue()} returns the file path.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FileNameValuePair extends BasicNameValuePair {
+    private final File file;
+
+    /**
+     * Creates a file parameter.
+     *
+     * @param name Parameter name.
+     * @param file File descriptor.
+     */
+    public FileNameValuePair(final String name, final File file) {
+        super(name, file.getPath());
+        this.file = file;
+    }
+
+    /**
+     * @return File descriptor.
+     */
+    public File getFile() {
+        return file;
+    }
+}
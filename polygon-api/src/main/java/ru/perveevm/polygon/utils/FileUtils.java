@@ -0,0 +1,114 @@
+package ru.perveevm.polygon.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Represents some utils to replace files so that a reader never sees a partially written file, and to store
+ * properties files.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public class FileUtils {
+    /**
+     * Creates an empty temporary file in the directory of <code>target</code>, so that it can be moved to
+     * <code>target</code> by {@link #moveAtomically(Path, Path)}.
+     *
+     * @param target Path the temporary file will be moved to.
+     * @return Path to the created file.
+     * @throws IOException if the file cannot be created.
+     */
+    public static Path createTemporaryFile(final Path target) throws IOException {
+        return Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+    }
+
+    /**
+     * Writes a file through a temporary file in the same directory, which replaces <code>target</code> only if
+     * the writer succeeds. If the writer fails, <code>target</code> is left as is.
+     *
+     * @param target Path to write the file to.
+     * @param writer Writes the file contents to the given stream.
+     * @param <E>    Type of the exception thrown by the writer.
+     * @throws IOException if the file cannot be written.
+     * @throws E           if the writer fails.
+     */
+    public static <E extends Exception> void writeAtomically(final Path target, final ContentWriter<E> writer)
+            throws IOException, E {
+        Path temporaryFile = createTemporaryFile(target);
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                writer.write(outputStream);
+            }
+            moveAtomically(temporaryFile, target);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Moves a file replacing the target. The move is atomic if the file system supports it.
+     *
+     * @param source Path to the file to move.
+     * @param target Path to move the file to.
+     * @throws IOException if the file cannot be moved.
+     */
+    public static void moveAtomically(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads properties from a file.
+     *
+     * @param path Path to the file.
+     * @return Read properties, empty if the file does not exist.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Properties readProperties(final Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        } catch (NoSuchFileException e) {
+            return new Properties();
+        }
+        return properties;
+    }
+
+    /**
+     * Writes properties to a file through {@link #writeAtomically(Path, ContentWriter)}.
+     *
+     * @param path       Path to the file.
+     * @param properties Properties to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeProperties(final Path path, final Properties properties) throws IOException {
+        writeAtomically(path, outputStream -> properties.store(outputStream, null));
+    }
+
+    /**
+     * Writes file contents.
+     *
+     * @param <E> Type of the exception thrown by the writer.
+     */
+    @FunctionalInterface
+    public interface ContentWriter<E extends Exception> {
+        /**
+         * Writes the contents.
+         *
+         * @param outputStream Stream to write the contents to. It is closed by the caller.
+         * @throws IOException if the contents cannot be written.
+         * @throws E           if the contents cannot be obtained.
+         */
+        void write(OutputStream outputStream) throws IOException, E;
+    }
+}
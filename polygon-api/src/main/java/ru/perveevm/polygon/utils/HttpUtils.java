@@ -0,0 +1,439 @@
+package ru.perveevm.polygon.utils;
+
+import me.tongfei.progressbar.ProgressBar;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionBadResponseException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionHTTPErrorException;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class HttpUtils {
+    private static final int DOWNLOAD_BUFFER_SIZE = 1 << 16;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    /**
+     * Creates a thread-safe HTTP client backed by a pool of keep-alive connections. The client starts a background
+     * thread that evicts expired and idle connections, the thread is stopped when the client is closed.
+     *
+     * @param maxConnections            Max total number of pooled connections.
+     * @param maxConnectionsPerRoute    Max number of pooled connections to the same host.
+     * @param keepAliveMs               Time in milliseconds to keep an idle connection alive if the server does not
+     *                                  send a shorter <code>Keep-Alive</code> timeout.
+     * @param maxIdleMs                 Time in milliseconds after which an idle connection is evicted from the pool.
+     * @param validateAfterInactivityMs Time in milliseconds of inactivity after which a pooled connection is checked
+     *                                  before reuse.
+     * @return Initialized {@link CloseableHttpClient} instance.
+     */
+    public static CloseableHttpClient createPooledClient(final int maxConnections, final int maxConnectionsPerRoute,
+                                                         final long keepAliveMs, final long maxIdleMs,
+                                                         final int validateAfterInactivityMs) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAliveMs > 0 ? Math.min(serverKeepAliveMs, keepAliveMs) : keepAliveMs;
+        };
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(maxIdleMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public static HttpResponse sendGetRequest(final HttpClient client, final String url,
+                                              final List<NameValuePair> parameters, final Header... headers)
+            throws IOException, URISyntaxException {
+        HttpGet request = new HttpGet(url);
+        URI uri = new URIBuilder(request.getURI()).addParameters(parameters).build();
+        request.setURI(uri);
+        request.setHeaders(headers);
+        return client.execute(request);
+    }
+
+    public static HttpResponse sendPostRequest(final HttpClient client, final String url,
+                                               final List<NameValuePair> parameters, final Header... headers)
+            throws IOException {
+        HttpPost request = new HttpPost(url);
+        request.setHeaders(headers);
+        request.setEntity(createMultipartEntity(parameters));
+        return client.execute(request);
+    }
+
+    /**
+     * Creates a multipart POST request for {@link java.net.http.HttpClient}. The request body has the same parts as
+     * the one sent by {@link #sendPostRequest(HttpClient, String, List, Header...)}. Content of
+     * {@link FileNameValuePair} parameters is streamed from disk when the request is sent.
+     *
+     * @param url        Request URL.
+     * @param parameters Request parameters.
+     * @return Initialized {@link HttpRequest} instance.
+     */
+    public static HttpRequest createAsyncPostRequest(final String url, final List<NameValuePair> parameters) {
+        String boundary = UUID.randomUUID().toString();
+        List<Object> chunks = new ArrayList<>();
+        long length = 0;
+        for (NameValuePair p : parameters) {
+            byte[] header = String.format("--%s\r\nContent-Disposition: form-data; name=\"%s\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n", boundary, p.getName())
+                    .getBytes(StandardCharsets.UTF_8);
+            chunks.add(header);
+            length += header.length;
+            if (p instanceof FileNameValuePair) {
+                File file = ((FileNameValuePair) p).getFile();
+                chunks.add(file);
+                length += file.length();
+            } else {
+                byte[] value = p.getValue().getBytes(StandardCharsets.UTF_8);
+                chunks.add(value);
+                length += value.length;
+            }
+            chunks.add(CRLF);
+            length += CRLF.length;
+        }
+        byte[] footer = String.format("--%s--\r\n", boundary).getBytes(StandardCharsets.UTF_8);
+        chunks.add(footer);
+        length += footer.length;
+
+        Supplier<InputStream> body = () -> {
+            Iterator<Object> iterator = chunks.iterator();
+            return new SequenceInputStream(new Enumeration<>() {
+                @Override
+                public boolean hasMoreElements() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    Object chunk = iterator.next();
+                    if (chunk instanceof File) {
+                        try {
+                            return new FileInputStream((File) chunk);
+                        } catch (FileNotFoundException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return new ByteArrayInputStream((byte[]) chunk);
+                }
+            });
+        };
+
+        return HttpRequest.newBuilder(URI.create(url))
+                .header(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(body),
+                        length))
+                .build();
+    }
+
+    private static HttpEntity createMultipartEntity(final List<NameValuePair> parameters) {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        for (NameValuePair p : parameters) {
+            if (p instanceof FileNameValuePair) {
+                builder.addPart(p.getName(), new FileBody(((FileNameValuePair) p).getFile(),
+                        ContentType.DEFAULT_BINARY) {
+                    @Override
+                    public String getFilename() {
+                        return null;
+                    }
+                });
+            } else {
+                builder.addBinaryBody(p.getName(), p.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return builder.build();
+    }
+
+    public static void downloadFile(final String url, final HttpResponse response, final File downloadPath)
+            throws PolygonSessionException {
+        copyToFile(url, response.getEntity(), downloadPath, 0);
+    }
+
+    /**
+     * Downloads a file so that an interrupted download can be continued. The data is written to
+     * <code>downloadPath.part</code>, and the information about the resource being downloaded is stored
+     * in <code>downloadPath.part.properties</code>. If both files exist and were created for the same resource,
+     * the download is continued using HTTP <code>Range</code> request. If the server ignores the range, the file
+     * is downloaded from the beginning. When the download is finished, the part file is moved to
+     * <code>downloadPath</code>. If the server responds with an unexpected status, the part file is left as is.
+     *
+     * @param url          Request URL.
+     * @param resourceId   A {@link String} that identifies the downloaded resource, for example, URL with
+     *                     package ID and revision. The partial file is reused only if it has the same identifier.
+     * @param sender       Sends the request with the given additional headers.
+     * @param downloadPath Download file descriptor.
+     * @throws PolygonSessionException if an error occurred while downloading or writing the file.
+     */
+    public static void downloadFileResumable(final String url, final String resourceId,
+                                             final RangeRequestSender sender, final File downloadPath)
+            throws PolygonSessionException {
+        File partFile = new File(downloadPath.getPath() + ".part");
+        File metadataFile = new File(downloadPath.getPath() + ".part.properties");
+
+        Properties metadata = readDownloadMetadata(metadataFile);
+        long offset = 0;
+        List<Header> headers = new ArrayList<>();
+        if (partFile.isFile() && resourceId.equals(metadata.getProperty("resource"))) {
+            offset = partFile.length();
+            headers.add(new BasicHeader(HttpHeaders.RANGE, "bytes=" + offset + "-"));
+            if (metadata.getProperty("validator") != null) {
+                headers.add(new BasicHeader(HttpHeaders.IF_RANGE, metadata.getProperty("validator")));
+            }
+        } else {
+            metadata = new Properties();
+            metadata.setProperty("resource", resourceId);
+        }
+
+        HttpResponse response = sender.send(headers.toArray(new Header[0]));
+        int status = response.getStatusLine().getStatusCode();
+        boolean rangeNotSatisfiable = status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
+        if (status != HttpStatus.SC_OK && status != HttpStatus.SC_PARTIAL_CONTENT
+                && !(rangeNotSatisfiable && offset > 0)) {
+            // The part file and its metadata are kept, so that the download can be continued by the next call.
+            EntityUtils.consumeQuietly(response.getEntity());
+            throw new PolygonSessionBadResponseException(url, Collections.emptyList(), status);
+        }
+        boolean alreadyDownloaded = rangeNotSatisfiable
+                && String.valueOf(offset).equals(metadata.getProperty("length"));
+        if (offset > 0 && (rangeNotSatisfiable && !alreadyDownloaded
+                || status == HttpStatus.SC_PARTIAL_CONTENT && getContentRangeStart(response) != offset)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            deleteFiles(partFile, metadataFile);
+            downloadFileResumable(url, resourceId, sender, downloadPath);
+            return;
+        }
+
+        if (alreadyDownloaded) {
+            EntityUtils.consumeQuietly(response.getEntity());
+        } else {
+            if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+                offset = 0;
+            }
+
+            long length = response.getEntity().getContentLength();
+            metadata.remove("length");
+            if (length >= 0) {
+                metadata.setProperty("length", String.valueOf(offset + length));
+            }
+            metadata.remove("validator");
+            Header validator = response.getFirstHeader(HttpHeaders.ETAG);
+            if (validator == null) {
+                validator = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+            }
+            if (validator != null) {
+                metadata.setProperty("validator", validator.getValue());
+            }
+            writeDownloadMetadata(metadataFile, metadata);
+
+            copyToFile(url, response.getEntity(), partFile, offset);
+        }
+
+        try {
+            Files.move(partFile.toPath(), downloadPath.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(metadataFile.toPath());
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads a file unless the copy at <code>downloadPath</code> is up to date. The <code>ETag</code> and
+     * <code>Last-Modified</code> validators of the downloaded file are stored in
+     * <code>downloadPath.validators.properties</code>. If both files exist, were created for the same resource, and
+     * the file has the recorded length, the request is sent with <code>If-None-Match</code> and
+     * <code>If-Modified-Since</code> headers, and the file is left as is when the server responds with 304. The file
+     * is replaced only by a response with status 200, any other status leaves the file and its validators as is.
+     *
+     * @param url          Request URL.
+     * @param resourceId   A {@link String} that identifies the downloaded resource, for example, URL with revision.
+     *                     The validators are used only if they were stored for the same identifier.
+     * @param sender       Sends the request with the given additional headers.
+     * @param downloadPath Download file descriptor.
+     * @return <code>true</code> if the file was downloaded, <code>false</code> if it was not modified.
+     * @throws PolygonSessionException if an error occurred while downloading or writing the file.
+     */
+    public static boolean downloadFileConditional(final String url, final String resourceId,
+                                                  final RangeRequestSender sender, final File downloadPath)
+            throws PolygonSessionException {
+        File validatorsFile = new File(downloadPath.getPath() + ".validators.properties");
+
+        Properties validators = readDownloadMetadata(validatorsFile);
+        List<Header> headers = new ArrayList<>();
+        if (downloadPath.isFile() && resourceId.equals(validators.getProperty("resource"))
+                && String.valueOf(downloadPath.length()).equals(validators.getProperty("length"))) {
+            if (validators.getProperty("etag") != null) {
+                headers.add(new BasicHeader(HttpHeaders.IF_NONE_MATCH, validators.getProperty("etag")));
+            }
+            if (validators.getProperty("lastModified") != null) {
+                headers.add(new BasicHeader(HttpHeaders.IF_MODIFIED_SINCE, validators.getProperty("lastModified")));
+            }
+        }
+
+        HttpResponse response = sender.send(headers.toArray(new Header[0]));
+        int status = response.getStatusLine().getStatusCode();
+        if (status == HttpStatus.SC_NOT_MODIFIED && !headers.isEmpty()) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            return false;
+        }
+        if (status != HttpStatus.SC_OK) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            throw new PolygonSessionBadResponseException(url, Collections.emptyList(), status);
+        }
+
+        try {
+            Path temporaryFile = FileUtils.createTemporaryFile(downloadPath.toPath());
+            try {
+                copyToFile(url, response.getEntity(), temporaryFile.toFile(), 0);
+                // Stale validators are removed first, so that they are never taken for the validators of a new file.
+                deleteFiles(validatorsFile);
+                FileUtils.moveAtomically(temporaryFile, downloadPath.toPath());
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+
+        validators = new Properties();
+        validators.setProperty("resource", resourceId);
+        validators.setProperty("length", String.valueOf(downloadPath.length()));
+        Header eTag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (eTag != null) {
+            validators.setProperty("etag", eTag.getValue());
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null) {
+            validators.setProperty("lastModified", lastModified.getValue());
+        }
+        if (eTag != null || lastModified != null) {
+            writeDownloadMetadata(validatorsFile, validators);
+        }
+        return true;
+    }
+
+    private static void copyToFile(final String url, final HttpEntity entity, final File downloadPath,
+                                   final long offset) throws PolygonSessionException {
+        long length = entity.getContentLength();
+        try (ProgressBar pb = new ProgressBar("Downloading file", length < 0 ? -1 : offset + length)) {
+            pb.stepTo(offset);
+            try (InputStream inputStream = entity.getContent()) {
+                try (OutputStream outputStream = new FileOutputStream(downloadPath, offset > 0)) {
+                    byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+                    int read;
+                    while ((read = read(url, inputStream, buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        pb.stepBy(read);
+                    }
+                } catch (IOException e) {
+                    throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+                }
+            } catch (IOException e) {
+                throw new PolygonSessionHTTPErrorException(url, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the response body, so that a dropped connection is not reported as a failure to write the file.
+     */
+    private static int read(final String url, final InputStream inputStream, final byte[] buffer)
+            throws PolygonSessionHTTPErrorException {
+        try {
+            return inputStream.read(buffer);
+        } catch (IOException e) {
+            throw new PolygonSessionHTTPErrorException(url, e);
+        }
+    }
+
+    private static long getContentRangeStart(final HttpResponse response) {
+        Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        if (contentRange == null || !contentRange.getValue().startsWith("bytes ")) {
+            return -1;
+        }
+        String range = contentRange.getValue().substring("bytes ".length());
+        try {
+            return Long.parseLong(range.substring(0, range.indexOf('-')).trim());
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private static Properties readDownloadMetadata(final File metadataFile) {
+        Properties metadata = new Properties();
+        if (metadataFile.isFile()) {
+            try (InputStream inputStream = new FileInputStream(metadataFile)) {
+                metadata.load(inputStream);
+            } catch (IOException ignored) {
+                return new Properties();
+            }
+        }
+        return metadata;
+    }
+
+    private static void writeDownloadMetadata(final File metadataFile, final Properties metadata)
+            throws PolygonSessionException {
+        try (OutputStream outputStream = new FileOutputStream(metadataFile)) {
+            metadata.store(outputStream, null);
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot write file: " + e.getMessage(), e);
+        }
+    }
+
+    private static void deleteFiles(final File... files) throws PolygonSessionException {
+        try {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        } catch (IOException e) {
+            throw new PolygonSessionException("Cannot delete file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends a download request with additional HTTP headers.
+     */
+    @FunctionalInterface
+    public interface RangeRequestSender {
+        /**
+         * Sends the request.
+         *
+         * @param headers Additional headers, for example, <code>Range</code>.
+         * @return Server response.
+         * @throws PolygonSessionException if the request cannot be sent.
+         */
+        HttpResponse send(Header... headers) throws PolygonSessionException;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.perveevm.polygon.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of {@link ru.perveevm.polygon.api.PolygonSession} that calls an API method which does not modify
+ * anything. Results of such methods can be cached and shared, and their requests can be hedged.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadOnlyApiMethod {
+}
@@ -4,15 +4,10 @@ import org.apache.http.NameValuePair;
 import org.apache.http.message.BasicNameValuePair;
 import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
 
-import java.io.*;
+import java.io.File;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * Represents some utils working with Java reflection to perform requests easier.
@@ -21,12 +16,13 @@ import java.util.stream.Collectors;
  */
 public class ReflectionUtils {
     /**
-     * Encodes method parameters to {@link List} of {@link NameValuePair} objects.
+     * Encodes method parameters to {@link List} of {@link NameValuePair} objects. {@link File} parameters are
+     * encoded as {@link FileNameValuePair} objects and are not read.
      *
      * @param method {@link Method} object for some method from {@link ru.perveevm.polygon.api.PolygonSession} class.
      * @param values An array of method parameters.
      * @return Encoded parameters.
-     * @throws PolygonSessionException if error occured while reading some file from file descriptor parameter.
+     * @throws PolygonSessionException if some parameter cannot be encoded.
      */
     public static List<NameValuePair> encodeMethodParameters(final Method method, final Object... values)
             throws PolygonSessionException {
@@ -38,15 +34,7 @@ public class ReflectionUtils {
             }
 
             if (values[i] instanceof File) {
-                File curFile = (File) values[i];
-                String curData;
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(curFile),
-                        StandardCharsets.UTF_8))) {
-                    curData = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-                } catch (IOException e) {
-                    throw new PolygonSessionException("Cannot read file", e);
-                }
-                requestParameters.add(new BasicNameValuePair(parameters[i].getName(), curData));
+                requestParameters.add(new FileNameValuePair(parameters[i].getName(), (File) values[i]));
             } else {
                 requestParameters.add(new BasicNameValuePair(parameters[i].getName(), String.valueOf(values[i])));
             }
@@ -70,4 +58,27 @@ public class ReflectionUtils {
             return foundMethod.get();
         }
     }
+
+    /**
+     * Builds descriptors of all public methods declared in the given class. Every overload of a method has its own
+     * descriptor. Methods annotated with {@link ReadOnlyApiMethod} are described as read-only.
+     *
+     * @param clazz Class descriptor to describe methods of.
+     * @return An immutable {@link Map} from method signature, see {@link ApiMethodDescriptor#getSignature()}, to
+     * its descriptor.
+     */
+    public static Map<String, ApiMethodDescriptor> describeMethods(final Class<?> clazz) {
+        Map<String, ApiMethodDescriptor> descriptors = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            if (method.getDeclaringClass() != clazz) {
+                continue;
+            }
+
+            String[] names = Arrays.stream(method.getParameters()).map(Parameter::getName).toArray(String[]::new);
+            ApiMethodDescriptor descriptor = new ApiMethodDescriptor(method.getName(), method.getParameterTypes(),
+                    names, method.isAnnotationPresent(ReadOnlyApiMethod.class));
+            descriptors.put(descriptor.getSignature(), descriptor);
+        }
+        return Collections.unmodifiableMap(descriptors);
+    }
 }
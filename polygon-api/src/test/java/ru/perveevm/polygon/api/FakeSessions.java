@@ -0,0 +1,26 @@
+package ru.perveevm.polygon.api;
+
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+
+/**
+ * Creates sessions for the user of the server started by {@link FakePolygonServerExtension}. The testkit does not
+ * depend on this library, so the sessions cannot be created by the extension itself.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+public final class FakeSessions {
+    private FakeSessions() {
+    }
+
+    /**
+     * Creates a builder of a session with the credentials of the user and the API URL of the server.
+     *
+     * @param server Server started by {@link FakePolygonServerExtension}.
+     * @return {@link PolygonSessionBuilder} that can be configured further.
+     */
+    public static PolygonSessionBuilder sessionBuilder(final FakePolygonServer server) {
+        return PolygonSessionBuilder.withCredentials(FakePolygonServerExtension.API_KEY,
+                FakePolygonServerExtension.API_SECRET).withBaseUrl(server.getApiUrl());
+    }
+}
@@ -0,0 +1,115 @@
+package ru.perveevm.polygon.api.breaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.retry.BackoffRetryPolicy;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionAPIUnavailableException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.testkit.FakeError;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link CircuitBreaker} alone and as a part of {@link PolygonSession} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class CircuitBreakerTest {
+    private static final long OPEN_DURATION_MS = 200L;
+
+    @Test
+    void opensAfterFailuresAndFailsFast(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(10, 0.5, 4, OPEN_DURATION_MS, 2);
+        try (PolygonSession session = createSession(server, circuitBreaker)) {
+            server.failNext(100, FakeError.UNAVAILABLE);
+            for (int i = 0; i < 4; i++) {
+                assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            }
+            assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+
+            long requestCount = server.getRequestCount();
+            assertThrows(PolygonSessionAPIUnavailableException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(requestCount, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void closesAfterSuccessfulProbes(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(10, 0.5, 4, OPEN_DURATION_MS, 2);
+        List<CircuitBreakerState> states = new CopyOnWriteArrayList<>();
+        circuitBreaker.addListener(states::add);
+        try (PolygonSession session = createSession(server, circuitBreaker)) {
+            open(server, problem, session);
+            server.failNext(0, FakeError.UNAVAILABLE);
+            Thread.sleep(OPEN_DURATION_MS + 50);
+            assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+
+            assertNotNull(session.problemInfo(problem.getId()));
+            assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+            assertNotNull(session.problemInfo(problem.getId()));
+            assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+            assertEquals(List.of(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN,
+                    CircuitBreakerState.CLOSED), states);
+        }
+    }
+
+    @Test
+    void reopensAfterFailedProbe(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(10, 0.5, 4, OPEN_DURATION_MS, 2);
+        try (PolygonSession session = createSession(server, circuitBreaker)) {
+            open(server, problem, session);
+            server.failNext(1, FakeError.UNAVAILABLE);
+            Thread.sleep(OPEN_DURATION_MS + 50);
+
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+            assertTrue(circuitBreaker.getRemainingOpenMs() > 0);
+        }
+    }
+
+    @Test
+    void limitsProbesInFlight() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(4, 0.5, 2, OPEN_DURATION_MS, 1);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+        assertFalse(circuitBreaker.tryAcquire());
+        Thread.sleep(OPEN_DURATION_MS + 50);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        circuitBreaker.onIgnored();
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+    }
+
+    private static void open(final FakePolygonServer server, final FakeProblem problem,
+                             final PolygonSession session) {
+        server.failNext(100, FakeError.UNAVAILABLE);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+        }
+        assertEquals(CircuitBreakerState.OPEN, session.getCircuitBreakerState());
+    }
+
+    private static PolygonSession createSession(final FakePolygonServer server,
+                                                final CircuitBreaker circuitBreaker) {
+        return sessionBuilder(server).withRetryPolicy(new BackoffRetryPolicy().withMaxRetries(0))
+                .withCircuitBreaker(circuitBreaker).build();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.perveevm.polygon.api.bulk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.testkit.FakeContest;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link ContestPackagePipeline} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class ContestPackagePipelineTest {
+    private static final int CONTEST_ID = 1;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server) throws Exception {
+        server.setPackagePaddingLength(10000);
+        FakeContest contest = server.createContest(CONTEST_ID);
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            for (String letter : List.of("A", "B", "C")) {
+                FakeProblem problem = server.createProblem(FakePolygonServerExtension.LOGIN,
+                        "problem-" + letter.toLowerCase());
+                session.problemCommitChanges(problem.getId(), true, null);
+                contest.addProblem(letter, problem);
+            }
+        }
+    }
+
+    @Test
+    void buildsAndDownloadsAllPackages(final FakePolygonServer server) throws Exception {
+        server.setPackageBuildDelayMs(100);
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ContestPackageReport report = new ContestPackagePipeline(session).withPollIntervalMs(20)
+                    .buildAndDownload(CONTEST_ID, directory);
+
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(Set.of("A", "B", "C"), report.getPackages().keySet());
+            for (String letter : List.of("A", "B", "C")) {
+                assertTrue(Files.size(directory.resolve(letter + ".zip")) > 10000);
+            }
+            assertEquals(3, server.getRequestCount("problem.buildPackage"));
+        }
+    }
+
+    @Test
+    void reusesReadyPackages(final FakePolygonServer server) throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            new ContestPackagePipeline(session).withPollIntervalMs(20).buildAndDownload(CONTEST_ID,
+                    directory.resolve("first"));
+            ContestPackageReport report = new ContestPackagePipeline(session).withPollIntervalMs(20)
+                    .buildAndDownload(CONTEST_ID, directory.resolve("second"));
+
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(Set.of("A", "B", "C"), Set.copyOf(report.getReused()));
+            assertEquals(3, server.getRequestCount("problem.buildPackage"));
+            assertTrue(Files.exists(directory.resolve("second").resolve("A.zip")));
+        }
+    }
+
+    @Test
+    void reportsPackagesThatAreNotBuiltInTime(final FakePolygonServer server) throws Exception {
+        server.setPackageBuildDelayMs(60000);
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            long startNanos = System.nanoTime();
+            ContestPackageReport report = new ContestPackagePipeline(session).withPollIntervalMs(20)
+                    .withTimeoutMs(300).buildAndDownload(CONTEST_ID, directory);
+
+            assertTrue((System.nanoTime() - startNanos) / 1_000_000 < 10000);
+            assertEquals(Set.of("A", "B", "C"), report.getFailed().keySet());
+            for (PolygonSessionException e : report.getFailed().values()) {
+                assertEquals("Package is not built in 300 ms", e.getMessage());
+            }
+            assertTrue(report.getPackages().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.perveevm.polygon.api.bulk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link ProblemMirror} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class ProblemMirrorTest {
+    @TempDir
+    Path root;
+
+    private FakePolygonServer server;
+    private FakeProblem problem;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) {
+        problem.addFile("resource", "olymp.sty", "\\ProvidesPackage{olymp}")
+                .addFile("source", "gen.cpp", "int main() {}")
+                .addSolution("main.cpp", "int main() { return 0; }", "MA");
+        for (int i = 1; i <= 3; i++) {
+            problem.addTest("tests", i, 100);
+        }
+        this.server = server;
+        this.problem = problem;
+    }
+
+    @Test
+    void skipsUnchangedProblemOnSecondRun() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ProblemMirror mirror = new ProblemMirror(session);
+            ProblemMirrorReport first = mirror.mirror(root);
+            assertTrue(first.isSuccessful(), first.toString());
+            assertEquals(3, first.getDownloadedFiles());
+            // The revision from the problem list is passed to the testset download.
+            assertEquals(1, server.getRequestCount("problems.list"));
+            assertEquals(3, server.getRequestCount("problem.testInput"));
+
+            server.resetRequestCounts();
+            ProblemMirrorReport second = mirror.mirror(root);
+            assertTrue(second.isSuccessful(), second.toString());
+            assertEquals(List.of(problem.getId()), second.getUnchanged());
+            assertEquals(0, second.getDownloadedFiles());
+            assertEquals(1, server.getRequestCount("problems.list"));
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void downloadsOnlyChangedFileAgain() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ProblemMirror mirror = new ProblemMirror(session);
+            mirror.mirror(root);
+
+            problem.addFile("source", "gen.cpp", "int main() { return 0; }");
+            session.problemSaveGeneralTutorial(problem.getId(), "Tutorial");
+            session.problemCommitChanges(problem.getId(), true, null);
+            server.resetRequestCounts();
+
+            ProblemMirrorReport report = mirror.mirror(root);
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(List.of(), report.getUnchanged());
+            assertEquals(1, report.getDownloadedFiles());
+            assertEquals(1, server.getRequestCount("problem.viewFile"));
+            assertEquals(0, server.getRequestCount("problem.viewSolution"));
+            assertEquals(1, server.getRequestCount("problems.list"));
+            assertEquals("int main() { return 0; }", Files.readString(
+                    root.resolve(problem.getId() + "/files/source/gen.cpp"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void synchronizesModifiedProblemOnEveryRun() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            session.problemSaveGeneralTutorial(problem.getId(), "Tutorial");
+            ProblemMirror mirror = new ProblemMirror(session);
+            mirror.mirror(root);
+            ProblemMirrorReport report = mirror.mirror(root);
+
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(List.of(), report.getUnchanged());
+            assertEquals(0, report.getDownloadedFiles());
+            // Uncommitted tests cannot be identified by the revision, so they are downloaded again.
+            assertEquals(6, server.getRequestCount("problem.testInput"));
+            assertEquals(2, server.getRequestCount("problems.list"));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.perveevm.polygon.api.bulk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.testkit.FakeError;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link ProblemPusher} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class ProblemPusherTest {
+    private static final Set<String> ARTIFACTS = Set.of("files/source/gen.cpp", "solutions/main.cpp",
+            "tests/tests/1", "tests/tests/2");
+
+    @TempDir
+    Path directory;
+
+    private FakePolygonServer server;
+    private FakeProblem problem;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) throws IOException {
+        write("files/source/gen.cpp", "int main() {}");
+        write("solutions/main.cpp", "int main() { return 0; }");
+        write("tests/tests/1", "1 2");
+        write("tests/tests/2", "3 4");
+        this.server = server;
+        this.problem = problem;
+    }
+
+    @Test
+    void uploadsNothingOnSecondPush() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ProblemPusher pusher = new ProblemPusher(session, 2);
+            ProblemPushReport first = pusher.push(problem.getId(), directory, "First push");
+            assertTrue(first.isSuccessful(), first.toString());
+            assertTrue(first.isCommitted());
+            assertEquals(ARTIFACTS, Set.copyOf(first.getSucceeded()));
+            assertEquals(2, problem.getRevision());
+
+            server.resetRequestCounts();
+            ProblemPushReport second = pusher.push(problem.getId(), directory, "Second push");
+            assertTrue(second.isSuccessful(), second.toString());
+            assertFalse(second.isCommitted());
+            assertEquals(List.of(), second.getSucceeded());
+            assertEquals(ARTIFACTS, Set.copyOf(second.getUnchanged()));
+            assertEquals(0, server.getRequestCount("problem.saveFile"));
+            assertEquals(0, server.getRequestCount("problem.saveSolution"));
+            assertEquals(0, server.getRequestCount("problem.saveTest"));
+            assertEquals(0, server.getRequestCount("problem.commitChanges"));
+            assertEquals(2, problem.getRevision());
+        }
+    }
+
+    @Test
+    void uploadsOnlyChangedFile() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ProblemPusher pusher = new ProblemPusher(session, 2);
+            pusher.push(problem.getId(), directory, "First push");
+            write("tests/tests/2", "5 6");
+
+            server.resetRequestCounts();
+            ProblemPushReport report = pusher.push(problem.getId(), directory, "Second push");
+            assertTrue(report.isSuccessful(), report.toString());
+            assertTrue(report.isCommitted());
+            assertEquals(List.of("tests/tests/2"), report.getSucceeded());
+            assertEquals(0, server.getRequestCount("problem.saveFile"));
+            assertEquals(0, server.getRequestCount("problem.saveSolution"));
+            assertEquals(1, server.getRequestCount("problem.saveTest"));
+            assertEquals("5 6", problem.getTestInput("tests", 2));
+            assertEquals(3, problem.getRevision());
+        }
+    }
+
+    @Test
+    void commitsChangesOfFailedCommitOnNextPush() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            ProblemPusher pusher = new ProblemPusher(session, 2);
+            server.failNext("problem.commitChanges", 1, FakeError.FAILED);
+            assertThrows(PolygonSessionException.class, () -> pusher.push(problem.getId(), directory, "First push"));
+            assertTrue(problem.isModified());
+            assertEquals(1, problem.getRevision());
+
+            server.resetRequestCounts();
+            ProblemPushReport report = pusher.push(problem.getId(), directory, "Second push");
+            assertTrue(report.isSuccessful(), report.toString());
+            assertTrue(report.isCommitted());
+            assertEquals(List.of(), report.getSucceeded());
+            assertEquals(ARTIFACTS, Set.copyOf(report.getUnchanged()));
+            assertEquals(1, server.getRequestCount("problem.commitChanges"));
+            assertFalse(problem.isModified());
+            assertEquals(2, problem.getRevision());
+        }
+    }
+
+    private void write(final String name, final String content) throws IOException {
+        Path path = directory.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+    }
+}
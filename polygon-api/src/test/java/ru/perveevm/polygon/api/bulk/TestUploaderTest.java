@@ -0,0 +1,88 @@
+package ru.perveevm.polygon.api.bulk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.retry.BackoffRetryPolicy;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.testkit.FakeError;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link TestUploader} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class TestUploaderTest {
+    @Test
+    void uploadsAllTests(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        try (PolygonSession session = createSession(server)) {
+            BulkReport<Integer> report = new TestUploader(session, 4).upload(problem.getId(), "tests",
+                    createTests(20, true));
+
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(20, report.getSucceeded().size());
+            assertEquals(20, problem.getTestCount("tests"));
+            assertEquals("2 1", problem.getTestInput("tests", 12));
+            assertEquals(1, server.getRequestCount("problem.enableGroups"));
+            assertEquals(1, server.getRequestCount("problem.enablePoints"));
+        }
+    }
+
+    @Test
+    void reportsFailedTestsAndUploadsTheRest(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        try (PolygonSession session = createSession(server)) {
+            server.failNext(2, FakeError.FAILED);
+            BulkReport<Integer> report = new TestUploader(session, 1).upload(problem.getId(), "tests",
+                    createTests(10, false));
+
+            assertFalse(report.isSuccessful());
+            assertEquals(Set.of(1, 2), report.getFailed().keySet());
+            assertEquals(List.of(3, 4, 5, 6, 7, 8, 9, 10), report.getSucceeded());
+            assertEquals(8, problem.getTestCount("tests"));
+        }
+    }
+
+    @Test
+    void uploadsNothingIfGroupsCannotBeEnabled(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        try (PolygonSession session = createSession(server)) {
+            server.failNext(1, FakeError.FAILED);
+
+            assertThrows(PolygonSessionException.class,
+                    () -> new TestUploader(session, 4).upload(problem.getId(), "tests", createTests(10, true)));
+            assertEquals(0, server.getRequestCount("problem.saveTest"));
+            assertEquals(0, problem.getTestCount("tests"));
+        }
+    }
+
+    private static List<TestSpec> createTests(final int count, final boolean withGroups) {
+        List<TestSpec> tests = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            TestSpec test = new TestSpec(i, (i % 10) + " " + (i / 10));
+            if (withGroups) {
+                test.withGroup(String.valueOf(i % 3)).withPoints(1.0);
+            }
+            tests.add(test);
+        }
+        return tests;
+    }
+
+    private static PolygonSession createSession(final FakePolygonServer server) {
+        return sessionBuilder(server).withRetryPolicy(new BackoffRetryPolicy().withMaxRetries(0)).build();
+    }
+}
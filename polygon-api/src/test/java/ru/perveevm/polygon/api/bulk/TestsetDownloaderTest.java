@@ -0,0 +1,111 @@
+package ru.perveevm.polygon.api.bulk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link TestsetDownloader} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class TestsetDownloaderTest {
+    @TempDir
+    Path directory;
+
+    private FakePolygonServer server;
+    private FakeProblem problem;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) {
+        for (int i = 1; i <= 5; i++) {
+            problem.addTest("tests", i, 1000);
+        }
+        this.server = server;
+        this.problem = problem;
+    }
+
+    @Test
+    void skipsUnchangedTestsOnSecondRun() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            TestsetDownloader downloader = new TestsetDownloader(session, 2);
+            TestsetDownloadReport first = downloader.download(problem.getId(), "tests", directory);
+            assertTrue(first.isSuccessful(), first.toString());
+            assertEquals(List.of(), first.getSkipped());
+            assertEquals(10000, first.getDownloadedBytes());
+
+            TestsetDownloadReport second = downloader.download(problem.getId(), "tests", directory);
+            assertTrue(second.isSuccessful(), second.toString());
+            assertEquals(List.of(1, 2, 3, 4, 5), sorted(second.getSkipped()));
+            assertEquals(0, second.getDownloadedBytes());
+            assertEquals(5, server.getRequestCount("problem.testInput"));
+            assertEquals(5, server.getRequestCount("problem.testAnswer"));
+            assertEquals(2, server.getRequestCount("problems.list"));
+        }
+    }
+
+    @Test
+    void downloadsOnlyChangedFileAgain() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            TestsetDownloader downloader = new TestsetDownloader(session, 2);
+            downloader.download(problem.getId(), "tests", directory);
+            Files.write(directory.resolve("3"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+            TestsetDownloadReport report = downloader.download(problem.getId(), "tests", directory);
+            assertTrue(report.isSuccessful(), report.toString());
+            assertEquals(List.of(1, 2, 4, 5), sorted(report.getSkipped()));
+            assertEquals(1000, report.getDownloadedBytes());
+            assertEquals(6, server.getRequestCount("problem.testInput"));
+            assertEquals(5, server.getRequestCount("problem.testAnswer"));
+            assertEquals(problem.getTestInput("tests", 3),
+                    Files.readString(directory.resolve("3"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doesNotFetchKnownRevision() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            TestsetDownloader downloader = new TestsetDownloader(session, 2);
+            downloader.download(problem.getId(), "tests", problem.getRevision(), directory);
+            TestsetDownloadReport report = downloader.download(problem.getId(), "tests", problem.getRevision(),
+                    directory);
+
+            assertEquals(List.of(1, 2, 3, 4, 5), sorted(report.getSkipped()));
+            assertEquals(0, server.getRequestCount("problems.list"));
+        }
+    }
+
+    @Test
+    void downloadsAllTestsOfModifiedProblem() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            TestsetDownloader downloader = new TestsetDownloader(session, 2);
+            downloader.download(problem.getId(), "tests", null, directory);
+            TestsetDownloadReport report = downloader.download(problem.getId(), "tests", null, directory);
+
+            assertEquals(List.of(), report.getSkipped());
+            assertEquals(10000, report.getDownloadedBytes());
+            assertEquals(10, server.getRequestCount("problem.testInput"));
+        }
+    }
+
+    private static List<Integer> sorted(final List<Integer> indices) {
+        return indices.stream().sorted().collect(Collectors.toList());
+    }
+}
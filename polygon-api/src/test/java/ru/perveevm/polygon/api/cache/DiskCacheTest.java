@@ -0,0 +1,151 @@
+package ru.perveevm.polygon.api.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link DiskCache} alone and as a part of {@link PolygonSession} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class DiskCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void downloadsEachTestOnce(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        problem.addTest("tests", 1, 10000);
+        DiskCache cache = new DiskCache(directory.resolve("cache"), 1L << 20);
+        try (PolygonSession session = sessionBuilder(server).withDiskCache(cache).build()) {
+            Path first = directory.resolve("1.in");
+            Path second = directory.resolve("2.in");
+            session.problemTestInput(problem.getId(), "tests", 1, problem.getRevision(), first);
+            session.problemTestInput(problem.getId(), "tests", 1, problem.getRevision(), second);
+
+            assertEquals(1, server.getRequestCount("problem.testInput"));
+            assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+            assertEquals(10000, Files.size(second));
+            assertEquals(10000, cache.getTotalBytes());
+        }
+    }
+
+    @Test
+    void downloadsContentsEvictedByConcurrentDownloads(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            problem.addTest("tests", i, 10000);
+        }
+        // The cache holds only two tests, so every download evicts the contents that other threads are copying.
+        DiskCache cache = new DiskCache(directory.resolve("cache"), 25000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PolygonSession session = sessionBuilder(server).withDiskCache(cache).build()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                Path threadDirectory = Files.createDirectories(directory.resolve("thread" + thread));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        int index = ThreadLocalRandom.current().nextInt(3) + 1 + i % 18;
+                        Path downloadPath = threadDirectory.resolve(index + ".in");
+                        session.problemTestInput(problem.getId(), "tests", index, problem.getRevision(),
+                                downloadPath);
+                        assertEquals(problem.getTestInput("tests", index), Files.readString(downloadPath));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.getTotalBytes() <= 25000);
+    }
+
+    @Test
+    void storesSameContentsOnce() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1L << 20);
+        Path first = put(cache, "first", 'a', 100);
+        Path second = put(cache, "second", 'a', 100);
+
+        assertEquals(first, second);
+        assertEquals(first, cache.get("first"));
+        assertEquals(first, cache.get("second"));
+        assertEquals(100, cache.getTotalBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedContents() throws IOException {
+        DiskCache cache = new DiskCache(directory, 250);
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(put(cache, "first", 'a', 100), FileTime.fromMillis(now - 2000));
+        Files.setLastModifiedTime(put(cache, "second", 'b', 100), FileTime.fromMillis(now - 1000));
+        assertNotNull(cache.get("first"));
+
+        put(cache, "third", 'c', 100);
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("first"));
+        assertNotNull(cache.get("third"));
+        assertEquals(200, cache.getTotalBytes());
+    }
+
+    @Test
+    void keepsNothingIfWriterFails() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1L << 20);
+        assertThrows(IOException.class, () -> cache.put("key", outputStream -> {
+            outputStream.write(new byte[100]);
+            throw new IOException("Connection reset");
+        }));
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.getTotalBytes());
+        try (Stream<Path> files = Files.list(directory.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void countsContentsWhenReopened() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1L << 20);
+        put(cache, "first", 'a', 100);
+        put(cache, "second", 'b', 50);
+
+        DiskCache reopened = new DiskCache(directory, 1L << 20);
+        assertEquals(150, reopened.getTotalBytes());
+        assertNotNull(reopened.get("first"));
+    }
+
+    private static Path put(final DiskCache cache, final String key, final char fill, final int length)
+            throws IOException {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) fill);
+        return cache.put(key, outputStream -> outputStream.write(content));
+    }
+}
@@ -0,0 +1,162 @@
+package ru.perveevm.polygon.api.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.entities.ProblemPackage;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests {@link PackageStore} alone and as a part of {@link PolygonSession} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class PackageStoreTest {
+    @TempDir
+    Path directory;
+
+    private FakePolygonServer server;
+    private FakeProblem problem;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) {
+        server.setPackagePaddingLength(100000);
+        this.server = server;
+        this.problem = problem;
+    }
+
+    @Test
+    void downloadsEachPackageOnce() throws Exception {
+        PackageStore store = new PackageStore(directory.resolve("store"));
+        try (PolygonSession session = createSession(store)) {
+            ProblemPackage problemPackage = buildPackage(session);
+            Path first = directory.resolve("first.zip");
+            Path second = directory.resolve("second.zip");
+            download(session, problemPackage, first);
+            download(session, problemPackage, second);
+
+            assertEquals(1, server.getRequestCount("problem.package"));
+            assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+            assertEquals(Files.size(first), store.getTotalBytes());
+        }
+    }
+
+    @Test
+    void downloadsCorruptedArchiveAgain() throws Exception {
+        PackageStore store = new PackageStore(directory.resolve("store"));
+        try (PolygonSession session = createSession(store)) {
+            ProblemPackage problemPackage = buildPackage(session);
+            download(session, problemPackage, directory.resolve("first.zip"));
+            byte[] content = Files.readAllBytes(directory.resolve("first.zip"));
+
+            Path archive = get(store, problemPackage);
+            assertNotNull(archive);
+            Files.write(archive, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+            assertNull(get(store, problemPackage));
+
+            Path second = directory.resolve("second.zip");
+            download(session, problemPackage, second);
+            assertEquals(2, server.getRequestCount("problem.package"));
+            assertArrayEquals(content, Files.readAllBytes(second));
+        }
+    }
+
+    @Test
+    void detectsArchiveModifiedInPlace() throws Exception {
+        PackageStore store = new PackageStore(directory.resolve("store"));
+        try (PolygonSession session = createSession(store)) {
+            ProblemPackage problemPackage = buildPackage(session);
+            Path first = directory.resolve("first.zip");
+            download(session, problemPackage, first);
+            byte[] content = Files.readAllBytes(first);
+            Thread.sleep(10);
+
+            // The length does not change, so only the modification time shows that the archive was modified.
+            try (FileChannel channel = FileChannel.open(get(store, problemPackage), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 0);
+            }
+            assertNull(get(store, problemPackage));
+
+            Path second = directory.resolve("second.zip");
+            download(session, problemPackage, second);
+            assertEquals(2, server.getRequestCount("problem.package"));
+            assertArrayEquals(content, Files.readAllBytes(second));
+        }
+    }
+
+    @Test
+    void keepsPackagesOfLastRevisions() throws Exception {
+        PackageStore store = new PackageStore(directory.resolve("store"), 2, Long.MAX_VALUE);
+        try (PolygonSession session = createSession(store)) {
+            List<ProblemPackage> packages = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ProblemPackage problemPackage = buildPackage(session);
+                download(session, problemPackage, directory.resolve(problemPackage.getId() + ".zip"));
+                packages.add(problemPackage);
+            }
+
+            assertNull(get(store, packages.get(0)));
+            assertNotNull(get(store, packages.get(1)));
+            assertNotNull(get(store, packages.get(2)));
+            // Links to evicted archives stay valid.
+            assertEquals(Files.size(directory.resolve(packages.get(2).getId() + ".zip")),
+                    Files.size(directory.resolve(packages.get(0).getId() + ".zip")));
+        }
+    }
+
+    @Test
+    void keepsNothingIfDownloadFails() throws IOException {
+        PackageStore store = new PackageStore(directory);
+        assertThrows(IOException.class, () -> store.put(problem.getId(), 1, 1, "linux", path -> {
+            Files.write(path, new byte[100]);
+            throw new IOException("Connection reset");
+        }));
+
+        assertNull(store.get(problem.getId(), 1, 1, "linux"));
+        assertEquals(0, store.getTotalBytes());
+    }
+
+    private ProblemPackage buildPackage(final PolygonSession session) throws Exception {
+        session.problemSaveGeneralTutorial(problem.getId(), "Revision " + problem.getRevision());
+        session.problemCommitChanges(problem.getId(), true, null);
+        session.problemBuildPackage(problem.getId(), false, false);
+        ProblemPackage[] packages = session.problemPackages(problem.getId());
+        return packages[packages.length - 1];
+    }
+
+    private void download(final PolygonSession session, final ProblemPackage problemPackage,
+                          final Path downloadPath) throws Exception {
+        session.problemPackage(problem.getId(), problemPackage.getId(), problemPackage.getType(),
+                problemPackage.getRevision(), downloadPath);
+    }
+
+    private Path get(final PackageStore store, final ProblemPackage problemPackage) throws IOException {
+        return store.get(problem.getId(), problemPackage.getId(), problemPackage.getRevision(),
+                problemPackage.getType());
+    }
+
+    private PolygonSession createSession(final PackageStore store) {
+        return sessionBuilder(server).withPackageStore(store).build();
+    }
+}
@@ -0,0 +1,134 @@
+package ru.perveevm.polygon.api.cache;
+
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests caching and invalidation of read-only results by {@link PolygonSession} with {@link ResponseCache} against
+ * {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class ResponseCacheTest {
+    @Test
+    void answersRepeatedReadsFromCache(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        ResponseCache cache = new ResponseCache();
+        try (PolygonSession session = createSession(server, cache)) {
+            session.problemInfo(problem.getId());
+            session.problemInfo(problem.getId());
+
+            assertEquals(1, server.getRequestCount("problem.info"));
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void invalidatesResultsOfProblemOnWrite(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        ResponseCache cache = new ResponseCache();
+        try (PolygonSession session = createSession(server, cache)) {
+            session.problemInfo(problem.getId());
+            session.problemsList(null, null, null, null);
+            session.problemUpdateInfo(problem.getId(), null, null, null, 2000, null);
+
+            assertEquals(2000, session.problemInfo(problem.getId()).getTimeLimit());
+            session.problemsList(null, null, null, null);
+            assertEquals(2, server.getRequestCount("problem.info"));
+            assertEquals(2, server.getRequestCount("problems.list"));
+            assertEquals(0, cache.getHitCount());
+        }
+    }
+
+    @Test
+    void keepsResultsOfOtherProblemsOnWrite(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        FakeProblem other = server.createProblem(FakePolygonServerExtension.LOGIN, "b-plus-a");
+        ResponseCache cache = new ResponseCache();
+        try (PolygonSession session = createSession(server, cache)) {
+            session.problemInfo(problem.getId());
+            session.problemInfo(other.getId());
+            session.problemUpdateInfo(problem.getId(), null, null, null, 2000, null);
+
+            session.problemInfo(other.getId());
+            assertEquals(2, server.getRequestCount("problem.info"));
+            assertEquals(1, cache.getHitCount());
+        }
+    }
+
+    @Test
+    void noticesChangesOfOtherSessionsThroughProblemsList(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        ResponseCache cache = new ResponseCache();
+        try (PolygonSession session = createSession(server, cache);
+             PolygonSession otherSession = sessionBuilder(server).build()) {
+            session.problemsList(null, null, null, null);
+            session.problemInfo(problem.getId());
+            otherSession.problemUpdateInfo(problem.getId(), null, null, null, 3000, null);
+
+            assertEquals(1000, session.problemInfo(problem.getId()).getTimeLimit());
+            session.problemsList(null, problem.getId(), null, null);
+            assertEquals(3000, session.problemInfo(problem.getId()).getTimeLimit());
+        }
+    }
+
+    @Test
+    void expiresResultsAfterTtl(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        ResponseCache cache = new ResponseCache(1000, 1L << 20, 50L);
+        try (PolygonSession session = createSession(server, cache)) {
+            session.problemInfo(problem.getId());
+            Thread.sleep(100);
+            session.problemInfo(problem.getId());
+
+            assertEquals(2, server.getRequestCount("problem.info"));
+            assertEquals(0, cache.getHitCount());
+        }
+    }
+
+    @Test
+    void rejectsResultsSentBeforeForgottenInvalidations() {
+        ResponseCache cache = new ResponseCache(2, 1L << 20, 60000L);
+        List<String> key = List.of("problem.info", "1");
+        long version = cache.getVersion(1);
+        cache.invalidate(1);
+        cache.invalidate(2);
+        cache.invalidate(3);
+
+        cache.put(1, key, new JsonPrimitive("stale"), version);
+        assertNull(cache.get(1, key));
+        cache.put(1, key, new JsonPrimitive("fresh"), cache.getVersion(1));
+        assertEquals(new JsonPrimitive("fresh"), cache.get(1, key));
+    }
+
+    @Test
+    void invalidatesProblemsWhoseRevisionsAreForgotten() {
+        ResponseCache cache = new ResponseCache(2, 1L << 20, 60000L);
+        List<String> key = List.of("problem.info", "1");
+        cache.updateRevision(1, 1, false);
+        cache.put(1, key, new JsonPrimitive("old"), cache.getVersion(1));
+        cache.updateRevision(2, 1, false);
+        cache.updateRevision(3, 1, false);
+        assertNull(cache.get(1, key));
+
+        // Problem 2 has no cached results, so forgetting its revision does not invalidate anything.
+        cache.put(1, key, new JsonPrimitive("new"), cache.getVersion(1));
+        cache.updateRevision(1, 1, false);
+        assertEquals(new JsonPrimitive("new"), cache.get(1, key));
+    }
+
+    private static PolygonSession createSession(final FakePolygonServer server, final ResponseCache cache) {
+        return sessionBuilder(server).withResponseCache(cache).build();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.perveevm.polygon.api.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+import ru.perveevm.polygon.api.entities.Problem;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link JSONResponseDecoder} on well-formed and malformed response envelopes.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+class JSONResponseDecoderTest {
+    private static final String PROBLEM = "{\"id\":1,\"owner\":\"alice\",\"name\":\"a-plus-b\",\"revision\":3}";
+
+    private final JSONResponseDecoder decoder = new JSONResponseDecoder(new Gson());
+
+    @Test
+    void decodesOkResponse() {
+        DecodedJSONResponse<Problem> response = decode("{\"status\":\"OK\",\"result\":" + PROBLEM + "}");
+
+        assertEquals(JSONResponseStatus.OK, response.getStatus());
+        assertNull(response.getComment());
+        assertEquals("a-plus-b", response.getResult().getName());
+        assertEquals(3, response.getResult().getRevision());
+    }
+
+    @Test
+    void decodesFailedResponse() {
+        DecodedJSONResponse<Problem> response = decode(
+                "{\"status\":\"FAILED\",\"comment\":\"problemId: Problem not found\",\"result\":[1,2]}");
+
+        assertEquals(JSONResponseStatus.FAILED, response.getStatus());
+        assertEquals("problemId: Problem not found", response.getComment());
+        assertNull(response.getResult());
+    }
+
+    @Test
+    void decodesResultThatComesBeforeStatus() {
+        DecodedJSONResponse<Problem> response = decode("{\"result\":" + PROBLEM + ",\"status\":\"OK\"}");
+
+        assertEquals(JSONResponseStatus.OK, response.getStatus());
+        assertEquals("a-plus-b", response.getResult().getName());
+    }
+
+    @Test
+    void doesNotDecodeResultOfFailedResponseThatComesBeforeStatus() {
+        // The result does not match the type, so it must not be decoded.
+        DecodedJSONResponse<Problem> response = decode(
+                "{\"result\":\"Internal error\",\"comment\":\"Try again\",\"status\":\"FAILED\"}");
+
+        assertEquals(JSONResponseStatus.FAILED, response.getStatus());
+        assertEquals("Try again", response.getComment());
+        assertNull(response.getResult());
+    }
+
+    @Test
+    void rejectsResponseWithoutStatus() {
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"result\":" + PROBLEM + "}"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"status\":null,\"result\":" + PROBLEM + "}"));
+    }
+
+    @Test
+    void rejectsDataAfterResponse() {
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"status\":\"OK\",\"result\":" + PROBLEM + "}{}"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"status\":\"OK\",\"result\":null} <html>"));
+        assertEquals(JSONResponseStatus.OK, decode("{\"status\":\"OK\",\"result\":null}\n").getStatus());
+    }
+
+    @Test
+    void rejectsMalformedResponse() {
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"status\":\"OK\",\"result\":{\"id\":1"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{status:'OK',result:null}"));
+        assertThrows(JsonSyntaxException.class, () -> decode("<html>Service Unavailable</html>"));
+    }
+
+    private DecodedJSONResponse<Problem> decode(final String body) {
+        return decoder.decode(new StringReader(body), Problem.class);
+    }
+}
@@ -0,0 +1,152 @@
+package ru.perveevm.polygon.api.limit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.api.retry.BackoffRetryPolicy;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.testkit.FakeError;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests the AIMD limit of {@link ConcurrencyLimiter} alone and as a part of {@link PolygonSession} against
+ * {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class ConcurrencyLimiterTest {
+    @Test
+    void increasesLimitWhileItIsUsed() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 64).withLatencyTolerance(1e9);
+        for (int round = 0; round < 10; round++) {
+            List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                permits.add(limiter.acquire("problem.info"));
+            }
+            permits.forEach(ConcurrencyLimiter.Permit::onSuccess);
+        }
+
+        assertTrue(limiter.getLimit() > 4);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void decreasesLimitOncePerOverload() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 1, 64);
+        ConcurrencyLimiter.Permit first = limiter.acquire("problem.info");
+        ConcurrencyLimiter.Permit second = limiter.acquire("problem.info");
+
+        first.onDropped();
+        assertEquals(12, limiter.getLimit());
+        // The second request was sent before the first decrease, so it reports the same overload.
+        second.onDropped();
+        assertEquals(12, limiter.getLimit());
+
+        ConcurrencyLimiter.Permit third = limiter.acquire("problem.info");
+        third.onDropped();
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void queuesRequestsOverLimit() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        ConcurrencyLimiter.Permit permit = limiter.acquire("problem.info");
+        CompletableFuture<ConcurrencyLimiter.Permit> waiting = limiter.acquireAsync("problem.info");
+        assertFalse(waiting.isDone());
+
+        permit.onIgnored();
+        assertTrue(waiting.isDone());
+        assertEquals(1, limiter.getInFlight());
+        waiting.join().onSuccess();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void decreasesLimitOnOverloadResponses(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 64);
+        try (PolygonSession session = createSession(server, limiter)) {
+            server.failNext(1, FakeError.UNAVAILABLE);
+
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(6, limiter.getLimit());
+            assertEquals(0, limiter.getInFlight());
+        }
+    }
+
+    @Test
+    void releasesPermitsAfterResponseBodies(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        problem.addTest("tests", 1, 1 << 20);
+        try (PolygonSession session = createSession(server, limiter)) {
+            for (int i = 0; i < 3; i++) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                session.problemTestInput(problem.getId(), "tests", 1, outputStream);
+                assertEquals(1 << 20, outputStream.size());
+                assertEquals(0, limiter.getInFlight());
+            }
+            session.problemInfo(problem.getId());
+            assertEquals(0, limiter.getInFlight());
+        }
+    }
+
+    @Test
+    void doesNotCountSlowReadingOfBodiesAsLatency(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 4).withLatencyTolerance(10);
+        problem.addTest("tests", 1, 1 << 18);
+        // The first requests are much slower while the JVM warms up, so they are sent without the limiter.
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            for (int i = 0; i < 20; i++) {
+                session.problemTestInput(problem.getId(), "tests", 1, new ByteArrayOutputStream());
+            }
+        }
+        try (PolygonSession session = createSession(server, limiter)) {
+            for (int i = 0; i < 20; i++) {
+                session.problemTestInput(problem.getId(), "tests", 1, new ByteArrayOutputStream());
+            }
+            OutputStream slowOutputStream = new OutputStream() {
+                @Override
+                public void write(final int b) {
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+            };
+            for (int i = 0; i < 15; i++) {
+                session.problemTestInput(problem.getId(), "tests", 1, slowOutputStream);
+            }
+
+            assertEquals(4, limiter.getLimit());
+            assertEquals(0, limiter.getInFlight());
+        }
+    }
+
+    private static PolygonSession createSession(final FakePolygonServer server, final ConcurrencyLimiter limiter) {
+        return sessionBuilder(server).withRetryPolicy(new BackoffRetryPolicy().withMaxRetries(0))
+                .withConcurrencyLimiter(limiter).build();
+    }
+}
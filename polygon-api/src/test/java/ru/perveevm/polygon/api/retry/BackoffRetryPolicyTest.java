@@ -0,0 +1,124 @@
+package ru.perveevm.polygon.api.retry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionHTTPErrorException;
+import ru.perveevm.polygon.testkit.FakeError;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests retries of {@link PolygonSession} requests with {@link BackoffRetryPolicy} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class BackoffRetryPolicyTest {
+    @Test
+    void retriesUnavailableResponses(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries())) {
+            server.failNext(3, FakeError.UNAVAILABLE);
+
+            assertNotNull(session.problemInfo(problem.getId()));
+            assertEquals(4, server.getRequestCount("problem.info"));
+        }
+    }
+
+    @Test
+    void retriesDroppedConnectionsOfReadOnlyRequests(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries())) {
+            server.failNext(2, FakeError.DISCONNECT);
+
+            assertNotNull(session.problemInfo(problem.getId()));
+            assertEquals(3, server.getRequestCount("problem.info"));
+        }
+    }
+
+    @Test
+    void doesNotRetryDroppedConnectionsOfNonIdempotentRequests(final FakePolygonServer server) throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries())) {
+            server.failNext(1, FakeError.DISCONNECT);
+
+            assertThrows(PolygonSessionHTTPErrorException.class, () -> session.problemCreate("b-plus-a"));
+            assertEquals(1, server.getRequestCount("problem.create"));
+        }
+    }
+
+    @Test
+    void retriesNonIdempotentRequestsThatWereNotProcessed(final FakePolygonServer server) throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries())) {
+            server.failNext(1, FakeError.UNAVAILABLE);
+
+            assertEquals("b-plus-a", session.problemCreate("b-plus-a").getName());
+            assertEquals(2, server.getRequestCount("problem.create"));
+        }
+    }
+
+    @Test
+    void stopsAfterMaxRetries(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries().withMaxRetries(2))) {
+            server.failNext(10, FakeError.UNAVAILABLE);
+
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(3, server.getRequestCount("problem.info"));
+        }
+    }
+
+    @Test
+    void doesNotRetryStatusCodesThatAreNotRetryable(final FakePolygonServer server, final FakeProblem problem)
+            throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries().withRetryableStatusCodes(429))) {
+            server.failNext(1, FakeError.UNAVAILABLE);
+
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(1, server.getRequestCount("problem.info"));
+        }
+    }
+
+    @Test
+    void stopsWhenBudgetIsExhausted(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        RetryBudget budget = new RetryBudget(0.0, 2);
+        try (PolygonSession session = createSession(server, fastRetries().withBudget(budget))) {
+            server.failNext(5, FakeError.UNAVAILABLE);
+
+            assertThrows(PolygonSessionException.class, () -> session.problemInfo(problem.getId()));
+            assertEquals(3, server.getRequestCount("problem.info"));
+            assertEquals(0, budget.getAvailableRetries());
+        }
+    }
+
+    @Test
+    void retriesAsynchronousRequests(final FakePolygonServer server, final FakeProblem problem) throws Exception {
+        try (PolygonSession session = createSession(server, fastRetries())) {
+            server.failNext(3, FakeError.UNAVAILABLE);
+
+            assertNotNull(session.async().problemInfo(problem.getId()).get());
+            assertEquals(4, server.getRequestCount("problem.info"));
+
+            server.failNext(1, FakeError.DISCONNECT);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> session.async().problemCreate("b-plus-a").get());
+            assertInstanceOf(PolygonSessionHTTPErrorException.class, e.getCause());
+        }
+    }
+
+    private static BackoffRetryPolicy fastRetries() {
+        return new BackoffRetryPolicy().withStartWaitMs(5);
+    }
+
+    private static PolygonSession createSession(final FakePolygonServer server, final RetryPolicy retryPolicy) {
+        return sessionBuilder(server).withRetryPolicy(retryPolicy).build();
+    }
+}
@@ -0,0 +1,308 @@
+package ru.perveevm.polygon.utils;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import ru.perveevm.polygon.api.PolygonSession;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionBadResponseException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionException;
+import ru.perveevm.polygon.exceptions.api.PolygonSessionHTTPErrorException;
+import ru.perveevm.polygon.testkit.FakePolygonServer;
+import ru.perveevm.polygon.testkit.FakePolygonServerExtension;
+import ru.perveevm.polygon.testkit.FakeProblem;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.perveevm.polygon.api.FakeSessions.sessionBuilder;
+
+/**
+ * Tests resumable and conditional downloads of {@link HttpUtils} against {@link FakePolygonServer}.
+ *
+ * @author Mike Perveev (perveev_m@mail.ru)
+ */
+@ExtendWith(FakePolygonServerExtension.class)
+class HttpUtilsTest {
+    @TempDir
+    Path directory;
+
+    private final CloseableHttpClient client = HttpClients.createDefault();
+    private final List<Integer> statuses = new ArrayList<>();
+    private final List<Header[]> sentHeaders = new ArrayList<>();
+    private FakePolygonServer server;
+    private FakeProblem problem;
+    private File downloadPath;
+
+    @BeforeEach
+    void setUp(final FakePolygonServer server, final FakeProblem problem) {
+        server.setPackagePaddingLength(100000);
+        this.server = server;
+        this.problem = problem;
+        this.downloadPath = directory.resolve("problem.zip").toFile();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    void resumesTruncatedDownload() throws Exception {
+        int revision = buildPackage();
+        String url = getPackageUrl(revision);
+        byte[] content = download(url);
+
+        assertThrows(PolygonSessionHTTPErrorException.class, () -> HttpUtils.downloadFileResumable(url, url,
+                headers -> truncate(send(url, headers), 30000), downloadPath));
+        assertFalse(downloadPath.exists());
+        assertEquals(30000, getPartFile().length());
+
+        HttpUtils.downloadFileResumable(url, url, headers -> send(url, headers), downloadPath);
+        assertEquals(List.of(200, 200, 206), statuses);
+        assertEquals("bytes=30000-", getHeader(2, HttpHeaders.RANGE));
+        assertNotNull(getHeader(2, HttpHeaders.IF_RANGE));
+        assertDownloaded(content);
+    }
+
+    @Test
+    void downloadsWholeFileIfServerIgnoresRange() throws Exception {
+        int revision = buildPackage();
+        String url = getPackageUrl(revision);
+        byte[] content = download(url);
+        assertThrows(PolygonSessionHTTPErrorException.class, () -> HttpUtils.downloadFileResumable(url, url,
+                headers -> truncate(send(url, headers), 30000), downloadPath));
+
+        // The server answers with 200 and the whole file, which must not be appended to the part file.
+        HttpUtils.downloadFileResumable(url, url, headers -> send(url), downloadPath);
+        assertEquals(List.of(200, 200, 200), statuses);
+        assertDownloaded(content);
+    }
+
+    @Test
+    void finishesDownloadIfRangeIsNotSatisfiable() throws Exception {
+        int revision = buildPackage();
+        String url = getPackageUrl(revision);
+        byte[] content = download(url);
+        // The connection is dropped after the whole file was received.
+        assertThrows(PolygonSessionHTTPErrorException.class, () -> HttpUtils.downloadFileResumable(url, url,
+                headers -> truncate(send(url, headers), content.length), downloadPath));
+        assertEquals(content.length, getPartFile().length());
+
+        HttpUtils.downloadFileResumable(url, url, headers -> send(url, headers), downloadPath);
+        assertEquals(List.of(200, 200, 416), statuses);
+        assertDownloaded(content);
+    }
+
+    @Test
+    void restartsDownloadIfResourceChanged() throws Exception {
+        String url = getPackageUrl(buildPackage());
+        assertThrows(PolygonSessionHTTPErrorException.class, () -> HttpUtils.downloadFileResumable(url, url,
+                headers -> truncate(send(url, headers), 30000), downloadPath));
+
+        // The same resource now has a different ETag and length, so the server ignores the range.
+        server.setPackagePaddingLength(120000);
+        String newUrl = getPackageUrl(buildPackage());
+        byte[] newContent = download(newUrl);
+        HttpUtils.downloadFileResumable(url, url, headers -> send(newUrl, headers), downloadPath);
+        assertEquals(List.of(200, 200, 200), statuses);
+        assertNotNull(getHeader(2, HttpHeaders.IF_RANGE));
+        assertDownloaded(newContent);
+    }
+
+    @Test
+    void restartsDownloadOfAnotherResource() throws Exception {
+        String url = getPackageUrl(buildPackage());
+        assertThrows(PolygonSessionHTTPErrorException.class, () -> HttpUtils.downloadFileResumable(url, url,
+                headers -> truncate(send(url, headers), 30000), downloadPath));
+
+        String newUrl = getPackageUrl(buildPackage());
+        byte[] newContent = download(newUrl);
+        HttpUtils.downloadFileResumable(newUrl, newUrl, headers -> send(newUrl, headers), downloadPath);
+        assertNull(getHeader(2, HttpHeaders.RANGE));
+        assertDownloaded(newContent);
+    }
+
+    @Test
+    void leavesDescriptorAsIsIfNotModified() throws Exception {
+        String url = getDescriptorUrl();
+        assertTrue(downloadDescriptor(url));
+        byte[] content = Files.readAllBytes(getDescriptorPath().toPath());
+        Files.setLastModifiedTime(getDescriptorPath().toPath(), FileTime.fromMillis(0));
+
+        assertFalse(downloadDescriptor(url));
+        assertEquals(List.of(200, 304), statuses);
+        assertNotNull(getHeader(1, HttpHeaders.IF_NONE_MATCH));
+        assertArrayEquals(content, Files.readAllBytes(getDescriptorPath().toPath()));
+        assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(getDescriptorPath().toPath()));
+    }
+
+    @Test
+    void ignoresValidatorsOfDeletedOrChangedDescriptor() throws Exception {
+        String url = getDescriptorUrl();
+        assertTrue(downloadDescriptor(url));
+        byte[] content = Files.readAllBytes(getDescriptorPath().toPath());
+
+        Files.delete(getDescriptorPath().toPath());
+        assertTrue(downloadDescriptor(url));
+        assertNull(getHeader(1, HttpHeaders.IF_NONE_MATCH));
+        assertArrayEquals(content, Files.readAllBytes(getDescriptorPath().toPath()));
+
+        Files.write(getDescriptorPath().toPath(), new byte[]{'\n'}, StandardOpenOption.APPEND);
+        assertTrue(downloadDescriptor(url));
+        assertNull(getHeader(2, HttpHeaders.IF_NONE_MATCH));
+        assertEquals(List.of(200, 200, 200), statuses);
+        assertArrayEquals(content, Files.readAllBytes(getDescriptorPath().toPath()));
+    }
+
+    @Test
+    void replacesDescriptorAndValidatorsIfModified() throws Exception {
+        String url = getDescriptorUrl();
+        assertTrue(downloadDescriptor(url));
+        String eTag = getValidators().getProperty("etag");
+        assertNotNull(eTag);
+
+        problem.setTags("math");
+        assertTrue(downloadDescriptor(url));
+        assertEquals(List.of(200, 200), statuses);
+        assertEquals(eTag, getHeader(1, HttpHeaders.IF_NONE_MATCH));
+        assertTrue(Files.readString(getDescriptorPath().toPath()).contains("<tag value=\"math\"/>"));
+        assertNotEquals(eTag, getValidators().getProperty("etag"));
+
+        assertFalse(downloadDescriptor(url));
+        assertEquals(304, statuses.get(2));
+    }
+
+    @Test
+    void keepsDescriptorAndValidatorsIfRequestFails() throws Exception {
+        String url = getDescriptorUrl();
+        assertTrue(downloadDescriptor(url));
+        byte[] content = Files.readAllBytes(getDescriptorPath().toPath());
+        Properties validators = getValidators();
+
+        problem.setTags("math");
+        String wrongUrl = url.replace(FakePolygonServerExtension.PASSWORD, "wrong-password");
+        assertThrows(PolygonSessionBadResponseException.class, () -> HttpUtils.downloadFileConditional(url, url,
+                headers -> send(wrongUrl, headers), getDescriptorPath()));
+        assertEquals(List.of(200, 403), statuses);
+        assertArrayEquals(content, Files.readAllBytes(getDescriptorPath().toPath()));
+        assertEquals(validators, getValidators());
+    }
+
+    private int buildPackage() throws Exception {
+        try (PolygonSession session = sessionBuilder(server).build()) {
+            session.problemSaveGeneralTutorial(problem.getId(), "Revision " + problem.getRevision());
+            session.problemCommitChanges(problem.getId(), true, null);
+            session.problemBuildPackage(problem.getId(), false, false);
+        }
+        return problem.getRevision();
+    }
+
+    private String getPackageUrl(final int revision) {
+        return String.format("%s?login=%s&password=%s&revision=%d&type=standard", server.getProblemUrl(problem),
+                FakePolygonServerExtension.LOGIN, FakePolygonServerExtension.PASSWORD, revision);
+    }
+
+    private String getDescriptorUrl() {
+        return String.format("%s/problem.xml?login=%s&password=%s", server.getProblemUrl(problem),
+                FakePolygonServerExtension.LOGIN, FakePolygonServerExtension.PASSWORD);
+    }
+
+    private File getDescriptorPath() {
+        return directory.resolve("problem.xml").toFile();
+    }
+
+    private boolean downloadDescriptor(final String url) throws PolygonSessionException {
+        return HttpUtils.downloadFileConditional(url, url, headers -> send(url, headers), getDescriptorPath());
+    }
+
+    private Properties getValidators() throws IOException {
+        Properties validators = new Properties();
+        try (InputStream inputStream = Files.newInputStream(directory.resolve("problem.xml.validators.properties"))) {
+            validators.load(inputStream);
+        }
+        return validators;
+    }
+
+    private byte[] download(final String url) throws Exception {
+        HttpResponse response = send(url);
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        try (InputStream inputStream = response.getEntity().getContent()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private HttpResponse send(final String url, final Header... headers) throws PolygonSessionException {
+        HttpGet request = new HttpGet(url);
+        request.setHeaders(headers);
+        try {
+            HttpResponse response = client.execute(request);
+            statuses.add(response.getStatusLine().getStatusCode());
+            sentHeaders.add(headers);
+            return response;
+        } catch (IOException e) {
+            throw new PolygonSessionHTTPErrorException(url, e);
+        }
+    }
+
+    private String getHeader(final int request, final String name) {
+        return Arrays.stream(sentHeaders.get(request)).filter(header -> header.getName().equals(name))
+                .map(Header::getValue).findFirst().orElse(null);
+    }
+
+    private File getPartFile() {
+        return new File(downloadPath.getPath() + ".part");
+    }
+
+    private void assertDownloaded(final byte[] content) throws IOException {
+        assertArrayEquals(content, Files.readAllBytes(downloadPath.toPath()));
+        assertFalse(getPartFile().exists());
+        assertFalse(new File(downloadPath.getPath() + ".part.properties").exists());
+    }
+
+    /**
+     * Makes the connection drop after the given number of bytes of the response body.
+     */
+    private static HttpResponse truncate(final HttpResponse response, final int length) {
+        response.setEntity(new HttpEntityWrapper(response.getEntity()) {
+            @Override
+            public InputStream getContent() throws IOException {
+                byte[] received = super.getContent().readNBytes(length);
+                return new SequenceInputStream(new ByteArrayInputStream(received), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+            }
+        });
+        return response;
+    }
+}